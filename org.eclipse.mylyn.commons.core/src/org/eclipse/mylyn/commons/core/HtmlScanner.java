@@ -0,0 +1,577 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URL;
+import java.text.ParseException;
+import java.util.Arrays;
+
+import javax.swing.text.html.HTML.Tag;
+
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * Splits HTML into the same tokens as {@link HtmlStreamTokenizer} without allocating objects for each token. Input is
+ * read in blocks into a char array and the scanner itself represents the current token: text, tag name and attributes
+ * are only valid until {@link #next()} is invoked again. Tag types are resolved without creating strings and
+ * attributes are only parsed when they are accessed.
+ * <p>
+ * Use {@link #createTag(URL)} or the <code>toString()</code> method of the returned character sequences to retain
+ * parts of a token.
+ *
+ * @since 3.26
+ */
+public class HtmlScanner {
+
+	public enum TokenType {
+		COMMENT, EOF, TAG, TEXT
+	}
+
+	private enum State {
+		COMMENT, EOF, TAG, TAG_QUOTE, TEXT, WS
+	}
+
+	/**
+	 * A growable character buffer that is reused for each token.
+	 */
+	private static class CharBuffer implements CharSequence {
+
+		private char[] chars;
+
+		private int length;
+
+		CharBuffer(int capacity) {
+			chars = new char[capacity];
+		}
+
+		public char charAt(int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			}
+			return chars[index];
+		}
+
+		public int length() {
+			return length;
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length || start > end) {
+				throw new IndexOutOfBoundsException();
+			}
+			return new String(chars, start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(chars, 0, length);
+		}
+
+		void append(char c) {
+			if (length == chars.length) {
+				chars = Arrays.copyOf(chars, length * 2);
+			}
+			chars[length++] = c;
+		}
+
+		void clear() {
+			length = 0;
+		}
+
+	}
+
+	private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+	private static final int ATTRIBUTE_NAME_END = 1;
+
+	private static final int ATTRIBUTE_NAME_START = 0;
+
+	/** number of ints that describe an attribute */
+	private static final int ATTRIBUTE_SIZE = 5;
+
+	private static final int ATTRIBUTE_UNESCAPE = 4;
+
+	private static final int ATTRIBUTE_VALUE_END = 3;
+
+	private static final int ATTRIBUTE_VALUE_START = 2;
+
+	private int attributeCount;
+
+	/** offsets of attribute names and values in the text of the current tag */
+	private int[] attributes = new int[8 * ATTRIBUTE_SIZE];
+
+	private boolean attributesParsed;
+
+	private int attributesStart;
+
+	private final char[] buffer;
+
+	private boolean endTag;
+
+	private final Reader in;
+
+	private int limit;
+
+	private int nameEnd;
+
+	private int nameStart;
+
+	private int position;
+
+	private boolean pushedBack;
+
+	private int quoteChar;
+
+	private boolean selfTerminating;
+
+	private State state = State.TEXT;
+
+	private String tagName;
+
+	private Tag tagType;
+
+	private final CharBuffer text = new CharBuffer(256);
+
+	private TokenType type;
+
+	private boolean unescapeAttributeValues = true;
+
+	private final CharBuffer whitespace = new CharBuffer(64);
+
+	public HtmlScanner(Reader in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param bufferSize
+	 *            the number of characters that are read from <code>in</code> at once
+	 */
+	public HtmlScanner(Reader in, int bufferSize) {
+		Assert.isNotNull(in);
+		Assert.isLegal(bufferSize > 0);
+		this.in = in;
+		this.buffer = new char[bufferSize];
+	}
+
+	/**
+	 * Returns a tag that holds the name and attributes of the current token which must be of type
+	 * {@link TokenType#TAG}.
+	 */
+	public HtmlTag createTag(URL base) {
+		Assert.isTrue(type == TokenType.TAG);
+		HtmlTag tag = new HtmlTag(base);
+		tag.setTagName((endTag) ? "/" + getTagName() : getTagName()); //$NON-NLS-1$
+		for (int i = 0; i < getAttributeCount(); i++) {
+			tag.setAttribute(getAttributeName(i), getAttributeValue(i));
+		}
+		tag.setSelfTerminating(isSelfTerminating());
+		return tag;
+	}
+
+	/**
+	 * Returns the value of an attribute of the current tag. If the attribute is specified more than once the last value
+	 * is returned.
+	 *
+	 * @param name
+	 *            the lower case name of the attribute
+	 * @return the value, or <code>null</code> if the tag does not have the attribute
+	 */
+	public String getAttribute(String name) {
+		parseAttributes();
+		for (int i = attributeCount - 1; i >= 0; i--) {
+			if (attributeNameEquals(i, name)) {
+				return getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+
+	public int getAttributeCount() {
+		parseAttributes();
+		return attributeCount;
+	}
+
+	/**
+	 * Returns the lower case name of the attribute at <code>index</code>.
+	 */
+	public String getAttributeName(int index) {
+		checkAttributeIndex(index);
+		int offset = index * ATTRIBUTE_SIZE;
+		int start = attributes[offset + ATTRIBUTE_NAME_START];
+		int end = attributes[offset + ATTRIBUTE_NAME_END];
+		char[] name = new char[end - start];
+		for (int i = 0; i < name.length; i++) {
+			name[i] = Character.toLowerCase(text.chars[start + i]);
+		}
+		return new String(name);
+	}
+
+	/**
+	 * Returns the value of the attribute at <code>index</code>. Quoted values are unescaped as specified by
+	 * {@link #setUnescapeAttributeValues(boolean)}.
+	 */
+	@SuppressWarnings("deprecation")
+	public String getAttributeValue(int index) {
+		checkAttributeIndex(index);
+		int offset = index * ATTRIBUTE_SIZE;
+		int start = attributes[offset + ATTRIBUTE_VALUE_START];
+		String value = new String(text.chars, start, attributes[offset + ATTRIBUTE_VALUE_END] - start);
+		return (attributes[offset + ATTRIBUTE_UNESCAPE] != 0) ? HtmlStreamTokenizer.unescape(value) : value;
+	}
+
+	/**
+	 * Returns the name of the current tag as specified in the document without a leading slash.
+	 *
+	 * @return the name, or <code>null</code> if the current token is not a tag
+	 */
+	public String getTagName() {
+		if (type != TokenType.TAG) {
+			return null;
+		}
+		if (tagName == null) {
+			tagName = new String(text.chars, nameStart, nameEnd - nameStart);
+		}
+		return tagName;
+	}
+
+	/**
+	 * Returns the type of the current tag.
+	 *
+	 * @return the type, or <code>null</code> if the current token is not a tag
+	 */
+	public Tag getTagType() {
+		return (type == TokenType.TAG) ? tagType : null;
+	}
+
+	/**
+	 * Returns the text of the current token. For comments the text excludes the comment delimiters, for tags it is the
+	 * content between the angle brackets.
+	 */
+	public CharSequence getText() {
+		return text;
+	}
+
+	/**
+	 * Returns the type of the current token.
+	 *
+	 * @return the type, or <code>null</code> if {@link #next()} has not been invoked
+	 */
+	public TokenType getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the whitespace that precedes the current token.
+	 */
+	public CharSequence getWhitespace() {
+		return whitespace;
+	}
+
+	/**
+	 * Returns <code>true</code> if the current token is a closing tag.
+	 */
+	public boolean isEndTag() {
+		return type == TokenType.TAG && endTag;
+	}
+
+	/**
+	 * Returns <code>true</code> if the current token is a tag that is terminated by a slash.
+	 */
+	public boolean isSelfTerminating() {
+		parseAttributes();
+		return selfTerminating;
+	}
+
+	/**
+	 * Advances to the next token.
+	 *
+	 * @return the type of the token
+	 * @throws ParseException
+	 *             if a tag does not have a name
+	 */
+	public TokenType next() throws IOException, ParseException {
+		if (pushedBack) {
+			pushedBack = false;
+			return type;
+		}
+
+		type = null;
+		tagName = null;
+		tagType = null;
+		endTag = false;
+		selfTerminating = false;
+		attributeCount = 0;
+		attributesParsed = true;
+		text.clear();
+		whitespace.clear();
+
+		int closingComment = 0;
+		while (true) {
+			if (position == limit && !fill()) {
+				State oldState = state;
+				state = State.EOF;
+				type = (text.length > 0 && oldState == State.TEXT) ? TokenType.TEXT : TokenType.EOF;
+				return type;
+			}
+			char ch = buffer[position++];
+			switch (state) {
+			case TEXT:
+				if (ch == '<') {
+					state = State.TAG;
+					if (text.length > 0) {
+						type = TokenType.TEXT;
+						return type;
+					}
+				} else if (Character.isWhitespace(ch)) {
+					position--;
+					state = State.WS;
+					if (text.length > 0) {
+						type = TokenType.TEXT;
+						return type;
+					}
+				} else {
+					text.append(ch);
+				}
+				break;
+			case WS:
+				if (!Character.isWhitespace(ch)) {
+					position--;
+					state = State.TEXT;
+				} else {
+					whitespace.append(ch);
+				}
+				break;
+			case TAG:
+				if (ch == '>') {
+					state = State.TEXT;
+					parseTag();
+					type = TokenType.TAG;
+					return type;
+				}
+				if (ch == '<' && text.length == 0) {
+					text.append('<');
+					text.append('<');
+					state = State.TEXT;
+				} else if (ch == '-' && text.length == 2 && text.chars[1] == '-' && text.chars[0] == '!') {
+					text.clear();
+					state = State.COMMENT;
+				} else if (ch == '\'' || ch == '"') {
+					quoteChar = ch;
+					text.append(ch);
+					state = State.TAG_QUOTE;
+				} else {
+					text.append(ch);
+				}
+				break;
+			case TAG_QUOTE:
+				if (ch == '>') {
+					position--;
+					state = State.TAG;
+				} else {
+					text.append(ch);
+					if (ch == quoteChar) {
+						state = State.TAG;
+					}
+				}
+				break;
+			case COMMENT:
+				if (ch == '>' && closingComment >= 2) {
+					text.length -= 2;
+					state = State.TEXT;
+					type = TokenType.COMMENT;
+					return type;
+				}
+				if (ch == '-') {
+					closingComment++;
+				} else {
+					closingComment = 0;
+				}
+				text.append(ch);
+				break;
+			default:
+				// ignore input after the end of the stream
+			}
+		}
+	}
+
+	/**
+	 * Causes the subsequent invocation of {@link #next()} to return the current token again.
+	 */
+	public void pushback() {
+		Assert.isTrue(type != null);
+		pushedBack = true;
+	}
+
+	/**
+	 * Specifies whether entity references in quoted attribute values are replaced by the corresponding characters.
+	 * Values in single quotes are always unescaped for compatibility with {@link HtmlStreamTokenizer}. The default is
+	 * <code>true</code>.
+	 */
+	public void setUnescapeAttributeValues(boolean unescapeAttributeValues) {
+		this.unescapeAttributeValues = unescapeAttributeValues;
+	}
+
+	private void addAttribute(int nameStart, int nameEnd, int valueStart, int valueEnd, boolean unescape) {
+		int offset = attributeCount * ATTRIBUTE_SIZE;
+		if (offset == attributes.length) {
+			attributes = Arrays.copyOf(attributes, attributes.length * 2);
+		}
+		attributes[offset + ATTRIBUTE_NAME_START] = nameStart;
+		attributes[offset + ATTRIBUTE_NAME_END] = nameEnd;
+		attributes[offset + ATTRIBUTE_VALUE_START] = valueStart;
+		attributes[offset + ATTRIBUTE_VALUE_END] = valueEnd;
+		attributes[offset + ATTRIBUTE_UNESCAPE] = (unescape) ? 1 : 0;
+		attributeCount++;
+	}
+
+	private boolean attributeNameEquals(int index, String name) {
+		int offset = index * ATTRIBUTE_SIZE;
+		int start = attributes[offset + ATTRIBUTE_NAME_START];
+		if (attributes[offset + ATTRIBUTE_NAME_END] - start != name.length()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (Character.toLowerCase(text.chars[start + i]) != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void checkAttributeIndex(int index) {
+		parseAttributes();
+		if (index < 0 || index >= attributeCount) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+	}
+
+	private boolean fill() throws IOException {
+		int count = in.read(buffer, 0, buffer.length);
+		if (count <= 0) {
+			return false;
+		}
+		position = 0;
+		limit = count;
+		return true;
+	}
+
+	/**
+	 * Parses the attributes of the current tag. The rules are looser than the RFC specifies and match
+	 * {@link HtmlStreamTokenizer}: attribute names extend to the next whitespace or equal sign and unquoted values to
+	 * the next whitespace.
+	 */
+	private void parseAttributes() {
+		if (attributesParsed) {
+			return;
+		}
+		attributesParsed = true;
+
+		char[] s = text.chars;
+		int length = text.length;
+		int i = attributesStart;
+		while (i < length) {
+			while (i < length && Character.isWhitespace(s[i])) {
+				i++;
+			}
+			if (i == length) {
+				return;
+			}
+
+			int start = i;
+			while (i < length && !Character.isWhitespace(s[i]) && s[i] != '=') {
+				i++;
+			}
+			int end = i;
+			if (end - start == 1 && s[start] == '/') {
+				selfTerminating = true;
+				continue;
+			}
+
+			while (i < length && Character.isWhitespace(s[i])) {
+				i++;
+			}
+			if (i == length || s[i] != '=') {
+				// no attribute value
+				addAttribute(start, end, 0, 0, false);
+				continue;
+			}
+
+			// skip whitespace to the start of attribute value
+			for (i = i + 1; i < length && Character.isWhitespace(s[i]); i++) {
+				// just move forward
+			}
+			if (i == length) {
+				return;
+			}
+
+			char quote = s[i];
+			if (quote == '"' || quote == '\'') {
+				int valueStart = ++i;
+				while (i < length && s[i] != quote) {
+					i++;
+				}
+				if (i == length) {
+					// unterminated value
+					return;
+				}
+				addAttribute(start, end, valueStart, i, quote == '\'' || unescapeAttributeValues);
+				i++;
+			} else {
+				int valueStart = i;
+				while (i < length && !Character.isWhitespace(s[i])) {
+					i++;
+				}
+				addAttribute(start, end, valueStart, i, false);
+			}
+		}
+	}
+
+	private void parseTag() throws ParseException {
+		char[] s = text.chars;
+		int length = text.length;
+		int i = 0;
+		while (i < length && Character.isWhitespace(s[i])) {
+			i++;
+		}
+		if (i == length) {
+			throw new ParseException("parse empty tag", 0); //$NON-NLS-1$
+		}
+
+		int start = i;
+		while (i < length && !Character.isWhitespace(s[i])) {
+			i++;
+		}
+		int end = i;
+		if (s[end - 1] == '/') {
+			// attributes of tags that are terminated by a slash directly following the name are ignored
+			selfTerminating = true;
+			end--;
+		} else {
+			attributesStart = end;
+			attributesParsed = false;
+		}
+		if (start < end && s[start] == '/') {
+			endTag = true;
+			start++;
+		}
+		if (start == end) {
+			throw new ParseException("Empty tag name", start); //$NON-NLS-1$
+		}
+		nameStart = start;
+		nameEnd = end;
+		tagType = HtmlTag.getTagType(text, start, end - start);
+	}
+
+}
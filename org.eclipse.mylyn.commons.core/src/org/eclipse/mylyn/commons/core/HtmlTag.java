@@ -124,10 +124,7 @@ public class HtmlTag {
 			throw new IllegalArgumentException("Empty tag name"); //$NON-NLS-1$
 		}
 		tagName = s;
-		tagType = tags.get(s.toUpperCase(Locale.ENGLISH));
-		if (tagType == null) {
-			tagType = Type.UNKNOWN;
-		}
+		tagType = getTagType(s, 0, s.length());
 	}
 
 	/**
@@ -284,84 +281,132 @@ public class HtmlTag {
 		}
 	}
 
-	private static HashMap<String, Tag> tags;
+	/** size of the open addressing table of known tags, a power of two */
+	private static final int TAG_TABLE_SIZE = 256;
+
+	/** upper case names of known tags indexed by hash */
+	private static final String[] tagNames = new String[TAG_TABLE_SIZE];
+
+	/** types of known tags, parallel to <code>tagNames</code> */
+	private static final Tag[] tagTypes = new Tag[TAG_TABLE_SIZE];
+
 	static {
-		tags = new HashMap<String, Tag>();
-		tags.put("A", Tag.A); //$NON-NLS-1$
-		tags.put("ADDRESS", Tag.ADDRESS); //$NON-NLS-1$
-		tags.put("APPLET", Tag.APPLET); //$NON-NLS-1$
-		tags.put("AREA", Tag.AREA); //$NON-NLS-1$
-		tags.put("B", Tag.B); //$NON-NLS-1$
-		tags.put("BASE", Tag.BASE); //$NON-NLS-1$
-		tags.put("BASEFONT", Tag.BASEFONT); //$NON-NLS-1$
-		tags.put("BIG", Tag.BIG); //$NON-NLS-1$
-		tags.put("BLOCKQUOTE", Tag.BLOCKQUOTE); //$NON-NLS-1$
-		tags.put("BODY", Tag.BODY); //$NON-NLS-1$
-		tags.put("BR", Tag.BR); //$NON-NLS-1$
-		tags.put("CAPTION", Tag.CAPTION); //$NON-NLS-1$
-		tags.put("CENTER", Tag.CENTER); //$NON-NLS-1$
-		tags.put("CITE", Tag.CITE); //$NON-NLS-1$
-		tags.put("CODE", Tag.CODE); //$NON-NLS-1$
-		tags.put("DD", Tag.DD); //$NON-NLS-1$
-		tags.put("DFN", Tag.DFN); //$NON-NLS-1$
-		tags.put("DIR", Tag.DIR); //$NON-NLS-1$
-		tags.put("DIV", Tag.DIV); //$NON-NLS-1$
-		tags.put("DL", Tag.DL); //$NON-NLS-1$
-		tags.put("!DOCTYPE", Type.DOCTYPE); //$NON-NLS-1$
-		tags.put("DT", Tag.DT); //$NON-NLS-1$
-		tags.put("EM", Tag.EM); //$NON-NLS-1$
-		tags.put("FONT", Tag.FONT); //$NON-NLS-1$
-		tags.put("FORM", Tag.FORM); //$NON-NLS-1$
-		tags.put("FRAME", Tag.FRAME); //$NON-NLS-1$
-		tags.put("FRAMESET", Tag.FRAMESET); //$NON-NLS-1$
-		tags.put("H1", Tag.H1); //$NON-NLS-1$
-		tags.put("H2", Tag.H2); //$NON-NLS-1$
-		tags.put("H3", Tag.H3); //$NON-NLS-1$
-		tags.put("H4", Tag.H4); //$NON-NLS-1$
-		tags.put("H5", Tag.H5); //$NON-NLS-1$
-		tags.put("H6", Tag.H6); //$NON-NLS-1$
-		tags.put("HEAD", Tag.HEAD); //$NON-NLS-1$
-		tags.put("HTML", Tag.HTML); //$NON-NLS-1$
-		tags.put("HR", Tag.HR); //$NON-NLS-1$
-		tags.put("I", Tag.I); //$NON-NLS-1$
-		tags.put("IMG", Tag.IMG); //$NON-NLS-1$
-		tags.put("INPUT", Tag.INPUT); //$NON-NLS-1$
-		tags.put("ISINDEX", Tag.ISINDEX); //$NON-NLS-1$
-		tags.put("KBD", Tag.KBD); //$NON-NLS-1$
-		tags.put("LI", Tag.LI); //$NON-NLS-1$
-		tags.put("LABEL", Type.LABEL); //$NON-NLS-1$
-		tags.put("LINK", Tag.LINK); //$NON-NLS-1$
-		tags.put("MAP", Tag.MAP); //$NON-NLS-1$
-		tags.put("MENU", Tag.MENU); //$NON-NLS-1$
-		tags.put("META", Tag.META); //$NON-NLS-1$
-		tags.put("NOFRAMES", Tag.NOFRAMES); //$NON-NLS-1$
-		tags.put("OBJECT", Tag.OBJECT); //$NON-NLS-1$
-		tags.put("OL", Tag.OL); //$NON-NLS-1$
-		tags.put("OPTION", Tag.OPTION); //$NON-NLS-1$
-		tags.put("P", Tag.P); //$NON-NLS-1$
-		tags.put("PARAM", Tag.PARAM); //$NON-NLS-1$
-		tags.put("PRE", Tag.PRE); //$NON-NLS-1$
-		tags.put("S", Tag.S); //$NON-NLS-1$
-		tags.put("SAMP", Tag.SAMP); //$NON-NLS-1$
-		tags.put("SCRIPT", Tag.SCRIPT); //$NON-NLS-1$
-		tags.put("SELECT", Tag.SELECT); //$NON-NLS-1$
-		tags.put("SMALL", Tag.SMALL); //$NON-NLS-1$
-		tags.put("SPAN", Tag.SPAN); //$NON-NLS-1$
-		tags.put("STRONG", Tag.STRONG); //$NON-NLS-1$
-		tags.put("STYLE", Tag.STYLE); //$NON-NLS-1$
-		tags.put("SUB", Tag.SUB); //$NON-NLS-1$
-		tags.put("SUP", Tag.SUP); //$NON-NLS-1$
-		tags.put("TABLE", Tag.TABLE); //$NON-NLS-1$
-		tags.put("TD", Tag.TD); //$NON-NLS-1$
-		tags.put("TEXTAREA", Tag.TEXTAREA); //$NON-NLS-1$
-		tags.put("TH", Tag.TH); //$NON-NLS-1$
-		tags.put("THEAD", Type.THEAD); //$NON-NLS-1$
-		tags.put("TITLE", Tag.TITLE); //$NON-NLS-1$
-		tags.put("TR", Tag.TR); //$NON-NLS-1$
-		tags.put("TT", Tag.TT); //$NON-NLS-1$
-		tags.put("U", Tag.U); //$NON-NLS-1$
-		tags.put("UL", Tag.UL); //$NON-NLS-1$
-		tags.put("VAR", Tag.VAR); //$NON-NLS-1$
+		addTag("A", Tag.A); //$NON-NLS-1$
+		addTag("ADDRESS", Tag.ADDRESS); //$NON-NLS-1$
+		addTag("APPLET", Tag.APPLET); //$NON-NLS-1$
+		addTag("AREA", Tag.AREA); //$NON-NLS-1$
+		addTag("B", Tag.B); //$NON-NLS-1$
+		addTag("BASE", Tag.BASE); //$NON-NLS-1$
+		addTag("BASEFONT", Tag.BASEFONT); //$NON-NLS-1$
+		addTag("BIG", Tag.BIG); //$NON-NLS-1$
+		addTag("BLOCKQUOTE", Tag.BLOCKQUOTE); //$NON-NLS-1$
+		addTag("BODY", Tag.BODY); //$NON-NLS-1$
+		addTag("BR", Tag.BR); //$NON-NLS-1$
+		addTag("CAPTION", Tag.CAPTION); //$NON-NLS-1$
+		addTag("CENTER", Tag.CENTER); //$NON-NLS-1$
+		addTag("CITE", Tag.CITE); //$NON-NLS-1$
+		addTag("CODE", Tag.CODE); //$NON-NLS-1$
+		addTag("DD", Tag.DD); //$NON-NLS-1$
+		addTag("DFN", Tag.DFN); //$NON-NLS-1$
+		addTag("DIR", Tag.DIR); //$NON-NLS-1$
+		addTag("DIV", Tag.DIV); //$NON-NLS-1$
+		addTag("DL", Tag.DL); //$NON-NLS-1$
+		addTag("!DOCTYPE", Type.DOCTYPE); //$NON-NLS-1$
+		addTag("DT", Tag.DT); //$NON-NLS-1$
+		addTag("EM", Tag.EM); //$NON-NLS-1$
+		addTag("FONT", Tag.FONT); //$NON-NLS-1$
+		addTag("FORM", Tag.FORM); //$NON-NLS-1$
+		addTag("FRAME", Tag.FRAME); //$NON-NLS-1$
+		addTag("FRAMESET", Tag.FRAMESET); //$NON-NLS-1$
+		addTag("H1", Tag.H1); //$NON-NLS-1$
+		addTag("H2", Tag.H2); //$NON-NLS-1$
+		addTag("H3", Tag.H3); //$NON-NLS-1$
+		addTag("H4", Tag.H4); //$NON-NLS-1$
+		addTag("H5", Tag.H5); //$NON-NLS-1$
+		addTag("H6", Tag.H6); //$NON-NLS-1$
+		addTag("HEAD", Tag.HEAD); //$NON-NLS-1$
+		addTag("HTML", Tag.HTML); //$NON-NLS-1$
+		addTag("HR", Tag.HR); //$NON-NLS-1$
+		addTag("I", Tag.I); //$NON-NLS-1$
+		addTag("IMG", Tag.IMG); //$NON-NLS-1$
+		addTag("INPUT", Tag.INPUT); //$NON-NLS-1$
+		addTag("ISINDEX", Tag.ISINDEX); //$NON-NLS-1$
+		addTag("KBD", Tag.KBD); //$NON-NLS-1$
+		addTag("LI", Tag.LI); //$NON-NLS-1$
+		addTag("LABEL", Type.LABEL); //$NON-NLS-1$
+		addTag("LINK", Tag.LINK); //$NON-NLS-1$
+		addTag("MAP", Tag.MAP); //$NON-NLS-1$
+		addTag("MENU", Tag.MENU); //$NON-NLS-1$
+		addTag("META", Tag.META); //$NON-NLS-1$
+		addTag("NOFRAMES", Tag.NOFRAMES); //$NON-NLS-1$
+		addTag("OBJECT", Tag.OBJECT); //$NON-NLS-1$
+		addTag("OL", Tag.OL); //$NON-NLS-1$
+		addTag("OPTION", Tag.OPTION); //$NON-NLS-1$
+		addTag("P", Tag.P); //$NON-NLS-1$
+		addTag("PARAM", Tag.PARAM); //$NON-NLS-1$
+		addTag("PRE", Tag.PRE); //$NON-NLS-1$
+		addTag("S", Tag.S); //$NON-NLS-1$
+		addTag("SAMP", Tag.SAMP); //$NON-NLS-1$
+		addTag("SCRIPT", Tag.SCRIPT); //$NON-NLS-1$
+		addTag("SELECT", Tag.SELECT); //$NON-NLS-1$
+		addTag("SMALL", Tag.SMALL); //$NON-NLS-1$
+		addTag("SPAN", Tag.SPAN); //$NON-NLS-1$
+		addTag("STRONG", Tag.STRONG); //$NON-NLS-1$
+		addTag("STYLE", Tag.STYLE); //$NON-NLS-1$
+		addTag("SUB", Tag.SUB); //$NON-NLS-1$
+		addTag("SUP", Tag.SUP); //$NON-NLS-1$
+		addTag("TABLE", Tag.TABLE); //$NON-NLS-1$
+		addTag("TD", Tag.TD); //$NON-NLS-1$
+		addTag("TEXTAREA", Tag.TEXTAREA); //$NON-NLS-1$
+		addTag("TH", Tag.TH); //$NON-NLS-1$
+		addTag("THEAD", Type.THEAD); //$NON-NLS-1$
+		addTag("TITLE", Tag.TITLE); //$NON-NLS-1$
+		addTag("TR", Tag.TR); //$NON-NLS-1$
+		addTag("TT", Tag.TT); //$NON-NLS-1$
+		addTag("U", Tag.U); //$NON-NLS-1$
+		addTag("UL", Tag.UL); //$NON-NLS-1$
+		addTag("VAR", Tag.VAR); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the type of the tag named by a region of <code>s</code>. The name is compared ignoring case and no objects
+	 * are allocated.
+	 */
+	static Tag getTagType(CharSequence s, int offset, int length) {
+		int index = hash(s, offset, length) & (TAG_TABLE_SIZE - 1);
+		for (String name = tagNames[index]; name != null; name = tagNames[index]) {
+			if (name.length() == length && regionMatches(name, s, offset)) {
+				return tagTypes[index];
+			}
+			index = (index + 1) & (TAG_TABLE_SIZE - 1);
+		}
+		return Type.UNKNOWN;
+	}
+
+	private static void addTag(String name, Tag type) {
+		int index = hash(name, 0, name.length()) & (TAG_TABLE_SIZE - 1);
+		while (tagNames[index] != null) {
+			index = (index + 1) & (TAG_TABLE_SIZE - 1);
+		}
+		tagNames[index] = name;
+		tagTypes[index] = type;
+	}
+
+	private static int hash(CharSequence s, int offset, int length) {
+		int h = 0;
+		for (int i = offset; i < offset + length; i++) {
+			h = 31 * h + Character.toUpperCase(s.charAt(i));
+		}
+		return h ^ (h >>> 7);
+	}
+
+	private static boolean regionMatches(String name, CharSequence s, int offset) {
+		for (int i = 0; i < name.length(); i++) {
+			if (Character.toUpperCase(s.charAt(offset + i)) != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	public void setSelfTerminating(boolean terminating) {
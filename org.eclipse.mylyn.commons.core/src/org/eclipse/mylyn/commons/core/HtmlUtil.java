@@ -13,11 +13,12 @@
 package org.eclipse.mylyn.commons.core;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.text.ParseException;
 
 import org.eclipse.mylyn.commons.core.HtmlStreamTokenizer.Token;
-import org.eclipse.mylyn.internal.commons.core.Html2TextReader;
+import org.eclipse.mylyn.internal.commons.core.Html2TextConverter;
 
 /**
  * @author Steffen Pingel
@@ -35,17 +36,26 @@ public class HtmlUtil {
 	 *             thrown if a parsing error occurs
 	 */
 	public static String toText(String htmlText) throws IOException {
-		Html2TextReader reader = new Html2TextReader(new StringReader(htmlText));
-		try {
-			int c;
-			StringBuffer sb = new StringBuffer(htmlText.length());
-			while ((c = reader.read()) != -1) {
-				sb.append((char) c);
-			}
-			return sb.toString();
-		} finally {
-			reader.close();
-		}
+		StringBuilder sb = new StringBuilder(htmlText.length());
+		toText(new StringReader(htmlText), sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Strips HTML tags from the text read from <code>html</code> and appends the plain text to <code>out</code>. The
+	 * input is processed as it is read and memory use does not depend on its length. The reader is not closed.
+	 * 
+	 * @param html
+	 *            a reader for text that contains HTML tags
+	 * @param out
+	 *            receives the plain text
+	 * @throws IOException
+	 *             thrown if reading or appending fails
+	 * @see #toText(String)
+	 * @since 3.26
+	 */
+	public static void toText(Reader html, Appendable out) throws IOException {
+		new Html2TextConverter(html).convert(out);
 	}
 
 	/**
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * Reads from a socket channel and throws an {@link InterruptedIOException} if a read blocks for longer than the
+ * configured timeout. Unlike {@link TimeoutInputStream} no thread is allocated per stream, readiness of the channel is
+ * monitored by a shared {@link TimeoutSelector}.
+ *
+ * @since 3.26
+ */
+public class ChannelTimeoutInputStream extends InputStream {
+
+	private final SocketChannel channel;
+
+	private final long readTimeout;
+
+	private final TimeoutSelector selector;
+
+	private final byte[] single = new byte[1];
+
+	/**
+	 * Creates a stream that reads from <code>channel</code>. The channel is switched to non-blocking mode.
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 * @param readTimeout
+	 *            the number of milliseconds to block for a read() or skip() before throwing an InterruptedIOException;
+	 *            0 blocks indefinitely
+	 */
+	public ChannelTimeoutInputStream(SocketChannel channel, long readTimeout) throws IOException {
+		this(channel, readTimeout, TimeoutSelector.getDefault());
+	}
+
+	public ChannelTimeoutInputStream(SocketChannel channel, long readTimeout, TimeoutSelector selector)
+			throws IOException {
+		Assert.isNotNull(channel);
+		Assert.isNotNull(selector);
+		this.channel = channel;
+		this.readTimeout = readTimeout;
+		this.selector = selector;
+		configureNonBlocking(channel);
+	}
+
+	@Override
+	public void close() throws IOException {
+		selector.close(channel);
+	}
+
+	/**
+	 * Returns the number of milliseconds a read blocks before it times out. Subclasses may override to track a timeout
+	 * that changes while the stream is in use, e.g. the timeout of a socket.
+	 *
+	 * @return the timeout in milliseconds; 0 blocks indefinitely
+	 */
+	protected long getReadTimeout() {
+		return readTimeout;
+	}
+
+	@Override
+	public int read() throws IOException {
+		synchronized (single) {
+			int n = read(single, 0, 1);
+			return (n == -1) ? -1 : single[0] & 0xFF;
+		}
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+		while (true) {
+			int n = channel.read(buffer);
+			if (n != 0) {
+				return n;
+			}
+			selector.await(channel, SelectionKey.OP_READ, getReadTimeout());
+		}
+	}
+
+	static void configureNonBlocking(SelectableChannel channel) throws IOException {
+		synchronized (channel.blockingLock()) {
+			if (channel.isBlocking()) {
+				channel.configureBlocking(false);
+			}
+		}
+	}
+
+}
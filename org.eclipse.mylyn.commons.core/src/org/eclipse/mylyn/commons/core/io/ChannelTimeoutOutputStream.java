@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * Writes to a socket channel and throws an {@link InterruptedIOException} if a write blocks for longer than the
+ * configured timeout. Unlike {@link TimeoutOutputStream} no thread is allocated per stream, readiness of the channel is
+ * monitored by a shared {@link TimeoutSelector}.
+ *
+ * @since 3.26
+ */
+public class ChannelTimeoutOutputStream extends OutputStream {
+
+	private final SocketChannel channel;
+
+	private final TimeoutSelector selector;
+
+	private final long writeTimeout;
+
+	/**
+	 * Creates a stream that writes to <code>channel</code>. The channel is switched to non-blocking mode.
+	 *
+	 * @param channel
+	 *            the channel to write to
+	 * @param writeTimeout
+	 *            the number of milliseconds to block for a write() before throwing an InterruptedIOException; 0
+	 *            blocks indefinitely
+	 */
+	public ChannelTimeoutOutputStream(SocketChannel channel, long writeTimeout) throws IOException {
+		this(channel, writeTimeout, TimeoutSelector.getDefault());
+	}
+
+	public ChannelTimeoutOutputStream(SocketChannel channel, long writeTimeout, TimeoutSelector selector)
+			throws IOException {
+		Assert.isNotNull(channel);
+		Assert.isNotNull(selector);
+		this.channel = channel;
+		this.writeTimeout = writeTimeout;
+		this.selector = selector;
+		ChannelTimeoutInputStream.configureNonBlocking(channel);
+	}
+
+	@Override
+	public void close() throws IOException {
+		selector.close(channel);
+	}
+
+	/**
+	 * Returns the number of milliseconds a write blocks before it times out. Subclasses may override to track a timeout
+	 * that changes while the stream is in use, e.g. the timeout of a socket.
+	 *
+	 * @return the timeout in milliseconds; 0 blocks indefinitely
+	 */
+	protected long getWriteTimeout() {
+		return writeTimeout;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+		while (buffer.hasRemaining()) {
+			if (channel.write(buffer) == 0) {
+				selector.await(channel, SelectionKey.OP_WRITE, getWriteTimeout());
+			}
+		}
+	}
+
+}
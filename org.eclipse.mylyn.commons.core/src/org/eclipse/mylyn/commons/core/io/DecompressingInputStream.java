@@ -0,0 +1,452 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * Decodes a <code>gzip</code> or <code>deflate</code> encoded HTTP entity while it is read. Unlike
+ * {@link java.util.zip.GZIPInputStream} the {@link Inflater} and the input buffer are taken from a shared pool and
+ * returned when the stream is closed, which avoids allocating native inflater state for each response.
+ * <p>
+ * An empty entity is decoded as an empty stream. The number of bytes read from the underlying stream and the number of
+ * decoded bytes are available through {@link #getCompressedCount()} and {@link #getUncompressedCount()}. Totals of
+ * several streams are collected by a {@link ByteCounter} which is updated while the streams are read so that streams
+ * which are aborted and never closed are included.
+ *
+ * @since 3.26
+ */
+public class DecompressingInputStream extends InputStream {
+
+	/**
+	 * Sums the encoded and decoded bytes of the streams that it is passed to.
+	 */
+	public static class ByteCounter {
+
+		private final AtomicLong compressedCount = new AtomicLong();
+
+		private final AtomicLong uncompressedCount = new AtomicLong();
+
+		/**
+		 * Returns the number of encoded bytes that were read from the underlying streams.
+		 */
+		public long getCompressedCount() {
+			return compressedCount.get();
+		}
+
+		/**
+		 * Returns the number of decoded bytes that were returned by the streams.
+		 */
+		public long getUncompressedCount() {
+			return uncompressedCount.get();
+		}
+
+	}
+
+	public enum Encoding {
+		DEFLATE, GZIP
+	}
+
+	private enum State {
+		DATA, EOF, HEADER
+	}
+
+	/**
+	 * The value of the <code>Accept-Encoding</code> header for the encodings that are supported.
+	 */
+	public static final String ACCEPT_ENCODING = "gzip, deflate"; //$NON-NLS-1$
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private static final int FCOMMENT = 16;
+
+	private static final int FEXTRA = 4;
+
+	private static final int FHCRC = 2;
+
+	private static final int FNAME = 8;
+
+	private static final int GZIP_MAGIC = 0x8b1f;
+
+	private static final int MAX_POOLED = 16;
+
+	private static final ArrayDeque<byte[]> bufferPool = new ArrayDeque<byte[]>();
+
+	private static final ArrayDeque<Inflater> nowrapInflaterPool = new ArrayDeque<Inflater>();
+
+	private static final ArrayDeque<Inflater> zlibInflaterPool = new ArrayDeque<Inflater>();
+
+	/**
+	 * Returns a stream that decodes <code>in</code> according to <code>contentEncoding</code>. If the encoding is
+	 * <code>null</code>, <code>identity</code> or not supported <code>in</code> is returned.
+	 *
+	 * @param contentEncoding
+	 *            the value of the <code>Content-Encoding</code> header or <code>null</code>
+	 */
+	public static InputStream create(InputStream in, String contentEncoding) {
+		return create(in, contentEncoding, null);
+	}
+
+	/**
+	 * Returns a stream that decodes <code>in</code> according to <code>contentEncoding</code> and adds the number of
+	 * bytes read to <code>counter</code>. If the encoding is <code>null</code>, <code>identity</code> or not supported
+	 * <code>in</code> is returned.
+	 *
+	 * @param contentEncoding
+	 *            the value of the <code>Content-Encoding</code> header or <code>null</code>
+	 * @param counter
+	 *            the counter or <code>null</code>
+	 */
+	public static InputStream create(InputStream in, String contentEncoding, ByteCounter counter) {
+		Encoding encoding = getEncoding(contentEncoding);
+		return (encoding != null) ? new DecompressingInputStream(in, encoding, counter) : in;
+	}
+
+	/**
+	 * Returns the encoding that corresponds to the value of a <code>Content-Encoding</code> header.
+	 *
+	 * @return the encoding, or <code>null</code> if the content is not encoded or the encoding is not supported
+	 */
+	public static Encoding getEncoding(String contentEncoding) {
+		if (contentEncoding != null) {
+			String value = contentEncoding.trim().toLowerCase(Locale.ENGLISH);
+			if ("gzip".equals(value) || "x-gzip".equals(value)) { //$NON-NLS-1$ //$NON-NLS-2$
+				return Encoding.GZIP;
+			} else if ("deflate".equals(value)) { //$NON-NLS-1$
+				return Encoding.DEFLATE;
+			}
+		}
+		return null;
+	}
+
+	private static byte[] acquireBuffer() {
+		synchronized (bufferPool) {
+			byte[] buffer = bufferPool.poll();
+			if (buffer != null) {
+				return buffer;
+			}
+		}
+		return new byte[BUFFER_SIZE];
+	}
+
+	private static Inflater acquireInflater(boolean nowrap) {
+		ArrayDeque<Inflater> pool = (nowrap) ? nowrapInflaterPool : zlibInflaterPool;
+		synchronized (pool) {
+			Inflater inflater = pool.poll();
+			if (inflater != null) {
+				return inflater;
+			}
+		}
+		return new Inflater(nowrap);
+	}
+
+	private static void releaseBuffer(byte[] buffer) {
+		synchronized (bufferPool) {
+			if (bufferPool.size() < MAX_POOLED) {
+				bufferPool.push(buffer);
+			}
+		}
+	}
+
+	private static void releaseInflater(Inflater inflater, boolean nowrap) {
+		inflater.reset();
+		ArrayDeque<Inflater> pool = (nowrap) ? nowrapInflaterPool : zlibInflaterPool;
+		synchronized (pool) {
+			if (pool.size() < MAX_POOLED) {
+				pool.push(inflater);
+				return;
+			}
+		}
+		inflater.end();
+	}
+
+	private byte[] buffer;
+
+	private boolean closed;
+
+	private long compressedCount;
+
+	private final ByteCounter counter;
+
+	private final CRC32 crc = new CRC32();
+
+	private final Encoding encoding;
+
+	private final InputStream in;
+
+	private Inflater inflater;
+
+	private int limit;
+
+	private boolean nowrap;
+
+	private int pos;
+
+	private final byte[] single = new byte[1];
+
+	private State state = State.HEADER;
+
+	private long uncompressedCount;
+
+	public DecompressingInputStream(InputStream in, Encoding encoding) {
+		this(in, encoding, null);
+	}
+
+	/**
+	 * @param counter
+	 *            the counter that the number of bytes read is added to or <code>null</code>
+	 */
+	public DecompressingInputStream(InputStream in, Encoding encoding, ByteCounter counter) {
+		Assert.isNotNull(in);
+		Assert.isNotNull(encoding);
+		this.in = in;
+		this.encoding = encoding;
+		this.counter = counter;
+		this.buffer = acquireBuffer();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			state = State.EOF;
+			if (inflater != null) {
+				releaseInflater(inflater, nowrap);
+				inflater = null;
+			}
+			releaseBuffer(buffer);
+			buffer = null;
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes that were read from the underlying stream.
+	 */
+	public long getCompressedCount() {
+		return compressedCount;
+	}
+
+	public Encoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Returns the number of decoded bytes that were returned by this stream.
+	 */
+	public long getUncompressedCount() {
+		return uncompressedCount;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int n = read(single, 0, 1);
+		return (n == -1) ? -1 : single[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed"); //$NON-NLS-1$
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (state == State.HEADER) {
+			state = (readHeader()) ? State.DATA : State.EOF;
+		}
+		while (state == State.DATA) {
+			int n;
+			try {
+				n = inflater.inflate(b, off, len);
+			} catch (DataFormatException e) {
+				String message = e.getMessage();
+				throw new ZipException((message != null) ? message : "Invalid compressed data"); //$NON-NLS-1$
+			}
+			if (n > 0) {
+				if (encoding == Encoding.GZIP) {
+					crc.update(b, off, n);
+				}
+				uncompressedCount += n;
+				if (counter != null) {
+					counter.uncompressedCount.addAndGet(n);
+				}
+				return n;
+			}
+			if (inflater.finished()) {
+				pos = limit - inflater.getRemaining();
+				state = (encoding == Encoding.GZIP && readTrailer()) ? State.DATA : State.EOF;
+			} else if (inflater.needsDictionary()) {
+				throw new ZipException("Deflate dictionaries are not supported"); //$NON-NLS-1$
+			} else if (inflater.needsInput()) {
+				if (pos == limit && fill() <= 0) {
+					throw new EOFException("Unexpected end of compressed stream"); //$NON-NLS-1$
+				}
+				inflater.setInput(buffer, pos, limit - pos);
+				pos = limit;
+			}
+		}
+		return -1;
+	}
+
+	private void countCompressed(int n) {
+		compressedCount += n;
+		if (counter != null) {
+			counter.compressedCount.addAndGet(n);
+		}
+	}
+
+	/**
+	 * Ensures that at least <code>count</code> bytes are buffered unless the underlying stream ends.
+	 *
+	 * @return true, if <code>count</code> bytes are available
+	 */
+	private boolean ensure(int count) throws IOException {
+		if (limit - pos >= count) {
+			return true;
+		}
+		System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+		limit -= pos;
+		pos = 0;
+		while (limit < count) {
+			int n = in.read(buffer, limit, buffer.length - limit);
+			if (n == -1) {
+				return false;
+			}
+			countCompressed(n);
+			limit += n;
+		}
+		return true;
+	}
+
+	private int fill() throws IOException {
+		int n = in.read(buffer, 0, buffer.length);
+		if (n > 0) {
+			countCompressed(n);
+			pos = 0;
+			limit = n;
+		}
+		return n;
+	}
+
+	private int readByte() throws IOException {
+		if (pos == limit && fill() <= 0) {
+			throw new EOFException("Unexpected end of compressed stream"); //$NON-NLS-1$
+		}
+		return buffer[pos++] & 0xFF;
+	}
+
+	/**
+	 * Reads the gzip member header or detects whether deflate data has a zlib header.
+	 *
+	 * @return false, if the stream is empty
+	 */
+	private boolean readHeader() throws IOException {
+		if (!ensure(1)) {
+			return false;
+		}
+		if (encoding == Encoding.GZIP) {
+			readGzipHeader();
+			setInflater(true);
+		} else {
+			// servers commonly send raw deflate data although RFC 2616 requires a zlib wrapper
+			boolean zlib = false;
+			if (ensure(2)) {
+				int cmf = buffer[pos] & 0xFF;
+				int flg = buffer[pos + 1] & 0xFF;
+				zlib = (cmf & 0x0F) == 8 && (cmf >> 4) <= 7 && ((cmf << 8) | flg) % 31 == 0;
+			}
+			setInflater(!zlib);
+		}
+		return true;
+	}
+
+	private void readGzipHeader() throws IOException {
+		if (readUnsignedShort() != GZIP_MAGIC) {
+			throw new ZipException("Not in GZIP format"); //$NON-NLS-1$
+		}
+		if (readByte() != 8) {
+			throw new ZipException("Unsupported compression method"); //$NON-NLS-1$
+		}
+		int flags = readByte();
+		// modification time, extra flags and operating system
+		for (int i = 0; i < 6; i++) {
+			readByte();
+		}
+		if ((flags & FEXTRA) != 0) {
+			for (int i = readUnsignedShort(); i > 0; i--) {
+				readByte();
+			}
+		}
+		if ((flags & FNAME) != 0) {
+			while (readByte() != 0) {
+			}
+		}
+		if ((flags & FCOMMENT) != 0) {
+			while (readByte() != 0) {
+			}
+		}
+		if ((flags & FHCRC) != 0) {
+			readUnsignedShort();
+		}
+		crc.reset();
+	}
+
+	/**
+	 * Verifies the trailer of a gzip member.
+	 *
+	 * @return true, if another member follows
+	 */
+	private boolean readTrailer() throws IOException {
+		long expectedCrc = readUnsignedInt();
+		long expectedSize = readUnsignedInt();
+		if (expectedCrc != crc.getValue()) {
+			throw new ZipException("Corrupt GZIP trailer"); //$NON-NLS-1$
+		}
+		if (expectedSize != (inflater.getBytesWritten() & 0xFFFFFFFFL)) {
+			throw new ZipException("Corrupt GZIP trailer"); //$NON-NLS-1$
+		}
+		// concatenated members are decoded as a single stream, trailing garbage is ignored like GZIPInputStream does
+		if (ensure(2) && ((buffer[pos] & 0xFF) | ((buffer[pos + 1] & 0xFF) << 8)) == GZIP_MAGIC) {
+			readGzipHeader();
+			inflater.reset();
+			return true;
+		}
+		return false;
+	}
+
+	private long readUnsignedInt() throws IOException {
+		return readUnsignedShort() | ((long) readUnsignedShort() << 16);
+	}
+
+	private int readUnsignedShort() throws IOException {
+		return readByte() | (readByte() << 8);
+	}
+
+	private void setInflater(boolean nowrap) {
+		this.nowrap = nowrap;
+		this.inflater = acquireInflater(nowrap);
+	}
+
+}
@@ -0,0 +1,410 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.mylyn.commons.core.StatusHandler;
+import org.eclipse.mylyn.internal.commons.core.CommonsCorePlugin;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Enforces read and write timeouts for non-blocking channels. A single thread multiplexes readiness notifications and
+ * timeouts for all channels, callers block on their own thread until the channel is ready or the timeout expires. This
+ * avoids the dedicated reader thread per stream that {@link TimeoutInputStream} and {@link TimeoutOutputStream}
+ * require.
+ *
+ * @since 3.26
+ * @see ChannelTimeoutInputStream
+ * @see ChannelTimeoutOutputStream
+ */
+public class TimeoutSelector {
+
+	private static TimeoutSelector instance;
+
+	public static synchronized TimeoutSelector getDefault() {
+		if (instance == null) {
+			instance = new TimeoutSelector();
+		}
+		return instance;
+	}
+
+	private static final AtomicLong sequence = new AtomicLong();
+
+	private static class Waiter implements Comparable<Waiter> {
+
+		private final SelectableChannel channel;
+
+		private final long deadline;
+
+		private boolean done;
+
+		private final int ops;
+
+		private boolean ready;
+
+		private IOException exception;
+
+		private final long id = sequence.incrementAndGet();
+
+		Waiter(SelectableChannel channel, int ops, long deadline) {
+			this.channel = channel;
+			this.ops = ops;
+			this.deadline = deadline;
+		}
+
+		public int compareTo(Waiter o) {
+			if (deadline != o.deadline) {
+				return (deadline < o.deadline) ? -1 : 1;
+			}
+			return (id < o.id) ? -1 : ((id == o.id) ? 0 : 1);
+		}
+
+		synchronized void complete(boolean ready, IOException exception) {
+			if (!done) {
+				this.done = true;
+				this.ready = ready;
+				this.exception = exception;
+				notifyAll();
+			}
+		}
+
+		synchronized boolean isDone() {
+			return done;
+		}
+
+	}
+
+	/**
+	 * Tracks the waiters of a channel. A channel has a single selection key, concurrent readers and writers share it
+	 * and the interest set is the union of their operations.
+	 */
+	private static class Registration {
+
+		private final List<Waiter> waiters = new ArrayList<Waiter>(2);
+
+		void add(Waiter waiter) {
+			waiters.add(waiter);
+		}
+
+		int getInterestOps() {
+			int ops = 0;
+			for (Waiter waiter : waiters) {
+				ops |= waiter.ops;
+			}
+			return ops;
+		}
+
+		boolean remove(Waiter waiter) {
+			return waiters.remove(waiter);
+		}
+
+		/**
+		 * Removes and returns the waiters that are interested in any of <code>readyOps</code>.
+		 */
+		List<Waiter> removeReady(int readyOps) {
+			List<Waiter> ready = new ArrayList<Waiter>(waiters.size());
+			for (Iterator<Waiter> it = waiters.iterator(); it.hasNext();) {
+				Waiter waiter = it.next();
+				if ((waiter.ops & readyOps) != 0) {
+					ready.add(waiter);
+					it.remove();
+				}
+			}
+			return ready;
+		}
+
+	}
+
+	private final Queue<Waiter> abandoned = new ConcurrentLinkedQueue<Waiter>();
+
+	private final Queue<SelectionKey> closed = new ConcurrentLinkedQueue<SelectionKey>();
+
+	private final Queue<Waiter> pending = new ConcurrentLinkedQueue<Waiter>();
+
+	private Selector selector;
+
+	// only accessed by the selector thread, waiters without a deadline are not tracked
+	private final TreeSet<Waiter> timeouts = new TreeSet<Waiter>();
+
+	private volatile boolean shutdown;
+
+	public TimeoutSelector() {
+	}
+
+	/**
+	 * Blocks until <code>channel</code> is ready for any of the operations in <code>ops</code>.
+	 *
+	 * @param channel
+	 *            a channel in non-blocking mode
+	 * @param ops
+	 *            the interest set, see {@link SelectionKey}
+	 * @param timeout
+	 *            the maximum time to wait in milliseconds; 0 waits indefinitely
+	 * @throws SocketTimeoutException
+	 *             if the timeout expired before the channel became ready
+	 * @throws InterruptedIOException
+	 *             if the calling thread was interrupted while waiting
+	 * @throws IOException
+	 *             if registering the channel failed
+	 */
+	public void await(SelectableChannel channel, int ops, long timeout) throws IOException {
+		long deadline = (timeout > 0) ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+		Waiter waiter = new Waiter(channel, ops, deadline);
+		pending.add(waiter);
+		ensureStarted().wakeup();
+		synchronized (waiter) {
+			try {
+				while (!waiter.done) {
+					waiter.wait();
+				}
+			} catch (InterruptedException e) {
+				waiter.done = true;
+				abandoned.add(waiter);
+				wakeup();
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+			if (waiter.exception != null) {
+				throw waiter.exception;
+			}
+			if (!waiter.ready) {
+				throw new SocketTimeoutException();
+			}
+		}
+	}
+
+	/**
+	 * Closes <code>channel</code> and cancels its registration. A thread that is blocked in
+	 * {@link #await(SelectableChannel, int, long)} for <code>channel</code> receives an
+	 * {@link AsynchronousCloseException}.
+	 *
+	 * @param channel
+	 *            the channel to close
+	 * @throws IOException
+	 *             if closing the channel failed
+	 */
+	public void close(SelectableChannel channel) throws IOException {
+		// look up the key first, the selector deregisters it as soon as it observes the closed channel
+		Selector selector = getSelector();
+		SelectionKey key = (selector != null) ? channel.keyFor(selector) : null;
+		try {
+			channel.close();
+		} finally {
+			if (key != null) {
+				// the socket is only released once the selector has processed the cancelled key
+				closed.add(key);
+				selector.wakeup();
+			}
+		}
+	}
+
+	public synchronized void shutdown() {
+		shutdown = true;
+		if (selector != null) {
+			selector.wakeup();
+		}
+	}
+
+	private synchronized Selector ensureStarted() throws IOException {
+		if (shutdown) {
+			throw new IOException("Timeout selector has been shut down"); //$NON-NLS-1$
+		}
+		if (selector == null) {
+			selector = Selector.open();
+			Thread thread = new Thread("Mylyn Timeout Selector") { //$NON-NLS-1$
+				@Override
+				public void run() {
+					runSelector();
+				}
+			};
+			thread.setDaemon(true);
+			thread.start();
+		}
+		return selector;
+	}
+
+	private synchronized Selector getSelector() {
+		return selector;
+	}
+
+	private void wakeup() {
+		Selector selector = getSelector();
+		if (selector != null) {
+			selector.wakeup();
+		}
+	}
+
+	private void register(Waiter waiter) {
+		if (waiter.isDone()) {
+			return;
+		}
+		try {
+			SelectionKey key = waiter.channel.keyFor(selector);
+			if (key == null) {
+				Registration registration = new Registration();
+				registration.add(waiter);
+				waiter.channel.register(selector, waiter.ops, registration);
+			} else {
+				Registration registration = (Registration) key.attachment();
+				if (registration == null) {
+					registration = new Registration();
+					key.attach(registration);
+				}
+				registration.add(waiter);
+				key.interestOps(registration.getInterestOps());
+			}
+			if (waiter.deadline != Long.MAX_VALUE) {
+				timeouts.add(waiter);
+			}
+		} catch (ClosedChannelException e) {
+			waiter.complete(false, e);
+		} catch (CancelledKeyException e) {
+			// the channel was closed, the caller will receive the exception on the next channel access
+			waiter.complete(true, null);
+		} catch (RuntimeException cause) {
+			// e.g. a channel in blocking mode or of another provider, fail the caller but keep the selector running
+			deregister(waiter);
+			IOException e = new IOException(
+					NLS.bind("Failed to register channel: {0}", cause.getMessage())); //$NON-NLS-1$
+			e.initCause(cause);
+			waiter.complete(false, e);
+		}
+	}
+
+	private void expire(long now) {
+		while (!timeouts.isEmpty()) {
+			Waiter waiter = timeouts.first();
+			if (waiter.deadline > now) {
+				break;
+			}
+			waiter.complete(false, null);
+			deregister(waiter);
+		}
+	}
+
+	private void deregister(Waiter waiter) {
+		timeouts.remove(waiter);
+		SelectionKey key = waiter.channel.keyFor(selector);
+		if (key != null) {
+			Registration registration = (Registration) key.attachment();
+			if (registration != null && registration.remove(waiter)) {
+				updateInterestOps(key, registration);
+			}
+		}
+	}
+
+	private void updateInterestOps(SelectionKey key, Registration registration) {
+		try {
+			key.interestOps(registration.getInterestOps());
+		} catch (CancelledKeyException e) {
+			// ignore
+		}
+	}
+
+	private void cancel(SelectionKey key) {
+		key.cancel();
+		Registration registration = (Registration) key.attachment();
+		if (registration != null) {
+			for (Waiter waiter : registration.removeReady(-1)) {
+				waiter.complete(false, new AsynchronousCloseException());
+				timeouts.remove(waiter);
+			}
+			key.attach(null);
+		}
+	}
+
+	private void runSelector() {
+		try {
+			while (!shutdown) {
+				SelectionKey closedKey;
+				while ((closedKey = closed.poll()) != null) {
+					cancel(closedKey);
+				}
+				Waiter waiter;
+				while ((waiter = abandoned.poll()) != null) {
+					deregister(waiter);
+				}
+				while ((waiter = pending.poll()) != null) {
+					register(waiter);
+				}
+
+				long now = System.currentTimeMillis();
+				expire(now);
+
+				long timeout = (timeouts.isEmpty()) ? 0 : Math.max(1, timeouts.first().deadline - now);
+				selector.select(timeout);
+
+				for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+					SelectionKey key = it.next();
+					it.remove();
+					Registration registration = (Registration) key.attachment();
+					if (registration != null && key.isValid()) {
+						// only wake up the waiters for the operations that fired, e.g. a reader stays registered
+						// while a concurrent writer is notified
+						for (Waiter ready : registration.removeReady(key.readyOps())) {
+							ready.complete(true, null);
+							timeouts.remove(ready);
+						}
+						updateInterestOps(key, registration);
+					}
+				}
+			}
+		} catch (IOException e) {
+			StatusHandler.log(new Status(IStatus.ERROR, CommonsCorePlugin.ID_PLUGIN,
+					"Unexpected error in timeout selector", e)); //$NON-NLS-1$
+		} finally {
+			for (SelectionKey key : selector.keys()) {
+				Registration registration = (Registration) key.attachment();
+				if (registration != null) {
+					for (Waiter waiter : registration.removeReady(-1)) {
+						waiter.complete(false, new IOException("Timeout selector has been shut down")); //$NON-NLS-1$
+					}
+				}
+			}
+			synchronized (this) {
+				try {
+					selector.close();
+				} catch (IOException e) {
+					// ignore
+				}
+				selector = null;
+			}
+			Waiter waiter;
+			while ((waiter = pending.poll()) != null) {
+				waiter.complete(false, new IOException("Timeout selector has been shut down")); //$NON-NLS-1$
+			}
+			while ((waiter = timeouts.pollFirst()) != null) {
+				waiter.complete(false, new IOException("Timeout selector has been shut down")); //$NON-NLS-1$
+			}
+		}
+	}
+
+}
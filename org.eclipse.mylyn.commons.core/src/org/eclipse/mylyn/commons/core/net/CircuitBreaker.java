@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.net;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.mylyn.commons.core.StatusHandler;
+import org.eclipse.mylyn.internal.commons.core.CommonsCorePlugin;
+
+/**
+ * Stops requests to a server that repeatedly failed to respond. After <code>failureThreshold</code> consecutive
+ * failures the breaker opens and {@link #acquire()} fails immediately instead of waiting for connect and socket
+ * timeouts. Once the open time has elapsed a single probe request is admitted while the breaker is half-open: if it
+ * succeeds the breaker closes, otherwise it opens again for twice the previous time up to a maximum. Open times are
+ * randomized to avoid that clients probe a recovering server in lockstep.
+ * <p>
+ * Each admitted request must report its outcome through {@link #recordSuccess(long)}, {@link #recordFailure(long)} or
+ * {@link #release(long)} passing the permit returned by {@link #acquire()}. Outcomes of requests that were admitted
+ * before the breaker last opened are ignored, e.g. a slow request that succeeds while the breaker is half-open does
+ * not close the breaker in place of the probe.
+ *
+ * @since 3.26
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		/** Requests are admitted. */
+		CLOSED,
+		/** A probe request is admitted to determine whether the server has recovered. */
+		HALF_OPEN,
+		/** Requests are rejected. */
+		OPEN
+	}
+
+	public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+	public static final long DEFAULT_MAX_OPEN_TIME = 5 * 60 * 1000;
+
+	public static final long DEFAULT_OPEN_TIME = 10 * 1000;
+
+	private int failureThreshold;
+
+	private int consecutiveFailures;
+
+	private int consecutiveOpens;
+
+	private long generation;
+
+	private final List<ICircuitBreakerListener> listeners = new CopyOnWriteArrayList<ICircuitBreakerListener>();
+
+	private long maxOpenTime;
+
+	private long openTime;
+
+	private long openUntil;
+
+	private boolean probeInProgress;
+
+	private State state = State.CLOSED;
+
+	/**
+	 * Creates a breaker that opens after {@link #DEFAULT_FAILURE_THRESHOLD} consecutive failures.
+	 */
+	public CircuitBreaker() {
+		this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_TIME, DEFAULT_MAX_OPEN_TIME);
+	}
+
+	/**
+	 * @param failureThreshold
+	 *            the number of consecutive failures that open the breaker; 0 disables the breaker
+	 * @param openTime
+	 *            the time in milliseconds the breaker stays open after it opened the first time
+	 * @param maxOpenTime
+	 *            the maximum time in milliseconds the breaker stays open
+	 */
+	public CircuitBreaker(int failureThreshold, long openTime, long maxOpenTime) {
+		configure(failureThreshold, openTime, maxOpenTime);
+	}
+
+	/**
+	 * Admits a request.
+	 *
+	 * @return the permit that identifies the request when its outcome is recorded
+	 * @throws CircuitOpenException
+	 *             if the breaker is open or a probe request is already in progress
+	 */
+	public long acquire() throws CircuitOpenException {
+		State oldState;
+		long permit;
+		synchronized (this) {
+			oldState = state;
+			if (state == State.CLOSED) {
+				return generation;
+			}
+			long now = System.currentTimeMillis();
+			if (probeInProgress || now < openUntil) {
+				throw new CircuitOpenException(Math.max(0, openUntil - now));
+			}
+			probeInProgress = true;
+			state = State.HALF_OPEN;
+			permit = ++generation;
+		}
+		if (oldState != State.HALF_OPEN) {
+			fireStateChanged(oldState, State.HALF_OPEN);
+		}
+		return permit;
+	}
+
+	public void addListener(ICircuitBreakerListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Changes the configuration of the breaker. The new open times apply the next time the breaker opens, disabling
+	 * the breaker closes it.
+	 *
+	 * @param failureThreshold
+	 *            the number of consecutive failures that open the breaker; 0 disables the breaker
+	 * @param openTime
+	 *            the time in milliseconds the breaker stays open after it opened the first time
+	 * @param maxOpenTime
+	 *            the maximum time in milliseconds the breaker stays open
+	 */
+	public void configure(int failureThreshold, long openTime, long maxOpenTime) {
+		Assert.isLegal(failureThreshold >= 0);
+		Assert.isLegal(openTime > 0);
+		Assert.isLegal(maxOpenTime >= openTime);
+		synchronized (this) {
+			this.failureThreshold = failureThreshold;
+			this.openTime = openTime;
+			this.maxOpenTime = maxOpenTime;
+		}
+		if (failureThreshold == 0) {
+			reset();
+		}
+	}
+
+	public synchronized int getFailureThreshold() {
+		return failureThreshold;
+	}
+
+	public synchronized long getMaxOpenTime() {
+		return maxOpenTime;
+	}
+
+	public synchronized long getOpenTime() {
+		return openTime;
+	}
+
+	/**
+	 * Returns the time in milliseconds until the next probe request is admitted.
+	 *
+	 * @return the time to wait, or 0 if a request would be admitted
+	 */
+	public synchronized long getRetryTime() {
+		if (state == State.CLOSED) {
+			return 0;
+		}
+		return Math.max(0, openUntil - System.currentTimeMillis());
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	public synchronized boolean isEnabled() {
+		return failureThreshold > 0;
+	}
+
+	/**
+	 * Records that an admitted request failed because the server could not be reached or did not respond.
+	 *
+	 * @param permit
+	 *            the permit returned by {@link #acquire()}
+	 */
+	public void recordFailure(long permit) {
+		State oldState;
+		synchronized (this) {
+			if (permit != generation) {
+				// requests that were admitted before the breaker opened do not extend the open time
+				return;
+			}
+			oldState = state;
+			probeInProgress = false;
+			consecutiveFailures++;
+			if (!isEnabled() || (state == State.CLOSED && consecutiveFailures < failureThreshold)) {
+				return;
+			}
+			generation++;
+			consecutiveOpens++;
+			long time = openTime << Math.min(consecutiveOpens - 1, 30);
+			time = Math.min(maxOpenTime, (time > 0) ? time : maxOpenTime);
+			// randomize between half and the full time
+			time = time / 2 + ThreadLocalRandom.current().nextLong(time / 2 + 1);
+			openUntil = System.currentTimeMillis() + time;
+			state = State.OPEN;
+		}
+		fireStateChanged(oldState, State.OPEN);
+	}
+
+	/**
+	 * Records that an admitted request received a response.
+	 *
+	 * @param permit
+	 *            the permit returned by {@link #acquire()}
+	 */
+	public void recordSuccess(long permit) {
+		State oldState;
+		synchronized (this) {
+			if (permit != generation) {
+				return;
+			}
+			oldState = setClosed();
+		}
+		if (oldState != State.CLOSED) {
+			fireStateChanged(oldState, State.CLOSED);
+		}
+	}
+
+	/**
+	 * Releases an admitted request that completed without indicating whether the server is available, e.g. because
+	 * it was canceled.
+	 *
+	 * @param permit
+	 *            the permit returned by {@link #acquire()}
+	 */
+	public synchronized void release(long permit) {
+		if (permit == generation) {
+			probeInProgress = false;
+		}
+	}
+
+	public void removeListener(ICircuitBreakerListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Closes the breaker and resets the failure count.
+	 */
+	public void reset() {
+		State oldState = setClosed();
+		if (oldState != State.CLOSED) {
+			fireStateChanged(oldState, State.CLOSED);
+		}
+	}
+
+	private synchronized State setClosed() {
+		State oldState = state;
+		probeInProgress = false;
+		consecutiveFailures = 0;
+		consecutiveOpens = 0;
+		state = State.CLOSED;
+		return oldState;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "CircuitBreaker [state=" + state + ", consecutiveFailures=" + consecutiveFailures + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private void fireStateChanged(State oldState, State newState) {
+		for (ICircuitBreakerListener listener : listeners) {
+			try {
+				listener.stateChanged(this, oldState, newState);
+			} catch (RuntimeException e) {
+				StatusHandler.log(new Status(IStatus.ERROR, CommonsCorePlugin.ID_PLUGIN,
+						"Unexpected error in circuit breaker listener", e)); //$NON-NLS-1$
+			}
+		}
+	}
+
+}
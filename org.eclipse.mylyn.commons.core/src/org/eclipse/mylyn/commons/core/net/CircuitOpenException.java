@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.net;
+
+import java.io.IOException;
+
+/**
+ * Indicates that a request was rejected without contacting the server because its {@link CircuitBreaker} is open.
+ *
+ * @since 3.26
+ */
+public class CircuitOpenException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long retryTime;
+
+	public CircuitOpenException(long retryTime) {
+		super("The server is not available, requests are suspended for " + retryTime + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		this.retryTime = retryTime;
+	}
+
+	/**
+	 * Returns the time in milliseconds until the next request is admitted.
+	 */
+	public long getRetryTime() {
+		return retryTime;
+	}
+
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * Caches resolved addresses by host name. Successful lookups and failed lookups expire after separate times to live so
+ * that unknown hosts are not looked up again on every connection attempt while still being retried reasonably soon.
+ * Expired entries are evicted when new entries are added and the cache holds at most {@link #MAX_SIZE} hosts.
+ *
+ * @since 3.26
+ */
+public class DnsCache {
+
+	/**
+	 * The maximum number of cached hosts. Lookups of further hosts are not cached until entries expire.
+	 */
+	public static final int MAX_SIZE = 1000;
+
+	private static class Entry {
+
+		private final InetAddress[] addresses;
+
+		private final long expires;
+
+		Entry(InetAddress[] addresses, long expires) {
+			this.addresses = addresses;
+			this.expires = expires;
+		}
+
+	}
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	private final AtomicInteger hitCount = new AtomicInteger();
+
+	private final AtomicInteger missCount = new AtomicInteger();
+
+	private final long negativeTimeToLive;
+
+	private final AtomicLong nextEvictionTime = new AtomicLong();
+
+	private final long timeToLive;
+
+	/**
+	 * @param timeToLive
+	 *            the time in milliseconds after which resolved addresses are looked up again; 0 disables caching
+	 * @param negativeTimeToLive
+	 *            the time in milliseconds after which a host that could not be resolved is looked up again; 0
+	 *            disables caching of failures
+	 */
+	public DnsCache(long timeToLive, long negativeTimeToLive) {
+		Assert.isLegal(timeToLive >= 0);
+		Assert.isLegal(negativeTimeToLive >= 0);
+		this.timeToLive = timeToLive;
+		this.negativeTimeToLive = negativeTimeToLive;
+	}
+
+	/**
+	 * Removes all cached addresses.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	public int getHitCount() {
+		return hitCount.get();
+	}
+
+	public int getMissCount() {
+		return missCount.get();
+	}
+
+	public long getNegativeTimeToLive() {
+		return negativeTimeToLive;
+	}
+
+	/**
+	 * Returns the number of cached hosts including hosts with expired entries that have not been evicted yet.
+	 */
+	public int getSize() {
+		return entries.size();
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	/**
+	 * Returns the addresses of <code>host</code>. The addresses are looked up through {@link #lookup(String)} unless
+	 * cached addresses are available.
+	 *
+	 * @return the addresses, never empty
+	 * @throws UnknownHostException
+	 *             if <code>host</code> could not be resolved
+	 */
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		Assert.isNotNull(host);
+		String key = host.toLowerCase(Locale.ENGLISH);
+		long now = System.currentTimeMillis();
+		Entry entry = entries.get(key);
+		if (entry != null && entry.expires > now) {
+			hitCount.incrementAndGet();
+			if (entry.addresses == null) {
+				throw new UnknownHostException(host);
+			}
+			return entry.addresses.clone();
+		}
+
+		missCount.incrementAndGet();
+		InetAddress[] addresses;
+		try {
+			addresses = lookup(host);
+		} catch (UnknownHostException e) {
+			if (negativeTimeToLive > 0) {
+				put(key, new Entry(null, now + negativeTimeToLive), now);
+			} else if (entry != null) {
+				entries.remove(key, entry);
+			}
+			throw e;
+		}
+		if (addresses == null || addresses.length == 0) {
+			throw new UnknownHostException(host);
+		}
+		if (timeToLive > 0) {
+			put(key, new Entry(addresses.clone(), now + timeToLive), now);
+		}
+		return addresses;
+	}
+
+	private void put(String key, Entry entry, long now) {
+		long evictionTime = nextEvictionTime.get();
+		if ((now >= evictionTime && nextEvictionTime.compareAndSet(evictionTime, now + getEvictionInterval()))
+				|| entries.size() >= MAX_SIZE) {
+			evictExpired(now);
+		}
+		if (entries.size() < MAX_SIZE || entries.containsKey(key)) {
+			entries.put(key, entry);
+		}
+	}
+
+	private long getEvictionInterval() {
+		if (timeToLive > 0 && negativeTimeToLive > 0) {
+			return Math.min(timeToLive, negativeTimeToLive);
+		}
+		return Math.max(timeToLive, negativeTimeToLive);
+	}
+
+	private void evictExpired(long now) {
+		for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+			if (it.next().expires <= now) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Looks up the addresses of <code>host</code>. The default implementation uses the resolver of the JVM.
+	 */
+	protected InetAddress[] lookup(String host) throws UnknownHostException {
+		return InetAddress.getAllByName(host);
+	}
+
+}
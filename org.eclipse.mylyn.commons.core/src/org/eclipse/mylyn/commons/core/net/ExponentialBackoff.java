@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.net;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * Computes delays between retries that grow exponentially with the number of attempts. Each delay is chosen randomly
+ * between 0 and the exponential bound so that clients that failed at the same time do not retry at the same time.
+ *
+ * @since 3.26
+ */
+public class ExponentialBackoff {
+
+	private final long initialDelay;
+
+	private final long maxDelay;
+
+	/**
+	 * @param initialDelay
+	 *            the bound of the delay before the first retry in milliseconds
+	 * @param maxDelay
+	 *            the maximum delay in milliseconds
+	 */
+	public ExponentialBackoff(long initialDelay, long maxDelay) {
+		Assert.isLegal(initialDelay >= 0);
+		Assert.isLegal(maxDelay >= initialDelay);
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+	}
+
+	/**
+	 * Returns the delay before retry <code>attempt</code>.
+	 *
+	 * @param attempt
+	 *            the number of the retry starting at 0
+	 * @return the delay in milliseconds
+	 */
+	public long getDelay(int attempt) {
+		Assert.isLegal(attempt >= 0);
+		return ThreadLocalRandom.current().nextLong(getMaxDelay(attempt) + 1);
+	}
+
+	/**
+	 * Returns the upper bound of the delay before retry <code>attempt</code>.
+	 */
+	public long getMaxDelay(int attempt) {
+		long delay = initialDelay << Math.min(attempt, 30);
+		return (delay < 0 || delay > maxDelay) ? maxDelay : delay;
+	}
+
+	public long getInitialDelay() {
+		return initialDelay;
+	}
+
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+
+}
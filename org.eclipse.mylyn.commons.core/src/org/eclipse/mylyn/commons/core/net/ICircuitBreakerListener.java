@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.net;
+
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker.State;
+
+/**
+ * Notified when a {@link CircuitBreaker} changes state. Listeners are invoked on the thread that reported the outcome
+ * of a request and should return quickly.
+ *
+ * @since 3.26
+ */
+public interface ICircuitBreakerListener {
+
+	public void stateChanged(CircuitBreaker breaker, State oldState, State newState);
+
+}
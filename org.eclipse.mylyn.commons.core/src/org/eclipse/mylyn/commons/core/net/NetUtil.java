@@ -13,6 +13,8 @@
 package org.eclipse.mylyn.commons.core.net;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.Proxy.Type;
@@ -20,8 +22,20 @@ import java.net.ProxySelector;
 import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.net.ssl.SSLSocket;
@@ -49,6 +63,14 @@ public class NetUtil {
 
 	private static final String PROPERTY_MAX_HTTP_TOTAL_CONNECTIONS = "org.eclipse.mylyn.http.total.connections"; //$NON-NLS-1$
 
+	private static final String PROPERTY_DNS_CACHE_TTL = "org.eclipse.mylyn.dns.cache.ttl"; //$NON-NLS-1$
+
+	private static final String PROPERTY_DNS_CACHE_NEGATIVE_TTL = "org.eclipse.mylyn.dns.cache.negative.ttl"; //$NON-NLS-1$
+
+	private static final String PROPERTY_CONNECT_RACING = "org.eclipse.mylyn.http.connect.racing"; //$NON-NLS-1$
+
+	private static final String PROPERTY_CONNECT_RACING_DELAY = "org.eclipse.mylyn.http.connect.racing.delay"; //$NON-NLS-1$
+
 	private static final int HTTPS_PORT = 443;
 
 	private static final int HTTP_PORT = 80;
@@ -57,15 +79,62 @@ public class NetUtil {
 
 	private static final int MAX_HTTP_TOTAL_CONNECTIONS_DEFAULT = 1000;
 
+	private static final int DNS_CACHE_TTL_DEFAULT = 60 * 1000;
+
+	private static final int DNS_CACHE_NEGATIVE_TTL_DEFAULT = 10 * 1000;
+
+	private static final int CONNECT_RACING_DELAY_DEFAULT = 250;
+
 	private final static String[] enabledProtocols;
 
 	private final static AtomicBoolean loggedEnabledProtocolsException = new AtomicBoolean();
 
+	private final static ProxyCache proxyCache = new ProxyCache() {
+		@Override
+		protected IProxyService getProxyService() {
+			return CommonsCorePlugin.getProxyService();
+		}
+
+		@Override
+		protected Proxy resolveProxy(String host, String proxyType) {
+			return NetUtil.resolveProxy(host, proxyType);
+		}
+	};
+
+	private static FutureTask<String> localHostNameTask;
+
+	private final static DnsCache dnsCache = new DnsCache(getSystemPropertyAndParseInt(PROPERTY_DNS_CACHE_TTL,
+			DNS_CACHE_TTL_DEFAULT), getSystemPropertyAndParseInt(PROPERTY_DNS_CACHE_NEGATIVE_TTL,
+			DNS_CACHE_NEGATIVE_TTL_DEFAULT));
+
+	private static ExecutorService connectExecutor;
+
 	static {
 		String value = System.getProperty("org.eclipse.mylyn.https.protocols"); //$NON-NLS-1$
 		enabledProtocols = (value != null) ? value.split(",") : null; //$NON-NLS-1$
 	}
 
+	private static class ConnectTask implements Callable<Socket> {
+
+		private final InetSocketAddress address;
+
+		private final Socket socket;
+
+		private final int timeout;
+
+		ConnectTask(Socket socket, InetSocketAddress address, int timeout) {
+			this.socket = socket;
+			this.address = address;
+			this.timeout = timeout;
+		}
+
+		public Socket call() throws Exception {
+			socket.connect(address, timeout);
+			return socket;
+		}
+
+	}
+
 	/**
 	 * Invokes {@link Socket#connect(java.net.SocketAddress, int)} on <code>socket</code> to connect to
 	 * <code>address</code>.
@@ -109,6 +178,135 @@ public class NetUtil {
 		}
 	}
 
+	/**
+	 * Connects to the first of <code>addresses</code> that accepts a connection. Connection attempts are started in
+	 * order, each <code>delay</code> milliseconds after the previous one unless the previous attempt fails earlier.
+	 * Once an attempt succeeds all other attempts are aborted and their sockets are closed. Closing one of the sockets
+	 * from another thread, e.g. to abort the connection, or interrupting the calling thread aborts all attempts.
+	 * <p>
+	 * Sockets are created through <code>socketFactory</code> in the calling thread and must not be connected.
+	 *
+	 * @param socketFactory
+	 *            creates a socket for each connection attempt
+	 * @param addresses
+	 *            the addresses to connect to in order of preference
+	 * @param port
+	 *            the port to connect to
+	 * @param timeout
+	 *            the connect timeout of each attempt
+	 * @param delay
+	 *            the time in milliseconds to wait for an attempt before starting the next
+	 * @return the connected socket
+	 * @throws IOException
+	 *             the failure of the first attempt if all attempts fail
+	 * @since 3.26
+	 */
+	public static Socket connect(Callable<Socket> socketFactory, InetAddress[] addresses, int port, int timeout,
+			long delay) throws IOException {
+		Assert.isNotNull(socketFactory);
+		Assert.isLegal(addresses != null && addresses.length > 0);
+		if (addresses.length == 1) {
+			Socket socket = createSocket(socketFactory);
+			try {
+				socket.connect(new InetSocketAddress(addresses[0], port), timeout);
+			} catch (IOException e) {
+				closeQuietly(socket);
+				throw e;
+			}
+			return socket;
+		}
+
+		CompletionService<Socket> service = new ExecutorCompletionService<Socket>(getConnectExecutor());
+		List<Socket> sockets = new ArrayList<Socket>(addresses.length);
+		List<Future<Socket>> futures = new ArrayList<Future<Socket>>(addresses.length);
+		Socket connectedSocket = null;
+		IOException exception = null;
+		try {
+			int pending = 0;
+			int next = 0;
+			while (connectedSocket == null && (pending > 0 || next < addresses.length)) {
+				if (next < addresses.length) {
+					final Socket socket = createSocket(socketFactory);
+					sockets.add(socket);
+					futures.add(service.submit(new ConnectTask(socket, new InetSocketAddress(addresses[next], port),
+							timeout)));
+					next++;
+					pending++;
+				}
+				Future<Socket> future = (next < addresses.length)
+						? service.poll(delay, TimeUnit.MILLISECONDS)
+						: service.take();
+				if (future != null) {
+					pending--;
+					try {
+						connectedSocket = future.get();
+					} catch (ExecutionException e) {
+						IOException cause = (e.getCause() instanceof IOException)
+								? (IOException) e.getCause()
+								: new IOException(e.getCause());
+						if (sockets.get(futures.indexOf(future)).isClosed()) {
+							// the socket was closed by another thread, abort all attempts
+							exception = cause;
+							break;
+						}
+						if (exception == null) {
+							exception = cause;
+						}
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			InterruptedIOException ioe = new InterruptedIOException();
+			ioe.initCause(e);
+			exception = ioe;
+		} finally {
+			for (Future<Socket> future : futures) {
+				future.cancel(false);
+			}
+			for (Socket socket : sockets) {
+				if (socket != connectedSocket) {
+					closeQuietly(socket);
+				}
+			}
+		}
+		if (connectedSocket == null) {
+			throw exception;
+		}
+		return connectedSocket;
+	}
+
+	private static Socket createSocket(Callable<Socket> socketFactory) throws IOException {
+		try {
+			return socketFactory.call();
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static void closeQuietly(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	private static synchronized ExecutorService getConnectExecutor() {
+		if (connectExecutor == null) {
+			connectExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Mylyn Connect"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return connectExecutor;
+	}
+
 	public static Proxy createProxy(String proxyHost, int proxyPort) {
 		return createProxy(proxyHost, proxyPort, null, null, null);
 	}
@@ -199,10 +397,18 @@ public class NetUtil {
 		return getProxy(host, getPlatformProxyType(proxyType));
 	}
 
-	@SuppressWarnings("deprecation")
+	/**
+	 * Returns the platform proxy for connections to <code>host</code>. Decisions are cached by host and proxy type and
+	 * discarded when the proxy settings change.
+	 *
+	 * @return the proxy or <code>null</code>, if connections to <code>host</code> are not proxied
+	 */
 	public static Proxy getProxy(String host, String proxyType) {
-		Assert.isNotNull(host);
-		Assert.isNotNull(proxyType);
+		return proxyCache.getProxy(host, proxyType);
+	}
+
+	@SuppressWarnings("deprecation")
+	private static Proxy resolveProxy(String host, String proxyType) {
 		IProxyService service = CommonsCorePlugin.getProxyService();
 		if (service != null && service.isProxiesEnabled()) {
 			// TODO e3.5 move to new proxy API
@@ -248,6 +454,46 @@ public class NetUtil {
 		return proxy;
 	}
 
+	/**
+	 * Returns the host name of the local machine. The name is resolved once on a background thread since
+	 * {@link InetAddress#getLocalHost()} may block for a long time on misconfigured systems.
+	 *
+	 * @return the local host name or <code>null</code>, if the name has not been resolved yet or resolving it failed
+	 * @since 3.26
+	 */
+	public static String getLocalHostName() {
+		FutureTask<String> task;
+		synchronized (NetUtil.class) {
+			if (localHostNameTask == null) {
+				localHostNameTask = new FutureTask<String>(new Callable<String>() {
+					public String call() throws Exception {
+						try {
+							return InetAddress.getLocalHost().getHostName();
+						} catch (UnknownHostException e) {
+							StatusHandler.log(new Status(IStatus.ERROR, CommonsCorePlugin.ID_PLUGIN,
+									"Unable to get hostname", e)); //$NON-NLS-1$
+							return null;
+						}
+					}
+				});
+				Thread thread = new Thread(localHostNameTask, "Mylyn Local Host Resolver"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				thread.start();
+			}
+			task = localHostNameTask;
+		}
+		if (task.isDone()) {
+			try {
+				return task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				// ignore
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Returns the request path part of <code>url</code>.
 	 * 
@@ -306,6 +552,37 @@ public class NetUtil {
 		return getSystemPropertyAndParseInt(PROPERTY_MAX_HTTP_TOTAL_CONNECTIONS, MAX_HTTP_TOTAL_CONNECTIONS_DEFAULT);
 	}
 
+	/**
+	 * Returns the cache used to resolve host names. The times to live of cached addresses and failed lookups are
+	 * configured through the <code>org.eclipse.mylyn.dns.cache.ttl</code> and
+	 * <code>org.eclipse.mylyn.dns.cache.negative.ttl</code> system properties in milliseconds.
+	 *
+	 * @since 3.26
+	 */
+	public static DnsCache getDnsCache() {
+		return dnsCache;
+	}
+
+	/**
+	 * Returns <code>true</code>, if connections should be attempted to all resolved addresses of a host concurrently
+	 * through {@link #connect(Callable, InetAddress[], int, int, long)}. Disabled by default.
+	 *
+	 * @since 3.26
+	 */
+	public static boolean isConnectRacingEnabled() {
+		return Boolean.getBoolean(PROPERTY_CONNECT_RACING);
+	}
+
+	/**
+	 * Returns the delay in milliseconds between concurrent connection attempts.
+	 *
+	 * @see #isConnectRacingEnabled()
+	 * @since 3.26
+	 */
+	public static int getConnectRacingDelay() {
+		return getSystemPropertyAndParseInt(PROPERTY_CONNECT_RACING_DELAY, CONNECT_RACING_DELAY_DEFAULT);
+	}
+
 	private static int getSystemPropertyAndParseInt(String key, int defaultValue) {
 		String property = System.getProperty(key);
 		if (property != null) {
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.net;
+
+import java.net.Proxy;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.net.proxy.IProxyChangeEvent;
+import org.eclipse.core.net.proxy.IProxyChangeListener;
+import org.eclipse.core.net.proxy.IProxyService;
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * Caches proxy decisions by host and proxy type. Entries are discarded when the {@link IProxyService} reports a change
+ * of the proxy settings and expire after a time to live to pick up changes of the JDK proxy selector which does not
+ * send notifications.
+ *
+ * @since 3.26
+ */
+public abstract class ProxyCache {
+
+	private static final long DEFAULT_TIME_TO_LIVE = 60 * 1000;
+
+	private static class Entry {
+
+		private final long expires;
+
+		private final Proxy proxy;
+
+		Entry(Proxy proxy, long expires) {
+			this.proxy = proxy;
+			this.expires = expires;
+		}
+
+	}
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	private final AtomicInteger generation = new AtomicInteger();
+
+	private final AtomicInteger hitCount = new AtomicInteger();
+
+	private final IProxyChangeListener listener = new IProxyChangeListener() {
+		public void proxyInfoChanged(IProxyChangeEvent event) {
+			clear();
+		}
+	};
+
+	private final AtomicInteger missCount = new AtomicInteger();
+
+	private volatile IProxyService service;
+
+	private final long timeToLive;
+
+	public ProxyCache() {
+		this(DEFAULT_TIME_TO_LIVE);
+	}
+
+	/**
+	 * @param timeToLive
+	 *            the time in milliseconds after which a decision is resolved again; 0 disables expiry
+	 */
+	public ProxyCache(long timeToLive) {
+		Assert.isLegal(timeToLive >= 0);
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Removes all cached decisions.
+	 */
+	public void clear() {
+		generation.incrementAndGet();
+		entries.clear();
+	}
+
+	/**
+	 * Stops listening for proxy changes and removes all cached decisions.
+	 */
+	public synchronized void dispose() {
+		if (service != null) {
+			service.removeProxyChangeListener(listener);
+			service = null;
+		}
+		clear();
+	}
+
+	public int getHitCount() {
+		return hitCount.get();
+	}
+
+	public int getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the proxy for connections to <code>host</code>. The decision is resolved through
+	 * {@link #resolveProxy(String, String)} unless a cached decision is available.
+	 *
+	 * @param host
+	 *            the host to connect to
+	 * @param proxyType
+	 *            the proxy type, see {@link org.eclipse.core.net.proxy.IProxyData}
+	 * @return the proxy or <code>null</code>, if connections to <code>host</code> are not proxied
+	 */
+	public Proxy getProxy(String host, String proxyType) {
+		Assert.isNotNull(host);
+		Assert.isNotNull(proxyType);
+		IProxyService currentService = getProxyService();
+		attach(currentService);
+
+		String key = proxyType + "://" + host.toLowerCase(Locale.ENGLISH); //$NON-NLS-1$
+		long now = System.currentTimeMillis();
+		Entry entry = entries.get(key);
+		if (entry != null && (entry.expires == 0 || entry.expires > now)) {
+			hitCount.incrementAndGet();
+			return (entry.proxy == Proxy.NO_PROXY) ? null : entry.proxy;
+		}
+
+		missCount.incrementAndGet();
+		int expectedGeneration = generation.get();
+		Proxy proxy = resolveProxy(host, proxyType);
+		entry = new Entry((proxy != null) ? proxy : Proxy.NO_PROXY, (timeToLive > 0) ? now + timeToLive : 0);
+		entries.put(key, entry);
+		if (generation.get() != expectedGeneration) {
+			// settings changed while resolving, the decision may be stale
+			entries.remove(key, entry);
+		}
+		return proxy;
+	}
+
+	/**
+	 * Returns the proxy service that provides change notifications or <code>null</code>, if the service is not
+	 * available.
+	 */
+	protected abstract IProxyService getProxyService();
+
+	/**
+	 * Determines the proxy for connections to <code>host</code>.
+	 *
+	 * @return the proxy or <code>null</code>, if connections to <code>host</code> are not proxied
+	 */
+	protected abstract Proxy resolveProxy(String host, String proxyType);
+
+	private void attach(IProxyService currentService) {
+		if (currentService == service) {
+			return;
+		}
+		synchronized (this) {
+			if (currentService != service) {
+				if (service != null) {
+					service.removeProxyChangeListener(listener);
+				}
+				service = currentService;
+				if (service != null) {
+					service.addProxyChangeListener(listener);
+				}
+				clear();
+			}
+		}
+	}
+
+}
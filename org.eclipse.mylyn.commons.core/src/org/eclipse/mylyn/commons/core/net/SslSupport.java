@@ -13,18 +13,30 @@
 
 package org.eclipse.mylyn.commons.core.net;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 
@@ -45,12 +57,96 @@ public class SslSupport {
 
 	private static final String KEY_STORE_TYPE = "javax.net.ssl.keyStoreType"; //$NON-NLS-1$
 
+	private static final int MAX_CACHED_INSTANCES = 16;
+
+	private static final Map<CacheKey, SslSupport> cache = new LinkedHashMap<CacheKey, SslSupport>(
+			MAX_CACHED_INSTANCES, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, SslSupport> eldest) {
+			return size() > MAX_CACHED_INSTANCES;
+		}
+
+	};
+
+	/**
+	 * Returns a shared instance for the given key store and trust managers. Instances are cached by key store file,
+	 * password and trust managers, which are compared by {@link Object#equals(Object)}, so that the key store is only
+	 * loaded once and the underlying {@link SSLContext} is reused across connections which enables TLS session
+	 * resumption.
+	 * <p>
+	 * A cached instance is discarded if the key store file has been modified since it was loaded.
+	 * 
+	 * @since 3.26
+	 * @see #invalidateCache()
+	 */
+	public static SslSupport getCached(TrustManager[] trustManagers, String keyStoreFileName,
+			String keyStorePassword, String keyStoreType) {
+		CacheKey key = new CacheKey(trustManagers, keyStoreFileName, keyStorePassword, keyStoreType);
+		synchronized (cache) {
+			SslSupport support = cache.get(key);
+			if (support == null || support.isKeyStoreModified()) {
+				support = new SslSupport(trustManagers, keyStoreFileName, keyStorePassword, keyStoreType);
+				cache.put(key, support);
+			}
+			return support;
+		}
+	}
+
+	/**
+	 * Returns a shared instance for the key store that is configured by the <code>javax.net.ssl.keyStore</code> system
+	 * properties.
+	 * 
+	 * @since 3.26
+	 * @see #getCached(TrustManager[], String, String, String)
+	 */
+	public static SslSupport getCached(TrustManager[] trustManagers) {
+		return getCached(trustManagers, System.getProperty(KEY_STORE_FILE_NAME), System.getProperty(KEY_STORE_PASSWORD),
+				System.getProperty(KEY_STORE_TYPE));
+	}
+
+	/**
+	 * Discards all instances cached by {@link #getCached(TrustManager[], String, String, String)}.
+	 * 
+	 * @since 3.26
+	 */
+	public static void invalidateCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Discards all cached instances that use the key store <code>keyStoreFileName</code>.
+	 * 
+	 * @since 3.26
+	 */
+	public static void invalidateCache(String keyStoreFileName) {
+		synchronized (cache) {
+			for (Iterator<CacheKey> it = cache.keySet().iterator(); it.hasNext();) {
+				CacheKey key = it.next();
+				if (keyStoreFileName == null ? key.keyStoreFileName == null
+						: keyStoreFileName.equals(key.keyStoreFileName)) {
+					it.remove();
+				}
+			}
+		}
+	}
+
+	private final AtomicLong handshakeCount = new AtomicLong();
+
+	private final AtomicLong resumedHandshakeCount = new AtomicLong();
+
 	private final String keyStoreFileName;
 
 	private final String keyStorePassword;
 
 	private final String keyStoreType;
 
+	private long keyStoreTimestamp;
+
 	private SSLSocketFactory socketFactory;
 
 	private final TrustManager[] trustManagers;
@@ -104,12 +200,32 @@ public class SslSupport {
 		return true;
 	}
 
+	/**
+	 * Returns the number of TLS handshakes that were performed through {@link #startHandshake(SSLSocket)} or observed
+	 * through {@link #monitorHandshake(SSLSocket)}.
+	 * 
+	 * @since 3.26
+	 */
+	public long getHandshakeCount() {
+		return handshakeCount.get();
+	}
+
+	/**
+	 * Returns the number of handshakes that resumed a previously established TLS session.
+	 * 
+	 * @since 3.26
+	 */
+	public long getResumedHandshakeCount() {
+		return resumedHandshakeCount.get();
+	}
+
 	public synchronized SSLSocketFactory getSocketFactory() throws IOException {
 		if (socketFactory == null) {
 			KeyManager[] keyManagers = null;
 
 			// load keystore from file
 			if (keyStoreFileName != null && keyStorePassword != null) {
+				keyStoreTimestamp = new File(keyStoreFileName).lastModified();
 				try {
 					if (keyStoreType != null) {
 						keyManagers = openKeyStore(keyStoreType);
@@ -152,6 +268,49 @@ public class SslSupport {
 		return result;
 	}
 
+	/**
+	 * Performs the TLS handshake on <code>socket</code> and records it in the statistics of this instance. The
+	 * handshake is classified as resumed if the negotiated session was established before the handshake started.
+	 * 
+	 * @since 3.26
+	 * @see #getHandshakeCount()
+	 * @see #getResumedHandshakeCount()
+	 */
+	public void startHandshake(SSLSocket socket) throws IOException {
+		long start = System.currentTimeMillis();
+		socket.startHandshake();
+		recordHandshake(socket.getSession(), start);
+	}
+
+	/**
+	 * Records the TLS handshake of <code>socket</code> in the statistics of this instance once it completes without
+	 * starting it. This is used for sockets that have no timeout applied yet and are handshaken lazily on first use.
+	 * 
+	 * @since 3.26
+	 * @see #startHandshake(SSLSocket)
+	 */
+	public void monitorHandshake(SSLSocket socket) {
+		final long start = System.currentTimeMillis();
+		socket.addHandshakeCompletedListener(new HandshakeCompletedListener() {
+			public void handshakeCompleted(HandshakeCompletedEvent event) {
+				event.getSocket().removeHandshakeCompletedListener(this);
+				recordHandshake(event.getSession(), start);
+			}
+		});
+	}
+
+	private void recordHandshake(SSLSession session, long start) {
+		handshakeCount.incrementAndGet();
+		if (session != null && session.isValid() && session.getCreationTime() < start) {
+			resumedHandshakeCount.incrementAndGet();
+		}
+	}
+
+	private synchronized boolean isKeyStoreModified() {
+		return socketFactory != null && keyStoreFileName != null
+				&& new File(keyStoreFileName).lastModified() != keyStoreTimestamp;
+	}
+
 	private KeyManager[] openKeyStore(String type) throws KeyStoreException, IOException, NoSuchAlgorithmException,
 			CertificateException, FileNotFoundException, UnrecoverableKeyException {
 		KeyStore keyStore = KeyStore.getInstance(type);
@@ -163,4 +322,70 @@ public class SslSupport {
 		return keyManagerFactory.getKeyManagers();
 	}
 
+	private static class CacheKey {
+
+		private final String keyStoreFileName;
+
+		private final String keyStorePasswordHash;
+
+		private final String keyStoreType;
+
+		private final TrustManager[] trustManagers;
+
+		CacheKey(TrustManager[] trustManagers, String keyStoreFileName, String keyStorePassword, String keyStoreType) {
+			this.keyStoreFileName = keyStoreFileName;
+			this.keyStorePasswordHash = (keyStorePassword != null) ? hash(keyStorePassword) : null;
+			this.keyStoreType = keyStoreType;
+			// trust managers are compared by equality since their configuration is not accessible
+			this.trustManagers = (trustManagers != null) ? trustManagers.clone() : null;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return equals(keyStoreFileName, other.keyStoreFileName)
+					&& equals(keyStorePasswordHash, other.keyStorePasswordHash)
+					&& equals(keyStoreType, other.keyStoreType) && Arrays.equals(trustManagers, other.trustManagers);
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + ((keyStoreFileName == null) ? 0 : keyStoreFileName.hashCode());
+			result = prime * result + ((keyStorePasswordHash == null) ? 0 : keyStorePasswordHash.hashCode());
+			result = prime * result + ((keyStoreType == null) ? 0 : keyStoreType.hashCode());
+			result = prime * result + Arrays.hashCode(trustManagers);
+			return result;
+		}
+
+		private static boolean equals(String value, String other) {
+			return (value == null) ? other == null : value.equals(other);
+		}
+
+		private static String hash(String password) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+				byte[] bytes = digest.digest(password.getBytes("UTF-8")); //$NON-NLS-1$
+				StringBuilder sb = new StringBuilder(bytes.length * 2);
+				for (byte b : bytes) {
+					sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+					sb.append(Character.forDigit(b & 0xF, 16));
+				}
+				return sb.toString();
+			} catch (NoSuchAlgorithmException e) {
+				return password;
+			} catch (UnsupportedEncodingException e) {
+				return password;
+			}
+		}
+
+	}
+
 }
@@ -12,19 +12,50 @@
 
 package org.eclipse.mylyn.commons.core.operations;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
 
 /**
- * Polls {@link ICancellableOperation} objects for cancellation and aborts the corresponding operations.
+ * Monitors {@link ICancellableOperation} objects for cancellation and aborts the corresponding operations.
+ * <p>
+ * Operations that are registered with a monitor that implements {@link ICancellationSource} are aborted immediately
+ * when the monitor is canceled. All other operations are polled: they are distributed across the slots of a hashed
+ * timing wheel that is advanced once per tick so that each operation is checked once per polling interval without
+ * scanning all operations on every tick.
  * 
  * @author Steffen Pingel
  * @since 3.9
  */
 public class CancellableOperationMonitorThread extends Thread {
 
+	private static class Registration implements ICancellable {
+
+		private final ICancellableOperation operation;
+
+		private int slot = -1;
+
+		private ICancellationSource source;
+
+		Registration(ICancellableOperation operation) {
+			this.operation = operation;
+		}
+
+		public void abort() {
+			operation.abort();
+		}
+
+	}
+
 	private static final int DEFAULT_POLLING_INTERVAL = 1000;
 
+	private static final int WHEEL_SIZE = 8;
+
 	private static CancellableOperationMonitorThread instance;
 
 	public static synchronized CancellableOperationMonitorThread getInstance() {
@@ -34,18 +65,32 @@ public class CancellableOperationMonitorThread extends Thread {
 		return instance;
 	}
 
-	private final List<ICancellableOperation> operations = new CopyOnWriteArrayList<ICancellableOperation>();
+	private int polledCount;
 
 	private final long pollingInterval;
 
+	private final Map<ICancellableOperation, Registration> registrations = new HashMap<ICancellableOperation, Registration>();
+
 	private boolean shutdown;
 
+	private long sweepsCompleted;
+
+	private long sweepsRequested;
+
+	private int tick;
+
+	private final List<Set<Registration>> wheel;
+
 	public CancellableOperationMonitorThread() {
 		this(DEFAULT_POLLING_INTERVAL);
 	}
 
 	public CancellableOperationMonitorThread(long pollingInterval) {
 		this.pollingInterval = pollingInterval;
+		this.wheel = new ArrayList<Set<Registration>>(WHEEL_SIZE);
+		for (int i = 0; i < WHEEL_SIZE; i++) {
+			wheel.add(new HashSet<Registration>());
+		}
 		setDaemon(true);
 	}
 
@@ -55,13 +100,53 @@ public class CancellableOperationMonitorThread extends Thread {
 	 * 
 	 * @see #removeOperation(ICancellableOperation)
 	 */
-	public synchronized void addOperation(ICancellableOperation operation) {
-		checkShutdown();
-		operations.add(operation);
-		if (!isAlive() && !shutdown) {
-			start();
-		} else {
-			notify();
+	public void addOperation(ICancellableOperation operation) {
+		addOperation(operation, null);
+	}
+
+	/**
+	 * Registers <code>operation</code> to be be monitored for cancellation. If <code>monitor</code> reports all
+	 * cancellations through {@link ICancellationSource} the operation is aborted as soon as the monitor is canceled,
+	 * otherwise the operation is polled. If the operation is complete it must be unregistered by invoking
+	 * {@link #removeOperation(ICancellableOperation)}.
+	 * 
+	 * @param operation
+	 *            the operation
+	 * @param monitor
+	 *            the monitor that signals cancellation of <code>operation</code> or <code>null</code>
+	 * @since 3.26
+	 * @see #removeOperation(ICancellableOperation)
+	 */
+	public void addOperation(ICancellableOperation operation, IProgressMonitor monitor) {
+		Registration registration = new Registration(operation);
+		synchronized (this) {
+			checkShutdown();
+			Registration previous = registrations.put(operation, registration);
+			if (previous != null) {
+				unregister(previous);
+			}
+
+			boolean signaled = false;
+			if (monitor instanceof ICancellationSource) {
+				registration.source = (ICancellationSource) monitor;
+				signaled = registration.source.addCancellationListener(registration);
+			}
+			if (!signaled) {
+				registration.slot = tick;
+				wheel.get(tick).add(registration);
+				polledCount++;
+			}
+
+			if (!isAlive() && !shutdown) {
+				start();
+			} else if (polledCount == 1) {
+				// wake up thread that is waiting for operations
+				notify();
+			}
+		}
+		// the monitor may have been canceled before the listener was registered
+		if (registration.source != null && operation.isCanceled()) {
+			operation.abort();
 		}
 	}
 
@@ -73,18 +158,20 @@ public class CancellableOperationMonitorThread extends Thread {
 	}
 
 	/**
-	 * Checks all registered operations for cancellation. Checks all queued operations at most twice. Used for testing.
+	 * Checks all registered operations that require polling for cancellation. Blocks until all operations have been
+	 * checked. Returns immediately if no operations are registered, e.g. since they were already aborted by a
+	 * cancellation listener. Used for testing.
 	 */
 	public synchronized void processOperations() throws InterruptedException {
-		if (operations.isEmpty()) {
-			throw new IllegalStateException("The list of operations is empty"); //$NON-NLS-1$
-		}
 		checkShutdown();
-		notify();
-		wait();
-		// ensure processing happens again in case the first notify happened while the queue was processing 
-		notify();
-		wait();
+		if (registrations.isEmpty()) {
+			return;
+		}
+		long sweep = ++sweepsRequested;
+		notifyAll();
+		while (sweepsCompleted < sweep && isAlive()) {
+			wait();
+		}
 	}
 
 	/**
@@ -94,20 +181,45 @@ public class CancellableOperationMonitorThread extends Thread {
 	 */
 	public synchronized void removeOperation(ICancellableOperation operation) {
 		checkShutdown();
-		operations.remove(operation);
+		Registration registration = registrations.remove(operation);
+		if (registration != null) {
+			unregister(registration);
+		}
 	}
 
 	@Override
 	public void run() {
+		long tickInterval = Math.max(1, pollingInterval / WHEEL_SIZE);
 		try {
 			while (true) {
-				for (ICancellableOperation opertion : operations) {
-					if (opertion.isCanceled()) {
-						opertion.abort();
+				List<Registration> due;
+				long sweep;
+				synchronized (this) {
+					if (shutdown) {
+						break;
+					}
+					sweep = sweepsRequested;
+					if (sweep > sweepsCompleted) {
+						due = new ArrayList<Registration>(polledCount);
+						for (Set<Registration> slot : wheel) {
+							due.addAll(slot);
+						}
+					} else {
+						due = new ArrayList<Registration>(wheel.get(tick));
+						tick = (tick + 1) % WHEEL_SIZE;
 					}
 				}
+
+				for (Registration registration : due) {
+					if (registration.operation.isCanceled()) {
+						registration.operation.abort();
+					}
+				}
+
 				synchronized (this) {
-					// notify threads waiting in processOnce()
+					sweepsCompleted = Math.max(sweepsCompleted, sweep);
+
+					// notify threads waiting in processOperations()
 					notifyAll();
 
 					// check shutdown flag while holding this
@@ -115,10 +227,13 @@ public class CancellableOperationMonitorThread extends Thread {
 						break;
 					}
 
-					if (operations.isEmpty()) {
+					if (sweepsRequested > sweepsCompleted) {
+						continue;
+					}
+					if (polledCount == 0) {
 						wait();
 					} else {
-						wait(pollingInterval);
+						wait(tickInterval);
 					}
 				}
 			}
@@ -160,4 +275,14 @@ public class CancellableOperationMonitorThread extends Thread {
 		}
 	}
 
+	private void unregister(Registration registration) {
+		if (registration.source != null) {
+			registration.source.removeCancellationListener(registration);
+		}
+		if (registration.slot != -1) {
+			wheel.get(registration.slot).remove(registration);
+			polledCount--;
+		}
+	}
+
 }
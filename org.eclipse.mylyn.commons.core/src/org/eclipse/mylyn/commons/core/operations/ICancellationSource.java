@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.operations;
+
+/**
+ * Implemented by monitors that notify listeners when they are canceled.
+ *
+ * @since 3.26
+ */
+public interface ICancellationSource {
+
+	/**
+	 * Registers <code>listener</code> to be invoked when this monitor is canceled. The listener is invoked on the thread
+	 * that requests the cancellation.
+	 *
+	 * @return <code>true</code>, if every cancellation is reported to listeners; <code>false</code>, if the monitor may
+	 *         be canceled without notification and callers still need to poll for cancellation
+	 */
+	public abstract boolean addCancellationListener(ICancellable listener);
+
+	public abstract void removeCancellationListener(ICancellable listener);
+
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.operations;
+
+/**
+ * Provides the current state of a shared executor.
+ *
+ * @since 3.26
+ * @see OperationUtil#getExecutorMetrics(String)
+ */
+public interface IExecutorMetrics {
+
+	/**
+	 * Returns the approximate number of threads that are executing tasks.
+	 */
+	public int getActiveCount();
+
+	/**
+	 * Returns the approximate number of tasks that have completed.
+	 */
+	public long getCompletedTaskCount();
+
+	/**
+	 * Returns the maximum number of tasks that run concurrently.
+	 */
+	public int getMaxThreads();
+
+	public String getName();
+
+	/**
+	 * Returns the number of tasks that are waiting for a thread.
+	 */
+	public int getQueueSize();
+
+	/**
+	 * Returns the number of tasks that were rejected because all threads were busy and the queue was full.
+	 */
+	public long getRejectedCount();
+
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core.operations;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Creates the shared executors that are returned by {@link OperationUtil#getExecutorService(String)}. Implementations
+ * may be registered through {@link OperationUtil#setExecutorServiceFactory(IExecutorServiceFactory)} to run tasks on
+ * a different kind of thread, e.g. virtual threads.
+ *
+ * @since 3.26
+ * @see OperationUtil#getExecutorService(String)
+ */
+public interface IExecutorServiceFactory {
+
+	/**
+	 * Creates an executor for the pool <code>name</code>. Executors that implement {@link IExecutorMetrics} are
+	 * reported through {@link OperationUtil#getExecutorMetrics(String)}.
+	 *
+	 * @param name
+	 *            the name of the pool
+	 * @param maxThreads
+	 *            the maximum number of tasks that run concurrently
+	 * @param queueCapacity
+	 *            the maximum number of tasks that wait for a thread; 0 hands tasks directly to a thread
+	 */
+	public ExecutorService createExecutorService(String name, int maxThreads, int queueCapacity);
+
+}
@@ -12,12 +12,15 @@
 
 package org.eclipse.mylyn.commons.core.operations;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -35,6 +38,46 @@ public class OperationUtil {
 
 	private static final int POLL_INTERVAL = 500;
 
+	/**
+	 * The pool for discovering and downloading connector descriptors.
+	 * 
+	 * @since 3.26
+	 */
+	public static final String EXECUTOR_DISCOVERY = "discovery"; //$NON-NLS-1$
+
+	/**
+	 * The pool for fetching the ranges of segmented downloads.
+	 * 
+	 * @since 3.26
+	 */
+	public static final String EXECUTOR_DOWNLOAD = "download"; //$NON-NLS-1$
+
+	/**
+	 * The pool for asynchronous HTTP requests. Requests block their thread while they are executed. The number of
+	 * platform threads is therefore bounded by the maximum number of HTTP connections per host and up to 10000
+	 * further requests are queued. If the system property <code>org.eclipse.mylyn.executor.virtualThreads</code> is
+	 * <code>true</code> and the JVM supports virtual threads, each request runs on a virtual thread and up to the
+	 * maximum total number of HTTP connections are executed concurrently.
+	 * 
+	 * @since 3.26
+	 */
+	public static final String EXECUTOR_HTTP = "http"; //$NON-NLS-1$
+
+	/**
+	 * The pool for retrieving the titles of web pages. It runs as many requests concurrently as connections are
+	 * available for retrieving titles.
+	 * 
+	 * @since 3.26
+	 */
+	public static final String EXECUTOR_TITLES = "titles"; //$NON-NLS-1$
+
+	/**
+	 * The pool for tasks that perform blocking I/O such as enforcing timeouts on streams. Tasks are never queued.
+	 * 
+	 * @since 3.26
+	 */
+	public static final String EXECUTOR_IO = "io"; //$NON-NLS-1$
+
 	public static IOperationMonitor convert(IProgressMonitor monitor) {
 		return convert(monitor, "", 0); //$NON-NLS-1$
 	}
@@ -67,6 +110,8 @@ public class OperationUtil {
 	}
 
 	/**
+	 * Returns the executor for {@link #EXECUTOR_IO I/O tasks}.
+	 * 
 	 * @since 3.7
 	 */
 	public static synchronized ExecutorService getExecutorService() {
@@ -74,46 +119,117 @@ public class OperationUtil {
 	}
 
 	/**
+	 * Returns the shared executor for the pool <code>name</code>, e.g. {@link #EXECUTOR_DISCOVERY}. Executors have a
+	 * bounded number of threads and a bounded queue. When both are exhausted, the submitting thread waits up to a second
+	 * for capacity before the task is rejected with a {@link java.util.concurrent.RejectedExecutionException}.
+	 * 
+	 * @since 3.26
+	 */
+	public static ExecutorService getExecutorService(String name) {
+		return CommonsCorePlugin.getExecutorService(name);
+	}
+
+	/**
+	 * Returns the queue depth, number of active threads and number of rejected tasks of the pool <code>name</code>.
+	 * 
+	 * @return the metrics or <code>null</code> if the pool has not been created or does not provide metrics
+	 * @since 3.26
+	 */
+	public static IExecutorMetrics getExecutorMetrics(String name) {
+		return CommonsCorePlugin.getExecutorMetrics(name);
+	}
+
+	/**
+	 * Sets the factory that creates the shared executors, e.g. to run tasks on virtual threads. Existing executors
+	 * are shut down once their running tasks have completed and are recreated on next access.
+	 * 
+	 * @param factory
+	 *            the factory or <code>null</code> to restore the default factory
+	 * @since 3.26
+	 */
+	public static void setExecutorServiceFactory(IExecutorServiceFactory factory) {
+		CommonsCorePlugin.setExecutorServiceFactory(factory);
+	}
+
+	/**
+	 * Executes <code>request</code> in a background thread and blocks until it completes. If <code>monitor</code> is
+	 * canceled the request is aborted, immediately if the monitor signals cancellation through
+	 * {@link ICancellationSource}, otherwise within 500 ms. After cancellation this method waits
+	 * for the aborted request to finish before throwing {@link OperationCanceledException}.
+	 * 
 	 * @since 3.7
 	 */
 	@Deprecated
-	public static <T> T execute(IProgressMonitor monitor, Operation<T> request) throws Throwable {
+	public static <T> T execute(final IProgressMonitor monitor, final Operation<T> request) throws Throwable {
 		// check for legacy reasons
 		SubMonitor subMonitor = (monitor instanceof SubMonitor) ? (SubMonitor) monitor : SubMonitor.convert(null);
 
-		Future<T> future = getExecutorService().submit(request);
-		while (true) {
-			if (monitor.isCanceled()) {
-				request.abort();
+		if (monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
 
-				// wait for executor to finish
-				future.cancel(false);
+		final AtomicBoolean started = new AtomicBoolean();
+		final CountDownLatch finished = new CountDownLatch(1);
+		Future<T> future = getExecutorService().submit(new Callable<T>() {
+			public T call() throws Exception {
+				if (!started.compareAndSet(false, true)) {
+					// canceled before the request was started
+					return null;
+				}
 				try {
-					if (!future.isCancelled()) {
-						future.get();
+					return request.call();
+				} finally {
+					finished.countDown();
+				}
+			}
+		});
+		ICancellableOperation operation = new ICancellableOperation() {
+			public void abort() {
+				request.abort();
+			}
+
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+
+		CancellableOperationMonitorThread thread = CancellableOperationMonitorThread.getInstance();
+		thread.addOperation(operation, monitor);
+		try {
+			while (true) {
+				if (monitor.isCanceled()) {
+					request.abort();
+
+					// wait for executor to finish
+					future.cancel(false);
+					if (!started.compareAndSet(false, true)) {
+						try {
+							finished.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
 					}
+					throw new OperationCanceledException();
+				}
+
+				try {
+					return future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
 				} catch (CancellationException e) {
-					// ignore
-				} catch (InterruptedException e) {
-					// ignore
+					throw new OperationCanceledException();
 				} catch (ExecutionException e) {
-					// ignore
+					if (monitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+					// XXX this hides the original stack trace from the caller invoking execute() 
+					throw e.getCause();
+				} catch (TimeoutException ignored) {
 				}
-				throw new OperationCanceledException();
-			}
 
-			try {
-				return future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
-			} catch (CancellationException e) {
-				throw new OperationCanceledException();
-			} catch (ExecutionException e) {
-				// XXX this hides the original stack trace from the caller invoking execute() 
-				throw e.getCause();
-			} catch (TimeoutException ignored) {
+				subMonitor.setWorkRemaining(20);
+				subMonitor.worked(1);
 			}
-
-			subMonitor.setWorkRemaining(20);
-			subMonitor.worked(1);
+		} finally {
+			thread.removeOperation(operation);
 		}
 	}
 
@@ -13,13 +13,18 @@
 
 package org.eclipse.mylyn.internal.commons.core;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.net.proxy.IProxyService;
+import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.Plugin;
+import org.eclipse.mylyn.commons.core.net.NetUtil;
+import org.eclipse.mylyn.commons.core.operations.IExecutorMetrics;
+import org.eclipse.mylyn.commons.core.operations.IExecutorServiceFactory;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
+import org.eclipse.mylyn.internal.commons.core.operations.DefaultExecutorServiceFactory;
 import org.osgi.framework.BundleContext;
 import org.osgi.util.tracker.ServiceTracker;
 
@@ -37,22 +42,104 @@ public class CommonsCorePlugin extends Plugin {
 
 	private static final int MAX_CONCURRENT_REQUESTS = 100;
 
-	private static IProxyService proxyService;
+	private static final int DEFAULT_MAX_THREADS = 4;
+
+	private static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+	private static final int HTTP_QUEUE_CAPACITY = 10000;
+
+	/**
+	 * The number of connections for retrieving titles.
+	 */
+	public static final int MAX_TITLE_CONNECTIONS = 20;
+
+	private static final String PROPERTY_VIRTUAL_THREADS = "org.eclipse.mylyn.executor.virtualThreads"; //$NON-NLS-1$
+
+	private static IExecutorServiceFactory executorServiceFactory;
+
+	private static final Map<String, ExecutorService> executorServiceByName = new HashMap<String, ExecutorService>();
 
-	private static ExecutorService service;
+	private static IProxyService proxyService;
 
 	public static CommonsCorePlugin getDefault() {
 		return INSTANCE;
 	}
 
-	public static synchronized ExecutorService getExecutorService() {
+	/**
+	 * Returns the executor for I/O tasks. The default factory always creates a
+	 * {@link java.util.concurrent.ThreadPoolExecutor} for this pool, also if virtual threads are enabled.
+	 */
+	public static ExecutorService getExecutorService() {
+		return getExecutorService(OperationUtil.EXECUTOR_IO);
+	}
+
+	/**
+	 * Returns the shared executor for the pool <code>name</code>. The executor is created on first access. I/O tasks
+	 * typically block for the lifetime of a stream and are therefore handed directly to a thread, other pools queue
+	 * tasks when all threads are busy.
+	 */
+	public static synchronized ExecutorService getExecutorService(String name) {
+		Assert.isNotNull(name);
+		ExecutorService service = executorServiceByName.get(name);
 		if (service == null) {
-			service = new ThreadPoolExecutor(1, MAX_CONCURRENT_REQUESTS, 10L, TimeUnit.SECONDS,
-					new SynchronousQueue<Runnable>());
+			if (executorServiceFactory == null) {
+				executorServiceFactory = new DefaultExecutorServiceFactory(Boolean.getBoolean(PROPERTY_VIRTUAL_THREADS));
+			}
+			if (OperationUtil.EXECUTOR_IO.equals(name)) {
+				service = executorServiceFactory.createExecutorService(name, MAX_CONCURRENT_REQUESTS, 0);
+			} else if (OperationUtil.EXECUTOR_HTTP.equals(name)) {
+				// requests block their thread: platform threads are limited to the connections of a single host,
+				// virtual threads are cheap and may use all connections of the connection manager
+				int maxThreads = isVirtualThreads()
+						? NetUtil.getMaxHttpConnections()
+						: NetUtil.getMaxHttpConnectionsPerHost();
+				service = executorServiceFactory.createExecutorService(name, maxThreads, HTTP_QUEUE_CAPACITY);
+			} else if (OperationUtil.EXECUTOR_TITLES.equals(name)) {
+				service = executorServiceFactory.createExecutorService(name, MAX_TITLE_CONNECTIONS,
+						DEFAULT_QUEUE_CAPACITY);
+			} else {
+				service = executorServiceFactory.createExecutorService(name, DEFAULT_MAX_THREADS,
+						DEFAULT_QUEUE_CAPACITY);
+			}
+			executorServiceByName.put(name, service);
 		}
 		return service;
 	}
 
+	private static boolean isVirtualThreads() {
+		return executorServiceFactory instanceof DefaultExecutorServiceFactory
+				&& ((DefaultExecutorServiceFactory) executorServiceFactory).isVirtualThreads();
+	}
+
+	/**
+	 * Returns the metrics of the pool <code>name</code>.
+	 * 
+	 * @return the metrics or <code>null</code> if the pool has not been created or does not provide metrics
+	 */
+	public static synchronized IExecutorMetrics getExecutorMetrics(String name) {
+		ExecutorService service = executorServiceByName.get(name);
+		return (service instanceof IExecutorMetrics) ? (IExecutorMetrics) service : null;
+	}
+
+	/**
+	 * Sets the factory for executors. Pools that were already created are shut down once their running tasks have
+	 * completed and are replaced on next access.
+	 * 
+	 * @param factory
+	 *            the factory or <code>null</code> to restore the default factory
+	 */
+	public static synchronized void setExecutorServiceFactory(IExecutorServiceFactory factory) {
+		executorServiceFactory = factory;
+		shutdownExecutorServices();
+	}
+
+	private static synchronized void shutdownExecutorServices() {
+		for (ExecutorService service : executorServiceByName.values()) {
+			service.shutdown();
+		}
+		executorServiceByName.clear();
+	}
+
 	/**
 	 * Return the {@link IProxyService} or <code>null</code> if the service is not available.
 	 * 
@@ -90,10 +177,7 @@ public class CommonsCorePlugin extends Plugin {
 	public void stop(BundleContext context) throws Exception {
 		tracker.close();
 		tracker = null;
-		if (service != null) {
-			service.shutdown();
-			service = null;
-		}
+		shutdownExecutorServices();
 		super.stop(context);
 	}
 
@@ -0,0 +1,431 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Converts HTML to text following the rules of {@link Html2TextReader}. Input is read in blocks and the text is written
+ * to an {@link Appendable} as it is produced. Tags and entities are matched without creating strings and at most
+ * {@link #MAX_MARKUP_LENGTH} characters of a tag or entity are retained, hence memory does not grow with the input.
+ */
+public class Html2TextConverter {
+
+	/**
+	 * A node of the trie of entity names.
+	 */
+	private static class EntityNode {
+
+		private EntityNode[] children = new EntityNode[0];
+
+		private char[] keys = new char[0];
+
+		private String value;
+
+		EntityNode get(char c) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		void put(String name, String value) {
+			EntityNode node = this;
+			for (int i = 0; i < name.length(); i++) {
+				EntityNode child = node.get(name.charAt(i));
+				if (child == null) {
+					child = new EntityNode();
+					int length = node.keys.length;
+					node.keys = Arrays.copyOf(node.keys, length + 1);
+					node.children = Arrays.copyOf(node.children, length + 1);
+					node.keys[length] = name.charAt(i);
+					node.children[length] = child;
+				}
+				node = child;
+			}
+			node.value = value;
+		}
+
+	}
+
+	/**
+	 * The number of characters of a tag or an entity that are retained. Longer tags are not recognized and are
+	 * truncated when they are written as text.
+	 */
+	public static final int MAX_MARKUP_LENGTH = 4 * 1024;
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private static final String EMPTY_STRING = ""; //$NON-NLS-1$
+
+	private static final EntityNode entities = new EntityNode();
+
+	private static final String LINE_DELIM = SubstitutionTextReader.LINE_DELIM;
+
+	private static final String LIST_ITEM = LINE_DELIM + "  - "; //$NON-NLS-1$
+
+	private static final String[] tags = { "b", "br", "br/", "div", "h1", "h2", "h3", "h4", "h5", "p", "dl", "dt", "dd", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$ //$NON-NLS-13$
+			"li", "ul", "pre", "head" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+	static {
+		entities.put("lt", "<"); //$NON-NLS-1$ //$NON-NLS-2$
+		entities.put("gt", ">"); //$NON-NLS-1$ //$NON-NLS-2$
+		entities.put("nbsp", " "); //$NON-NLS-1$ //$NON-NLS-2$
+		entities.put("amp", "&"); //$NON-NLS-1$ //$NON-NLS-2$
+		entities.put("circ", "^"); //$NON-NLS-1$ //$NON-NLS-2$
+		entities.put("tilde", "~"); //$NON-NLS-1$ //$NON-NLS-2$
+		entities.put("quot", "\""); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int charAfterWhitespace = -1;
+
+	private boolean ignore;
+
+	private final Reader in;
+
+	private boolean inParagraph;
+
+	private int limit;
+
+	/** holds the current tag or entity name */
+	private final StringBuilder markup = new StringBuilder();
+
+	/** the number of characters of the current tag or entity name including characters that were not retained */
+	private int markupLength;
+
+	private Appendable out;
+
+	private int position;
+
+	private boolean preformattedText;
+
+	private int previousChar;
+
+	private int lastChar;
+
+	private int unreadChar = -1;
+
+	private boolean wasWhitespace = true;
+
+	public Html2TextConverter(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * Reads the input to the end and appends the text to <code>out</code>. The input is not closed.
+	 */
+	public void convert(Appendable out) throws IOException {
+		this.out = out;
+		int c;
+		while ((c = nextChar()) != -1) {
+			if (c == '<') {
+				processTag();
+			} else if (ignore) {
+				// skip content of the head element
+			} else if (c == '&') {
+				processEntity();
+			} else {
+				write((char) c);
+			}
+		}
+	}
+
+	private void appendMarkup(char c) {
+		if (markupLength < MAX_MARKUP_LENGTH) {
+			markup.append(c);
+		}
+		markupLength++;
+		previousChar = lastChar;
+		lastChar = c;
+	}
+
+	private void clearMarkup() {
+		markup.setLength(0);
+		markupLength = 0;
+		previousChar = -1;
+		lastChar = -1;
+	}
+
+	/**
+	 * Returns the substitution for the current tag.
+	 */
+	private String getTagSubstitution() {
+		if (markupLength == 0 || markupLength > MAX_MARKUP_LENGTH) {
+			return EMPTY_STRING;
+		}
+		int start = (markup.charAt(0) == '/') ? 1 : 0;
+		if (!isKnownTag(start)) {
+			return EMPTY_STRING;
+		}
+
+		if (isTag("pre")) { //$NON-NLS-1$
+			preformattedText = true;
+			return EMPTY_STRING;
+		}
+		if (isTag("/pre")) { //$NON-NLS-1$
+			preformattedText = false;
+			return EMPTY_STRING;
+		}
+		if (preformattedText) {
+			return EMPTY_STRING;
+		}
+		if (isTag("b") || isHeading(0) || isTag("dt")) { //$NON-NLS-1$ //$NON-NLS-2$
+			return EMPTY_STRING;
+		}
+		if (isTag("dl")) { //$NON-NLS-1$
+			return LINE_DELIM;
+		}
+		if (isTag("dd")) { //$NON-NLS-1$
+			return "\t"; //$NON-NLS-1$
+		}
+		if (isTag("li")) { //$NON-NLS-1$
+			return LIST_ITEM;
+		}
+		if (isTag("/b")) { //$NON-NLS-1$
+			return EMPTY_STRING;
+		}
+		if (isTag("p")) { //$NON-NLS-1$
+			inParagraph = true;
+			return LINE_DELIM;
+		}
+		if (isTag("br") || isTag("br/") || isTag("div")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			return LINE_DELIM;
+		}
+		if (isTag("/p")) { //$NON-NLS-1$
+			boolean wasInParagraph = inParagraph;
+			inParagraph = false;
+			return (wasInParagraph) ? EMPTY_STRING : LINE_DELIM;
+		}
+		if ((markup.charAt(0) == '/' && isHeading(1)) || isTag("/dt") || isTag("/dd")) { //$NON-NLS-1$ //$NON-NLS-2$
+			return LINE_DELIM;
+		}
+		if (isTag("head")) { //$NON-NLS-1$
+			ignore = true;
+			return EMPTY_STRING;
+		}
+		if (isTag("/head")) { //$NON-NLS-1$
+			ignore = false;
+			return EMPTY_STRING;
+		}
+		return EMPTY_STRING;
+	}
+
+	private boolean isHeading(int start) {
+		return markup.length() > start + 1 && markup.charAt(start) == 'h'
+				&& Character.isDigit(markup.charAt(start + 1));
+	}
+
+	private boolean isKnownTag(int start) {
+		for (String tag : tags) {
+			if (markup.length() - start == tag.length() && regionMatches(start, tag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isTag(String tag) {
+		return markup.length() == tag.length() && regionMatches(0, tag);
+	}
+
+	/**
+	 * Returns true, if the current tag starts a comment that has not been terminated by <code>--</code>.
+	 */
+	private boolean isUnfinishedComment() {
+		return markupLength >= 3 && regionMatches(0, "!--") && !(markupLength >= 5 && previousChar == '-' //$NON-NLS-1$
+				&& lastChar == '-');
+	}
+
+	/**
+	 * Returns the next character with runs of whitespace collapsed into a single space.
+	 */
+	private int nextChar() throws IOException {
+		int ch = charAfterWhitespace;
+		if (ch == -1) {
+			ch = read();
+		}
+		if (Character.isWhitespace((char) ch)) {
+			do {
+				ch = read();
+			} while (Character.isWhitespace((char) ch));
+			if (ch != -1) {
+				charAfterWhitespace = ch;
+				return ' ';
+			}
+		} else {
+			charAfterWhitespace = -1;
+		}
+		return ch;
+	}
+
+	/**
+	 * A '&' has been read.
+	 */
+	private void processEntity() throws IOException {
+		clearMarkup();
+		EntityNode node = entities;
+		int ch = nextChar();
+		while (Character.isLetterOrDigit((char) ch) || ch == '#') {
+			appendMarkup((char) ch);
+			node = (node != null) ? node.get((char) ch) : null;
+			ch = nextChar();
+		}
+
+		if (ch == ';') {
+			if (node != null && node.value != null) {
+				write(node.value);
+				return;
+			}
+			if (markupLength > 1 && markup.charAt(0) == '#') {
+				int value = parseCharacterReference();
+				if (value != -1) {
+					write((char) value);
+					return;
+				}
+			}
+			write('&');
+			write(markup);
+			write(';');
+			return;
+		}
+
+		write('&');
+		write(markup);
+		if (ch != -1) {
+			write((char) ch);
+		}
+	}
+
+	/**
+	 * A '<' has been read.
+	 */
+	private void processTag() throws IOException {
+		clearMarkup();
+		int ch;
+		do {
+			ch = nextChar();
+			while (ch != -1 && ch != '>') {
+				appendMarkup(Character.toLowerCase((char) ch));
+				ch = nextChar();
+				if (ch == '"') {
+					appendMarkup('"');
+					ch = nextChar();
+					while (ch != -1 && ch != '"') {
+						appendMarkup(Character.toLowerCase((char) ch));
+						ch = nextChar();
+					}
+				}
+				if (ch == '<') {
+					// not a tag
+					unreadChar = ch;
+					write('<');
+					write(markup);
+					return;
+				}
+			}
+
+			if (ch == -1) {
+				write('<');
+				return;
+			}
+
+			if (isUnfinishedComment()) {
+				appendMarkup('>');
+			} else {
+				break;
+			}
+		} while (true);
+
+		write(getTagSubstitution());
+	}
+
+	/**
+	 * Parses a numeric character reference such as <code>#60</code> or <code>#x3c</code>.
+	 *
+	 * @return the value, or -1 if the reference is not valid
+	 */
+	private int parseCharacterReference() {
+		if (markupLength > MAX_MARKUP_LENGTH) {
+			return -1;
+		}
+		int radix = 10;
+		int start = 1;
+		if (markup.charAt(1) == 'x') {
+			radix = 16;
+			start = 2;
+		}
+		if (start == markup.length()) {
+			return -1;
+		}
+		long value = 0;
+		for (int i = start; i < markup.length(); i++) {
+			int digit = Character.digit(markup.charAt(i), radix);
+			if (digit == -1) {
+				return -1;
+			}
+			value = value * radix + digit;
+			if (value > Integer.MAX_VALUE) {
+				return -1;
+			}
+		}
+		return (int) value;
+	}
+
+	private int read() throws IOException {
+		if (unreadChar != -1) {
+			int ch = unreadChar;
+			unreadChar = -1;
+			return ch;
+		}
+		if (position == limit) {
+			int count = in.read(buffer, 0, buffer.length);
+			if (count <= 0) {
+				return -1;
+			}
+			position = 0;
+			limit = count;
+		}
+		return buffer[position++];
+	}
+
+	private boolean regionMatches(int start, String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (markup.charAt(start + i) != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void write(char c) throws IOException {
+		// skip spaces that follow whitespace
+		if (c == ' ' && wasWhitespace) {
+			return;
+		}
+		out.append(c);
+		wasWhitespace = (c == ' ' || c == '\r' || c == '\n');
+	}
+
+	private void write(CharSequence s) throws IOException {
+		for (int i = 0; i < s.length(); i++) {
+			write(s.charAt(i));
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.core.operations;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.mylyn.commons.core.operations.IExecutorMetrics;
+
+/**
+ * Bounds an executor that starts a new thread for each task, e.g. a virtual thread per task executor. At most
+ * <code>maxThreads</code> tasks run concurrently, up to <code>queueCapacity</code> further tasks wait in their own
+ * thread for a running task to complete and additional tasks are rejected like in {@link MonitoredThreadPoolExecutor}.
+ */
+public class BoundedVirtualThreadExecutor extends AbstractExecutorService implements IExecutorMetrics {
+
+	private final AtomicInteger activeCount = new AtomicInteger();
+
+	private final Semaphore admitted;
+
+	private final AtomicLong completedTaskCount = new AtomicLong();
+
+	private final ExecutorService delegate;
+
+	private final int maxThreads;
+
+	private final String name;
+
+	private final long offerTimeout;
+
+	private final AtomicInteger queueSize = new AtomicInteger();
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private final Semaphore running;
+
+	/**
+	 * @param maxThreads
+	 *            the maximum number of tasks that run concurrently
+	 * @param queueCapacity
+	 *            the maximum number of tasks that wait for a running task to complete
+	 * @param offerTimeout
+	 *            the time in milliseconds a submitting thread waits for capacity before a task is rejected; 0 rejects
+	 *            tasks immediately
+	 * @param delegate
+	 *            the executor that starts a thread for each task
+	 */
+	public BoundedVirtualThreadExecutor(String name, int maxThreads, int queueCapacity, long offerTimeout,
+			ExecutorService delegate) {
+		Assert.isNotNull(name);
+		Assert.isNotNull(delegate);
+		Assert.isLegal(maxThreads > 0);
+		Assert.isLegal(queueCapacity >= 0);
+		this.name = name;
+		this.maxThreads = maxThreads;
+		this.offerTimeout = offerTimeout;
+		this.delegate = delegate;
+		this.admitted = new Semaphore(maxThreads + queueCapacity);
+		this.running = new Semaphore(maxThreads, true);
+	}
+
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return delegate.awaitTermination(timeout, unit);
+	}
+
+	public void execute(final Runnable command) {
+		Assert.isNotNull(command);
+		try {
+			if (isShutdown() || !admitted.tryAcquire(offerTimeout, TimeUnit.MILLISECONDS)) {
+				reject();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			reject();
+		}
+		queueSize.incrementAndGet();
+		try {
+			delegate.execute(new Runnable() {
+				public void run() {
+					try {
+						// parking a virtual thread is cheap, waiting tasks do not occupy a carrier thread
+						running.acquire();
+					} catch (InterruptedException e) {
+						// shut down while waiting
+						queueSize.decrementAndGet();
+						admitted.release();
+						return;
+					}
+					queueSize.decrementAndGet();
+					activeCount.incrementAndGet();
+					try {
+						command.run();
+					} finally {
+						activeCount.decrementAndGet();
+						completedTaskCount.incrementAndGet();
+						running.release();
+						admitted.release();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			queueSize.decrementAndGet();
+			admitted.release();
+			reject();
+		}
+	}
+
+	public int getActiveCount() {
+		return activeCount.get();
+	}
+
+	public long getCompletedTaskCount() {
+		return completedTaskCount.get();
+	}
+
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getQueueSize() {
+		return queueSize.get();
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	public boolean isShutdown() {
+		return delegate.isShutdown();
+	}
+
+	public boolean isTerminated() {
+		return delegate.isTerminated();
+	}
+
+	private void reject() {
+		rejectedCount.incrementAndGet();
+		throw new RejectedExecutionException("Task rejected by executor " + this); //$NON-NLS-1$
+	}
+
+	public void shutdown() {
+		delegate.shutdown();
+	}
+
+	public List<Runnable> shutdownNow() {
+		return delegate.shutdownNow();
+	}
+
+	@Override
+	public String toString() {
+		return "BoundedVirtualThreadExecutor [name=" + name + ", active=" + getActiveCount() + ", queued=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ getQueueSize() + ", rejected=" + getRejectedCount() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+}
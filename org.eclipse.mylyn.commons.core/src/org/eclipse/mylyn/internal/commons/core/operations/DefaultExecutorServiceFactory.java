@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.core.operations;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.mylyn.commons.core.operations.IExecutorServiceFactory;
+
+/**
+ * Creates {@link MonitoredThreadPoolExecutor} instances that run tasks on daemon platform threads. If virtual threads
+ * are requested and the JVM supports them (Java 21 or later) tasks that may run concurrently are instead each started
+ * on a new virtual thread since virtual threads must not be pooled. A {@link BoundedVirtualThreadExecutor} limits
+ * these to the same number of concurrent and waiting tasks as the thread pool.
+ * <p>
+ * Pools without a queue hand each task directly to a thread and remain a {@link MonitoredThreadPoolExecutor} in either
+ * mode since callers of {@link org.eclipse.mylyn.internal.commons.core.CommonsCorePlugin#getExecutorService()} have
+ * always been given a {@link java.util.concurrent.ThreadPoolExecutor}. With virtual threads enabled these pools start
+ * virtual threads which are discarded after the keep alive time.
+ */
+public class DefaultExecutorServiceFactory implements IExecutorServiceFactory {
+
+	/**
+	 * The time in milliseconds a submitting thread waits for a busy executor to accept a task. Bursts that exceed the
+	 * capacity of a pool slow down the submitting thread instead of failing right away, the timeout is kept short since
+	 * tasks may be submitted from the UI thread.
+	 */
+	public static final long DEFAULT_OFFER_TIMEOUT = 1000;
+
+	/**
+	 * Returns an executor that starts a new virtual thread for each task or <code>null</code> if the JVM does not
+	 * support virtual threads.
+	 */
+	static ExecutorService createVirtualThreadPerTaskExecutor(String prefix) {
+		ThreadFactory threadFactory = createVirtualThreadFactory(prefix);
+		if (threadFactory == null) {
+			return null;
+		}
+		try {
+			Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class); //$NON-NLS-1$
+			return (ExecutorService) method.invoke(null, threadFactory);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a factory for virtual threads or <code>null</code> if the JVM does not support virtual threads.
+	 */
+	static ThreadFactory createVirtualThreadFactory(String prefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null); //$NON-NLS-1$
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder"); //$NON-NLS-1$
+			Method name = builderClass.getMethod("name", String.class, long.class); //$NON-NLS-1$
+			builder = name.invoke(builder, prefix, 1L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder); //$NON-NLS-1$
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private final long offerTimeout;
+
+	private final boolean virtualThreads;
+
+	public DefaultExecutorServiceFactory(boolean virtualThreads) {
+		this(virtualThreads, DEFAULT_OFFER_TIMEOUT);
+	}
+
+	public DefaultExecutorServiceFactory(boolean virtualThreads, long offerTimeout) {
+		this.virtualThreads = virtualThreads;
+		this.offerTimeout = offerTimeout;
+	}
+
+	public ExecutorService createExecutorService(final String name, int maxThreads, int queueCapacity) {
+		final String prefix = "Mylyn " + name + " Executor "; //$NON-NLS-1$ //$NON-NLS-2$
+		// tasks of single threaded pools are executed in order and need to be queued
+		if (virtualThreads && maxThreads > 1 && queueCapacity > 0) {
+			ExecutorService executor = createVirtualThreadPerTaskExecutor(prefix);
+			if (executor != null) {
+				return new BoundedVirtualThreadExecutor(name, maxThreads, queueCapacity, offerTimeout, executor);
+			}
+		}
+		if (virtualThreads && queueCapacity == 0) {
+			ThreadFactory threadFactory = createVirtualThreadFactory(prefix);
+			if (threadFactory != null) {
+				return new MonitoredThreadPoolExecutor(name, maxThreads, queueCapacity, offerTimeout, threadFactory);
+			}
+		}
+		ThreadFactory threadFactory = new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		return new MonitoredThreadPoolExecutor(name, maxThreads, queueCapacity, offerTimeout, threadFactory);
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.core.operations;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.mylyn.commons.core.operations.IExecutorMetrics;
+
+/**
+ * A thread pool with a bounded queue that records the number of rejected tasks. If all threads are busy and the queue
+ * is full, the submitting thread waits up to the offer timeout for a thread or queue slot before the task is rejected.
+ * The offer timeout should be short for pools that may be used from the UI thread.
+ */
+public class MonitoredThreadPoolExecutor extends ThreadPoolExecutor implements IExecutorMetrics {
+
+	private static class BlockingPolicy implements RejectedExecutionHandler {
+
+		private final long offerTimeout;
+
+		private final AtomicLong rejectedCount = new AtomicLong();
+
+		BlockingPolicy(long offerTimeout) {
+			this.offerTimeout = offerTimeout;
+		}
+
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			if (!executor.isShutdown()) {
+				try {
+					if (executor.getQueue().offer(task, offerTimeout, TimeUnit.MILLISECONDS)) {
+						// the task bypassed execute(): do not strand it in the queue of an executor that was shut down
+						// meanwhile and start a thread in case all threads have timed out while waiting
+						if (!executor.isShutdown() || !executor.getQueue().remove(task)) {
+							if (executor.getPoolSize() == 0) {
+								executor.prestartCoreThread();
+							}
+							return;
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			rejectedCount.incrementAndGet();
+			throw new RejectedExecutionException("Task rejected by executor " + executor); //$NON-NLS-1$
+		}
+
+	}
+
+	private static final long KEEP_ALIVE_TIME = 10 * 1000;
+
+	private static BlockingQueue<Runnable> createQueue(int queueCapacity) {
+		return (queueCapacity > 0)
+				? new ArrayBlockingQueue<Runnable>(queueCapacity)
+				: new SynchronousQueue<Runnable>();
+	}
+
+	private final String name;
+
+	private final BlockingPolicy policy;
+
+	/**
+	 * @param maxThreads
+	 *            the maximum number of threads
+	 * @param queueCapacity
+	 *            the maximum number of waiting tasks; 0 hands tasks directly to a thread
+	 * @param offerTimeout
+	 *            the time in milliseconds a submitting thread waits for capacity before a task is rejected; 0 rejects
+	 *            tasks immediately
+	 */
+	public MonitoredThreadPoolExecutor(String name, int maxThreads, int queueCapacity, long offerTimeout,
+			ThreadFactory threadFactory) {
+		this(name, maxThreads, queueCapacity, threadFactory, new BlockingPolicy(offerTimeout));
+	}
+
+	private MonitoredThreadPoolExecutor(String name, int maxThreads, int queueCapacity, ThreadFactory threadFactory,
+			BlockingPolicy policy) {
+		// without a queue threads are started on demand, otherwise the pool grows to its maximum before tasks queue up
+		super((queueCapacity > 0) ? maxThreads : 1, maxThreads, KEEP_ALIVE_TIME, TimeUnit.MILLISECONDS,
+				createQueue(queueCapacity), threadFactory, policy);
+		Assert.isNotNull(name);
+		this.name = name;
+		this.policy = policy;
+		allowCoreThreadTimeOut(queueCapacity > 0);
+	}
+
+	public int getMaxThreads() {
+		return getMaximumPoolSize();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getQueueSize() {
+		return getQueue().size();
+	}
+
+	public long getRejectedCount() {
+		return policy.rejectedCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "MonitoredThreadPoolExecutor [name=" + name + ", active=" + getActiveCount() + ", queued=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ getQueueSize() + ", rejected=" + getRejectedCount() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+}
@@ -13,15 +13,26 @@
 package org.eclipse.mylyn.internal.commons.core.operations;
 
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.mylyn.commons.core.operations.ICancellable;
+import org.eclipse.mylyn.commons.core.operations.ICancellationSource;
 import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
 
-public class NullOperationMonitor extends NullProgressMonitor implements IOperationMonitor {
+public class NullOperationMonitor extends NullProgressMonitor implements IOperationMonitor, ICancellationSource {
 
 	private EnumSet<OperationFlag> flags;
 
+	private final List<ICancellable> cancellationListeners = new CopyOnWriteArrayList<ICancellable>();
+
+	public boolean addCancellationListener(ICancellable listener) {
+		cancellationListeners.add(listener);
+		return true;
+	}
+
 	public synchronized void addFlag(OperationFlag flag) {
 		if (flags == null) {
 			flags = EnumSet.of(flag);
@@ -49,6 +60,10 @@ public class NullOperationMonitor extends NullProgressMonitor implements IOperat
 		return this;
 	}
 
+	public void removeCancellationListener(ICancellable listener) {
+		cancellationListeners.remove(listener);
+	}
+
 	public synchronized void removeFlag(OperationFlag flag) {
 		if (flags != null) {
 			flags.remove(flag);
@@ -59,6 +74,16 @@ public class NullOperationMonitor extends NullProgressMonitor implements IOperat
 		// ignore			
 	}
 
+	@Override
+	public void setCanceled(boolean cancelled) {
+		super.setCanceled(cancelled);
+		if (cancelled) {
+			for (ICancellable listener : cancellationListeners) {
+				listener.abort();
+			}
+		}
+	}
+
 	public IOperationMonitor setWorkRemaining(int workRemaining) {
 		return this;
 	}
@@ -13,13 +13,19 @@
 package org.eclipse.mylyn.internal.commons.core.operations;
 
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.mylyn.commons.core.operations.ICancellable;
+import org.eclipse.mylyn.commons.core.operations.ICancellationSource;
 import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
 
-public class OperationMonitor implements IOperationMonitor {
+public class OperationMonitor implements IOperationMonitor, ICancellationSource {
+
+	private List<ICancellable> cancellationListeners;
 
 	private EnumSet<OperationFlag> flags;
 
@@ -27,14 +33,38 @@ public class OperationMonitor implements IOperationMonitor {
 
 	private final IOperationMonitor root;
 
+	private final ICancellationSource source;
+
 	public OperationMonitor(IOperationMonitor root, IProgressMonitor monitor) {
 		this.root = root;
 		this.monitor = SubMonitor.convert(monitor);
+		this.source = (monitor instanceof ICancellationSource) ? (ICancellationSource) monitor : null;
 	}
 
 	public OperationMonitor(IOperationMonitor root, IProgressMonitor monitor, String taskName, int work) {
 		this.root = root;
 		this.monitor = SubMonitor.convert(monitor, taskName, work);
+		this.source = (monitor instanceof ICancellationSource) ? (ICancellationSource) monitor : null;
+	}
+
+	/**
+	 * Listeners are notified when the monitor is canceled through this monitor or one of its children. Cancellations
+	 * of the wrapped progress monitor are only reported if it is a {@link ICancellationSource} itself.
+	 */
+	public boolean addCancellationListener(ICancellable listener) {
+		if (root instanceof ICancellationSource) {
+			return ((ICancellationSource) root).addCancellationListener(listener);
+		}
+		if (source != null) {
+			return source.addCancellationListener(listener);
+		}
+		synchronized (this) {
+			if (cancellationListeners == null) {
+				cancellationListeners = new CopyOnWriteArrayList<ICancellable>();
+			}
+			cancellationListeners.add(listener);
+		}
+		return false;
 	}
 
 	public synchronized void addFlag(OperationFlag flag) {
@@ -94,6 +124,20 @@ public class OperationMonitor implements IOperationMonitor {
 		return new OperationMonitor((root == null) ? this : root, monitor.newChild(totalWork, suppressFlags));
 	}
 
+	public void removeCancellationListener(ICancellable listener) {
+		if (root instanceof ICancellationSource) {
+			((ICancellationSource) root).removeCancellationListener(listener);
+		} else if (source != null) {
+			source.removeCancellationListener(listener);
+		} else {
+			synchronized (this) {
+				if (cancellationListeners != null) {
+					cancellationListeners.remove(listener);
+				}
+			}
+		}
+	}
+
 	public synchronized void removeFlag(OperationFlag flag) {
 		if (root != null) {
 			root.removeFlag(flag);
@@ -108,6 +152,9 @@ public class OperationMonitor implements IOperationMonitor {
 
 	public void setCanceled(boolean b) {
 		monitor.setCanceled(b);
+		if (b) {
+			fireCanceled();
+		}
 	}
 
 	public void setTaskName(String name) {
@@ -132,4 +179,20 @@ public class OperationMonitor implements IOperationMonitor {
 		monitor.worked(work);
 	}
 
+	private void fireCanceled() {
+		if (root instanceof OperationMonitor) {
+			((OperationMonitor) root).fireCanceled();
+			return;
+		}
+		List<ICancellable> listeners;
+		synchronized (this) {
+			listeners = cancellationListeners;
+		}
+		if (listeners != null) {
+			for (ICancellable listener : listeners) {
+				listener.abort();
+			}
+		}
+	}
+
 }
\ No newline at end of file
@@ -13,7 +13,6 @@
 
 package org.eclipse.mylyn.commons.net;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -26,10 +25,18 @@ import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -47,7 +54,6 @@ import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.NTCredentials;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
-import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.params.DefaultHttpParams;
 import org.apache.commons.httpclient.params.HttpClientParams;
 import org.apache.commons.httpclient.params.HttpMethodParams;
@@ -59,20 +65,27 @@ import org.eclipse.core.net.proxy.IProxyData;
 import org.eclipse.core.net.proxy.IProxyService;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.mylyn.commons.core.CoreUtil;
+import org.eclipse.mylyn.commons.core.HtmlScanner;
+import org.eclipse.mylyn.commons.core.HtmlScanner.TokenType;
 import org.eclipse.mylyn.commons.core.net.NetUtil;
-import org.eclipse.mylyn.commons.net.HtmlStreamTokenizer.Token;
+import org.eclipse.mylyn.commons.core.net.ProxyCache;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
+import org.eclipse.mylyn.internal.commons.core.CommonsCorePlugin;
 import org.eclipse.mylyn.internal.commons.net.AuthenticatedProxy;
+import org.eclipse.mylyn.internal.commons.net.BoundedInputStream;
+import org.eclipse.mylyn.internal.commons.net.CancellableInputStream;
 import org.eclipse.mylyn.internal.commons.net.CloneableHostConfiguration;
 import org.eclipse.mylyn.internal.commons.net.CommonsNetPlugin;
 import org.eclipse.mylyn.internal.commons.net.MonitoredRequest;
-import org.eclipse.mylyn.internal.commons.net.PollingInputStream;
 import org.eclipse.mylyn.internal.commons.net.PollingProtocolSocketFactory;
 import org.eclipse.mylyn.internal.commons.net.PollingSslProtocolSocketFactory;
-import org.eclipse.mylyn.internal.commons.net.TimeoutInputStream;
+import org.eclipse.mylyn.internal.commons.net.http.CommonGetMethod3;
+import org.eclipse.mylyn.internal.commons.net.http.ContentDecoding;
 
 /**
  * @author Mik Kersten
@@ -83,6 +96,51 @@ import org.eclipse.mylyn.internal.commons.net.TimeoutInputStream;
  */
 public class WebUtil {
 
+	/**
+	 * A host configuration and the location settings it was created from.
+	 */
+	private static class HostConfigurationEntry {
+
+		private final AuthenticationCredentials certCredentials;
+
+		private final CloneableHostConfiguration hostConfiguration;
+
+		private final Proxy proxy;
+
+		private final String url;
+
+		HostConfigurationEntry(String url, Proxy proxy, AuthenticationCredentials certCredentials,
+				CloneableHostConfiguration hostConfiguration) {
+			this.url = url;
+			this.proxy = proxy;
+			this.certCredentials = certCredentials;
+			this.hostConfiguration = hostConfiguration;
+		}
+
+		boolean matches(String url, Proxy proxy, AuthenticationCredentials certCredentials) {
+			return equals(this.url, url) && equals(this.proxy, proxy)
+					&& equals(this.certCredentials, certCredentials);
+		}
+
+		private static boolean equals(Object value, Object other) {
+			return (value == null) ? other == null : value.equals(other);
+		}
+
+	}
+
+	private static class TitleCacheEntry {
+
+		private final long expires;
+
+		private final String title;
+
+		TitleCacheEntry(String title, long expires) {
+			this.title = title;
+			this.expires = expires;
+		}
+
+	}
+
 	/**
 	 * like Mylyn/2.1.0 (Rally Connector 1.0) Eclipse/3.3.0 (JBuilder 2007) HttpClient/3.0.1 Java/1.5.0_11 (Sun)
 	 * Linux/2.6.20-16-lowlatency (i386; en)
@@ -99,23 +157,25 @@ public class WebUtil {
 
 	private static final int POLL_INTERVAL = 500;
 
-	private static final int POLL_ATTEMPTS = SOCKET_TIMEOUT / POLL_INTERVAL;
-
 	private static final String USER_AGENT_PREFIX;
 
 	private static final String USER_AGENT_POSTFIX;
 
-	private static final int BUFFER_SIZE = 4096;
-
 	/**
-	 * Do not block.
+	 * @see IdleConnectionTimeoutThread#setTimeoutInterval(long)
 	 */
-	private static final long CLOSE_TIMEOUT = -1;
+	private static final long CONNECTION_TIMEOUT_INTERVAL = 30 * 1000;
+
+	private static final int MAX_CACHED_TITLES = 256;
+
+	private static final int MAX_TITLE_CONNECTIONS_PER_HOST = 2;
 
 	/**
-	 * @see IdleConnectionTimeoutThread#setTimeoutInterval(long)
+	 * The number of bytes that are read at most to determine the title of a page.
 	 */
-	private static final long CONNECTION_TIMEOUT_INTERVAL = 30 * 1000;
+	private static final int MAX_TITLE_BYTES = 64 * 1024;
+
+	private static final long TITLE_CACHE_TIME_TO_LIVE = 10 * 60 * 1000;
 
 	static {
 		CoreUtil.initializeLoggingSettings();
@@ -180,10 +240,35 @@ public class WebUtil {
 
 	private static MultiThreadedHttpConnectionManager connectionManager;
 
+	private static volatile MultiThreadedHttpConnectionManager titleConnectionManager;
+
 	private static ProtocolSocketFactory sslSocketFactory = new PollingSslProtocolSocketFactory();
 
 	private static PollingProtocolSocketFactory socketFactory = new PollingProtocolSocketFactory();
 
+	@SuppressWarnings("serial")
+	private static final Map<String, TitleCacheEntry> titleByUrl = new LinkedHashMap<String, TitleCacheEntry>(16, 0.75f,
+			true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, TitleCacheEntry> eldest) {
+			return size() > MAX_CACHED_TITLES;
+		}
+	};
+
+	private static final Map<AbstractWebLocation, HostConfigurationEntry> hostConfigurationByLocation = new WeakHashMap<AbstractWebLocation, HostConfigurationEntry>();
+
+	private static final ProxyCache proxyCache = new ProxyCache() {
+		@Override
+		protected IProxyService getProxyService() {
+			return CommonsNetPlugin.getProxyService();
+		}
+
+		@Override
+		protected Proxy resolveProxy(String host, String proxyType) {
+			return WebUtil.resolveProxy(host, proxyType);
+		}
+	};
+
 	/**
 	 * @since 3.0
 	 */
@@ -199,6 +284,10 @@ public class WebUtil {
 	private static void configureHttpClientConnectionManager(HttpClient client) {
 		client.getHttpConnectionManager().getParams().setSoTimeout(WebUtil.SOCKET_TIMEOUT);
 		client.getHttpConnectionManager().getParams().setConnectionTimeout(WebUtil.CONNNECT_TIMEOUT);
+		if (client.getHttpConnectionManager() == titleConnectionManager) {
+			// limits are set when the manager is created, see getTitleConnectionManager()
+			return;
+		}
 		// FIXME fix connection leaks
 		if (CoreUtil.TEST_MODE) {
 			client.getHttpConnectionManager()
@@ -213,30 +302,25 @@ public class WebUtil {
 		}
 	}
 
-	private static void configureHttpClientProxy(HttpClient client, HostConfiguration hostConfiguration,
-			AbstractWebLocation location) {
-		String host = WebUtil.getHost(location.getUrl());
+	private static void configureHttpClientProxy(HttpClient client, Proxy proxy) {
+		if (proxy instanceof AuthenticatedProxy) {
+			InetSocketAddress address = (InetSocketAddress) proxy.address();
+			AuthenticatedProxy authProxy = (AuthenticatedProxy) proxy;
+			Credentials credentials = getCredentials(authProxy.getUserName(), authProxy.getPassword(),
+					address.getAddress());
+			AuthScope proxyAuthScope = new AuthScope(address.getHostName(), address.getPort(), AuthScope.ANY_REALM);
+			client.getState().setProxyCredentials(proxyAuthScope, credentials);
+		}
+	}
 
+	private static Proxy getProxyForLocation(AbstractWebLocation location, String host) {
 		Proxy proxy;
 		if (WebUtil.isRepositoryHttps(location.getUrl())) {
 			proxy = location.getProxyForHost(host, IProxyData.HTTPS_PROXY_TYPE);
 		} else {
 			proxy = location.getProxyForHost(host, IProxyData.HTTP_PROXY_TYPE);
 		}
-
-		if (proxy != null && !Proxy.NO_PROXY.equals(proxy)) {
-			InetSocketAddress address = (InetSocketAddress) proxy.address();
-			hostConfiguration.setProxy(address.getHostName(), address.getPort());
-			if (proxy instanceof AuthenticatedProxy) {
-				AuthenticatedProxy authProxy = (AuthenticatedProxy) proxy;
-				Credentials credentials = getCredentials(authProxy.getUserName(), authProxy.getPassword(),
-						address.getAddress());
-				AuthScope proxyAuthScope = new AuthScope(address.getHostName(), address.getPort(), AuthScope.ANY_REALM);
-				client.getState().setProxyCredentials(proxyAuthScope, credentials);
-			}
-		} else {
-			hostConfiguration.setProxyHost(null);
-		}
+		return (proxy != null && !Proxy.NO_PROXY.equals(proxy)) ? proxy : null;
 	}
 
 	/**
@@ -265,6 +349,12 @@ public class WebUtil {
 	}
 
 	/**
+	 * Returns the host configuration for requests to <code>location</code> and sets the credentials of
+	 * <code>location</code> on the state of <code>client</code>. Host configurations are cached for each location and
+	 * recreated when the URL, the proxy or the certificate credentials of the location change. The cached socket
+	 * factories keep pooled connections and TLS sessions reusable across requests.
+	 * 
+	 * @return a copy of the cached host configuration that may be modified by the caller
 	 * @since 3.0
 	 */
 	public static HostConfiguration createHostConfiguration(HttpClient client, AbstractWebLocation location,
@@ -278,8 +368,8 @@ public class WebUtil {
 
 		configureHttpClientConnectionManager(client);
 
-		HostConfiguration hostConfiguration = new CloneableHostConfiguration();
-		configureHttpClientProxy(client, hostConfiguration, location);
+		Proxy proxy = getProxyForLocation(location, host);
+		configureHttpClientProxy(client, proxy);
 
 		AuthenticationCredentials credentials = location.getCredentials(AuthenticationType.HTTP);
 		if (credentials != null) {
@@ -287,8 +377,31 @@ public class WebUtil {
 			client.getState().setCredentials(authScope, getHttpClientCredentials(credentials, host));
 		}
 
+		AuthenticationCredentials certCredentials = (WebUtil.isRepositoryHttps(url))
+				? location.getCredentials(AuthenticationType.CERTIFICATE)
+				: null;
+
+		HostConfigurationEntry entry;
+		synchronized (hostConfigurationByLocation) {
+			entry = hostConfigurationByLocation.get(location);
+			if (entry == null || !entry.matches(url, proxy, certCredentials)) {
+				entry = new HostConfigurationEntry(url, proxy, certCredentials, createHostConfiguration(url, host,
+						port, proxy, certCredentials));
+				hostConfigurationByLocation.put(location, entry);
+			}
+		}
+		return (HostConfiguration) entry.hostConfiguration.clone();
+	}
+
+	private static CloneableHostConfiguration createHostConfiguration(String url, String host, int port, Proxy proxy,
+			AuthenticationCredentials certCredentials) {
+		CloneableHostConfiguration hostConfiguration = new CloneableHostConfiguration();
+		if (proxy != null) {
+			InetSocketAddress address = (InetSocketAddress) proxy.address();
+			hostConfiguration.setProxy(address.getHostName(), address.getPort());
+		}
+
 		if (WebUtil.isRepositoryHttps(url)) {
-			AuthenticationCredentials certCredentials = location.getCredentials(AuthenticationType.CERTIFICATE);
 			if (certCredentials == null) {
 				Protocol protocol = new Protocol("https", sslSocketFactory, HTTPS_PORT); //$NON-NLS-1$
 				hostConfiguration.setHost(host, port, protocol);
@@ -405,6 +518,17 @@ public class WebUtil {
 		return stripQualifier((String) bundleVersion);
 	}
 
+	/**
+	 * Returns the number of bytes that were read for compressed response bodies of HttpClient 3 requests. Bodies that
+	 * were only partially read, e.g. because the request was aborted, are included.
+	 * 
+	 * @see #getUncompressedByteCount()
+	 * @since 3.26
+	 */
+	public static long getCompressedByteCount() {
+		return ContentDecoding.getByteCounter().getCompressedCount();
+	}
+
 	/**
 	 * @since 3.0
 	 */
@@ -415,8 +539,11 @@ public class WebUtil {
 	static Credentials getCredentials(final String username, final String password, final InetAddress address) {
 		int i = username.indexOf("\\"); //$NON-NLS-1$
 		if (i > 0 && i < username.length() - 1 && address != null) {
-			return new NTCredentials(username.substring(i + 1), password, address.getHostName(), username.substring(0,
-					i));
+			String hostName = NetUtil.getLocalHostName();
+			if (hostName == null) {
+				hostName = address.getHostName();
+			}
+			return new NTCredentials(username.substring(i + 1), password, hostName, username.substring(0, i));
 		} else {
 			return new UsernamePasswordCredentials(username, password);
 		}
@@ -506,10 +633,12 @@ public class WebUtil {
 
 	public static InputStream getResponseBodyAsStream(HttpMethodBase method, IProgressMonitor monitor)
 			throws IOException {
-//		return method.getResponseBodyAsStream();
-		monitor = Policy.monitorFor(monitor);
-		return new PollingInputStream(new TimeoutInputStream(method.getResponseBodyAsStream(), BUFFER_SIZE,
-				POLL_INTERVAL, CLOSE_TIMEOUT), POLL_ATTEMPTS, monitor);
+		InputStream in = method.getResponseBodyAsStream();
+		if (in == null) {
+			return null;
+		}
+		// read timeouts are enforced by the channel backed sockets of the polling socket factories
+		return new CancellableInputStream(in, method, Policy.monitorFor(monitor));
 	}
 
 	/**
@@ -520,7 +649,9 @@ public class WebUtil {
 	}
 
 	/**
-	 * Returns the title of a web page.
+	 * Returns the title of a web page. At most the first 64 KB of the page are read and the request is aborted as soon as
+	 * the title has been read. Titles of pages that were retrieved successfully are cached for ten minutes unless
+	 * <code>location</code> provides credentials since the title may depend on the user.
 	 * 
 	 * @throws IOException
 	 *             if a network occurs
@@ -528,43 +659,51 @@ public class WebUtil {
 	 * @since 3.0
 	 */
 	public static String getTitleFromUrl(AbstractWebLocation location, IProgressMonitor monitor) throws IOException {
+		String url = location.getUrl();
+		boolean cacheable = isTitleCacheable(location);
+		if (cacheable) {
+			synchronized (titleByUrl) {
+				TitleCacheEntry entry = titleByUrl.get(url);
+				if (entry != null) {
+					if (entry.expires > System.currentTimeMillis()) {
+						return entry.title;
+					}
+					titleByUrl.remove(url);
+				}
+			}
+		}
+
 		monitor = Policy.monitorFor(monitor);
 		try {
-			monitor.beginTask("Retrieving " + location.getUrl(), IProgressMonitor.UNKNOWN); //$NON-NLS-1$
+			monitor.beginTask("Retrieving " + url, IProgressMonitor.UNKNOWN); //$NON-NLS-1$
 
-			HttpClient client = new HttpClient();
+			// the client state holds credentials and is not reused, connections are limited per host since titles
+			// are retrieved concurrently
+			HttpClient client = new HttpClient(getTitleConnectionManager());
 			WebUtil.configureHttpClient(client, ""); //$NON-NLS-1$
 
-			GetMethod method = new GetMethod(location.getUrl());
+			CommonGetMethod3 method = new CommonGetMethod3(url);
+			BoundedInputStream in = null;
 			try {
 				HostConfiguration hostConfiguration = WebUtil.createHostConfiguration(client, location, monitor);
 				int result = WebUtil.execute(client, hostConfiguration, method, monitor);
 				if (result == HttpStatus.SC_OK) {
-					InputStream in = WebUtil.getResponseBodyAsStream(method, monitor);
-					try {
-						BufferedReader reader = new BufferedReader(new InputStreamReader(in,
-								method.getResponseCharSet()));
-						HtmlStreamTokenizer tokenizer = new HtmlStreamTokenizer(reader, null);
-						try {
-							for (Token token = tokenizer.nextToken(); token.getType() != Token.EOF; token = tokenizer.nextToken()) {
-								if (token.getType() == Token.TAG) {
-									HtmlTag tag = (HtmlTag) token.getValue();
-									if (tag.getTagType() == Tag.TITLE) {
-										String text = getText(tokenizer);
-										text = text.replaceAll("\n", ""); //$NON-NLS-1$ //$NON-NLS-2$
-										text = text.replaceAll("\\s+", " "); //$NON-NLS-1$ //$NON-NLS-2$
-										return text.trim();
-									}
-								}
-							}
-						} catch (ParseException e) {
-							throw new IOException("Error reading url"); //$NON-NLS-1$
+					in = new BoundedInputStream(method.getResponseBodyAsStream(monitor), MAX_TITLE_BYTES);
+					String title = readTitle(in, method.getResponseCharSet());
+					if (cacheable) {
+						synchronized (titleByUrl) {
+							titleByUrl.put(url, new TitleCacheEntry(title, System.currentTimeMillis()
+									+ TITLE_CACHE_TIME_TO_LIVE));
 						}
-					} finally {
-						in.close();
 					}
+					return title;
 				}
 			} finally {
+				if (in != null && !in.isEndOfStream() && (method.getResponseContentLength() < 0
+						|| method.getResponseContentLength() > MAX_TITLE_BYTES)) {
+					// avoid reading the remainder of the page when the connection is released
+					method.abort();
+				}
 				WebUtil.releaseConnection(method, monitor);
 			}
 		} finally {
@@ -573,12 +712,148 @@ public class WebUtil {
 		return null;
 	}
 
-	private static String getText(HtmlStreamTokenizer tokenizer) throws IOException, ParseException {
+	/**
+	 * Returns the titles of web pages. Pages are retrieved concurrently on the {@link OperationUtil#EXECUTOR_TITLES
+	 * titles executor} using at most two connections per host.
+	 * Titles are determined as described for {@link #getTitleFromUrl(AbstractWebLocation, IProgressMonitor)}.
+	 * 
+	 * @return the titles in the order of <code>locations</code>; an element is null, if the title could not be
+	 *         determined or the page could not be retrieved
+	 * @throws OperationCanceledException
+	 *             if <code>monitor</code> is canceled
+	 * @since 3.26
+	 */
+	public static List<String> getTitlesFromUrls(List<? extends AbstractWebLocation> locations,
+			IProgressMonitor monitor) {
+		monitor = Policy.monitorFor(monitor);
+		// cancels requests that are in progress when the caller is canceled
+		final IProgressMonitor requestMonitor = new NullProgressMonitor();
+		List<Future<String>> futures = new ArrayList<Future<String>>(locations.size());
+		try {
+			monitor.beginTask("Retrieving titles", locations.size()); //$NON-NLS-1$
+
+			ExecutorService executor = OperationUtil.getExecutorService(OperationUtil.EXECUTOR_TITLES);
+			for (final AbstractWebLocation location : locations) {
+				Callable<String> request = new Callable<String>() {
+					public String call() throws Exception {
+						return getTitleFromUrl(location, requestMonitor);
+					}
+				};
+				try {
+					futures.add(executor.submit(request));
+				} catch (RejectedExecutionException e) {
+					// the pool is saturated, retrieve the title in the calling thread
+					FutureTask<String> future = new FutureTask<String>(request);
+					future.run();
+					futures.add(future);
+				}
+			}
+
+			List<String> titles = new ArrayList<String>(futures.size());
+			for (Future<String> future : futures) {
+				titles.add(getTitle(future, monitor));
+				monitor.worked(1);
+			}
+			return titles;
+		} finally {
+			requestMonitor.setCanceled(true);
+			for (Future<String> future : futures) {
+				future.cancel(false);
+			}
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes that compressed response bodies of HttpClient 3 requests were decoded to.
+	 * 
+	 * @see #getCompressedByteCount()
+	 * @since 3.26
+	 */
+	public static long getUncompressedByteCount() {
+		return ContentDecoding.getByteCounter().getUncompressedCount();
+	}
+
+	/**
+	 * Removes all cached page titles.
+	 * 
+	 * @see #getTitleFromUrl(AbstractWebLocation, IProgressMonitor)
+	 * @since 3.26
+	 */
+	public static void clearTitleCache() {
+		synchronized (titleByUrl) {
+			titleByUrl.clear();
+		}
+	}
+
+	private static String getTitle(Future<String> future, IProgressMonitor monitor) {
+		while (true) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				return future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (ExecutionException e) {
+				return null;
+			} catch (InterruptedException e) {
+				throw new OperationCanceledException();
+			} catch (TimeoutException ignored) {
+			}
+		}
+	}
+
+	/**
+	 * Returns the connection manager for retrieving titles. It is separate from the {@link #getConnectionManager()
+	 * shared manager} so that retrieving many titles does not exhaust connections of other clients.
+	 */
+	private synchronized static HttpConnectionManager getTitleConnectionManager() {
+		if (titleConnectionManager == null) {
+			MultiThreadedHttpConnectionManager manager = new MultiThreadedHttpConnectionManager();
+			manager.getParams().setMaxConnectionsPerHost(HostConfiguration.ANY_HOST_CONFIGURATION,
+					MAX_TITLE_CONNECTIONS_PER_HOST);
+			// matches the number of threads of the titles executor
+			manager.getParams().setMaxTotalConnections(CommonsCorePlugin.MAX_TITLE_CONNECTIONS);
+			addConnectionManager(manager);
+			titleConnectionManager = manager;
+		}
+		return titleConnectionManager;
+	}
+
+	private static boolean isTitleCacheable(AbstractWebLocation location) {
+		return location.getCredentials(AuthenticationType.HTTP) == null
+				&& location.getCredentials(AuthenticationType.REPOSITORY) == null
+				&& location.getCredentials(AuthenticationType.CERTIFICATE) == null;
+	}
+
+	private static String readTitle(InputStream in, String charSet) throws IOException {
+		HtmlScanner scanner = new HtmlScanner(new InputStreamReader(in, charSet));
+		try {
+			for (TokenType type = scanner.next(); type != TokenType.EOF; type = scanner.next()) {
+				if (type == TokenType.TAG) {
+					if (scanner.getTagType() == Tag.TITLE) {
+						String text = getText(scanner);
+						text = text.replaceAll("\n", ""); //$NON-NLS-1$ //$NON-NLS-2$
+						text = text.replaceAll("\\s+", " "); //$NON-NLS-1$ //$NON-NLS-2$
+						return text.trim();
+					} else if (scanner.getTagType() == Tag.BODY) {
+						// the title is part of the head
+						break;
+					}
+				}
+			}
+		} catch (ParseException e) {
+			throw new IOException("Error reading url"); //$NON-NLS-1$
+		}
+		return null;
+	}
+
+	private static String getText(HtmlScanner scanner) throws IOException, ParseException {
 		StringBuilder sb = new StringBuilder();
-		for (Token token = tokenizer.nextToken(); token.getType() != Token.EOF; token = tokenizer.nextToken()) {
-			if (token.getType() == Token.TEXT) {
-				sb.append(token.toString());
-			} else if (token.getType() == Token.COMMENT) {
+		for (TokenType type = scanner.next(); type != TokenType.EOF; type = scanner.next()) {
+			if (type == TokenType.TEXT) {
+				sb.append(scanner.getWhitespace());
+				sb.append(scanner.getText());
+			} else if (type == TokenType.COMMENT) {
 				// ignore
 			} else {
 				break;
@@ -700,12 +975,17 @@ public class WebUtil {
 	}
 
 	/**
+	 * Returns the platform proxy for connections to <code>host</code>. Decisions are cached by host and proxy type and
+	 * discarded when the proxy settings change.
+	 * 
 	 * @since 3.1
 	 */
-	@SuppressWarnings("deprecation")
 	public static Proxy getProxy(String host, String proxyType) {
-		Assert.isNotNull(host);
-		Assert.isNotNull(proxyType);
+		return proxyCache.getProxy(host, proxyType);
+	}
+
+	@SuppressWarnings("deprecation")
+	private static Proxy resolveProxy(String host, String proxyType) {
 		IProxyService service = CommonsNetPlugin.getProxyService();
 		if (service != null && service.isProxiesEnabled()) {
 			// TODO e3.5 move to new proxy API
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.net;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reports the end of the stream once a maximum number of bytes has been read. Closing the stream closes the underlying
+ * stream.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+	private boolean endOfStream;
+
+	private final long limit;
+
+	private long position;
+
+	public BoundedInputStream(InputStream in, long limit) {
+		super(in);
+		this.limit = limit;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(in.available(), limit - position);
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns true, if the underlying stream has ended before the limit was reached.
+	 */
+	public boolean isEndOfStream() {
+		return endOfStream;
+	}
+
+	/**
+	 * Returns true, if the limit was reached before the underlying stream ended.
+	 */
+	public boolean isLimitReached() {
+		return position >= limit && !endOfStream;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		// not supported
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (position >= limit) {
+			return -1;
+		}
+		int b = in.read();
+		if (b == -1) {
+			endOfStream = true;
+		} else {
+			position++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (position >= limit) {
+			return -1;
+		}
+		int n = in.read(b, off, (int) Math.min(len, limit - position));
+		if (n == -1) {
+			endOfStream = true;
+		} else {
+			position += n;
+		}
+		return n;
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("Mark not supported"); //$NON-NLS-1$
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = in.skip(Math.min(n, limit - position));
+		position += skipped;
+		return skipped;
+	}
+
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.net;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.httpclient.HttpMethod;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.mylyn.commons.core.operations.CancellableOperationMonitorThread;
+import org.eclipse.mylyn.commons.core.operations.ICancellableOperation;
+
+/**
+ * Aborts an HTTP method if the progress monitor is canceled while the response body is read. Cancellation is detected
+ * by the shared {@link CancellableOperationMonitorThread} which closes the connection and fails a blocked read; unlike
+ * {@link TimeoutInputStream} no thread is allocated per stream. Read timeouts are enforced by the socket.
+ */
+public class CancellableInputStream extends FilterInputStream {
+
+	private final IProgressMonitor monitor;
+
+	private final ICancellableOperation operation;
+
+	private boolean registered;
+
+	public CancellableInputStream(InputStream in, final HttpMethod method, final IProgressMonitor monitor) {
+		super(in);
+		this.monitor = monitor;
+		this.operation = new ICancellableOperation() {
+			public void abort() {
+				method.abort();
+			}
+
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		CancellableOperationMonitorThread.getInstance().addOperation(operation, monitor);
+		this.registered = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			in.close();
+		} finally {
+			unregister();
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkCancellation();
+		try {
+			int b = in.read();
+			if (b == -1) {
+				unregister();
+			}
+			return b;
+		} catch (IOException e) {
+			checkCancellation();
+			throw e;
+		}
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkCancellation();
+		try {
+			int n = in.read(b, off, len);
+			if (n == -1) {
+				unregister();
+			}
+			return n;
+		} catch (IOException e) {
+			checkCancellation();
+			throw e;
+		}
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		checkCancellation();
+		try {
+			return in.skip(n);
+		} catch (IOException e) {
+			checkCancellation();
+			throw e;
+		}
+	}
+
+	private void checkCancellation() {
+		if (monitor.isCanceled()) {
+			unregister();
+			throw new OperationCanceledException();
+		}
+	}
+
+	private synchronized void unregister() {
+		if (registered) {
+			registered = false;
+			CancellableOperationMonitorThread.getInstance().removeOperation(operation);
+		}
+	}
+
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.channels.SocketChannel;
+
+import org.eclipse.mylyn.commons.core.io.ChannelTimeoutInputStream;
+import org.eclipse.mylyn.commons.core.io.ChannelTimeoutOutputStream;
+import org.eclipse.mylyn.commons.core.io.TimeoutSelector;
+
+/**
+ * A socket that is backed by a {@link SocketChannel}. Once connected, reads and writes use non-blocking I/O and the
+ * socket timeout is enforced by the shared {@link TimeoutSelector} which does not require a thread per connection.
+ * Closing the socket from another thread immediately fails blocked reads and writes.
+ */
+public class ChannelSocket extends Socket {
+
+	private final SocketChannel channel;
+
+	private InputStream in;
+
+	private OutputStream out;
+
+	private final TimeoutSelector selector;
+
+	private volatile int soTimeout;
+
+	public ChannelSocket() throws IOException {
+		this(TimeoutSelector.getDefault());
+	}
+
+	public ChannelSocket(TimeoutSelector selector) throws IOException {
+		this.selector = selector;
+		this.channel = SocketChannel.open();
+	}
+
+	@Override
+	public void bind(SocketAddress bindpoint) throws IOException {
+		channel.socket().bind(bindpoint);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		selector.close(channel);
+	}
+
+	@Override
+	public void connect(SocketAddress endpoint) throws IOException {
+		connect(endpoint, 0);
+	}
+
+	@Override
+	public void connect(SocketAddress endpoint, int timeout) throws IOException {
+		channel.socket().connect(endpoint, timeout);
+	}
+
+	@Override
+	public SocketChannel getChannel() {
+		// the channel is in non-blocking mode once streams have been requested and must not be used directly
+		return null;
+	}
+
+	@Override
+	public InetAddress getInetAddress() {
+		return channel.socket().getInetAddress();
+	}
+
+	@Override
+	public synchronized InputStream getInputStream() throws IOException {
+		if (in == null) {
+			checkConnected();
+			in = new ChannelTimeoutInputStream(channel, 0, selector) {
+				@Override
+				protected long getReadTimeout() {
+					return soTimeout;
+				}
+			};
+		}
+		return in;
+	}
+
+	@Override
+	public boolean getKeepAlive() throws SocketException {
+		return channel.socket().getKeepAlive();
+	}
+
+	@Override
+	public InetAddress getLocalAddress() {
+		return channel.socket().getLocalAddress();
+	}
+
+	@Override
+	public int getLocalPort() {
+		return channel.socket().getLocalPort();
+	}
+
+	@Override
+	public SocketAddress getLocalSocketAddress() {
+		return channel.socket().getLocalSocketAddress();
+	}
+
+	@Override
+	public boolean getOOBInline() throws SocketException {
+		return channel.socket().getOOBInline();
+	}
+
+	@Override
+	public synchronized OutputStream getOutputStream() throws IOException {
+		if (out == null) {
+			checkConnected();
+			out = new ChannelTimeoutOutputStream(channel, 0, selector) {
+				@Override
+				protected long getWriteTimeout() {
+					return soTimeout;
+				}
+			};
+		}
+		return out;
+	}
+
+	@Override
+	public int getPort() {
+		return channel.socket().getPort();
+	}
+
+	@Override
+	public synchronized int getReceiveBufferSize() throws SocketException {
+		return channel.socket().getReceiveBufferSize();
+	}
+
+	@Override
+	public SocketAddress getRemoteSocketAddress() {
+		return channel.socket().getRemoteSocketAddress();
+	}
+
+	@Override
+	public boolean getReuseAddress() throws SocketException {
+		return channel.socket().getReuseAddress();
+	}
+
+	@Override
+	public synchronized int getSendBufferSize() throws SocketException {
+		return channel.socket().getSendBufferSize();
+	}
+
+	@Override
+	public int getSoLinger() throws SocketException {
+		return channel.socket().getSoLinger();
+	}
+
+	@Override
+	public int getSoTimeout() throws SocketException {
+		return soTimeout;
+	}
+
+	@Override
+	public boolean getTcpNoDelay() throws SocketException {
+		return channel.socket().getTcpNoDelay();
+	}
+
+	@Override
+	public int getTrafficClass() throws SocketException {
+		return channel.socket().getTrafficClass();
+	}
+
+	@Override
+	public boolean isBound() {
+		return channel.socket().isBound();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return !channel.isOpen();
+	}
+
+	@Override
+	public boolean isConnected() {
+		return channel.isConnected();
+	}
+
+	@Override
+	public boolean isInputShutdown() {
+		return channel.socket().isInputShutdown();
+	}
+
+	@Override
+	public boolean isOutputShutdown() {
+		return channel.socket().isOutputShutdown();
+	}
+
+	@Override
+	public void sendUrgentData(int data) throws IOException {
+		throw new SocketException("Urgent data not supported"); //$NON-NLS-1$
+	}
+
+	@Override
+	public void setKeepAlive(boolean on) throws SocketException {
+		channel.socket().setKeepAlive(on);
+	}
+
+	@Override
+	public void setOOBInline(boolean on) throws SocketException {
+		channel.socket().setOOBInline(on);
+	}
+
+	@Override
+	public void setPerformancePreferences(int connectionTime, int latency, int bandwidth) {
+		channel.socket().setPerformancePreferences(connectionTime, latency, bandwidth);
+	}
+
+	@Override
+	public synchronized void setReceiveBufferSize(int size) throws SocketException {
+		channel.socket().setReceiveBufferSize(size);
+	}
+
+	@Override
+	public void setReuseAddress(boolean on) throws SocketException {
+		channel.socket().setReuseAddress(on);
+	}
+
+	@Override
+	public synchronized void setSendBufferSize(int size) throws SocketException {
+		channel.socket().setSendBufferSize(size);
+	}
+
+	@Override
+	public void setSoLinger(boolean on, int linger) throws SocketException {
+		channel.socket().setSoLinger(on, linger);
+	}
+
+	@Override
+	public void setSoTimeout(int timeout) throws SocketException {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("timeout can't be negative"); //$NON-NLS-1$
+		}
+		if (isClosed()) {
+			throw new SocketException("Socket is closed"); //$NON-NLS-1$
+		}
+		this.soTimeout = timeout;
+	}
+
+	@Override
+	public void setTcpNoDelay(boolean on) throws SocketException {
+		channel.socket().setTcpNoDelay(on);
+	}
+
+	@Override
+	public void setTrafficClass(int tc) throws SocketException {
+		channel.socket().setTrafficClass(tc);
+	}
+
+	@Override
+	public void shutdownInput() throws IOException {
+		channel.socket().shutdownInput();
+	}
+
+	@Override
+	public void shutdownOutput() throws IOException {
+		channel.socket().shutdownOutput();
+	}
+
+	@Override
+	public String toString() {
+		return channel.socket().toString();
+	}
+
+	private void checkConnected() throws SocketException {
+		if (isClosed()) {
+			throw new SocketException("Socket is closed"); //$NON-NLS-1$
+		}
+		if (!isConnected()) {
+			throw new SocketException("Socket is not connected"); //$NON-NLS-1$
+		}
+	}
+
+}
@@ -50,7 +50,7 @@ public class PollingProtocolSocketFactory implements ProtocolSocketFactory {
 		}
 
 		int timeout = params.getConnectionTimeout();
-		Socket socket = factory.createSocket();
+		Socket socket = new ChannelSocket();
 		socket.bind(new InetSocketAddress(localAddress, localPort));
 		MonitoredRequest.connect(socket, new InetSocketAddress(host, port), timeout);
 		return socket;
@@ -13,22 +13,13 @@
 
 package org.eclipse.mylyn.internal.commons.net;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
-
-import javax.net.ssl.KeyManager;
-import javax.net.ssl.KeyManagerFactory;
-import javax.net.ssl.SSLContext;
+
+import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 
@@ -37,10 +28,15 @@ import org.apache.commons.httpclient.params.HttpConnectionParams;
 import org.apache.commons.httpclient.protocol.SecureProtocolSocketFactory;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.mylyn.commons.core.net.NetUtil;
+import org.eclipse.mylyn.commons.core.net.SslSupport;
+import org.eclipse.mylyn.commons.core.net.TrustAllTrustManager;
 import org.eclipse.mylyn.commons.net.SslCertificateException;
 
 /**
- * Provides support for managing SSL connections.
+ * Provides support for managing SSL connections. The SSL context is obtained from
+ * {@link SslSupport#getCached(TrustManager[], String, String, String)} and is therefore shared with other factories
+ * for the same key store, including those of the HttpClient 4 based clients, which allows TLS sessions to be resumed
+ * across requests.
  * 
  * @author Nathan Hapke
  * @author Rob Elves
@@ -56,39 +52,25 @@ public class PollingSslProtocolSocketFactory implements SecureProtocolSocketFact
 
 	private final boolean hasKeyManager;
 
-	private String keyStoreFileName;
-
-	private String keyStorePassword;
+	private final String keyStoreFileName;
 
-	private String keyStoreType;
+	private final String keyStorePassword;
 
-	private SSLSocketFactory socketFactory;
+	private final String keyStoreType;
 
 	public PollingSslProtocolSocketFactory() {
-		KeyManager[] keymanagers = null;
-		if (System.getProperty(KEY_STORE) != null && System.getProperty(KEY_STORE_PASSWORD) != null) {
-			try {
-				String type = System.getProperty(KEY_STORE_TYPE, KeyStore.getDefaultType());
-				KeyStore keyStore = KeyStore.getInstance(type);
-				char[] password = System.getProperty(KEY_STORE_PASSWORD).toCharArray();
-				keyStore.load(new FileInputStream(System.getProperty(KEY_STORE)), password);
-				KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
-				keyManagerFactory.init(keyStore, password);
-				keymanagers = keyManagerFactory.getKeyManagers();
-			} catch (Exception e) {
-				CommonsNetPlugin.log(IStatus.ERROR, "Could not initialize keystore", e); //$NON-NLS-1$
-			}
-		}
-
-		hasKeyManager = keymanagers != null;
+		this.keyStoreFileName = System.getProperty(KEY_STORE);
+		this.keyStorePassword = System.getProperty(KEY_STORE_PASSWORD);
+		this.keyStoreType = System.getProperty(KEY_STORE_TYPE);
 
+		boolean hasKeyManager = false;
 		try {
-			SSLContext sslContext = SSLContext.getInstance("SSL"); //$NON-NLS-1$
-			sslContext.init(keymanagers, new TrustManager[] { new TrustAllTrustManager() }, null);
-			this.socketFactory = sslContext.getSocketFactory();
-		} catch (Exception e) {
+			getSocketFactory();
+			hasKeyManager = keyStoreFileName != null && keyStorePassword != null;
+		} catch (IOException e) {
 			CommonsNetPlugin.log(IStatus.ERROR, "Could not initialize SSL context", e); //$NON-NLS-1$
 		}
+		this.hasKeyManager = hasKeyManager;
 	}
 
 	public PollingSslProtocolSocketFactory(String keyStoreFileName, String keyStorePassword, String keyStoreType) {
@@ -100,16 +82,18 @@ public class PollingSslProtocolSocketFactory implements SecureProtocolSocketFact
 
 	public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException,
 			UnknownHostException {
-		return NetUtil.configureSocket(getSocketFactory().createSocket(socket, host, port, autoClose));
+		return monitorHandshake(
+				NetUtil.configureSocket(getSocketFactory().createSocket(socket, host, port, autoClose)));
 	}
 
 	public Socket createSocket(String remoteHost, int remotePort) throws IOException, UnknownHostException {
-		return NetUtil.configureSocket(getSocketFactory().createSocket(remoteHost, remotePort));
+		return monitorHandshake(NetUtil.configureSocket(getSocketFactory().createSocket(remoteHost, remotePort)));
 	}
 
 	public Socket createSocket(String remoteHost, int remotePort, InetAddress clientHost, int clientPort)
 			throws IOException, UnknownHostException {
-		return NetUtil.configureSocket(getSocketFactory().createSocket(remoteHost, remotePort, clientHost, clientPort));
+		return monitorHandshake(NetUtil.configureSocket(getSocketFactory().createSocket(remoteHost, remotePort,
+				clientHost, clientPort)));
 	}
 
 	public Socket createSocket(String host, int port, InetAddress localAddress, int localPort,
@@ -119,10 +103,20 @@ public class PollingSslProtocolSocketFactory implements SecureProtocolSocketFact
 		}
 
 		int timeout = params.getConnectionTimeout();
-		final Socket socket = NetUtil.configureSocket(getSocketFactory().createSocket());
-		socket.bind(new InetSocketAddress(localAddress, localPort));
-		MonitoredRequest.connect(socket, new InetSocketAddress(host, port), timeout);
-		return socket;
+		Socket plainSocket = new ChannelSocket();
+		plainSocket.bind(new InetSocketAddress(localAddress, localPort));
+		MonitoredRequest.connect(plainSocket, new InetSocketAddress(host, port), timeout);
+		try {
+			// layer TLS over the channel socket so that timeouts do not require a thread per connection
+			Socket socket = NetUtil.configureSocket(getSocketFactory().createSocket(plainSocket, host, port, true));
+			// HttpClient sets the socket timeout after the socket is returned, apply it to the handshake as well
+			socket.setSoTimeout(params.getSoTimeout());
+			// without a timeout an eager handshake could block indefinitely, leave it to the first use of the socket
+			return (params.getSoTimeout() > 0) ? startHandshake(socket) : monitorHandshake(socket);
+		} catch (IOException e) {
+			plainSocket.close();
+			throw e;
+		}
 	}
 
 	@Override
@@ -161,49 +155,23 @@ public class PollingSslProtocolSocketFactory implements SecureProtocolSocketFact
 		return true;
 	}
 
-	public synchronized SSLSocketFactory getSocketFactory() throws IOException {
-		if (socketFactory == null) {
-			if (keyStoreFileName != null && keyStorePassword != null) {
-				KeyManager[] keymanagers = null;
-				try {
-					if (keyStoreType == null) {
-						try {
-							keymanagers = openKeyStore(KeyStore.getDefaultType());
-						} catch (Exception e) {
-							keymanagers = openKeyStore("pkcs12"); //$NON-NLS-1$
-						}
-					} else {
-						keymanagers = openKeyStore(keyStoreType);
-					}
-				} catch (Exception cause) {
-					IOException e = new SslCertificateException();
-					e.initCause(cause);
-					throw e;
-				}
-
-				try {
-					SSLContext sslContext = SSLContext.getInstance("SSL"); //$NON-NLS-1$
-					sslContext.init(keymanagers, new TrustManager[] { new TrustAllTrustManager() }, null);
-					this.socketFactory = sslContext.getSocketFactory();
-				} catch (Exception cause) {
-					IOException e = new SslCertificateException();
-					e.initCause(cause);
-					throw e;
-				}
-			}
-			throw new IOException("Could not initialize SSL context"); //$NON-NLS-1$
+	public SSLSocketFactory getSocketFactory() throws IOException {
+		try {
+			return getSslSupport().getSocketFactory();
+		} catch (org.eclipse.mylyn.commons.core.net.SslCertificateException cause) {
+			IOException e = new SslCertificateException(cause.getMessage());
+			e.initCause(cause);
+			throw e;
 		}
-		return socketFactory;
 	}
 
-	private KeyManager[] openKeyStore(String type) throws KeyStoreException, IOException, NoSuchAlgorithmException,
-			CertificateException, FileNotFoundException, UnrecoverableKeyException {
-		KeyStore keyStore = KeyStore.getInstance(type);
-		char[] password = keyStorePassword.toCharArray();
-		keyStore.load(new FileInputStream(keyStoreFileName), password);
-		KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
-		keyManagerFactory.init(keyStore, password);
-		return keyManagerFactory.getKeyManagers();
+	/**
+	 * Returns the shared SSL support for the key store of this factory. The instance is looked up on each access so
+	 * that a modified key store is reloaded.
+	 */
+	public SslSupport getSslSupport() {
+		return SslSupport.getCached(new TrustManager[] { new TrustAllTrustManager() }, keyStoreFileName,
+				keyStorePassword, keyStoreType);
 	}
 
 	@Override
@@ -223,4 +191,26 @@ public class PollingSslProtocolSocketFactory implements SecureProtocolSocketFact
 		return hasKeyManager;
 	}
 
+	/**
+	 * Leaves the handshake to the first use of the socket since no timeout has been applied yet but records it in the
+	 * statistics of the shared {@link SslSupport}.
+	 */
+	private Socket monitorHandshake(Socket socket) throws IOException {
+		if (socket instanceof SSLSocket) {
+			getSslSupport().monitorHandshake((SSLSocket) socket);
+		}
+		return socket;
+	}
+
+	/**
+	 * Performs the handshake explicitly rather than on first use of the socket so that it is recorded in the
+	 * statistics of the shared {@link SslSupport}.
+	 */
+	private Socket startHandshake(Socket socket) throws IOException {
+		if (socket instanceof SSLSocket) {
+			getSslSupport().startHandshake((SSLSocket) socket);
+		}
+		return socket;
+	}
+
 }
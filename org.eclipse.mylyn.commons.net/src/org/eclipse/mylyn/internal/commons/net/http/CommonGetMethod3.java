@@ -16,14 +16,13 @@ package org.eclipse.mylyn.internal.commons.net.http;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.httpclient.HttpConnection;
 import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpState;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.mylyn.commons.net.WebUtil;
+import org.eclipse.mylyn.commons.core.io.DecompressingInputStream;
 import org.eclipse.mylyn.commons.net.http.CommonHttpMethod3;
 
 /**
@@ -35,8 +34,6 @@ public class CommonGetMethod3 extends GetMethod implements CommonHttpMethod3 {
 
 	private boolean gzipAccepted;
 
-	private boolean gzipReceived;
-
 	private InputStream inputStream;
 
 	private final Object releaseLock = new Object();
@@ -53,18 +50,15 @@ public class CommonGetMethod3 extends GetMethod implements CommonHttpMethod3 {
 	@Override
 	public int execute(HttpState state, HttpConnection conn) throws HttpException, IOException {
 		if (gzipAccepted) {
-			this.setRequestHeader("Accept-encoding", CONTENT_ENCODING_GZIP); //$NON-NLS-1$
+			this.setRequestHeader(ACCEPT_ENCODING, DecompressingInputStream.ACCEPT_ENCODING);
 		}
 		return super.execute(state, conn);
 	}
 
 	public InputStream getResponseBodyAsStream(IProgressMonitor monitor) throws IOException {
 		if (inputStream == null) {
-			inputStream = WebUtil.getResponseBodyAsStream(this, monitor);
-		}
-		gzipReceived = isZippedResponse();
-		if (gzipReceived) {
-			inputStream = new GZIPInputStream(inputStream);
+			// see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=269018
+			inputStream = ContentDecoding.getResponseBodyAsStream(this, monitor);
 		}
 		return inputStream;
 	}
@@ -77,12 +71,6 @@ public class CommonGetMethod3 extends GetMethod implements CommonHttpMethod3 {
 		return gzipAccepted;
 	}
 
-	private boolean isZippedResponse() {
-		// see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=269018
-		return this.getResponseHeader(CONTENT_ENCODING) != null
-				&& this.getResponseHeader(CONTENT_ENCODING).getValue().equals(CONTENT_ENCODING_GZIP);
-	}
-
 	// This override is a workaround for 
 	// https://bugs.eclipse.org/bugs/show_bug.cgi?id=279457
 	// This makes GetMethod.releaseConnection non-reentrant,
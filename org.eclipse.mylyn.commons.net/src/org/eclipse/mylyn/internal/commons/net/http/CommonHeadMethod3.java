@@ -22,6 +22,7 @@ import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpState;
 import org.apache.commons.httpclient.methods.HeadMethod;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.mylyn.commons.core.io.DecompressingInputStream;
 import org.eclipse.mylyn.commons.net.http.CommonHttpMethod3;
 
 /**
@@ -47,7 +48,7 @@ public class CommonHeadMethod3 extends HeadMethod implements CommonHttpMethod3 {
 	@Override
 	public int execute(HttpState state, HttpConnection conn) throws HttpException, IOException {
 		if (gzipAccepted) {
-			this.setRequestHeader("Accept-encoding", CONTENT_ENCODING_GZIP); //$NON-NLS-1$
+			this.setRequestHeader(ACCEPT_ENCODING, DecompressingInputStream.ACCEPT_ENCODING);
 		}
 		return super.execute(state, conn);
 	}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.net.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpMethodBase;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.mylyn.commons.core.io.DecompressingInputStream;
+import org.eclipse.mylyn.commons.core.io.DecompressingInputStream.ByteCounter;
+import org.eclipse.mylyn.commons.net.WebUtil;
+import org.eclipse.mylyn.commons.net.http.CommonHttpMethod3;
+
+/**
+ * Decodes compressed response bodies of HttpClient 3 methods and counts the encoded and decoded bytes of all
+ * responses.
+ *
+ * @see WebUtil#getCompressedByteCount()
+ */
+public class ContentDecoding {
+
+	private static final ByteCounter counter = new ByteCounter();
+
+	public static ByteCounter getByteCounter() {
+		return counter;
+	}
+
+	/**
+	 * Returns the response body of <code>method</code>, decoded according to its <code>Content-Encoding</code> header.
+	 */
+	public static InputStream getResponseBodyAsStream(HttpMethodBase method, IProgressMonitor monitor)
+			throws IOException {
+		Header contentEncoding = method.getResponseHeader(CommonHttpMethod3.CONTENT_ENCODING);
+		return DecompressingInputStream.create(WebUtil.getResponseBodyAsStream(method, monitor),
+				(contentEncoding != null) ? contentEncoding.getValue() : null, counter);
+	}
+
+}
@@ -26,7 +26,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -54,6 +56,17 @@ public class RepositoryLocation extends PlatformObject {
 
 	private static boolean flushCredentialsErrorLogged;
 
+	/**
+	 * The number of consecutive connection failures after which requests fail immediately until the server is probed
+	 * again; 0 disables failing fast.
+	 */
+	public static final String PROPERTY_CIRCUIT_BREAKER_THRESHOLD = "org.eclipse.mylyn.repositories.circuitbreaker.threshold"; //$NON-NLS-1$
+
+	/**
+	 * The time in milliseconds that requests fail immediately before the server is probed the first time.
+	 */
+	public static final String PROPERTY_CIRCUIT_BREAKER_OPEN_TIME = "org.eclipse.mylyn.repositories.circuitbreaker.opentime"; //$NON-NLS-1$
+
 	public static final String PROPERTY_ID = "id"; //$NON-NLS-1$
 
 	public static final String PROPERTY_LABEL = "label"; //$NON-NLS-1$
@@ -66,12 +79,24 @@ public class RepositoryLocation extends PlatformObject {
 
 	public static final String PROPERTY_PROXY_USEDEFAULT = "org.eclipse.mylyn.repositories.proxy.usedefault"; //$NON-NLS-1$
 
+	/**
+	 * The number of times idempotent requests are retried after a connection failure.
+	 */
+	public static final String PROPERTY_RETRY_COUNT = "org.eclipse.mylyn.repositories.retry.count"; //$NON-NLS-1$
+
+	/**
+	 * The bound of the randomized delay in milliseconds before the first retry which doubles for each further retry.
+	 */
+	public static final String PROPERTY_RETRY_DELAY = "org.eclipse.mylyn.repositories.retry.delay"; //$NON-NLS-1$
+
 	public static final String PROPERTY_URL = "url"; //$NON-NLS-1$
 
 	public static final String PROPERTY_USERNAME = "org.eclipse.mylyn.repositories.username"; //$NON-NLS-1$
 
 	private static final String ENABLED = ".enabled"; //$NON-NLS-1$
 
+	private static final String NO_SECRETS = ".nosecrets"; //$NON-NLS-1$
+
 	private static Map<String, String> createDefaultProperties() {
 		Map<String, String> defaultProperties = new HashMap<String, String>();
 		defaultProperties.put(PROPERTY_PROXY_USEDEFAULT, Boolean.TRUE.toString());
@@ -80,6 +105,14 @@ public class RepositoryLocation extends PlatformObject {
 
 	private ICredentialsStore credentialsStore;
 
+	/**
+	 * Caches credentials materialized from the credentials store by authentication type key. Cleared whenever
+	 * credentials or properties that affect them change.
+	 */
+	private final Map<String, AuthenticationCredentials> credentialsCache = new ConcurrentHashMap<String, AuthenticationCredentials>();
+
+	private final AtomicInteger credentialsCacheGeneration = new AtomicInteger();
+
 	// transient
 	private IStatus errorStatus = null;
 
@@ -175,6 +208,7 @@ public class RepositoryLocation extends PlatformObject {
 
 	public void clearCredentials() {
 		getCredentialsStore().clear();
+		invalidateCredentialsCache();
 	}
 
 	public boolean getBooleanPropery(String key) {
@@ -193,7 +227,19 @@ public class RepositoryLocation extends PlatformObject {
 				// can't determine location of credentials
 				return null;
 			}
-			return CredentialsFactory.create(authType.getCredentialsType(), getCredentialsStore(), prefix, loadSecrets);
+			String cacheKey = (loadSecrets) ? prefix : prefix + NO_SECRETS;
+			AuthenticationCredentials credentials = credentialsCache.get(cacheKey);
+			if (credentials == null) {
+				int generation = credentialsCacheGeneration.get();
+				credentials = CredentialsFactory.create(authType.getCredentialsType(), getCredentialsStore(), prefix,
+						loadSecrets);
+				credentialsCache.put(cacheKey, credentials);
+				if (generation != credentialsCacheGeneration.get()) {
+					// credentials changed while reading, the cached value may be stale
+					credentialsCache.remove(cacheKey, credentials);
+				}
+			}
+			return authType.getCredentialsType().cast(credentials);
 		}
 		return null;
 	}
@@ -323,6 +369,7 @@ public class RepositoryLocation extends PlatformObject {
 	public <T extends AuthenticationCredentials> void removeCredentials(AuthenticationType<T> authType, T credentials) {
 		String prefix = authType.getKey();
 		credentials.clear(getCredentialsStore(), prefix);
+		invalidateCredentialsCache();
 	}
 
 	public void removeProperty(String key) {
@@ -358,6 +405,7 @@ public class RepositoryLocation extends PlatformObject {
 
 	public void setCredentialsStore(ICredentialsStore credentialsStore) {
 		this.credentialsStore = credentialsStore;
+		invalidateCredentialsCache();
 	}
 
 	public void setIdPreservingCredentialsStore(String id) {
@@ -412,6 +460,7 @@ public class RepositoryLocation extends PlatformObject {
 
 	public void setService(ILocationService service) {
 		this.service = service;
+		invalidateCredentialsCache();
 	}
 
 	public void setStatus(IStatus errorStatus) {
@@ -435,6 +484,9 @@ public class RepositoryLocation extends PlatformObject {
 		if (PROPERTY_ID.equals(key)) {
 			credentialsStore = null;
 		}
+		if (PROPERTY_ID.equals(key) || key.endsWith(ENABLED)) {
+			invalidateCredentialsCache();
+		}
 
 		firePropertyChangeEvent(key, old, value);
 	}
@@ -447,12 +499,20 @@ public class RepositoryLocation extends PlatformObject {
 	}
 
 	private void fireRepositoryLocationChangeEvent(RepositoryLocationChangeEvent.Type type) {
+		if (type == Type.ALL || type == Type.CREDENTIALS) {
+			invalidateCredentialsCache();
+		}
 		RepositoryLocationChangeEvent event = new RepositoryLocationChangeEvent(this, type);
 		for (IRepositoryLocationChangeListener listener : repositoryLocationChangeListeners) {
 			listener.repositoryChanged(event);
 		}
 	}
 
+	private void invalidateCredentialsCache() {
+		credentialsCacheGeneration.incrementAndGet();
+		credentialsCache.clear();
+	}
+
 	private boolean hasChanged(Object oldValue, Object newValue) {
 		return oldValue != null && !oldValue.equals(newValue) || oldValue == null && newValue != null;
 	}
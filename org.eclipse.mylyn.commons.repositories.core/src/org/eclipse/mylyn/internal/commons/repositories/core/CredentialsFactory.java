@@ -13,6 +13,8 @@
 package org.eclipse.mylyn.internal.commons.repositories.core;
 
 import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationCredentials;
 import org.eclipse.mylyn.commons.repositories.core.auth.ICredentialsStore;
@@ -24,16 +26,30 @@ import org.eclipse.mylyn.commons.repositories.core.auth.ICredentialsStore;
  */
 public class CredentialsFactory {
 
+	/**
+	 * Caches the looked up constructors to avoid repeated reflective lookups and access checks.
+	 */
+	private static final Map<Class<?>, Constructor<?>> constructorByType = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
 	public static <T extends AuthenticationCredentials> T create(Class<T> credentialsType,
 			ICredentialsStore credentialsStore, String key, boolean loadSecrets) {
 		try {
-			Constructor<T> constructor = credentialsType.getDeclaredConstructor(ICredentialsStore.class, String.class,
-					boolean.class);
-			constructor.setAccessible(true);
-			return constructor.newInstance(credentialsStore, key, loadSecrets);
+			return getConstructor(credentialsType).newInstance(credentialsStore, key, loadSecrets);
 		} catch (Exception e) {
 			throw new RuntimeException("Unexpected error while creating credentials", e); //$NON-NLS-1$
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private static <T extends AuthenticationCredentials> Constructor<T> getConstructor(Class<T> credentialsType)
+			throws NoSuchMethodException {
+		Constructor<T> constructor = (Constructor<T>) constructorByType.get(credentialsType);
+		if (constructor == null) {
+			constructor = credentialsType.getDeclaredConstructor(ICredentialsStore.class, String.class, boolean.class);
+			constructor.setAccessible(true);
+			constructorByType.put(credentialsType, constructor);
+		}
+		return constructor;
+	}
+
 }
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of heap buffers for transferring response entities. HttpClient delivers entities through heap arrays,
+ * so copying them into direct buffers does not avoid a copy; pooling avoids allocating a large buffer for each
+ * transfer.
+ */
+class BufferPool {
+
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int MAX_POOLED = 8;
+
+	private static final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(MAX_POOLED);
+
+	/**
+	 * Returns a buffer of {@link #BUFFER_SIZE} bytes. The buffer should be returned through {@link #release(byte[])}
+	 * when it is no longer used.
+	 */
+	static byte[] acquire() {
+		byte[] buffer = buffers.poll();
+		if (buffer == null) {
+			buffer = new byte[BUFFER_SIZE];
+		}
+		return buffer;
+	}
+
+	/**
+	 * Reads from <code>in</code> until <code>length</code> bytes have been read into <code>buffer</code> or the end of
+	 * the stream is reached.
+	 * 
+	 * @return the number of bytes read; 0 if the end of the stream has been reached
+	 */
+	static int fill(InputStream in, byte[] buffer, int length) throws IOException {
+		int offset = 0;
+		while (offset < length) {
+			int count = in.read(buffer, offset, length - offset);
+			if (count == -1) {
+				break;
+			}
+			offset += count;
+		}
+		return offset;
+	}
+
+	static void release(byte[] buffer) {
+		// discard the buffer if the pool is full
+		buffers.offer(buffer);
+	}
+
+	private BufferPool() {
+	}
+
+}
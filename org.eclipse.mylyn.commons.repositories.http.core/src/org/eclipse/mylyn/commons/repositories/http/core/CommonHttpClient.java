@@ -13,12 +13,20 @@
 package org.eclipse.mylyn.commons.repositories.http.core;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.TrustManager;
 
+import org.apache.http.HttpException;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.AuthCache;
+import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.ClientContext;
@@ -26,7 +34,7 @@ import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.AbstractHttpClient;
 import org.apache.http.impl.client.BasicAuthCache;
-import org.apache.http.impl.client.ContentEncodingHttpClient;
+import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -41,14 +49,28 @@ import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationRequest;
 import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationType;
 import org.eclipse.mylyn.commons.repositories.core.auth.CertificateCredentials;
 import org.eclipse.mylyn.commons.repositories.core.auth.UserCredentials;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.RequestTimer;
 
 /**
  * Provides an abstraction for connecting to a {@link RepositoryLocation} through HTTP.
+ * <p>
+ * Requests are sent over HTTP/1.1 by the Apache HttpClient 4 instance returned by {@link #getHttpClient()}. The
+ * engine is not pluggable: callers and subclasses rely on the HttpClient request, response and context types
+ * throughout.
  * 
  * @author Steffen Pingel
  */
 public class CommonHttpClient {
 
+	private final AtomicLong challengeCount = new AtomicLong();
+
+	private final AtomicLong responseCount = new AtomicLong();
+
+	/**
+	 * Authentication schemes learned from challenges, shared by the contexts of all threads.
+	 */
+	private final AuthCache authCache = new BasicAuthCache();
+
 	private boolean preemptiveAuthenticationEnabled;
 
 	private boolean authenticated;
@@ -61,6 +83,10 @@ public class CommonHttpClient {
 
 	private final RepositoryLocation location;
 
+	private HttpResponseCache responseCache;
+
+	private volatile RequestCoalescer requestCoalescer;
+
 	private CancellableOperationMonitorThread monitorThread = CancellableOperationMonitorThread.getInstance();
 
 	public CommonHttpClient(RepositoryLocation location) {
@@ -75,14 +101,104 @@ public class CommonHttpClient {
 		return op.run(monitor);
 	}
 
+	/**
+	 * Asynchronous variant of {@link #executeGet(String, IOperationMonitor, HttpRequestProcessor)}. The request is
+	 * aborted if the returned future is canceled.
+	 * 
+	 * @see CommonHttpOperation#executeAsync(HttpRequestBase, IOperationMonitor)
+	 */
+	public <T> CompletableFuture<T> executeGetAsync(String requestPath, IOperationMonitor monitor,
+			HttpRequestProcessor<T> processor) {
+		HttpGet request = new HttpGet(location.getUrl() + requestPath);
+		DefaultHttpOperation<T> op = new DefaultHttpOperation<T>(this, request, processor);
+		return op.runAsync(monitor);
+	}
+
+	/**
+	 * Downloads the entity of <code>requestPath</code> to <code>file</code>. A partially written file is deleted if the
+	 * download fails.
+	 * 
+	 * @return the number of bytes written
+	 * @throws HttpResponseException
+	 *             if the server does not respond with {@link HttpStatus#SC_OK}
+	 * @see CommonHttpResponse#writeEntityTo(Path, IOperationMonitor)
+	 */
+	public long download(String requestPath, final Path file, IOperationMonitor monitor) throws IOException {
+		return executeGet(requestPath, monitor, new HttpRequestProcessor<Long>(false) {
+			@Override
+			protected void doValidate(CommonHttpResponse response, IOperationMonitor monitor) throws IOException {
+				if (response.getStatusCode() != HttpStatus.SC_OK) {
+					throw new HttpResponseException(response.getStatusCode(), response.getResponse()
+							.getStatusLine()
+							.getReasonPhrase());
+				}
+			}
+
+			@Override
+			protected Long doProcess(CommonHttpResponse response, IOperationMonitor monitor) throws IOException {
+				boolean completed = false;
+				try {
+					long count = response.writeEntityTo(file, monitor);
+					completed = true;
+					return count;
+				} finally {
+					if (!completed) {
+						Files.deleteIfExists(file);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Executes <code>request</code> and records the time spent in each phase until the response headers are received.
+	 * The timings are completed when the response is released through {@link CommonHttpResponse#release()}.
+	 * 
+	 * @see CommonHttpResponse#getTimings()
+	 */
 	public HttpResponse execute(HttpRequestBase request, IOperationMonitor monitor) throws IOException {
 		prepareRequest(request, monitor);
-		return HttpUtil.execute(getHttpClient(), HttpUtil.createHost(request), getContext(), request, monitor);
+		RequestTimer timer = RequestTimer.start(location);
+		request.getParams().setParameter(RequestTimer.class.getName(), timer);
+		try {
+			return HttpUtil.execute(getHttpClient(), HttpUtil.createHost(request), getContext(), request, monitor);
+		} finally {
+			timer.responseReceived();
+		}
+	}
+
+	/**
+	 * Returns the authentication scheme cache that is shared by all threads. Once a scheme has been learned from a
+	 * challenge subsequent requests from any thread authenticate preemptively.
+	 */
+	public AuthCache getAuthCache() {
+		return authCache;
+	}
+
+	/**
+	 * Returns the number of GET requests that were served by sharing the response of an identical concurrent request.
+	 * 
+	 * @see #setRequestCoalescingEnabled(boolean)
+	 */
+	public long getCoalescedRequestCount() {
+		RequestCoalescer coalescer = requestCoalescer;
+		return (coalescer != null) ? coalescer.getCoalescedCount() : 0;
+	}
+
+	/**
+	 * Returns the number of responses that challenged the client for authentication by the server or proxy.
+	 * 
+	 * @see #getResponseCount()
+	 */
+	public long getChallengeCount() {
+		return challengeCount.get();
 	}
 
 	public HttpContext getContext() {
 		if (context.get() == null) {
-			context.set(new BasicHttpContext(null));
+			BasicHttpContext httpContext = new BasicHttpContext(null);
+			httpContext.setAttribute(ClientContext.AUTH_CACHE, authCache);
+			context.set(httpContext);
 		}
 		return context.get();
 	}
@@ -102,10 +218,31 @@ public class CommonHttpClient {
 		return location;
 	}
 
+	/**
+	 * Returns the number of responses received including responses that challenged for authentication.
+	 */
+	public long getResponseCount() {
+		return responseCount.get();
+	}
+
+	/**
+	 * Returns the cache for responses of operations that specify a cache policy.
+	 * 
+	 * @return the cache, or <code>null</code> if caching is disabled
+	 * @see CommonHttpOperation#setCachePolicy(HttpCachePolicy)
+	 */
+	public HttpResponseCache getResponseCache() {
+		return responseCache;
+	}
+
 	public boolean isAuthenticated() {
 		return authenticated;
 	}
 
+	public boolean isRequestCoalescingEnabled() {
+		return requestCoalescer != null;
+	}
+
 	public boolean isPreemptiveAuthenticationEnabled() {
 		return preemptiveAuthenticationEnabled;
 	}
@@ -118,10 +255,34 @@ public class CommonHttpClient {
 		this.authenticated = authenticated;
 	}
 
+	/**
+	 * Discards all learned authentication schemes, e.g. after credentials were rejected.
+	 */
+	public void clearAuthCache() {
+		authCache.clear();
+	}
+
 	public void setHttpAuthenticationType(AuthenticationType<UserCredentials> httpAuthenticationType) {
 		this.httpAuthenticationType = httpAuthenticationType;
 	}
 
+	/**
+	 * Enables sharing of a single network round trip between concurrent GET requests for the same URL with identical
+	 * headers and credentials. Shared responses are buffered in memory and each request receives a copy. Canceling a
+	 * request only affects the request itself, another waiting request is executed in its place if needed.
+	 */
+	public synchronized void setRequestCoalescingEnabled(boolean enabled) {
+		if (enabled && requestCoalescer == null) {
+			requestCoalescer = new RequestCoalescer(this);
+		} else if (!enabled) {
+			requestCoalescer = null;
+		}
+	}
+
+	public void setResponseCache(HttpResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
 	public void setPreemptiveAuthenticationEnabled(boolean preemptiveAuthenticationEnabled) {
 		this.preemptiveAuthenticationEnabled = preemptiveAuthenticationEnabled;
 	}
@@ -132,17 +293,10 @@ public class CommonHttpClient {
 			HttpUtil.configureAuthentication(getHttpClient(), location, httpCredentials);
 
 			if (isPreemptiveAuthenticationEnabled()) {
-				// create or pre-populate auth cache 
+				// pre-populate auth cache 
 				HttpHost host = HttpUtil.createHost(request);
-				Object authCache = getContext().getAttribute(ClientContext.AUTH_CACHE);
-				if (authCache == null) {
-					authCache = new BasicAuthCache();
-					getContext().setAttribute(ClientContext.AUTH_CACHE, authCache);
-				}
-				if (authCache instanceof BasicAuthCache) {
-					if (((BasicAuthCache) authCache).get(host) == null) {
-						((BasicAuthCache) authCache).put(host, new BasicScheme());
-					}
+				if (authCache.get(host) == null) {
+					authCache.put(host, new BasicScheme());
 				}
 			}
 		}
@@ -150,7 +304,7 @@ public class CommonHttpClient {
 
 		CertificateCredentials socketCredentials = location.getCredentials(AuthenticationType.CERTIFICATE);
 		if (socketCredentials != null) {
-			SslSupport support = new SslSupport(new TrustManager[] { new TrustAllTrustManager() },
+			SslSupport support = SslSupport.getCached(new TrustManager[] { new TrustAllTrustManager() },
 					socketCredentials.getKeyStoreFileName(), socketCredentials.getPassword(),
 					socketCredentials.getKeyStoreType());
 			request.getParams().setParameter(SslSupport.class.getName(), support);
@@ -166,7 +320,8 @@ public class CommonHttpClient {
 	}
 
 	protected AbstractHttpClient createHttpClient(String userAgent) {
-		AbstractHttpClient client = new ContentEncodingHttpClient() {
+		// content encoding is handled by the interceptors that are added in HttpUtil.configureClient()
+		AbstractHttpClient client = new DefaultHttpClient() {
 			@Override
 			protected ClientConnectionManager createClientConnectionManager() {
 				return CommonHttpClient.this.createHttpClientConnectionManager();
@@ -180,6 +335,16 @@ public class CommonHttpClient {
 //			}
 //		});
 		HttpUtil.configureClient(client, userAgent);
+		client.addResponseInterceptor(new HttpResponseInterceptor() {
+			public void process(HttpResponse response, HttpContext context) throws HttpException, IOException {
+				responseCount.incrementAndGet();
+				int statusCode = response.getStatusLine().getStatusCode();
+				if (statusCode == HttpStatus.SC_UNAUTHORIZED
+						|| statusCode == HttpStatus.SC_PROXY_AUTHENTICATION_REQUIRED) {
+					challengeCount.incrementAndGet();
+				}
+			}
+		});
 		return client;
 	}
 
@@ -205,6 +370,10 @@ public class CommonHttpClient {
 		}
 	}
 
+	RequestCoalescer getRequestCoalescer() {
+		return requestCoalescer;
+	}
+
 	public CancellableOperationMonitorThread getMonitorThread() {
 		return monitorThread;
 	}
@@ -13,14 +13,31 @@
 package org.eclipse.mylyn.commons.repositories.http.core;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpOptions;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker;
+import org.eclipse.mylyn.commons.core.net.CircuitOpenException;
 import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
 import org.eclipse.mylyn.commons.core.operations.OperationUtil;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
 import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationCredentials;
 import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationException;
 import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationRequest;
@@ -31,8 +48,12 @@ import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationType;
  */
 public abstract class CommonHttpOperation<T> {
 
+	private static final long RETRY_POLL_INTERVAL = 100;
+
 	private final CommonHttpClient client;
 
+	private HttpCachePolicy cachePolicy = HttpCachePolicy.NO_CACHE;
+
 	public CommonHttpOperation(CommonHttpClient client) {
 		this.client = client;
 	}
@@ -63,13 +84,28 @@ public abstract class CommonHttpOperation<T> {
 		return new HttpPost(requestPath);
 	}
 
-	public CommonHttpResponse execute(HttpRequestBase request, IOperationMonitor monitor) throws IOException {
-		monitor = OperationUtil.convert(monitor);
+	public CommonHttpResponse execute(final HttpRequestBase request, IOperationMonitor monitor) throws IOException {
+		final IOperationMonitor operationMonitor = OperationUtil.convert(monitor);
+		RequestCoalescer coalescer = client.getRequestCoalescer();
+		if (coalescer != null && request instanceof HttpGet) {
+			RequestCoalescer.Key key = RequestCoalescer.getKey(request, cachePolicy,
+					client.getLocation().getCredentials(client.getHttpAuthenticationType()),
+					client.getLocation().getCredentials(AuthenticationType.REPOSITORY, false));
+			return coalescer.execute(key, request, operationMonitor, new RequestCoalescer.Execution() {
+				public CommonHttpResponse execute() throws IOException {
+					return executeWithRetries(request, operationMonitor);
+				}
+			});
+		}
+		return executeWithRetries(request, operationMonitor);
+	}
 
+	private CommonHttpResponse executeWithRetries(HttpRequestBase request, IOperationMonitor monitor)
+			throws IOException {
 		// first attempt
 		boolean requestCredentials;
 		try {
-			return executeOnce(request, monitor);
+			return executeWithBackoff(request, monitor);
 		} catch (AuthenticationException e) {
 			requestCredentials = !e.shouldRetry();
 
@@ -78,7 +114,7 @@ public abstract class CommonHttpOperation<T> {
 
 		// second attempt
 		try {
-			return executeOnce(request, monitor);
+			return executeWithBackoff(request, monitor);
 		} catch (AuthenticationException e) {
 			if (requestCredentials) {
 				// new credentials were not correct either  
@@ -90,7 +126,126 @@ public abstract class CommonHttpOperation<T> {
 		}
 
 		// third attempt
-		return executeOnce(request, monitor);
+		return executeWithBackoff(request, monitor);
+	}
+
+	/**
+	 * Executes <code>request</code> and retries idempotent requests that failed to connect or receive a response as
+	 * configured by the {@link RepositoryLocation#PROPERTY_RETRY_COUNT} property of the location. Retries are delayed by
+	 * an exponentially growing, randomized backoff and stop as soon as the circuit breaker of the location opens.
+	 */
+	private CommonHttpResponse executeWithBackoff(HttpRequestBase request, IOperationMonitor monitor)
+			throws IOException {
+		int retries = (isRepeatable() && isIdempotent(request)) ? HttpUtil.getRetryCount(client.getLocation()) : 0;
+		for (int attempt = 0;; attempt++) {
+			try {
+				return executeOnce(request, monitor);
+			} catch (AuthenticationException e) {
+				throw e;
+			} catch (CircuitOpenException e) {
+				throw e;
+			} catch (IOException e) {
+				if (attempt >= retries || request.isAborted() || monitor.isCanceled()) {
+					throw e;
+				}
+				sleep(HttpUtil.getRetryBackoff(client.getLocation()).getDelay(attempt), monitor);
+			}
+		}
+	}
+
+	private boolean isIdempotent(HttpRequestBase request) {
+		String method = request.getMethod();
+		return HttpGet.METHOD_NAME.equals(method) || HttpHead.METHOD_NAME.equals(method)
+				|| HttpOptions.METHOD_NAME.equals(method);
+	}
+
+	private void sleep(long delay, IOperationMonitor monitor) throws InterruptedIOException {
+		long end = System.currentTimeMillis() + delay;
+		try {
+			for (long remaining = delay; remaining > 0; remaining = end - System.currentTimeMillis()) {
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				Thread.sleep(Math.min(remaining, RETRY_POLL_INTERVAL));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+
+	/**
+	 * Executes <code>request</code> on the shared {@link OperationUtil#EXECUTOR_HTTP HTTP executor} without blocking
+	 * the caller. Authentication and proxy configuration are handled as in {@link #execute(HttpRequestBase,
+	 * IOperationMonitor)}.
+	 * <p>
+	 * The request is aborted if <code>monitor</code> is canceled or the returned future is canceled. If the future
+	 * completes normally the caller is responsible for releasing the response. If all threads of the executor are busy
+	 * and its queue is full the caller waits briefly for capacity, if none becomes available the future completes
+	 * exceptionally with a {@link RejectedExecutionException}.
+	 * <p>
+	 * Each running request occupies a thread of the executor. Run the shared executors on virtual threads to keep a
+	 * large number of requests in flight, see {@link OperationUtil#EXECUTOR_HTTP}.
+	 */
+	public CompletableFuture<CommonHttpResponse> executeAsync(HttpRequestBase request, IOperationMonitor monitor) {
+		return executeAsync(request, monitor, OperationUtil.getExecutorService(OperationUtil.EXECUTOR_HTTP));
+	}
+
+	public CompletableFuture<CommonHttpResponse> executeAsync(final HttpRequestBase request,
+			final IOperationMonitor monitor, Executor executor) {
+		return submit(request, monitor, new Callable<CommonHttpResponse>() {
+			public CommonHttpResponse call() throws Exception {
+				return execute(request, monitor);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Runs <code>callable</code> on <code>executor</code> and aborts <code>request</code> when the returned future is
+	 * canceled. Results of type {@link CommonHttpResponse} that complete after the future was canceled are released.
+	 */
+	protected final <R> CompletableFuture<R> submit(final HttpRequestBase request, IOperationMonitor monitor,
+			final Callable<R> callable, Executor executor) {
+		final IOperationMonitor operationMonitor = OperationUtil.convert(monitor);
+		final CompletableFuture<R> future = new CompletableFuture<R>() {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				boolean canceled = super.cancel(mayInterruptIfRunning);
+				if (canceled) {
+					try {
+						request.abort();
+					} catch (UnsupportedOperationException e) {
+						// ignore
+					}
+				}
+				return canceled;
+			}
+		};
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+					if (future.isDone()) {
+						return;
+					}
+					if (operationMonitor.isCanceled()) {
+						future.completeExceptionally(new OperationCanceledException());
+						return;
+					}
+					try {
+						R result = callable.call();
+						if (!future.complete(result) && result instanceof CommonHttpResponse) {
+							((CommonHttpResponse) result).release();
+						}
+					} catch (Throwable e) {
+						// complete on errors as well, otherwise callers that wait on the future block forever
+						future.completeExceptionally(e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
 	}
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
@@ -122,11 +277,38 @@ public abstract class CommonHttpOperation<T> {
 			configure(request);
 		}
 
-		HttpResponse response = client.execute(request, monitor);
+		HttpResponseCache cache = getResponseCache(request);
+		if (cache == null) {
+			// success
+			return new CommonHttpResponse(request, executeValidated(request, null, monitor),
+					client.getMonitorThread(), monitor);
+		}
+
+		HttpResponse cachedResponse = cache.lookup(request, cachePolicy);
+		if (cachedResponse != null) {
+			return new CommonHttpResponse(request, cachedResponse, client.getMonitorThread(), monitor);
+		}
 		try {
-			validate(response, monitor);
+			HttpResponse response = executeValidated(request, cache, monitor);
+			if (response == null) {
+				// the cached response was evicted while revalidating it
+				cache.removeConditionalHeaders(request);
+				response = executeValidated(request, cache, monitor);
+			}
 			// success
 			return new CommonHttpResponse(request, response, client.getMonitorThread(), monitor);
+		} finally {
+			// the request may be retried after authenticating
+			cache.removeConditionalHeaders(request);
+		}
+	}
+
+	private HttpResponse executeValidated(HttpRequestBase request, HttpResponseCache cache, IOperationMonitor monitor)
+			throws IOException {
+		HttpResponse response = executeGuarded(request, monitor);
+		try {
+			validate(response, monitor);
+			return (cache != null) ? cache.update(request, response, hasCredentials()) : response;
 		} catch (IOException e) {
 			HttpUtil.release(request, response, monitor);
 			throw e;
@@ -136,6 +318,74 @@ public abstract class CommonHttpOperation<T> {
 		}
 	}
 
+	private HttpResponse executeGuarded(HttpRequestBase request, IOperationMonitor monitor) throws IOException {
+		CircuitBreaker breaker = HttpUtil.getCircuitBreaker(client.getLocation());
+		long permit = breaker.acquire();
+		HttpResponse response;
+		try {
+			response = client.execute(request, monitor);
+		} catch (IOException e) {
+			// a read timeout may be caused by a slow request rather than an unavailable server
+			if (!request.isAborted() && isConnectFailure(e)) {
+				breaker.recordFailure(permit);
+			} else {
+				breaker.release(permit);
+			}
+			throw e;
+		} catch (RuntimeException e) {
+			breaker.release(permit);
+			throw e;
+		}
+		if (isServerUnavailable(response.getStatusLine().getStatusCode())) {
+			breaker.recordFailure(permit);
+		} else {
+			breaker.recordSuccess(permit);
+		}
+		return response;
+	}
+
+	/**
+	 * Returns true, if credentials may be sent with requests; responses are then not persisted by the response cache.
+	 */
+	private boolean hasCredentials() {
+		RepositoryLocation location = client.getLocation();
+		return client.isAuthenticated() || location.getCredentials(client.getHttpAuthenticationType(), false) != null
+				|| location.getCredentials(AuthenticationType.REPOSITORY, false) != null
+				|| location.getCredentials(AuthenticationType.CERTIFICATE, false) != null;
+	}
+
+	private boolean isConnectFailure(IOException e) {
+		return e instanceof ConnectException || e instanceof NoRouteToHostException
+				|| e instanceof ConnectTimeoutException || e instanceof UnknownHostException;
+	}
+
+	private boolean isServerUnavailable(int statusCode) {
+		return statusCode == HttpStatus.SC_BAD_GATEWAY || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE
+				|| statusCode == HttpStatus.SC_GATEWAY_TIMEOUT;
+	}
+
+	public HttpCachePolicy getCachePolicy() {
+		return cachePolicy;
+	}
+
+	/**
+	 * Sets the policy for looking up and storing responses of GET requests in the
+	 * {@link CommonHttpClient#getResponseCache() response cache} of the client. Has no effect if the client does not
+	 * have a cache.
+	 */
+	public void setCachePolicy(HttpCachePolicy cachePolicy) {
+		Assert.isNotNull(cachePolicy);
+		this.cachePolicy = cachePolicy;
+	}
+
+	private HttpResponseCache getResponseCache(HttpRequestBase request) {
+		if (cachePolicy == HttpCachePolicy.NO_CACHE || !(request instanceof HttpGet)
+				|| request.containsHeader(HttpHeaders.RANGE) || HttpResponseCache.isConditional(request)) {
+			return null;
+		}
+		return client.getResponseCache();
+	}
+
 	protected final CommonHttpClient getClient() {
 		return client;
 	}
@@ -151,6 +401,7 @@ public abstract class CommonHttpOperation<T> {
 
 	protected void invalidateAuthentication(AuthenticationException e, IOperationMonitor monitor) {
 		client.setAuthenticated(false);
+		client.clearAuthCache();
 	}
 
 	protected void validate(HttpResponse response, IOperationMonitor monitor) throws AuthenticationException {
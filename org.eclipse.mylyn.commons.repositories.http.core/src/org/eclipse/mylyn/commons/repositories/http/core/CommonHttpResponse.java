@@ -14,6 +14,10 @@ package org.eclipse.mylyn.commons.repositories.http.core;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpRequest;
@@ -22,10 +26,12 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.util.EntityUtils;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.mylyn.commons.core.operations.CancellableOperationMonitorThread;
 import org.eclipse.mylyn.commons.core.operations.ICancellableOperation;
 import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
 import org.eclipse.mylyn.commons.core.operations.OperationUtil;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.RequestTimer;
 
 /**
  * @author Steffen Pingel
@@ -94,6 +100,19 @@ public class CommonHttpResponse implements ICancellableOperation {
 		return response;
 	}
 
+	/**
+	 * Returns the time the request spent in each phase. The time of the transfer of the response entity is only
+	 * recorded once the response has been released.
+	 * 
+	 * @return the timings or <code>null</code> if the response was not received through
+	 *         {@link CommonHttpClient#execute(org.apache.http.client.methods.HttpRequestBase, IOperationMonitor)},
+	 *         e.g. if it was served from a cache
+	 */
+	public HttpTimings getTimings() {
+		RequestTimer timer = getTimer();
+		return (timer != null) ? timer.getTimings() : null;
+	}
+
 	public String getResponseCharSet() {
 		return EntityUtils.getContentCharSet(response.getEntity());
 	}
@@ -107,7 +126,7 @@ public class CommonHttpResponse implements ICancellableOperation {
 			throw new IOException("Expected entity"); //$NON-NLS-1$
 		}
 		entityStream = new CancellableInputStream(this, entity.getContent());
-		monitorThread.addOperation(this);
+		monitorThread.addOperation(this, monitor);
 		return entityStream;
 	}
 
@@ -119,6 +138,63 @@ public class CommonHttpResponse implements ICancellableOperation {
 		return getResponseEntityAsStream();
 	}
 
+	/**
+	 * Writes the response entity to <code>file</code>, replacing existing content. The entity is read into a pooled
+	 * buffer and written to a {@link FileChannel} in chunks of up to 64 KB which keeps memory usage constant regardless
+	 * of the size of the entity. Progress is reported to <code>monitor</code> if the content length is known.
+	 * <p>
+	 * The response is released when this method returns.
+	 *
+	 * @return the number of bytes written
+	 * @throws OperationCanceledException
+	 *             if <code>monitor</code> was canceled during the transfer
+	 */
+	public long writeEntityTo(Path file, IOperationMonitor monitor) throws IOException {
+		Assert.isNotNull(file);
+		monitor = OperationUtil.convert(monitor);
+		InputStream in = getResponseEntityAsStream();
+		long contentLength = response.getEntity().getContentLength();
+		monitor.beginTask("", (contentLength > 0) //$NON-NLS-1$
+				? (int) Math.min(Integer.MAX_VALUE, contentLength / BufferPool.BUFFER_SIZE + 1)
+				: IProgressMonitor.UNKNOWN);
+
+		boolean completed = false;
+		byte[] buffer = BufferPool.acquire();
+		try {
+			FileChannel target = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				long total = 0;
+				int count;
+				while ((count = BufferPool.fill(in, buffer, buffer.length)) == buffer.length) {
+					write(target, buffer, count);
+					total += count;
+					if (monitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+					monitor.worked(1);
+				}
+				// the remainder of the entity that did not fill the buffer
+				write(target, buffer, count);
+				total += count;
+				completed = true;
+				return total;
+			} finally {
+				target.close();
+			}
+		} finally {
+			BufferPool.release(buffer);
+			monitor.done();
+			if (completed) {
+				in.close();
+			} else {
+				// avoid reading the remainder of a possibly large entity
+				abort();
+				release();
+			}
+		}
+	}
+
 	public int getStatusCode() {
 		return response.getStatusLine().getStatusCode();
 	}
@@ -131,6 +207,10 @@ public class CommonHttpResponse implements ICancellableOperation {
 	public void release() {
 		releaseStream();
 		HttpUtil.release(request, response, monitor);
+		RequestTimer timer = getTimer();
+		if (timer != null && timer.complete()) {
+			HttpUtil.fireRequestCompleted(timer.getLocation(), request, timer.getTimings());
+		}
 	}
 
 	/**
@@ -143,18 +223,30 @@ public class CommonHttpResponse implements ICancellableOperation {
 
 	private synchronized void abortStream() {
 		if (entityStream != null) {
-			CancellableOperationMonitorThread.getInstance().removeOperation(this);
+			monitorThread.removeOperation(this);
 			entityStream.cancel();
 		}
 	}
 
+	private RequestTimer getTimer() {
+		Object timer = request.getParams().getParameter(RequestTimer.class.getName());
+		return (timer instanceof RequestTimer) ? (RequestTimer) timer : null;
+	}
+
 	private synchronized void releaseStream() {
 		if (entityStream != null) {
-			CancellableOperationMonitorThread.getInstance().removeOperation(this);
+			monitorThread.removeOperation(this);
 			entityStream = null;
 		}
 	}
 
+	private void write(FileChannel target, byte[] buffer, int length) throws IOException {
+		ByteBuffer source = ByteBuffer.wrap(buffer, 0, length);
+		while (source.hasRemaining()) {
+			target.write(source);
+		}
+	}
+
 	void notifyStreamClosed() {
 		release();
 	}
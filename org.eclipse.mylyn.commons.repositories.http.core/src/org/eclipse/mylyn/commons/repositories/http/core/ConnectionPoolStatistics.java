@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+import org.apache.http.conn.routing.HttpRoute;
+
+/**
+ * A snapshot of the connection pool state for a single route.
+ * 
+ * @see HttpUtil#getConnectionPoolStatistics()
+ */
+public class ConnectionPoolStatistics {
+
+	private final HttpRoute route;
+
+	private final int leased;
+
+	private final int available;
+
+	private final int pending;
+
+	private final int maxConnections;
+
+	private final long leaseCount;
+
+	private final long createdCount;
+
+	private final long reconnectCount;
+
+	private final double averageLeaseWaitTime;
+
+	private final double averageLeaseTime;
+
+	public ConnectionPoolStatistics(HttpRoute route, int leased, int available, int pending, int maxConnections,
+			long leaseCount, long createdCount, long reconnectCount, double averageLeaseWaitTime,
+			double averageLeaseTime) {
+		this.route = route;
+		this.leased = leased;
+		this.available = available;
+		this.pending = pending;
+		this.maxConnections = maxConnections;
+		this.leaseCount = leaseCount;
+		this.createdCount = createdCount;
+		this.reconnectCount = reconnectCount;
+		this.averageLeaseWaitTime = averageLeaseWaitTime;
+		this.averageLeaseTime = averageLeaseTime;
+	}
+
+	/**
+	 * Returns the number of idle connections that are kept open in the pool.
+	 */
+	public int getAvailable() {
+		return available;
+	}
+
+	/**
+	 * Returns the moving average of the time a connection was leased in milliseconds which approximates the server
+	 * response latency.
+	 */
+	public double getAverageLeaseTime() {
+		return averageLeaseTime;
+	}
+
+	/**
+	 * Returns the moving average of the time requests waited for a connection in milliseconds.
+	 */
+	public double getAverageLeaseWaitTime() {
+		return averageLeaseWaitTime;
+	}
+
+	/**
+	 * Returns the number of connections that were opened. Together with {@link #getLeaseCount()} this indicates how
+	 * well connections are reused.
+	 */
+	public long getCreatedCount() {
+		return createdCount;
+	}
+
+	public int getLeased() {
+		return leased;
+	}
+
+	public long getLeaseCount() {
+		return leaseCount;
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Returns the number of requests that are waiting for a connection.
+	 */
+	public int getPending() {
+		return pending;
+	}
+
+	/**
+	 * Returns the number of pooled connections that were found closed by the server when they were leased and had to
+	 * be reopened.
+	 */
+	public long getReconnectCount() {
+		return reconnectCount;
+	}
+
+	public HttpRoute getRoute() {
+		return route;
+	}
+
+	@Override
+	public String toString() {
+		return "ConnectionPoolStatistics [route=" + route + ", leased=" + leased + ", available=" + available //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ ", pending=" + pending + ", maxConnections=" + maxConnections + ", leaseCount=" + leaseCount //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ ", createdCount=" + createdCount + ", reconnectCount=" + reconnectCount //$NON-NLS-1$ //$NON-NLS-2$
+				+ ", averageLeaseWaitTime=" + averageLeaseWaitTime //$NON-NLS-1$
+				+ ", averageLeaseTime=" + averageLeaseTime + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+}
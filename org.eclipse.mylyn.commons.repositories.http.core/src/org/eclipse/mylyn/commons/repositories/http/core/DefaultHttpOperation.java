@@ -13,10 +13,13 @@
 package org.eclipse.mylyn.commons.repositories.http.core;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.http.client.methods.HttpRequestBase;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
 
 /**
  * @author Steffen Pingel
@@ -39,6 +42,14 @@ class DefaultHttpOperation<T> extends CommonHttpOperation<T> {
 		return (processor.autoRelease()) ? processAndRelease(response, monitor) : process(response, monitor);
 	}
 
+	public CompletableFuture<T> runAsync(final IOperationMonitor monitor) {
+		return submit(request, monitor, new Callable<T>() {
+			public T call() throws Exception {
+				return run(monitor);
+			}
+		}, OperationUtil.getExecutorService(OperationUtil.EXECUTOR_HTTP));
+	}
+
 	protected T doProcess(CommonHttpResponse response, IOperationMonitor monitor) throws IOException {
 		return processor.doProcess(response, monitor);
 	}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+/**
+ * Specifies how a {@link CommonHttpOperation} uses the {@link HttpResponseCache} of its client.
+ */
+public enum HttpCachePolicy {
+
+	/**
+	 * Responses are neither looked up nor stored.
+	 */
+	NO_CACHE,
+
+	/**
+	 * Cached responses are revalidated with a conditional request and served from the cache if the server reports
+	 * that they have not been modified.
+	 */
+	REVALIDATE,
+
+	/**
+	 * Cached responses are served without contacting the server for at most their <code>max-age</code>. Responses
+	 * marked <code>no-cache</code> or stale responses are revalidated. Responses that are not cached are requested and
+	 * stored.
+	 */
+	PREFER_CACHE
+
+}
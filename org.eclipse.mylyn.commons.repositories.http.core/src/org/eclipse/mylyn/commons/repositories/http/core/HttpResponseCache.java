@@ -0,0 +1,615 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.mylyn.commons.core.StatusHandler;
+import org.eclipse.mylyn.commons.core.storage.ICommonStorable;
+
+/**
+ * Caches the bodies of successful GET responses together with their validators. Entries are kept in a bounded memory
+ * cache and, if a storable is provided, are also persisted so they survive restarts. Only responses that carry an
+ * <code>ETag</code> or <code>Last-Modified</code> header and have a body of at most {@link #getMaxEntrySize()} bytes
+ * are cached. The size is determined by reading the body since compressed and chunked responses do not declare a
+ * content length.
+ * <p>
+ * A cached response is only used for requests that have the same values for the request headers named by its
+ * <code>Vary</code> header; a single variant is kept per URI. Responses marked <code>Cache-Control: no-cache</code>
+ * are always revalidated and responses are served without revalidation for at most their <code>max-age</code>.
+ * Responses marked <code>Cache-Control: private</code> and responses to authenticated requests are only kept in
+ * memory.
+ * 
+ * @see CommonHttpClient#setResponseCache(HttpResponseCache)
+ * @see CommonHttpOperation#setCachePolicy(HttpCachePolicy)
+ */
+public class HttpResponseCache {
+
+	private static class CachedResponse {
+
+		private final String key;
+
+		private final String etag;
+
+		private final String lastModified;
+
+		private final String contentType;
+
+		private final byte[] content;
+
+		private final String[] varyHeaders;
+
+		private final String[] varyValues;
+
+		private final boolean noCache;
+
+		private final long expires;
+
+		private final boolean persistent;
+
+		CachedResponse(String key, String etag, String lastModified, String contentType, byte[] content,
+				String[] varyHeaders, String[] varyValues, boolean noCache, long expires, boolean persistent) {
+			this.key = key;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.contentType = contentType;
+			this.content = content;
+			this.varyHeaders = varyHeaders;
+			this.varyValues = varyValues;
+			this.noCache = noCache;
+			this.expires = expires;
+			this.persistent = persistent;
+		}
+
+		/**
+		 * Returns a copy that expires at <code>expires</code>, e.g. after the response was revalidated.
+		 */
+		CachedResponse refresh(long expires, boolean persistent) {
+			return new CachedResponse(key, etag, lastModified, contentType, content, varyHeaders, varyValues, noCache,
+					expires, persistent);
+		}
+
+		boolean isFresh(long now) {
+			return !noCache && now < expires;
+		}
+
+		boolean matches(HttpRequestBase request) {
+			return Arrays.equals(varyValues, getHeaderValues(request, varyHeaders));
+		}
+
+	}
+
+	/**
+	 * The directives of the <code>Cache-Control</code> headers of a response that are relevant for a private cache.
+	 */
+	private static class CacheControl {
+
+		private long maxAge = -1;
+
+		private boolean noCache;
+
+		private boolean noStore;
+
+		private boolean privateResponse;
+
+		CacheControl(HttpResponse response) {
+			for (Header header : response.getHeaders(HttpHeaders.CACHE_CONTROL)) {
+				for (HeaderElement element : header.getElements()) {
+					String name = element.getName().toLowerCase(Locale.ENGLISH);
+					if ("no-store".equals(name)) { //$NON-NLS-1$
+						noStore = true;
+					} else if ("no-cache".equals(name)) { //$NON-NLS-1$
+						noCache = true;
+					} else if ("private".equals(name)) { //$NON-NLS-1$
+						privateResponse = true;
+					} else if ("max-age".equals(name) && element.getValue() != null) { //$NON-NLS-1$
+						try {
+							maxAge = Math.max(0, Long.parseLong(element.getValue().trim()));
+						} catch (NumberFormatException e) {
+							// a malformed max-age means the response is stale
+							maxAge = 0;
+						}
+					}
+				}
+			}
+		}
+
+		long getExpires(long now) {
+			return (maxAge >= 0) ? now + Math.min(maxAge, Long.MAX_VALUE / 2000) * 1000 : Long.MAX_VALUE;
+		}
+
+	}
+
+	private static final int FORMAT_VERSION = 2;
+
+	public static final int DEFAULT_MAX_ENTRIES = 64;
+
+	public static final int DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong revalidationCount = new AtomicLong();
+
+	private final Map<String, CachedResponse> entries;
+
+	private final int maxEntrySize;
+
+	private final ICommonStorable storable;
+
+	/**
+	 * Constructs a cache that only keeps responses in memory.
+	 */
+	public HttpResponseCache() {
+		this(null, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_ENTRY_SIZE);
+	}
+
+	/**
+	 * Constructs a cache that persists responses in <code>storable</code>, e.g. obtained from a
+	 * {@link org.eclipse.mylyn.commons.core.storage.CommonStore CommonStore}.
+	 */
+	public HttpResponseCache(ICommonStorable storable) {
+		this(storable, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_ENTRY_SIZE);
+	}
+
+	/**
+	 * @param storable
+	 *            the storage for persisting responses, or <code>null</code> to only cache in memory
+	 * @param maxEntries
+	 *            the maximum number of responses kept in memory
+	 * @param maxEntrySize
+	 *            the maximum size of a cached response body in bytes
+	 */
+	public HttpResponseCache(ICommonStorable storable, final int maxEntries, int maxEntrySize) {
+		this.storable = storable;
+		this.maxEntrySize = maxEntrySize;
+		this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Removes all cached responses from memory and storage.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+		if (storable != null) {
+			try {
+				storable.deleteAll();
+			} catch (CoreException e) {
+				StatusHandler.log(e.getStatus());
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of requests that were served from the cache, including requests that were revalidated.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public int getMaxEntrySize() {
+		return maxEntrySize;
+	}
+
+	/**
+	 * Returns the number of requests that could not be served from the cache.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the number of conditional requests that were sent to revalidate a cached response.
+	 */
+	public long getRevalidationCount() {
+		return revalidationCount.get();
+	}
+
+	/**
+	 * Removes the response for <code>uri</code> from memory and storage.
+	 */
+	public void remove(String uri) {
+		synchronized (entries) {
+			entries.remove(uri);
+		}
+		if (storable != null) {
+			try {
+				storable.delete(getHandle(uri));
+			} catch (CoreException e) {
+				StatusHandler.log(e.getStatus());
+			}
+		}
+	}
+
+	/**
+	 * Returns true, if <code>request</code> carries conditional headers. Requests that were made conditional by the
+	 * caller are not served from the cache since the caller expects to handle a <code>304</code> response.
+	 */
+	static boolean isConditional(HttpRequestBase request) {
+		return request.containsHeader(HttpHeaders.IF_NONE_MATCH)
+				|| request.containsHeader(HttpHeaders.IF_MODIFIED_SINCE);
+	}
+
+	/**
+	 * Returns a cached response that is served without contacting the server if <code>policy</code> permits it and the
+	 * response is fresh. Otherwise conditional headers are added to <code>request</code> if a cached response exists
+	 * and <code>null</code> is returned.
+	 * 
+	 * @see #removeConditionalHeaders(HttpRequestBase)
+	 */
+	HttpResponse lookup(HttpRequestBase request, HttpCachePolicy policy) {
+		CachedResponse entry = get(getKey(request));
+		if (entry == null || !entry.matches(request)) {
+			// the cached variant was selected by different request headers
+			return null;
+		}
+		if (policy == HttpCachePolicy.PREFER_CACHE && entry.isFresh(System.currentTimeMillis())) {
+			hitCount.incrementAndGet();
+			return createResponse(entry);
+		}
+		if (entry.etag != null) {
+			request.setHeader(HttpHeaders.IF_NONE_MATCH, entry.etag);
+		}
+		if (entry.lastModified != null) {
+			request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, entry.lastModified);
+		}
+		revalidationCount.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Removes the conditional headers that were added by {@link #lookup(HttpRequestBase, HttpCachePolicy)}.
+	 */
+	void removeConditionalHeaders(HttpRequestBase request) {
+		request.removeHeaders(HttpHeaders.IF_NONE_MATCH);
+		request.removeHeaders(HttpHeaders.IF_MODIFIED_SINCE);
+	}
+
+	/**
+	 * Processes the server <code>response</code> to <code>request</code>. Returns the cached response if the server
+	 * reported that it was not modified and stores cacheable responses. The returned response must be used in place
+	 * of <code>response</code> since its entity may have been consumed.
+	 * 
+	 * @param authenticated
+	 *            true, if credentials were supplied for <code>request</code>; the response is then only cached in
+	 *            memory
+	 * @return the response or <code>null</code>, if the server reported that the response was not modified but the
+	 *         cached response has been evicted since the request was sent; in that case the response has been
+	 *         consumed and the request needs to be sent again without conditional headers
+	 */
+	HttpResponse update(HttpRequestBase request, HttpResponse response, boolean authenticated) throws IOException {
+		String key = getKey(request);
+		int statusCode = response.getStatusLine().getStatusCode();
+		authenticated |= request.containsHeader(HttpHeaders.AUTHORIZATION);
+		if (statusCode == HttpStatus.SC_NOT_MODIFIED && isConditional(request)) {
+			EntityUtils.consume(response.getEntity());
+			CachedResponse entry = get(key);
+			if (entry != null && entry.matches(request)) {
+				hitCount.incrementAndGet();
+				// the server confirmed the response, it is fresh again for its max-age
+				CacheControl cacheControl = new CacheControl(response);
+				if (cacheControl.maxAge >= 0) {
+					entry = entry.refresh(cacheControl.getExpires(System.currentTimeMillis()), entry.persistent
+							&& !authenticated);
+					put(entry);
+				}
+				return createResponse(entry);
+			}
+			return null;
+		}
+
+		missCount.incrementAndGet();
+		CacheControl cacheControl = new CacheControl(response);
+		String[] varyHeaders = getVaryHeaders(response);
+		if (statusCode == HttpStatus.SC_OK && varyHeaders != null && !cacheControl.noStore
+				&& isCacheable(response)) {
+			HttpEntity entity = response.getEntity();
+			Header contentType = entity.getContentType();
+			InputStream in = entity.getContent();
+			// read at most one byte past the limit to detect bodies that are too large
+			ByteArrayOutputStream buffer = readBody(in, (long) maxEntrySize + 1);
+			if (buffer.size() <= maxEntrySize) {
+				in.close();
+				byte[] content = buffer.toByteArray();
+				String type = (contentType != null) ? contentType.getValue() : null;
+				CachedResponse entry = new CachedResponse(key, getHeaderValue(response, HttpHeaders.ETAG),
+						getHeaderValue(response, HttpHeaders.LAST_MODIFIED), type, content, varyHeaders,
+						getHeaderValues(request, varyHeaders), cacheControl.noCache,
+						cacheControl.getExpires(System.currentTimeMillis()),
+						!cacheControl.privateResponse && !authenticated);
+				put(entry);
+
+				ByteArrayEntity bufferedEntity = new ByteArrayEntity(content);
+				bufferedEntity.setContentType(contentType);
+				response.setEntity(bufferedEntity);
+			} else {
+				// too large to cache, pass the part that was read and the remainder through to the caller
+				remove(key);
+				InputStreamEntity streamEntity = new InputStreamEntity(new SequenceInputStream(
+						new ByteArrayInputStream(buffer.toByteArray()), in), entity.getContentLength());
+				streamEntity.setContentType(contentType);
+				streamEntity.setContentEncoding(entity.getContentEncoding());
+				response.setEntity(streamEntity);
+			}
+		} else if (statusCode == HttpStatus.SC_OK || statusCode == HttpStatus.SC_NOT_FOUND
+				|| statusCode == HttpStatus.SC_GONE) {
+			// discard stale response
+			remove(key);
+		}
+		return response;
+	}
+
+	private HttpResponse createResponse(CachedResponse entry) {
+		BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK"); //$NON-NLS-1$
+		if (entry.etag != null) {
+			response.setHeader(HttpHeaders.ETAG, entry.etag);
+		}
+		if (entry.lastModified != null) {
+			response.setHeader(HttpHeaders.LAST_MODIFIED, entry.lastModified);
+		}
+		ByteArrayEntity entity = new ByteArrayEntity(entry.content);
+		if (entry.contentType != null) {
+			response.setHeader(HttpHeaders.CONTENT_TYPE, entry.contentType);
+			entity.setContentType(entry.contentType);
+		}
+		response.setEntity(entity);
+		return response;
+	}
+
+	private CachedResponse get(String key) {
+		synchronized (entries) {
+			CachedResponse entry = entries.get(key);
+			if (entry != null) {
+				return entry;
+			}
+		}
+		CachedResponse entry = read(key);
+		if (entry != null) {
+			synchronized (entries) {
+				entries.put(key, entry);
+			}
+		}
+		return entry;
+	}
+
+	private String getKey(HttpRequestBase request) {
+		return request.getURI().toString();
+	}
+
+	private String getHandle(String key) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest(key.getBytes("UTF-8"))) { //$NON-NLS-1$
+				sb.append(String.format("%02x", b)); //$NON-NLS-1$
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private String getHeaderValue(HttpResponse response, String name) {
+		Header header = response.getFirstHeader(name);
+		return (header != null) ? header.getValue() : null;
+	}
+
+	/**
+	 * Returns the values of the request headers <code>names</code>. Multiple headers of the same name are combined.
+	 */
+	private static String[] getHeaderValues(HttpRequestBase request, String[] names) {
+		String[] values = new String[names.length];
+		for (int i = 0; i < names.length; i++) {
+			Header[] headers = request.getHeaders(names[i]);
+			if (headers.length > 0) {
+				StringBuilder sb = new StringBuilder();
+				for (Header header : headers) {
+					if (sb.length() > 0) {
+						sb.append(", "); //$NON-NLS-1$
+					}
+					sb.append(header.getValue());
+				}
+				values[i] = sb.toString();
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the names of the request headers that select the representation of <code>response</code>.
+	 * 
+	 * @return the header names or <code>null</code>, if the response varies on aspects other than request headers
+	 */
+	private String[] getVaryHeaders(HttpResponse response) {
+		StringBuilder sb = new StringBuilder();
+		for (Header header : response.getHeaders(HttpHeaders.VARY)) {
+			for (HeaderElement element : header.getElements()) {
+				String name = element.getName().trim().toLowerCase(Locale.ENGLISH);
+				if ("*".equals(name)) { //$NON-NLS-1$
+					return null;
+				}
+				if (name.length() > 0) {
+					sb.append(name).append(',');
+				}
+			}
+		}
+		return (sb.length() > 0) ? sb.toString().split(",") : new String[0]; //$NON-NLS-1$
+	}
+
+	private boolean isCacheable(HttpResponse response) {
+		HttpEntity entity = response.getEntity();
+		if (entity == null || entity.getContentLength() > maxEntrySize) {
+			return false;
+		}
+		return response.getFirstHeader(HttpHeaders.ETAG) != null
+				|| response.getFirstHeader(HttpHeaders.LAST_MODIFIED) != null;
+	}
+
+	private void put(CachedResponse entry) {
+		synchronized (entries) {
+			entries.put(entry.key, entry);
+		}
+		if (entry.persistent) {
+			write(entry);
+		} else if (storable != null) {
+			// do not leave a previously persisted response that would be served in place of this one after a restart
+			try {
+				storable.delete(getHandle(entry.key));
+			} catch (CoreException e) {
+				StatusHandler.log(e.getStatus());
+			}
+		}
+	}
+
+	private CachedResponse read(String key) {
+		if (storable == null) {
+			return null;
+		}
+		String handle = getHandle(key);
+		if (!storable.exists(handle)) {
+			return null;
+		}
+		try {
+			InputStream in = storable.read(handle, null);
+			try {
+				DataInputStream data = new DataInputStream(in);
+				if (data.readInt() != FORMAT_VERSION || !key.equals(data.readUTF())) {
+					return null;
+				}
+				String etag = readString(data);
+				String lastModified = readString(data);
+				String contentType = readString(data);
+				String[] varyHeaders = new String[data.readInt()];
+				String[] varyValues = new String[varyHeaders.length];
+				for (int i = 0; i < varyHeaders.length; i++) {
+					varyHeaders[i] = data.readUTF();
+					varyValues[i] = readString(data);
+				}
+				boolean noCache = data.readBoolean();
+				long expires = data.readLong();
+				byte[] content = new byte[data.readInt()];
+				data.readFully(content);
+				return new CachedResponse(key, etag, lastModified, contentType, content, varyHeaders, varyValues,
+						noCache, expires, true);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			StatusHandler.log(new Status(IStatus.WARNING, HttpUtil.ID_PLUGIN,
+					"Failed to read cached response", e)); //$NON-NLS-1$
+		} catch (CoreException e) {
+			StatusHandler.log(e.getStatus());
+		}
+		return null;
+	}
+
+	private ByteArrayOutputStream readBody(InputStream in, long limit) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		while (out.size() < limit) {
+			int n = in.read(buffer, 0, (int) Math.min(buffer.length, limit - out.size()));
+			if (n == -1) {
+				break;
+			}
+			out.write(buffer, 0, n);
+		}
+		return out;
+	}
+
+	private String readString(DataInputStream in) throws IOException {
+		return (in.readBoolean()) ? in.readUTF() : null;
+	}
+
+	private void write(CachedResponse entry) {
+		if (storable == null) {
+			return;
+		}
+		try {
+			OutputStream out = storable.write(getHandle(entry.key), null);
+			try {
+				DataOutputStream data = new DataOutputStream(out);
+				data.writeInt(FORMAT_VERSION);
+				data.writeUTF(entry.key);
+				writeString(data, entry.etag);
+				writeString(data, entry.lastModified);
+				writeString(data, entry.contentType);
+				data.writeInt(entry.varyHeaders.length);
+				for (int i = 0; i < entry.varyHeaders.length; i++) {
+					data.writeUTF(entry.varyHeaders[i]);
+					writeString(data, entry.varyValues[i]);
+				}
+				data.writeBoolean(entry.noCache);
+				data.writeLong(entry.expires);
+				data.writeInt(entry.content.length);
+				data.write(entry.content);
+				data.flush();
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			StatusHandler.log(new Status(IStatus.WARNING, HttpUtil.ID_PLUGIN,
+					"Failed to write cached response", e)); //$NON-NLS-1$
+		} catch (CoreException e) {
+			StatusHandler.log(e.getStatus());
+		}
+	}
+
+	private void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+import org.eclipse.mylyn.commons.repositories.http.core.HttpTimings.Phase;
+
+/**
+ * Aggregates the timings of requests to a single repository location into a histogram per phase.
+ *
+ * @see HttpUtil#getTimingStatistics(org.eclipse.mylyn.commons.repositories.core.RepositoryLocation)
+ */
+public class HttpTimingStatistics {
+
+	private final TimingHistogram[] histograms;
+
+	private final TimingHistogram totalHistogram;
+
+	public HttpTimingStatistics() {
+		histograms = new TimingHistogram[Phase.values().length];
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new TimingHistogram();
+		}
+		totalHistogram = new TimingHistogram();
+	}
+
+	public void add(HttpTimings timings) {
+		for (Phase phase : Phase.values()) {
+			histograms[phase.ordinal()].add(timings.getTime(phase));
+		}
+		totalHistogram.add(timings.getTotalTime());
+	}
+
+	public TimingHistogram getHistogram(Phase phase) {
+		return histograms[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the histogram of the time spent in all phases.
+	 */
+	public TimingHistogram getTotalHistogram() {
+		return totalHistogram;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("HttpTimingStatistics [total="); //$NON-NLS-1$
+		sb.append(totalHistogram);
+		for (Phase phase : Phase.values()) {
+			sb.append(", "); //$NON-NLS-1$
+			sb.append(phase.name().toLowerCase());
+			sb.append("="); //$NON-NLS-1$
+			sb.append(getHistogram(phase));
+		}
+		sb.append("]"); //$NON-NLS-1$
+		return sb.toString();
+	}
+
+}
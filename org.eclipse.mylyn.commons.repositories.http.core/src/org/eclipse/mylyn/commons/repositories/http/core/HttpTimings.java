@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+/**
+ * The time a single request spent in each phase of its execution. Phases that did not occur, e.g. connecting if a
+ * pooled connection was reused, have a time of 0.
+ *
+ * @see CommonHttpResponse#getTimings()
+ * @see IHttpTimingListener
+ */
+public class HttpTimings {
+
+	public enum Phase {
+		/**
+		 * Waiting for admission to the connection pool and for a connection.
+		 */
+		CONNECTION_LEASE,
+		/**
+		 * Resolving the host name.
+		 */
+		DNS_LOOKUP,
+		/**
+		 * Establishing the TCP connection.
+		 */
+		CONNECT,
+		/**
+		 * Negotiating TLS.
+		 */
+		TLS_HANDSHAKE,
+		/**
+		 * Sending the request and waiting for the response headers, including authentication round trips.
+		 */
+		SERVER,
+		/**
+		 * Reading the response entity until the response was released.
+		 */
+		TRANSFER
+	}
+
+	private final long[] durations;
+
+	/**
+	 * @param durations
+	 *            the duration of each phase in nanoseconds indexed by {@link Phase#ordinal()}
+	 */
+	public HttpTimings(long[] durations) {
+		if (durations.length != Phase.values().length) {
+			throw new IllegalArgumentException();
+		}
+		this.durations = durations.clone();
+	}
+
+	/**
+	 * Returns the time spent in <code>phase</code> in milliseconds.
+	 */
+	public double getTime(Phase phase) {
+		return toMillis(durations[phase.ordinal()]);
+	}
+
+	/**
+	 * Returns the time spent in all phases in milliseconds.
+	 */
+	public double getTotalTime() {
+		long total = 0;
+		for (long duration : durations) {
+			total += duration;
+		}
+		return toMillis(total);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("HttpTimings ["); //$NON-NLS-1$
+		for (Phase phase : Phase.values()) {
+			sb.append(phase.name().toLowerCase());
+			sb.append("="); //$NON-NLS-1$
+			sb.append(getTime(phase));
+			sb.append(", "); //$NON-NLS-1$
+		}
+		sb.append("total="); //$NON-NLS-1$
+		sb.append(getTotalTime());
+		sb.append("]"); //$NON-NLS-1$
+		return sb.toString();
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000d;
+	}
+
+}
@@ -19,8 +19,12 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.URI;
-import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
@@ -36,6 +40,7 @@ import org.apache.http.client.params.AuthPolicy;
 import org.apache.http.client.params.ClientPNames;
 import org.apache.http.client.params.CookiePolicy;
 import org.apache.http.client.params.HttpClientParams;
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.params.ConnRoutePNames;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
@@ -56,6 +61,8 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.mylyn.commons.core.CoreUtil;
 import org.eclipse.mylyn.commons.core.StatusHandler;
 import org.eclipse.mylyn.commons.core.net.AuthenticatedProxy;
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker;
+import org.eclipse.mylyn.commons.core.net.ExponentialBackoff;
 import org.eclipse.mylyn.commons.core.net.NetUtil;
 import org.eclipse.mylyn.commons.core.operations.CancellableOperationMonitorThread;
 import org.eclipse.mylyn.commons.core.operations.ICancellableOperation;
@@ -64,7 +71,12 @@ import org.eclipse.mylyn.commons.core.operations.OperationUtil;
 import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
 import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationType;
 import org.eclipse.mylyn.commons.repositories.core.auth.UserCredentials;
-import org.eclipse.mylyn.internal.commons.repositories.http.core.IdleConnectionMonitorThread;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.AdmissionScheduler;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.AdmissionScheduler.Priority;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.ContentDecodingInterceptor;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.IdleConnectionEvictor;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.InstrumentedConnectionManager;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.KeepAliveStrategy;
 import org.eclipse.mylyn.internal.commons.repositories.http.core.PollingProtocolSocketFactory;
 import org.eclipse.mylyn.internal.commons.repositories.http.core.PollingSslProtocolSocketFactory;
 
@@ -87,7 +99,7 @@ public class HttpUtil {
 	private static final long CLOSE_TIMEOUT = -1;
 
 	/**
-	 * @see IdleConnectionMonitorThread
+	 * @see IdleConnectionEvictor
 	 */
 	private static final int CONNECTION_TIMEOUT_INTERVAL = 1 * 30 * 1000;
 
@@ -110,7 +122,23 @@ public class HttpUtil {
 
 	static final String ID_PLUGIN = "org.eclipse.mylyn.commons.repositories.http"; //$NON-NLS-1$
 
-	private static ThreadSafeClientConnManager connectionManager;
+	private static final String PROPERTY_ADAPTIVE_CONNECTIONS = "org.eclipse.mylyn.http.connections.adaptive"; //$NON-NLS-1$
+
+	private static final String PROPERTY_MAX_ADAPTIVE_CONNECTIONS = "org.eclipse.mylyn.http.connections.per.host.max"; //$NON-NLS-1$
+
+	private static final String PROPERTY_MAX_BACKGROUND_CONNECTIONS = "org.eclipse.mylyn.http.connections.background.per.host"; //$NON-NLS-1$
+
+	private static final int RETRY_DELAY_DEFAULT = 500;
+
+	private static final int RETRY_MAX_DELAY = 30 * 1000;
+
+	private static final Map<RepositoryLocation, CircuitBreaker> circuitBreakerByLocation = new WeakHashMap<RepositoryLocation, CircuitBreaker>();
+
+	private static InstrumentedConnectionManager connectionManager;
+
+	private static final List<IHttpTimingListener> timingListeners = new CopyOnWriteArrayList<IHttpTimingListener>();
+
+	private static final Map<RepositoryLocation, HttpTimingStatistics> timingStatisticsByLocation = new WeakHashMap<RepositoryLocation, HttpTimingStatistics>();
 
 	static final String CONTEXT_KEY_MONITOR_THREAD = CancellableOperationMonitorThread.class.getName();
 
@@ -126,6 +154,23 @@ public class HttpUtil {
 		HttpConnectionParams.setConnectionTimeout(client.getParams(), CONNNECT_TIMEOUT);
 		HttpConnectionParams.setSoTimeout(client.getParams(), SOCKET_TIMEOUT);
 
+		ClientConnectionManager manager = client.getConnectionManager();
+		if (manager instanceof InstrumentedConnectionManager) {
+			// connections are checked for staleness when they are leased from the pool unless the server promised to
+			// keep them alive
+			client.setKeepAliveStrategy(((InstrumentedConnectionManager) manager)
+					.createKeepAliveStrategy(CONNNECT_TIMEOUT));
+			HttpConnectionParams.setStaleCheckingEnabled(client.getParams(), false);
+		} else {
+			client.setKeepAliveStrategy(new KeepAliveStrategy(CONNNECT_TIMEOUT));
+		}
+
+		client.removeRequestInterceptorByClass(ContentDecodingInterceptor.class);
+		client.removeResponseInterceptorByClass(ContentDecodingInterceptor.class);
+		ContentDecodingInterceptor contentDecoder = new ContentDecodingInterceptor();
+		client.addRequestInterceptor(contentDecoder);
+		client.addResponseInterceptor(contentDecoder);
+
 		//AuthParams.setCredentialCharset(client.getParams(), "UTF-8");
 	}
 
@@ -191,8 +236,10 @@ public class HttpUtil {
 			thread = (CancellableOperationMonitorThread) context.getAttribute(CONTEXT_KEY_MONITOR_THREAD);
 		}
 		if (thread != null) {
-			thread.addOperation(operation);
+			thread.addOperation(operation, monitor);
 		}
+		Priority priority = AdmissionScheduler.setPriority(
+				OperationUtil.isBackgroundMonitor(monitor) ? Priority.BACKGROUND : Priority.INTERACTIVE);
 		try {
 			return client.execute(host, method, context);
 		} catch (InterruptedIOException e) {
@@ -201,6 +248,7 @@ public class HttpUtil {
 			}
 			throw e;
 		} finally {
+			AdmissionScheduler.setPriority(priority);
 			if (thread != null) {
 				thread.removeOperation(operation);
 			}
@@ -294,16 +342,8 @@ public class HttpUtil {
 			boolean forceUserNamePassword) {
 		int i = username.indexOf("\\"); //$NON-NLS-1$
 		if (i > 0 && i < username.length() - 1 && address != null && !forceUserNamePassword) {
-			String hostName = address.getHostName();
-			try {
-				InetAddress localHost = InetAddress.getLocalHost();
-				if (localHost != null) {
-					hostName = localHost.getHostName();
-				}
-			} catch (UnknownHostException e) {
-				StatusHandler.log(new Status(IStatus.ERROR, ID_PLUGIN,
-						"Unable to get hostname.  Defaulting to servers host.", e)); //$NON-NLS-1$
-			}
+			// resolved in the background, defaults to the server's host until the local host name is available
+			String hostName = NetUtil.getLocalHostName();
 			if (hostName == null) {
 				hostName = address.getHostName();
 			}
@@ -315,22 +355,168 @@ public class HttpUtil {
 
 	public static synchronized ThreadSafeClientConnManager getConnectionManager() {
 		if (connectionManager == null) {
-			connectionManager = new ThreadSafeClientConnManager(HttpUtil.getSchemeRegistry());
+			connectionManager = new InstrumentedConnectionManager(HttpUtil.getSchemeRegistry());
 			if (CoreUtil.TEST_MODE) {
 				connectionManager.setDefaultMaxPerRoute(2);
 			} else {
-				connectionManager.setDefaultMaxPerRoute(NetUtil.getMaxHttpConnectionsPerHost());
+				int maxPerHost = NetUtil.getMaxHttpConnectionsPerHost();
+				connectionManager.setDefaultMaxPerRoute(maxPerHost);
 				connectionManager.setMaxTotal(NetUtil.getMaxHttpConnections());
+				if (Boolean.getBoolean(PROPERTY_ADAPTIVE_CONNECTIONS)) {
+					int adaptiveMaxPerHost = Integer.getInteger(PROPERTY_MAX_ADAPTIVE_CONNECTIONS, 4 * maxPerHost);
+					connectionManager.setAdaptive(true, maxPerHost, Math.max(maxPerHost, adaptiveMaxPerHost));
+				}
+				int maxBackgroundPerHost = Integer.getInteger(PROPERTY_MAX_BACKGROUND_CONNECTIONS, 0);
+				if (maxBackgroundPerHost > 0) {
+					connectionManager.getAdmissionScheduler().setMaxBackgroundPerRoute(maxBackgroundPerHost);
+				}
 			}
 
-			IdleConnectionMonitorThread thread = new IdleConnectionMonitorThread(CONNECTION_TIMEOUT_INTERVAL);
-			thread.setTimeout(CONNNECT_TIMEOUT);
-			thread.addConnectionManager(connectionManager);
-			thread.start();
+			IdleConnectionEvictor.register(connectionManager, CONNECTION_TIMEOUT_INTERVAL, CONNNECT_TIMEOUT);
 		}
 		return connectionManager;
 	}
 
+	/**
+	 * Returns usage statistics of the shared connection pool for each route.
+	 * 
+	 * @see #getConnectionManager()
+	 */
+	public static List<ConnectionPoolStatistics> getConnectionPoolStatistics() {
+		return ((InstrumentedConnectionManager) getConnectionManager()).getStatistics();
+	}
+
+	/**
+	 * Returns the circuit breaker that guards requests to <code>location</code>. The breaker is configured from the
+	 * {@link RepositoryLocation#PROPERTY_CIRCUIT_BREAKER_THRESHOLD} and
+	 * {@link RepositoryLocation#PROPERTY_CIRCUIT_BREAKER_OPEN_TIME} properties of the location. Changes of the
+	 * properties take effect the next time the breaker is requested.
+	 * 
+	 * @see CommonHttpOperation#execute(HttpRequestBase, IOperationMonitor)
+	 */
+	public static CircuitBreaker getCircuitBreaker(RepositoryLocation location) {
+		Assert.isNotNull(location);
+		int threshold = Math.max(0, getIntProperty(location, RepositoryLocation.PROPERTY_CIRCUIT_BREAKER_THRESHOLD,
+				CircuitBreaker.DEFAULT_FAILURE_THRESHOLD));
+		int openTime = Math.max(1, getIntProperty(location, RepositoryLocation.PROPERTY_CIRCUIT_BREAKER_OPEN_TIME,
+				(int) CircuitBreaker.DEFAULT_OPEN_TIME));
+		long maxOpenTime = Math.max(openTime, CircuitBreaker.DEFAULT_MAX_OPEN_TIME);
+		synchronized (circuitBreakerByLocation) {
+			CircuitBreaker breaker = circuitBreakerByLocation.get(location);
+			if (breaker == null) {
+				breaker = new CircuitBreaker(threshold, openTime, maxOpenTime);
+				circuitBreakerByLocation.put(location, breaker);
+			} else if (breaker.getFailureThreshold() != threshold || breaker.getOpenTime() != openTime
+					|| breaker.getMaxOpenTime() != maxOpenTime) {
+				// retain the state and listeners of the breaker
+				breaker.configure(threshold, openTime, maxOpenTime);
+			}
+			return breaker;
+		}
+	}
+
+	/**
+	 * Returns the backoff between retries of requests to <code>location</code> that is configured by the
+	 * {@link RepositoryLocation#PROPERTY_RETRY_DELAY} property.
+	 */
+	public static ExponentialBackoff getRetryBackoff(RepositoryLocation location) {
+		int delay = Math.max(0, getIntProperty(location, RepositoryLocation.PROPERTY_RETRY_DELAY, RETRY_DELAY_DEFAULT));
+		return new ExponentialBackoff(delay, Math.max(delay, RETRY_MAX_DELAY));
+	}
+
+	/**
+	 * Returns the number of retries of idempotent requests to <code>location</code> that is configured by the
+	 * {@link RepositoryLocation#PROPERTY_RETRY_COUNT} property. Requests are not retried by default.
+	 */
+	public static int getRetryCount(RepositoryLocation location) {
+		return Math.max(0, getIntProperty(location, RepositoryLocation.PROPERTY_RETRY_COUNT, 0));
+	}
+
+	private static int getIntProperty(RepositoryLocation location, String key, int defaultValue) {
+		String value = location.getProperty(key);
+		if (value != null) {
+			try {
+				return Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				StatusHandler.log(new Status(IStatus.WARNING, ID_PLUGIN, "Unable to parse property " + key //$NON-NLS-1$
+						+ " of repository " + location.getUrl())); //$NON-NLS-1$
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Returns the number of bytes that were received for compressed response entities. Entities are counted while they
+	 * are read, entities of aborted requests are included.
+	 * 
+	 * @see #getUncompressedByteCount()
+	 */
+	public static long getCompressedByteCount() {
+		return ContentDecodingInterceptor.getCompressedByteCount();
+	}
+
+	/**
+	 * Returns the number of bytes that compressed response entities were decoded to.
+	 * 
+	 * @see #getCompressedByteCount()
+	 */
+	public static long getUncompressedByteCount() {
+		return ContentDecodingInterceptor.getUncompressedByteCount();
+	}
+
+	/**
+	 * Returns the time requests waited for admission to the shared connection pool for interactive and for background
+	 * requests, in that order. Requests that are executed with a background monitor are admitted after interactive
+	 * requests.
+	 * 
+	 * @see OperationUtil#isBackgroundMonitor(IProgressMonitor)
+	 */
+	public static List<QueueStatistics> getQueueStatistics() {
+		AdmissionScheduler scheduler = ((InstrumentedConnectionManager) getConnectionManager()).getAdmissionScheduler();
+		List<QueueStatistics> statistics = new ArrayList<QueueStatistics>();
+		for (Priority priority : Priority.values()) {
+			statistics.add(scheduler.getStatistics(priority));
+		}
+		return statistics;
+	}
+
+	/**
+	 * Returns the aggregated timings of requests to <code>location</code>.
+	 * 
+	 * @see CommonHttpResponse#getTimings()
+	 */
+	public static HttpTimingStatistics getTimingStatistics(RepositoryLocation location) {
+		Assert.isNotNull(location);
+		synchronized (timingStatisticsByLocation) {
+			HttpTimingStatistics statistics = timingStatisticsByLocation.get(location);
+			if (statistics == null) {
+				statistics = new HttpTimingStatistics();
+				timingStatisticsByLocation.put(location, statistics);
+			}
+			return statistics;
+		}
+	}
+
+	public static void addTimingListener(IHttpTimingListener listener) {
+		timingListeners.add(listener);
+	}
+
+	public static void removeTimingListener(IHttpTimingListener listener) {
+		timingListeners.remove(listener);
+	}
+
+	static void fireRequestCompleted(RepositoryLocation location, HttpRequest request, HttpTimings timings) {
+		getTimingStatistics(location).add(timings);
+		for (IHttpTimingListener listener : timingListeners) {
+			try {
+				listener.requestCompleted(location, request, timings);
+			} catch (RuntimeException e) {
+				StatusHandler.log(new Status(IStatus.ERROR, ID_PLUGIN,
+						"Unexpected error in timing listener", e)); //$NON-NLS-1$
+			}
+		}
+	}
+
 	public static String getStatusText(int statusCode) {
 		return EnglishReasonPhraseCatalog.INSTANCE.getReason(statusCode, Locale.getDefault());
 	}
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+import org.apache.http.HttpRequest;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+
+/**
+ * Notified when a request that was executed through a {@link CommonHttpClient} completes. Listeners are invoked on the
+ * thread that released the response and should return quickly.
+ *
+ * @see HttpUtil#addTimingListener(IHttpTimingListener)
+ */
+public interface IHttpTimingListener {
+
+	public void requestCompleted(RepositoryLocation location, HttpRequest request, HttpTimings timings);
+
+}
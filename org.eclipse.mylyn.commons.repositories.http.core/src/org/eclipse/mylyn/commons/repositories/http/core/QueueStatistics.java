@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+/**
+ * A snapshot of the time requests of a single priority waited for admission to the connection pool. Requests are
+ * either interactive or, if they are executed with a background monitor, background requests.
+ * 
+ * @see HttpUtil#getQueueStatistics()
+ */
+public class QueueStatistics {
+
+	private final boolean background;
+
+	private final long admittedCount;
+
+	private final int waiting;
+
+	private final double totalWaitTime;
+
+	private final double maxWaitTime;
+
+	public QueueStatistics(boolean background, long admittedCount, int waiting, double totalWaitTime,
+			double maxWaitTime) {
+		this.background = background;
+		this.admittedCount = admittedCount;
+		this.waiting = waiting;
+		this.totalWaitTime = totalWaitTime;
+		this.maxWaitTime = maxWaitTime;
+	}
+
+	public long getAdmittedCount() {
+		return admittedCount;
+	}
+
+	/**
+	 * Returns the average time requests waited for admission in milliseconds.
+	 */
+	public double getAverageWaitTime() {
+		return (admittedCount > 0) ? totalWaitTime / admittedCount : 0;
+	}
+
+	/**
+	 * Returns the longest time a request waited for admission in milliseconds.
+	 */
+	public double getMaxWaitTime() {
+		return maxWaitTime;
+	}
+
+	/**
+	 * Returns the number of requests that are currently waiting for admission.
+	 */
+	public int getWaiting() {
+		return waiting;
+	}
+
+	/**
+	 * Returns true, if the statistics are for background requests, false if they are for interactive requests.
+	 */
+	public boolean isBackground() {
+		return background;
+	}
+
+	@Override
+	public String toString() {
+		return "QueueStatistics [background=" + background + ", admittedCount=" + admittedCount + ", waiting=" + waiting //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ ", averageWaitTime=" + getAverageWaitTime() + ", maxWaitTime=" + maxWaitTime + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+}
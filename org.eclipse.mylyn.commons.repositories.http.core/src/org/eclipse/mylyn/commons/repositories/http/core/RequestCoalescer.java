@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.mylyn.commons.core.operations.CancellableOperationMonitorThread;
+import org.eclipse.mylyn.commons.core.operations.ICancellableOperation;
+import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
+
+/**
+ * Lets concurrent identical GET requests share a single network round trip. The first request for a key executes and
+ * buffers the response, requests for the same key that arrive while it is in flight wait for the buffered response
+ * and receive their own copy.
+ * 
+ * @see CommonHttpClient#setRequestCoalescingEnabled(boolean)
+ */
+class RequestCoalescer {
+
+	interface Execution {
+
+		CommonHttpResponse execute() throws IOException;
+
+	}
+
+	/**
+	 * Identifies requests that can share a response. Identities such as credentials are compared by equality.
+	 */
+	static final class Key {
+
+		private final List<Object> identities;
+
+		private final String request;
+
+		Key(String request, Object... identities) {
+			this.request = request;
+			this.identities = Arrays.asList(identities);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return request.equals(other.request) && identities.equals(other.identities);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * request.hashCode() + identities.hashCode();
+		}
+
+	}
+
+	private static class SharedResponse {
+
+		private final byte[] content;
+
+		private final Header[] headers;
+
+		private final StatusLine statusLine;
+
+		SharedResponse(StatusLine statusLine, Header[] headers, byte[] content) {
+			this.statusLine = statusLine;
+			this.headers = headers;
+			this.content = content;
+		}
+
+	}
+
+	/**
+	 * Responses with a larger body are not shared to avoid buffering downloads in memory.
+	 */
+	static final int MAX_CONTENT_LENGTH = 1024 * 1024;
+
+	/**
+	 * Signals waiters that the response cannot be shared and that they need to execute their own request.
+	 */
+	private static final SharedResponse NOT_SHARED = new SharedResponse(null, null, null);
+
+	/**
+	 * Signals waiters that the request was canceled by its initiator and that one of them needs to retry.
+	 */
+	private static final SharedResponse RETRY = new SharedResponse(null, null, null);
+
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	private final ConcurrentHashMap<Key, CompletableFuture<SharedResponse>> flights;
+
+	private final CommonHttpClient client;
+
+	public RequestCoalescer(CommonHttpClient client) {
+		this.client = client;
+		this.flights = new ConcurrentHashMap<Key, CompletableFuture<SharedResponse>>();
+	}
+
+	/**
+	 * Returns the number of requests that were served by sharing the response of another request.
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	public CommonHttpResponse execute(Key key, HttpRequestBase request, IOperationMonitor monitor,
+			Execution execution) throws IOException {
+		while (true) {
+			CompletableFuture<SharedResponse> flight = new CompletableFuture<SharedResponse>();
+			CompletableFuture<SharedResponse> existingFlight = flights.putIfAbsent(key, flight);
+			if (existingFlight == null) {
+				try {
+					return executeShared(request, monitor, execution, flight);
+				} finally {
+					flights.remove(key, flight);
+				}
+			}
+
+			SharedResponse sharedResponse = await(existingFlight, monitor);
+			if (sharedResponse == NOT_SHARED) {
+				return execution.execute();
+			} else if (sharedResponse != RETRY) {
+				coalescedCount.incrementAndGet();
+				return createResponse(request, sharedResponse, monitor);
+			}
+		}
+	}
+
+	/**
+	 * Blocks until <code>flight</code> completes or <code>monitor</code> is canceled.
+	 */
+	private SharedResponse await(final CompletableFuture<SharedResponse> flight, final IOperationMonitor monitor)
+			throws IOException {
+		final CompletableFuture<SharedResponse> waiter = new CompletableFuture<SharedResponse>();
+		flight.whenComplete(new BiConsumer<SharedResponse, Throwable>() {
+			public void accept(SharedResponse sharedResponse, Throwable e) {
+				if (e != null) {
+					waiter.completeExceptionally((e instanceof CompletionException) ? e.getCause() : e);
+				} else {
+					waiter.complete(sharedResponse);
+				}
+			}
+		});
+		ICancellableOperation operation = new ICancellableOperation() {
+			public void abort() {
+				waiter.completeExceptionally(new OperationCanceledException());
+			}
+
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		CancellableOperationMonitorThread monitorThread = client.getMonitorThread();
+		monitorThread.addOperation(operation, monitor);
+		try {
+			return waiter.get();
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		} finally {
+			monitorThread.removeOperation(operation);
+		}
+	}
+
+	private CommonHttpResponse createResponse(HttpRequestBase request, SharedResponse sharedResponse,
+			IOperationMonitor monitor) {
+		BasicHttpResponse response = new BasicHttpResponse(sharedResponse.statusLine);
+		response.setHeaders(sharedResponse.headers);
+		if (sharedResponse.content != null) {
+			ByteArrayEntity entity = new ByteArrayEntity(sharedResponse.content);
+			entity.setContentType(response.getFirstHeader("Content-Type")); //$NON-NLS-1$
+			response.setEntity(entity);
+		}
+		return new CommonHttpResponse(request, response, client.getMonitorThread(), monitor);
+	}
+
+	private CommonHttpResponse executeShared(HttpRequestBase request, IOperationMonitor monitor, Execution execution,
+			CompletableFuture<SharedResponse> flight) throws IOException {
+		CommonHttpResponse response;
+		try {
+			response = execution.execute();
+		} catch (IOException e) {
+			complete(flight, monitor, e);
+			throw e;
+		} catch (RuntimeException e) {
+			complete(flight, monitor, e);
+			throw e;
+		}
+
+		HttpResponse httpResponse = response.getResponse();
+		HttpEntity entity = httpResponse.getEntity();
+		if (entity != null && entity.getContentLength() > MAX_CONTENT_LENGTH) {
+			flight.complete(NOT_SHARED);
+			return response;
+		}
+
+		SharedResponse sharedResponse;
+		boolean streaming = false;
+		try {
+			byte[] content = null;
+			if (entity != null) {
+				InputStream in = entity.getContent();
+				// the declared length is missing for chunked and compressed responses, limit by the bytes read
+				ByteArrayOutputStream buffer = read(in, MAX_CONTENT_LENGTH + 1);
+				if (buffer.size() > MAX_CONTENT_LENGTH) {
+					flight.complete(NOT_SHARED);
+					InputStreamEntity streamEntity = new InputStreamEntity(new SequenceInputStream(
+							new ByteArrayInputStream(buffer.toByteArray()), in), entity.getContentLength());
+					streamEntity.setContentType(entity.getContentType());
+					streamEntity.setContentEncoding(entity.getContentEncoding());
+					httpResponse.setEntity(streamEntity);
+					streaming = true;
+					return response;
+				}
+				content = buffer.toByteArray();
+			}
+			sharedResponse = new SharedResponse(httpResponse.getStatusLine(), httpResponse.getAllHeaders(), content);
+		} catch (IOException e) {
+			complete(flight, monitor, e);
+			throw e;
+		} catch (RuntimeException e) {
+			complete(flight, monitor, e);
+			throw e;
+		} finally {
+			if (!streaming) {
+				response.release();
+			}
+		}
+		flight.complete(sharedResponse);
+		return createResponse(request, sharedResponse, monitor);
+	}
+
+	private ByteArrayOutputStream read(InputStream in, int limit) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		while (out.size() < limit) {
+			int n = in.read(buffer, 0, Math.min(buffer.length, limit - out.size()));
+			if (n == -1) {
+				break;
+			}
+			out.write(buffer, 0, n);
+		}
+		return out;
+	}
+
+	private void complete(CompletableFuture<SharedResponse> flight, IOperationMonitor monitor, Exception e) {
+		if (monitor.isCanceled() || e instanceof OperationCanceledException) {
+			// only the initiator was canceled, let a waiting request retry
+			flight.complete(RETRY);
+		} else {
+			flight.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Returns the key that identifies requests that can share a response. Requests with different headers or
+	 * credentials are not coalesced.
+	 */
+	static Key getKey(HttpRequestBase request, Object... identities) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(request.getMethod());
+		sb.append(' ');
+		sb.append(request.getURI());
+		Header[] headers = request.getAllHeaders();
+		Arrays.sort(headers, new Comparator<Header>() {
+			public int compare(Header o1, Header o2) {
+				return o1.getName().compareToIgnoreCase(o2.getName());
+			}
+		});
+		for (Header header : headers) {
+			sb.append('\n');
+			sb.append(header.getName().toLowerCase());
+			sb.append(':');
+			sb.append(header.getValue());
+		}
+		return new Key(sb.toString(), identities);
+	}
+
+}
@@ -0,0 +1,497 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
+
+/**
+ * Downloads a resource to a file by fetching byte ranges concurrently over separate connections. Each range is
+ * written to its offset in the target file as it arrives.
+ * <p>
+ * If a download fails or is canceled the target file and a state file next to it are retained. A subsequent download
+ * of the same resource to the same file only fetches the missing ranges, provided the server reports the same entity
+ * tag or modification date. Servers that do not advertise support for byte ranges or that do not support
+ * <code>HEAD</code> requests are accessed through a single request.
+ * <p>
+ * Ranges are requested without content coding since they refer to the bytes of the encoded representation. The
+ * ranges are fetched on the shared {@link OperationUtil#EXECUTOR_DOWNLOAD download executor} so that they do not
+ * compete with other requests for the HTTP executor. If the download executor is saturated ranges are fetched in the
+ * calling thread.
+ */
+public class SegmentedDownload {
+
+	private static final long DEFAULT_MIN_SEGMENT_SIZE = 1024 * 1024;
+
+	private static final int DEFAULT_MAX_SEGMENTS = 4;
+
+	private static final long POLL_INTERVAL = 250;
+
+	private static final String STATE_FILE_EXTENSION = ".segments"; //$NON-NLS-1$
+
+	private static final int STATE_VERSION = 1;
+
+	private static final String IDENTITY_ENCODING = "identity"; //$NON-NLS-1$
+
+	private static class Segment {
+
+		private final long end;
+
+		private volatile long position;
+
+		private final long start;
+
+		Segment(long start, long end, long position) {
+			this.start = start;
+			this.end = end;
+			this.position = position;
+		}
+
+		boolean isComplete() {
+			return position > end;
+		}
+
+	}
+
+	private static class RangeNotSatisfiedException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+	}
+
+	private final CommonHttpClient client;
+
+	private final Path file;
+
+	private int maxSegments = DEFAULT_MAX_SEGMENTS;
+
+	private long minSegmentSize = DEFAULT_MIN_SEGMENT_SIZE;
+
+	private final String requestPath;
+
+	private long resumedBytes;
+
+	private final AtomicLong transferred = new AtomicLong();
+
+	private final String url;
+
+	public SegmentedDownload(CommonHttpClient client, String requestPath, Path file) {
+		Assert.isNotNull(client);
+		Assert.isNotNull(requestPath);
+		Assert.isNotNull(file);
+		this.client = client;
+		this.requestPath = requestPath;
+		this.url = client.getLocation().getUrl() + requestPath;
+		this.file = file;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the number of bytes that were retained from a previous download by the last invocation of
+	 * {@link #run(IOperationMonitor)}.
+	 */
+	public long getResumedBytes() {
+		return resumedBytes;
+	}
+
+	/**
+	 * Sets the maximum number of ranges that are fetched concurrently.
+	 */
+	public void setMaxSegments(int maxSegments) {
+		Assert.isLegal(maxSegments > 0);
+		this.maxSegments = maxSegments;
+	}
+
+	/**
+	 * Sets the minimum number of bytes per range. Resources that are smaller than twice the size are fetched as a
+	 * single range.
+	 */
+	public void setMinSegmentSize(long minSegmentSize) {
+		Assert.isLegal(minSegmentSize > 0);
+		this.minSegmentSize = minSegmentSize;
+	}
+
+	/**
+	 * Downloads the resource to the file.
+	 *
+	 * @return the number of bytes of the resource
+	 * @throws HttpResponseException
+	 *             if the server does not respond to the <code>GET</code> request with {@link HttpStatus#SC_OK}
+	 * @throws OperationCanceledException
+	 *             if <code>monitor</code> was canceled; the download may be resumed
+	 * @throws IOException
+	 *             if the download failed; the download may be resumed
+	 */
+	public long run(IOperationMonitor monitor) throws IOException {
+		monitor = OperationUtil.convert(monitor);
+		resumedBytes = 0;
+		transferred.set(0);
+
+		HttpHead head = new HttpHead(url);
+		head.setHeader(HttpHeaders.ACCEPT_ENCODING, IDENTITY_ENCODING);
+		CommonHttpResponse response = createOperation().execute(head, monitor);
+		long length = -1;
+		String validator = null;
+		boolean acceptRanges = false;
+		try {
+			// servers that reject HEAD, e.g. with 405, may still serve the resource through GET
+			if (response.getStatusCode() == HttpStatus.SC_OK) {
+				length = getContentLength(response);
+				validator = getValidator(response);
+				Header header = response.getResponse().getFirstHeader(HttpHeaders.ACCEPT_RANGES);
+				acceptRanges = header != null && "bytes".equalsIgnoreCase(header.getValue()); //$NON-NLS-1$
+			}
+		} finally {
+			response.release();
+		}
+
+		if (!acceptRanges || length <= 0) {
+			Files.deleteIfExists(getStateFile());
+			return client.download(requestPath, file, monitor);
+		}
+
+		List<Segment> segments = null;
+		if (validator != null) {
+			segments = readState(validator, length);
+		}
+		boolean resume = segments != null;
+		if (!resume) {
+			segments = createSegments(length);
+		}
+
+		try {
+			transfer(segments, validator, length, resume, monitor);
+		} catch (RangeNotSatisfiedException e) {
+			// the resource changed since the download was started
+			Files.deleteIfExists(getStateFile());
+			return client.download(requestPath, file, monitor);
+		}
+		return length;
+	}
+
+	private List<Segment> createSegments(long length) {
+		long count = Math.max(1, Math.min(maxSegments, length / minSegmentSize));
+		long size = length / count;
+		List<Segment> segments = new ArrayList<Segment>();
+		for (long i = 0; i < count; i++) {
+			long start = i * size;
+			long end = (i == count - 1) ? length - 1 : start + size - 1;
+			segments.add(new Segment(start, end, start));
+		}
+		return segments;
+	}
+
+	private CommonHttpOperation<Void> createOperation() {
+		CommonHttpOperation<Void> operation = new CommonHttpOperation<Void>(client) {
+		};
+		operation.setCachePolicy(HttpCachePolicy.NO_CACHE);
+		return operation;
+	}
+
+	private long getContentLength(CommonHttpResponse response) {
+		Header header = response.getResponse().getFirstHeader(HttpHeaders.CONTENT_LENGTH);
+		if (header != null) {
+			try {
+				return Long.parseLong(header.getValue().trim());
+			} catch (NumberFormatException e) {
+				// ignore
+			}
+		}
+		return -1;
+	}
+
+	private Path getStateFile() {
+		return file.resolveSibling(file.getFileName() + STATE_FILE_EXTENSION);
+	}
+
+	private String getValidator(CommonHttpResponse response) {
+		Header etag = response.getResponse().getFirstHeader(HttpHeaders.ETAG);
+		if (etag != null && !etag.getValue().startsWith("W/")) { //$NON-NLS-1$
+			// If-Range requires a strong validator
+			return etag.getValue();
+		}
+		Header lastModified = response.getResponse().getFirstHeader(HttpHeaders.LAST_MODIFIED);
+		return (lastModified != null) ? lastModified.getValue() : null;
+	}
+
+	private List<Segment> readState(String validator, long length) {
+		Path stateFile = getStateFile();
+		if (!Files.exists(file)) {
+			return null;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)));
+			try {
+				if (in.readInt() != STATE_VERSION || !url.equals(in.readUTF()) || !validator.equals(in.readUTF())
+						|| in.readLong() != length) {
+					return null;
+				}
+				int count = in.readInt();
+				List<Segment> segments = new ArrayList<Segment>(count);
+				for (int i = 0; i < count; i++) {
+					segments.add(new Segment(in.readLong(), in.readLong(), in.readLong()));
+				}
+				return segments;
+			} finally {
+				in.close();
+			}
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			// corrupt state, start over
+			return null;
+		}
+	}
+
+	private void writeState(List<Segment> segments, String validator, long length) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(getStateFile())));
+		try {
+			out.writeInt(STATE_VERSION);
+			out.writeUTF(url);
+			out.writeUTF(validator);
+			out.writeLong(length);
+			out.writeInt(segments.size());
+			for (Segment segment : segments) {
+				out.writeLong(segment.start);
+				out.writeLong(segment.end);
+				out.writeLong(segment.position);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	private void transfer(List<Segment> segments, final String validator, long length, boolean resume,
+			IOperationMonitor monitor) throws IOException {
+		long remaining = 0;
+		for (Segment segment : segments) {
+			remaining += segment.end - segment.position + 1;
+		}
+		resumedBytes = length - remaining;
+		int totalWork = (int) Math.min(Integer.MAX_VALUE, length / BufferPool.BUFFER_SIZE + 1);
+		monitor.beginTask("", totalWork); //$NON-NLS-1$
+		int reportedWork = (int) (resumedBytes / BufferPool.BUFFER_SIZE);
+		monitor.worked(reportedWork);
+
+		final FileChannel channel;
+		if (resume) {
+			channel = FileChannel.open(file, StandardOpenOption.WRITE);
+		} else {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		List<IOperationMonitor> segmentMonitors = new ArrayList<IOperationMonitor>();
+		Throwable failure = null;
+		boolean interrupted = false;
+		try {
+			CompletionService<Segment> completionService = new ExecutorCompletionService<Segment>(createExecutor());
+			int pending = 0;
+			for (final Segment segment : segments) {
+				if (!segment.isComplete()) {
+					final IOperationMonitor segmentMonitor = OperationUtil.convert(null);
+					segmentMonitors.add(segmentMonitor);
+					completionService.submit(new Callable<Segment>() {
+						public Segment call() throws Exception {
+							transfer(segment, channel, validator, segmentMonitor);
+							return segment;
+						}
+					});
+					pending++;
+				}
+			}
+
+			while (pending > 0) {
+				Future<Segment> future;
+				try {
+					future = completionService.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					future = null;
+					interrupted = true;
+					if (failure == null) {
+						failure = new OperationCanceledException();
+						cancel(segmentMonitors);
+					}
+				}
+				if (future != null) {
+					pending--;
+					try {
+						future.get();
+					} catch (ExecutionException e) {
+						// let the remaining segments complete to retain as much as possible for resuming
+						if (failure == null) {
+							failure = e.getCause();
+						}
+					} catch (InterruptedException e) {
+						// the future is done
+					}
+				}
+				if (failure == null && monitor.isCanceled()) {
+					failure = new OperationCanceledException();
+					cancel(segmentMonitors);
+				}
+
+				int work = (int) ((resumedBytes + transferred.get()) / BufferPool.BUFFER_SIZE);
+				if (work > reportedWork) {
+					monitor.worked(work - reportedWork);
+					reportedWork = work;
+				}
+			}
+		} finally {
+			channel.close();
+			monitor.done();
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		if (failure == null) {
+			Files.deleteIfExists(getStateFile());
+			return;
+		}
+
+		if (validator != null && !(failure instanceof RangeNotSatisfiedException)) {
+			writeState(segments, validator, length);
+		} else {
+			Files.deleteIfExists(getStateFile());
+			Files.deleteIfExists(file);
+		}
+		if (failure instanceof IOException) {
+			throw (IOException) failure;
+		} else if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		throw new IOException(failure);
+	}
+
+	/**
+	 * Returns an executor that submits to the shared download executor or runs tasks in the calling thread if the
+	 * shared executor is saturated.
+	 */
+	private Executor createExecutor() {
+		final Executor executor = OperationUtil.getExecutorService(OperationUtil.EXECUTOR_DOWNLOAD);
+		return new Executor() {
+			public void execute(Runnable command) {
+				try {
+					executor.execute(command);
+				} catch (RejectedExecutionException e) {
+					command.run();
+				}
+			}
+		};
+	}
+
+	private void cancel(List<IOperationMonitor> segmentMonitors) {
+		for (IOperationMonitor segmentMonitor : segmentMonitors) {
+			segmentMonitor.setCanceled(true);
+		}
+	}
+
+	private void transfer(Segment segment, FileChannel channel, String validator, IOperationMonitor monitor)
+			throws IOException {
+		HttpGet request = new HttpGet(url);
+		String range = "bytes=" + segment.position + "-" + segment.end; //$NON-NLS-1$ //$NON-NLS-2$
+		request.setHeader(HttpHeaders.RANGE, range);
+		request.setHeader(HttpHeaders.ACCEPT_ENCODING, IDENTITY_ENCODING);
+		if (validator != null) {
+			request.setHeader(HttpHeaders.IF_RANGE, validator);
+		}
+		CommonHttpResponse response = createOperation().execute(request, monitor);
+		boolean completed = false;
+		try {
+			if (response.getStatusCode() == HttpStatus.SC_OK) {
+				throw new RangeNotSatisfiedException();
+			}
+			if (response.getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+				throw new HttpResponseException(response.getStatusCode(), response.getResponse()
+						.getStatusLine()
+						.getReasonPhrase());
+			}
+			Header contentRange = response.getResponse().getFirstHeader(HttpHeaders.CONTENT_RANGE);
+			String expectedRange = "bytes " + segment.position + "-"; //$NON-NLS-1$ //$NON-NLS-2$
+			if (contentRange == null || !contentRange.getValue().startsWith(expectedRange)) {
+				throw new IOException("Unexpected content range for " + url); //$NON-NLS-1$
+			}
+
+			InputStream in = response.getResponseEntityAsStream();
+			byte[] buffer = BufferPool.acquire();
+			try {
+				while (!segment.isComplete()) {
+					long remaining = segment.end - segment.position + 1;
+					int count = BufferPool.fill(in, buffer, (int) Math.min(buffer.length, remaining));
+					if (count == 0) {
+						break;
+					}
+					write(segment, buffer, count, channel);
+				}
+			} finally {
+				BufferPool.release(buffer);
+			}
+			if (!segment.isComplete()) {
+				throw new IOException("Premature end of content for " + url); //$NON-NLS-1$
+			}
+			completed = true;
+		} finally {
+			if (!completed) {
+				response.abort();
+			}
+			response.release();
+		}
+	}
+
+	private void write(Segment segment, byte[] buffer, int length, FileChannel channel) throws IOException {
+		ByteBuffer source = ByteBuffer.wrap(buffer, 0, length);
+		while (source.hasRemaining()) {
+			int count = channel.write(source, segment.position);
+			segment.position += count;
+			transferred.addAndGet(count);
+		}
+	}
+
+}
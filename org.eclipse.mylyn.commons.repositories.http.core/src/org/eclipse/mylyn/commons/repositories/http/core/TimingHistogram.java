@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of times in milliseconds with exponentially growing buckets. Samples are counted without locking so the
+ * histogram can be updated by concurrent requests.
+ */
+public class TimingHistogram {
+
+	private static final double[] UPPER_BOUNDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 20000,
+			60000, Double.POSITIVE_INFINITY };
+
+	private final AtomicLongArray counts = new AtomicLongArray(UPPER_BOUNDS.length);
+
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * Sum of all samples in microseconds.
+	 */
+	private final AtomicLong total = new AtomicLong();
+
+	public void add(double time) {
+		int i = 0;
+		while (time > UPPER_BOUNDS[i]) {
+			i++;
+		}
+		counts.incrementAndGet(i);
+		count.incrementAndGet();
+		total.addAndGet((long) (time * 1000));
+	}
+
+	/**
+	 * Returns the average of all samples in milliseconds.
+	 */
+	public double getAverage() {
+		long n = count.get();
+		return (n > 0) ? total.get() / 1000d / n : 0;
+	}
+
+	public int getBucketCount() {
+		return UPPER_BOUNDS.length;
+	}
+
+	/**
+	 * Returns the inclusive upper bound of the bucket at <code>index</code> in milliseconds. The last bucket is
+	 * unbounded.
+	 */
+	public double getBucketUpperBound(int index) {
+		return UPPER_BOUNDS[index];
+	}
+
+	/**
+	 * Returns the number of samples in the bucket at <code>index</code>.
+	 */
+	public long getCount(int index) {
+		return counts.get(index);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the upper bound of the bucket that contains the <code>percentile</code> of all samples, e.g. 0.95 for
+	 * the time that 95% of the samples did not exceed.
+	 *
+	 * @return the upper bound in milliseconds, or 0 if the histogram is empty
+	 */
+	public double getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 1) {
+			throw new IllegalArgumentException();
+		}
+		long n = count.get();
+		if (n == 0) {
+			return 0;
+		}
+		long threshold = (long) Math.ceil(percentile * n);
+		long sum = 0;
+		for (int i = 0; i < UPPER_BOUNDS.length; i++) {
+			sum += counts.get(i);
+			if (sum >= threshold && sum > 0) {
+				return UPPER_BOUNDS[i];
+			}
+		}
+		return UPPER_BOUNDS[UPPER_BOUNDS.length - 1];
+	}
+
+	@Override
+	public String toString() {
+		return "TimingHistogram [count=" + getCount() + ", average=" + getAverage() + ", p50=" + getPercentile(0.5) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ ", p95=" + getPercentile(0.95) + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.repositories.http.core;
+
+/**
+ * Computes the maximum number of connections for a route from the time requests wait for a connection and the time
+ * connections are leased. The limit grows while requests wait and the lease time stays close to the best observed
+ * lease time (the baseline), and shrinks when the lease time degrades or the pool is underutilized.
+ * <p>
+ * The limit is only raised while the lease time is within {@link #GROW_TOLERANCE} of the baseline but only lowered
+ * once it exceeds {@link #LATENCY_TOLERANCE}. The baseline follows lasting changes of the server performance slowly
+ * so that shrinking the pool does not immediately make the degraded lease time the new norm, which would let the
+ * limit grow again and oscillate.
+ *
+ * @see InstrumentedConnectionManager#setAdaptive(boolean, int, int)
+ */
+public class AdaptiveRouteLimit {
+
+	/**
+	 * Minimum time between adjustments of the limit in milliseconds.
+	 */
+	static final long ADAPT_INTERVAL = 1000;
+
+	/**
+	 * Weight of the latest sample in moving averages.
+	 */
+	static final double ALPHA = 0.2;
+
+	/**
+	 * Weight of the average lease time when the baseline is moved towards it after each adjustment.
+	 */
+	static final double BASELINE_ALPHA = 0.05;
+
+	/**
+	 * Factor by which the average lease time may exceed the baseline for the limit to grow.
+	 */
+	static final double GROW_TOLERANCE = 1.2;
+
+	/**
+	 * Factor by which the average lease time may exceed the baseline before latency is considered degraded.
+	 */
+	static final double LATENCY_TOLERANCE = 1.5;
+
+	/**
+	 * Average wait time in milliseconds above which requests are considered to be starved for connections.
+	 */
+	static final double WAIT_THRESHOLD = 50;
+
+	private static double average(double average, double sample) {
+		return (average == 0) ? sample : ALPHA * sample + (1 - ALPHA) * average;
+	}
+
+	private double averageLeaseTime;
+
+	private double averageLeaseWaitTime;
+
+	private double baselineLeaseTime = Double.MAX_VALUE;
+
+	private long lastAdaptTime;
+
+	/**
+	 * Computes the limit of the route.
+	 *
+	 * @param now
+	 *            the current time in milliseconds
+	 * @param max
+	 *            the current limit
+	 * @param pending
+	 *            the number of requests that wait for a connection
+	 * @param leased
+	 *            the number of leased connections
+	 * @param lowerBound
+	 *            the smallest permitted limit
+	 * @param upperBound
+	 *            the largest permitted limit
+	 * @return the new limit; <code>max</code>, if the limit was adjusted less than {@link #ADAPT_INTERVAL}
+	 *         milliseconds ago
+	 */
+	public synchronized int adapt(long now, int max, int pending, int leased, int lowerBound, int upperBound) {
+		if (now - lastAdaptTime < ADAPT_INTERVAL || averageLeaseTime == 0) {
+			return max;
+		}
+		lastAdaptTime = now;
+
+		int newMax = max;
+		if (averageLeaseTime > baselineLeaseTime * LATENCY_TOLERANCE
+				|| (pending == 0 && leased < max / 2 && averageLeaseWaitTime <= WAIT_THRESHOLD)) {
+			newMax = max - 1;
+		} else if (averageLeaseWaitTime > WAIT_THRESHOLD && averageLeaseTime <= baselineLeaseTime * GROW_TOLERANCE) {
+			newMax = max + 1;
+		}
+		// follow lasting changes of the server performance
+		baselineLeaseTime += BASELINE_ALPHA * (averageLeaseTime - baselineLeaseTime);
+		return Math.max(lowerBound, Math.min(upperBound, newMax));
+	}
+
+	public synchronized double getAverageLeaseTime() {
+		return averageLeaseTime;
+	}
+
+	public synchronized double getAverageLeaseWaitTime() {
+		return averageLeaseWaitTime;
+	}
+
+	public synchronized double getBaselineLeaseTime() {
+		return baselineLeaseTime;
+	}
+
+	/**
+	 * Records the time in milliseconds a request waited for a connection.
+	 */
+	public synchronized void leased(double waitTime) {
+		averageLeaseWaitTime = average(averageLeaseWaitTime, waitTime);
+	}
+
+	/**
+	 * Records the time in milliseconds a connection was leased.
+	 */
+	public synchronized void released(double leaseTime) {
+		averageLeaseTime = average(averageLeaseTime, leaseTime);
+		baselineLeaseTime = Math.min(baselineLeaseTime, averageLeaseTime);
+	}
+
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.repositories.http.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.eclipse.mylyn.commons.repositories.http.core.QueueStatistics;
+
+/**
+ * Admits requests for pooled connections in priority order. Interactive requests are admitted ahead of background
+ * requests whenever a connection becomes available and background requests are limited to a share of the connections
+ * of each route, leaving the remainder for interactive requests.
+ * <p>
+ * Requests are only admitted while the route has capacity, so they do not queue in the connection pool in arrival
+ * order.
+ *
+ * @see InstrumentedConnectionManager
+ */
+public class AdmissionScheduler {
+
+	public enum Priority {
+		INTERACTIVE, BACKGROUND
+	}
+
+	/**
+	 * An admitted request that occupies a connection slot of a route until it is released.
+	 */
+	public class Ticket {
+
+		private boolean aborted;
+
+		private boolean admitted;
+
+		private final Priority priority;
+
+		private final RouteQueue queue;
+
+		Ticket(RouteQueue queue, Priority priority) {
+			this.queue = queue;
+			this.priority = priority;
+		}
+
+		/**
+		 * Wakes up the thread that is waiting for admission of this ticket.
+		 */
+		public void abort() {
+			synchronized (AdmissionScheduler.this) {
+				aborted = true;
+				AdmissionScheduler.this.notifyAll();
+			}
+		}
+
+		public Priority getPriority() {
+			return priority;
+		}
+
+		/**
+		 * Releases the connection slot. Has no effect if the ticket was not admitted or already released.
+		 */
+		public void release() {
+			synchronized (AdmissionScheduler.this) {
+				if (admitted) {
+					admitted = false;
+					queue.active--;
+					if (priority == Priority.BACKGROUND) {
+						queue.activeBackground--;
+					}
+					AdmissionScheduler.this.notifyAll();
+				}
+			}
+		}
+
+	}
+
+	private static class RouteQueue {
+
+		private int active;
+
+		private int activeBackground;
+
+		private final HttpRoute route;
+
+		private int waitingInteractive;
+
+		RouteQueue(HttpRoute route) {
+			this.route = route;
+		}
+
+	}
+
+	private static class PriorityStatistics {
+
+		private long admittedCount;
+
+		private long maxWaitTime;
+
+		private long totalWaitTime;
+
+		private int waiting;
+
+	}
+
+	private static final ThreadLocal<Priority> currentPriority = new ThreadLocal<Priority>();
+
+	/**
+	 * Returns the priority of requests that are executed by the current thread.
+	 */
+	public static Priority getPriority() {
+		Priority priority = currentPriority.get();
+		return (priority != null) ? priority : Priority.INTERACTIVE;
+	}
+
+	/**
+	 * Sets the priority of requests that are executed by the current thread.
+	 *
+	 * @return the previous priority
+	 */
+	public static Priority setPriority(Priority priority) {
+		Priority previous = getPriority();
+		currentPriority.set(priority);
+		return previous;
+	}
+
+	private final InstrumentedConnectionManager connectionManager;
+
+	// guarded by this
+
+	private int maxBackgroundPerRoute;
+
+	private final Map<HttpRoute, RouteQueue> queueByRoute = new HashMap<HttpRoute, RouteQueue>();
+
+	private final PriorityStatistics[] statistics;
+
+	public AdmissionScheduler(InstrumentedConnectionManager connectionManager) {
+		this.connectionManager = connectionManager;
+		this.statistics = new PriorityStatistics[Priority.values().length];
+		for (int i = 0; i < statistics.length; i++) {
+			statistics[i] = new PriorityStatistics();
+		}
+	}
+
+	/**
+	 * Blocks until a connection slot for <code>route</code> is available to a request of <code>priority</code>.
+	 *
+	 * @param timeout
+	 *            the maximum time to wait; 0 waits indefinitely
+	 * @throws ConnectionPoolTimeoutException
+	 *             if the timeout expired
+	 * @throws InterruptedException
+	 *             if the thread was interrupted or the ticket was aborted while waiting
+	 */
+	public synchronized Ticket admit(HttpRoute route, Priority priority, long timeout, TimeUnit timeUnit)
+			throws InterruptedException, ConnectionPoolTimeoutException {
+		return admit(createTicket(route, priority), timeout, timeUnit);
+	}
+
+	/**
+	 * Blocks until a connection slot is available to <code>ticket</code>.
+	 *
+	 * @see #admit(HttpRoute, Priority, long, TimeUnit)
+	 */
+	public synchronized Ticket admit(Ticket ticket, long timeout, TimeUnit timeUnit) throws InterruptedException,
+			ConnectionPoolTimeoutException {
+		PriorityStatistics stats = statistics[ticket.priority.ordinal()];
+		RouteQueue queue = ticket.queue;
+		long start = System.nanoTime();
+		long deadline = (timeout > 0) ? start + timeUnit.toNanos(timeout) : Long.MAX_VALUE;
+		boolean waiting = false;
+		try {
+			while (!canAdmit(ticket)) {
+				if (ticket.aborted) {
+					throw new InterruptedException("Operation aborted"); //$NON-NLS-1$
+				}
+				if (!waiting) {
+					waiting = true;
+					stats.waiting++;
+					if (ticket.priority == Priority.INTERACTIVE) {
+						queue.waitingInteractive++;
+					}
+				}
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					throw new ConnectionPoolTimeoutException("Timeout waiting for connection"); //$NON-NLS-1$
+				}
+				wait((deadline == Long.MAX_VALUE) ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+			}
+		} finally {
+			if (waiting) {
+				stats.waiting--;
+				if (ticket.priority == Priority.INTERACTIVE) {
+					queue.waitingInteractive--;
+					// background requests may be eligible now
+					notifyAll();
+				}
+			}
+		}
+
+		ticket.admitted = true;
+		queue.active++;
+		if (ticket.priority == Priority.BACKGROUND) {
+			queue.activeBackground++;
+		}
+		long waitTime = System.nanoTime() - start;
+		stats.admittedCount++;
+		stats.totalWaitTime += waitTime;
+		stats.maxWaitTime = Math.max(stats.maxWaitTime, waitTime);
+		return ticket;
+	}
+
+	/**
+	 * Creates a ticket that can be passed to {@link #admit(Ticket, long, TimeUnit)}. Creating the ticket ahead of
+	 * admission allows another thread to {@link Ticket#abort() abort} the wait.
+	 */
+	public synchronized Ticket createTicket(HttpRoute route, Priority priority) {
+		RouteQueue queue = queueByRoute.get(route);
+		if (queue == null) {
+			queue = new RouteQueue(route);
+			queueByRoute.put(route, queue);
+		}
+		return new Ticket(queue, priority);
+	}
+
+	/**
+	 * Returns the maximum number of connections of <code>route</code> that may be used by background requests.
+	 */
+	public synchronized int getMaxBackgroundForRoute(HttpRoute route) {
+		int max = connectionManager.getMaxForRoute(route);
+		if (maxBackgroundPerRoute > 0) {
+			return Math.min(max, maxBackgroundPerRoute);
+		}
+		// reserve a quarter of the connections for interactive requests
+		return Math.max(1, max - Math.max(1, max / 4));
+	}
+
+	/**
+	 * Returns queueing statistics for requests of <code>priority</code>.
+	 */
+	public synchronized QueueStatistics getStatistics(Priority priority) {
+		PriorityStatistics stats = statistics[priority.ordinal()];
+		return new QueueStatistics(priority == Priority.BACKGROUND, stats.admittedCount, stats.waiting,
+				toMillis(stats.totalWaitTime), toMillis(stats.maxWaitTime));
+	}
+
+	/**
+	 * Sets the maximum number of connections per route that may be used by background requests. If set to 0 a quarter
+	 * of the connections of a route is reserved for interactive requests.
+	 */
+	public synchronized void setMaxBackgroundPerRoute(int maxBackgroundPerRoute) {
+		if (maxBackgroundPerRoute < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.maxBackgroundPerRoute = maxBackgroundPerRoute;
+		notifyAll();
+	}
+
+	/**
+	 * Wakes up waiting requests, e.g. after the maximum number of connections of a route was increased.
+	 */
+	public synchronized void update() {
+		notifyAll();
+	}
+
+	private boolean canAdmit(Ticket ticket) {
+		RouteQueue queue = ticket.queue;
+		HttpRoute route = queue.route;
+		if (queue.active >= connectionManager.getMaxForRoute(route)) {
+			return false;
+		}
+		if (ticket.priority == Priority.BACKGROUND) {
+			return queue.waitingInteractive == 0 && queue.activeBackground < getMaxBackgroundForRoute(route);
+		}
+		return true;
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000d;
+	}
+
+}
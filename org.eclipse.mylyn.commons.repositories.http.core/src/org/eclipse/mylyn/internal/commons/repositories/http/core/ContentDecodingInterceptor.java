@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.repositories.http.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+import org.eclipse.mylyn.commons.core.io.DecompressingInputStream;
+import org.eclipse.mylyn.commons.core.io.DecompressingInputStream.ByteCounter;
+import org.eclipse.mylyn.commons.core.io.DecompressingInputStream.Encoding;
+
+/**
+ * Advertises the supported content encodings and transparently decodes compressed response entities through
+ * {@link DecompressingInputStream}. Replaces the interceptors of <code>ContentEncodingHttpClient</code> which allocate
+ * a new inflater for each response.
+ */
+public class ContentDecodingInterceptor implements HttpRequestInterceptor, HttpResponseInterceptor {
+
+	private static class DecompressingEntity extends HttpEntityWrapper {
+
+		private InputStream content;
+
+		private final Encoding encoding;
+
+		public DecompressingEntity(HttpEntity entity, Encoding encoding) {
+			super(entity);
+			this.encoding = encoding;
+		}
+
+		@Override
+		public synchronized InputStream getContent() throws IOException {
+			if (content == null) {
+				content = new DecompressingInputStream(wrappedEntity.getContent(), encoding, counter);
+			}
+			return content;
+		}
+
+		@Override
+		public Header getContentEncoding() {
+			return null;
+		}
+
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			InputStream in = getContent();
+			try {
+				byte[] buffer = new byte[4096];
+				int n;
+				while ((n = in.read(buffer)) != -1) {
+					out.write(buffer, 0, n);
+				}
+			} finally {
+				in.close();
+			}
+		}
+
+	}
+
+	private static final ByteCounter counter = new ByteCounter();
+
+	/**
+	 * Returns the number of encoded bytes that were read from decoded entities.
+	 */
+	public static long getCompressedByteCount() {
+		return counter.getCompressedCount();
+	}
+
+	/**
+	 * Returns the number of decoded bytes that were read from decoded entities.
+	 */
+	public static long getUncompressedByteCount() {
+		return counter.getUncompressedCount();
+	}
+
+	public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+		if (!request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+			request.addHeader(HttpHeaders.ACCEPT_ENCODING, DecompressingInputStream.ACCEPT_ENCODING);
+		}
+	}
+
+	public void process(HttpResponse response, HttpContext context) throws HttpException, IOException {
+		HttpEntity entity = response.getEntity();
+		if (entity == null || entity.getContentEncoding() == null) {
+			return;
+		}
+		Encoding encoding = DecompressingInputStream.getEncoding(entity.getContentEncoding().getValue());
+		if (encoding != null) {
+			response.setEntity(new DecompressingEntity(entity, encoding));
+			response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+			response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+			response.removeHeaders(HttpHeaders.CONTENT_MD5);
+		}
+	}
+
+}
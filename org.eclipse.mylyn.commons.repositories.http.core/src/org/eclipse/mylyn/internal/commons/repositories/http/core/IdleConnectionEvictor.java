@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.repositories.http.core;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ClientConnectionManager;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.mylyn.commons.core.StatusHandler;
+
+/**
+ * Closes expired and idle connections of connection managers periodically. All registered connection managers share
+ * a single daemon thread.
+ */
+public class IdleConnectionEvictor {
+
+	private static final String ID_PLUGIN = "org.eclipse.mylyn.commons.repositories.http"; //$NON-NLS-1$
+
+	private static ScheduledExecutorService executor;
+
+	/**
+	 * Schedules eviction of connections of <code>manager</code>. Connections that have expired according to the
+	 * keep-alive duration of their last response are closed, as well as connections that were idle for longer than
+	 * <code>idleTimeout</code>.
+	 *
+	 * @param interval
+	 *            the time between evictions in milliseconds
+	 * @param idleTimeout
+	 *            the time in milliseconds after which idle connections are closed; 0 only closes expired connections
+	 * @return a future that stops eviction when canceled
+	 */
+	public static synchronized Future<?> register(final ClientConnectionManager manager, long interval,
+			final long idleTimeout) {
+		if (interval <= 0 || idleTimeout < 0) {
+			throw new IllegalArgumentException();
+		}
+		return getExecutor().scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					manager.closeExpiredConnections();
+					if (idleTimeout > 0) {
+						manager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+					}
+				} catch (RuntimeException e) {
+					// an exception would suppress subsequent executions
+					StatusHandler.log(new Status(IStatus.ERROR, ID_PLUGIN,
+							"Unexpected error evicting connections", e)); //$NON-NLS-1$
+				}
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	private static ScheduledExecutorService getExecutor() {
+		if (executor == null) {
+			ScheduledThreadPoolExecutor scheduledExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "Mylyn HTTP Connection Evictor"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			scheduledExecutor.setRemoveOnCancelPolicy(true);
+			executor = scheduledExecutor;
+		}
+		return executor;
+	}
+
+	private IdleConnectionEvictor() {
+	}
+
+}
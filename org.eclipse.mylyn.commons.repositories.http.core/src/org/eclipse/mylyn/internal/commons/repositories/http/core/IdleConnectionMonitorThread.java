@@ -22,7 +22,9 @@ import org.apache.http.conn.ClientConnectionManager;
  * Closes idle connections periodically.
  * 
  * @author spingel
+ * @deprecated use {@link IdleConnectionEvictor} instead which shares a single thread between connection managers
  */
+@Deprecated
 public class IdleConnectionMonitorThread extends Thread {
 
 	private final List<ClientConnectionManager> connectionManagers;
@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.repositories.http.core;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.eclipse.mylyn.commons.core.net.NetUtil;
+import org.eclipse.mylyn.commons.repositories.http.core.ConnectionPoolStatistics;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpTimings.Phase;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.AdmissionScheduler.Ticket;
+
+/**
+ * A connection manager that records pool usage per route and optionally adapts the maximum number of connections per
+ * route. In adaptive mode the limit of a route grows while requests wait for connections and the server latency is
+ * stable, and shrinks when the server latency degrades or the pool is underutilized.
+ * <p>
+ * Requests are admitted to the pool by an {@link AdmissionScheduler} that gives precedence to interactive requests
+ * over background requests.
+ * 
+ * @see ConnectionPoolStatistics
+ */
+@SuppressWarnings("deprecation")
+public class InstrumentedConnectionManager extends ThreadSafeClientConnManager {
+
+	private static class Lease {
+
+		private final RouteState state;
+
+		private final long startTime;
+
+		private final Ticket ticket;
+
+		Lease(RouteState state, long startTime, Ticket ticket) {
+			this.state = state;
+			this.startTime = startTime;
+			this.ticket = ticket;
+		}
+
+	}
+
+	private class RouteState {
+
+		private final HttpRoute route;
+
+		private final AtomicInteger leased = new AtomicInteger();
+
+		private final AtomicInteger pending = new AtomicInteger();
+
+		private final AtomicLong leaseCount = new AtomicLong();
+
+		private final AtomicLong createdCount = new AtomicLong();
+
+		private final AtomicLong reconnectCount = new AtomicLong();
+
+		private final AdaptiveRouteLimit limit = new AdaptiveRouteLimit();
+
+		RouteState(HttpRoute route) {
+			this.route = route;
+		}
+
+		void adapt(long now) {
+			int max = getMaxForRoute(route);
+			int newMax = limit.adapt(now, max, pending.get(), leased.get(), minPerRoute, maxPerRoute);
+			if (newMax != max) {
+				setMaxForRoute(route, newMax);
+			}
+		}
+
+		ConnectionPoolStatistics getStatistics() {
+			int inPool = getConnectionsInPool(route);
+			return new ConnectionPoolStatistics(route, leased.get(), Math.max(0, inPool - leased.get()), pending.get(),
+					getMaxForRoute(route), leaseCount.get(), createdCount.get(), reconnectCount.get(),
+					limit.getAverageLeaseWaitTime(), limit.getAverageLeaseTime());
+		}
+
+	}
+
+	private volatile boolean adaptive;
+
+	private final AdmissionScheduler admissionScheduler;
+
+	private final Map<ManagedClientConnection, Lease> leaseByConnection;
+
+	private volatile int maxPerRoute;
+
+	private volatile int minPerRoute;
+
+	private final ConcurrentHashMap<HttpRoute, RouteState> stateByRoute;
+
+	/**
+	 * Time until the server promised to keep connections alive keyed by socket since connection adapters are not
+	 * reused.
+	 */
+	private final Map<Socket, Long> keepAliveExpiryBySocket;
+
+	public InstrumentedConnectionManager(SchemeRegistry schemeRegistry) {
+		super(schemeRegistry);
+		this.leaseByConnection = new ConcurrentHashMap<ManagedClientConnection, Lease>();
+		this.stateByRoute = new ConcurrentHashMap<HttpRoute, RouteState>();
+		this.keepAliveExpiryBySocket = Collections.synchronizedMap(new WeakHashMap<Socket, Long>());
+		this.admissionScheduler = new AdmissionScheduler(this);
+	}
+
+	public AdmissionScheduler getAdmissionScheduler() {
+		return admissionScheduler;
+	}
+
+	public int getAdaptiveMaxPerRoute() {
+		return maxPerRoute;
+	}
+
+	public int getAdaptiveMinPerRoute() {
+		return minPerRoute;
+	}
+
+	/**
+	 * Returns a keep-alive strategy that honors hints of the server. Connections that are leased while the server
+	 * promised to keep them alive are not checked for having been closed by the server which avoids blocking for the
+	 * check. Clients should disable the stale connection check that is performed before every request.
+	 * 
+	 * @param defaultDuration
+	 *            the keep-alive duration in milliseconds if the server does not provide a hint
+	 * @see org.apache.http.params.HttpConnectionParams#setStaleCheckingEnabled(org.apache.http.params.HttpParams,
+	 *      boolean)
+	 */
+	public ConnectionKeepAliveStrategy createKeepAliveStrategy(long defaultDuration) {
+		return new KeepAliveStrategy(defaultDuration) {
+			@Override
+			protected void hintReceived(HttpContext context, long duration) {
+				Object connection = context.getAttribute(HttpCoreContext.HTTP_CONNECTION);
+				if (connection instanceof ManagedClientConnection && ((ManagedClientConnection) connection).isOpen()) {
+					Socket socket = ((ManagedClientConnection) connection).getSocket();
+					if (socket != null) {
+						keepAliveExpiryBySocket.put(socket, System.currentTimeMillis() + duration);
+					}
+				}
+			}
+		};
+	}
+
+	@Override
+	protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemeRegistry) {
+		// invoked from the super constructor, must not access fields
+		return new DefaultClientConnectionOperator(schemeRegistry, new DnsResolver() {
+			public InetAddress[] resolve(String host) throws UnknownHostException {
+				long start = System.nanoTime();
+				try {
+					return NetUtil.getDnsCache().resolve(host);
+				} finally {
+					RequestTimer.record(Phase.DNS_LOOKUP, start);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns statistics for all routes that connections were requested for.
+	 */
+	public List<ConnectionPoolStatistics> getStatistics() {
+		List<ConnectionPoolStatistics> statistics = new ArrayList<ConnectionPoolStatistics>();
+		for (RouteState state : stateByRoute.values()) {
+			statistics.add(state.getStatistics());
+		}
+		return statistics;
+	}
+
+	/**
+	 * Returns statistics for <code>route</code> or <code>null</code> if no connection was requested for route.
+	 */
+	public ConnectionPoolStatistics getStatistics(HttpRoute route) {
+		RouteState state = stateByRoute.get(route);
+		return (state != null) ? state.getStatistics() : null;
+	}
+
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	@Override
+	public void releaseConnection(ManagedClientConnection connection, long validDuration, TimeUnit timeUnit) {
+		// the route is not accessible if the connection was closed
+		Lease lease = leaseByConnection.remove(connection);
+		if (lease != null) {
+			lease.ticket.release();
+			lease.state.leased.decrementAndGet();
+			lease.state.limit.released(toMillis(System.nanoTime() - lease.startTime));
+			if (adaptive) {
+				lease.state.adapt(System.currentTimeMillis());
+			}
+		}
+		super.releaseConnection(connection, validDuration, timeUnit);
+	}
+
+	@Override
+	public ClientConnectionRequest requestConnection(final HttpRoute route, Object state) {
+		final ClientConnectionRequest request = super.requestConnection(route, state);
+		final RouteState routeState = getState(route);
+		final Ticket ticket = admissionScheduler.createTicket(route, AdmissionScheduler.getPriority());
+		return new ClientConnectionRequest() {
+			public void abortRequest() {
+				ticket.abort();
+				request.abortRequest();
+			}
+
+			public ManagedClientConnection getConnection(long timeout, TimeUnit timeUnit) throws InterruptedException,
+					ConnectionPoolTimeoutException {
+				long start = System.nanoTime();
+				routeState.pending.incrementAndGet();
+				ManagedClientConnection connection = null;
+				try {
+					admissionScheduler.admit(ticket, timeout, timeUnit);
+					long remaining = (timeout > 0)
+							? Math.max(1, timeUnit.toNanos(timeout) - (System.nanoTime() - start))
+							: 0;
+					connection = request.getConnection(remaining, TimeUnit.NANOSECONDS);
+				} finally {
+					routeState.pending.decrementAndGet();
+					if (connection == null) {
+						ticket.release();
+					}
+				}
+				long now = System.nanoTime();
+				RequestTimer.record(Phase.CONNECTION_LEASE, start);
+				routeState.limit.leased(toMillis(now - start));
+				routeState.leased.incrementAndGet();
+				routeState.leaseCount.incrementAndGet();
+				if (isStale(connection)) {
+					routeState.reconnectCount.incrementAndGet();
+					try {
+						connection.close();
+					} catch (IOException e) {
+						// ignore
+					}
+				}
+				if (!connection.isOpen()) {
+					routeState.createdCount.incrementAndGet();
+				}
+				leaseByConnection.put(connection, new Lease(routeState, now, ticket));
+				return connection;
+			}
+		};
+	}
+
+	@Override
+	public void setDefaultMaxPerRoute(int max) {
+		super.setDefaultMaxPerRoute(max);
+		if (admissionScheduler != null) {
+			admissionScheduler.update();
+		}
+	}
+
+	@Override
+	public void setMaxForRoute(HttpRoute route, int max) {
+		super.setMaxForRoute(route, max);
+		if (admissionScheduler != null) {
+			admissionScheduler.update();
+		}
+	}
+
+	/**
+	 * Enables adaptive sizing of the maximum number of connections per route within the given bounds.
+	 */
+	public void setAdaptive(boolean adaptive, int minPerRoute, int maxPerRoute) {
+		if (minPerRoute < 1 || maxPerRoute < minPerRoute) {
+			throw new IllegalArgumentException();
+		}
+		this.minPerRoute = minPerRoute;
+		this.maxPerRoute = maxPerRoute;
+		this.adaptive = adaptive;
+	}
+
+	private RouteState getState(HttpRoute route) {
+		RouteState state = stateByRoute.get(route);
+		if (state == null) {
+			state = new RouteState(route);
+			RouteState existingState = stateByRoute.putIfAbsent(route, state);
+			if (existingState != null) {
+				state = existingState;
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * Checks pooled connections for having been closed by the server unless the server promised to keep the connection
+	 * alive.
+	 */
+	private boolean isStale(ManagedClientConnection connection) {
+		if (!connection.isOpen()) {
+			return false;
+		}
+		Socket socket = connection.getSocket();
+		Long expiry = (socket != null) ? keepAliveExpiryBySocket.remove(socket) : null;
+		if (expiry != null && System.currentTimeMillis() < expiry) {
+			return false;
+		}
+		return connection.isStale();
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000d;
+	}
+
+}
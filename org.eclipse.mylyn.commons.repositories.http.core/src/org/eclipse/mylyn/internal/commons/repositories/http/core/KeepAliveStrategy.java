@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.repositories.http.core;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Determines how long a connection may be reused from the <code>Keep-Alive: timeout</code> hint of the server. The
+ * connection expires shortly before the server is expected to close it which avoids failures when sending requests
+ * over connections that were closed by the server in the meantime. If the server does not provide a hint, connections
+ * are kept alive for a default duration.
+ */
+public class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+	/**
+	 * Time in milliseconds that connections expire before the server timeout to account for latency.
+	 */
+	private static final long SAFETY_MARGIN = 1000;
+
+	private final long defaultDuration;
+
+	/**
+	 * @param defaultDuration
+	 *            the keep-alive duration in milliseconds if the server does not provide a hint; also caps durations
+	 *            requested by the server
+	 */
+	public KeepAliveStrategy(long defaultDuration) {
+		if (defaultDuration <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.defaultDuration = defaultDuration;
+	}
+
+	public long getDefaultDuration() {
+		return defaultDuration;
+	}
+
+	/**
+	 * Invoked when the server provided a keep-alive timeout for the connection of <code>context</code>.
+	 *
+	 * @param duration
+	 *            the duration in milliseconds the connection is kept alive for
+	 */
+	protected void hintReceived(HttpContext context, long duration) {
+	}
+
+	public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+		HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+		while (it.hasNext()) {
+			HeaderElement element = it.nextElement();
+			if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) { //$NON-NLS-1$
+				try {
+					long timeout = Long.parseLong(element.getValue().trim()) * 1000;
+					// a duration of 0 would keep the connection alive indefinitely
+					long duration = Math.max(1, Math.min(defaultDuration, timeout - SAFETY_MARGIN));
+					hintReceived(context, duration);
+					return duration;
+				} catch (NumberFormatException e) {
+					// ignore
+				}
+			}
+		}
+		return defaultDuration;
+	}
+
+}
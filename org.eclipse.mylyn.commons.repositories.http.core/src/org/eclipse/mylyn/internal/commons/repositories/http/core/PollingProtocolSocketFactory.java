@@ -13,9 +13,12 @@
 package org.eclipse.mylyn.internal.commons.repositories.http.core;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
 
 import javax.net.SocketFactory;
 
@@ -24,6 +27,7 @@ import org.apache.http.conn.scheme.SchemeSocketFactory;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 import org.eclipse.mylyn.commons.core.net.NetUtil;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpTimings.Phase;
 
 /**
  * @author Steffen Pingel
@@ -47,11 +51,59 @@ public class PollingProtocolSocketFactory implements SchemeSocketFactory {
 
 		int connTimeout = HttpConnectionParams.getConnectionTimeout(params);
 
+		if (localAddress == null && NetUtil.isConnectRacingEnabled()) {
+			InetAddress[] addresses = getRacingAddresses(remoteAddress);
+			if (addresses.length > 1) {
+				long start = System.nanoTime();
+				Socket connectedSocket = NetUtil.connect(new Callable<Socket>() {
+					private boolean first = true;
+
+					public Socket call() throws IOException {
+						if (first) {
+							first = false;
+							return socket;
+						}
+						return NetUtil.configureSocket(factory.createSocket());
+					}
+				}, addresses, remoteAddress.getPort(), connTimeout, NetUtil.getConnectRacingDelay());
+				RequestTimer.record(Phase.CONNECT, start);
+				return connectedSocket;
+			}
+		}
+
 		socket.bind(localAddress);
+		long start = System.nanoTime();
 		socket.connect(remoteAddress, connTimeout);
+		RequestTimer.record(Phase.CONNECT, start);
 		return socket;
 	}
 
+	/**
+	 * Returns the address of <code>remoteAddress</code> followed by the resolved addresses of its host that come after
+	 * it. The connection operator tries the resolved addresses in order, each attempt races the addresses that would
+	 * otherwise be tried next.
+	 */
+	static InetAddress[] getRacingAddresses(InetSocketAddress remoteAddress) {
+		InetAddress preferred = remoteAddress.getAddress();
+		if (preferred == null) {
+			return new InetAddress[0];
+		}
+		InetAddress[] addresses;
+		try {
+			addresses = NetUtil.getDnsCache().resolve(remoteAddress.getHostString());
+		} catch (UnknownHostException e) {
+			return new InetAddress[] { preferred };
+		}
+		int index = Arrays.asList(addresses).indexOf(preferred);
+		if (index != -1) {
+			return Arrays.copyOfRange(addresses, index, addresses.length);
+		}
+		InetAddress[] result = new InetAddress[addresses.length + 1];
+		result[0] = preferred;
+		System.arraycopy(addresses, 0, result, 1, addresses.length);
+		return result;
+	}
+
 	public boolean isSecure(Socket sock) throws IllegalArgumentException {
 		return false;
 	}
@@ -13,9 +13,11 @@
 package org.eclipse.mylyn.internal.commons.repositories.http.core;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.concurrent.Callable;
 
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
@@ -29,6 +31,7 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.mylyn.commons.core.net.NetUtil;
 import org.eclipse.mylyn.commons.core.net.SslSupport;
 import org.eclipse.mylyn.commons.core.net.TrustAllTrustManager;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpTimings.Phase;
 
 /**
  * Provides support for managing SSL connections.
@@ -40,7 +43,7 @@ public class PollingSslProtocolSocketFactory implements LayeredSchemeSocketFacto
 	private final SslSupport defaultSslSupport;
 
 	public PollingSslProtocolSocketFactory() {
-		this(new SslSupport(new TrustManager[] { new TrustAllTrustManager() }));
+		this(SslSupport.getCached(new TrustManager[] { new TrustAllTrustManager() }));
 	}
 
 	public PollingSslProtocolSocketFactory(SslSupport sslSupport) {
@@ -50,32 +53,65 @@ public class PollingSslProtocolSocketFactory implements LayeredSchemeSocketFacto
 	public Socket connectSocket(Socket sock, InetSocketAddress remoteAddress, InetSocketAddress localAddress,
 			HttpParams params) throws IOException, UnknownHostException, ConnectTimeoutException {
 		Assert.isNotNull(params);
-		final Socket socket = (sock != null) ? sock : createSocket(params);
-
-		if (localAddress != null) {
-			socket.setReuseAddress(HttpConnectionParams.getSoReuseaddr(params));
-			socket.bind(localAddress);
-		}
+		final HttpParams socketParams = params;
+		Socket socket = (sock != null) ? sock : createSocket(params);
 
 		int connTimeout = HttpConnectionParams.getConnectionTimeout(params);
-		socket.connect(remoteAddress, connTimeout);
-
-		if (socket instanceof SSLSocket) {
-			return socket;
+		InetAddress[] addresses = (localAddress == null && NetUtil.isConnectRacingEnabled())
+				? PollingProtocolSocketFactory.getRacingAddresses(remoteAddress)
+				: new InetAddress[0];
+		if (addresses.length > 1) {
+			final Socket firstSocket = socket;
+			long start = System.nanoTime();
+			socket = NetUtil.connect(new Callable<Socket>() {
+				private boolean first = true;
+
+				public Socket call() throws IOException {
+					if (first) {
+						first = false;
+						return firstSocket;
+					}
+					return createSocket(socketParams);
+				}
+			}, addresses, remoteAddress.getPort(), connTimeout, NetUtil.getConnectRacingDelay());
+			RequestTimer.record(Phase.CONNECT, start);
 		} else {
-			return getSslSupport(params).getSocketFactory().createSocket(socket, remoteAddress.getHostName(),
+			if (localAddress != null) {
+				socket.setReuseAddress(HttpConnectionParams.getSoReuseaddr(params));
+				socket.bind(localAddress);
+			}
+
+			long start = System.nanoTime();
+			socket.connect(remoteAddress, connTimeout);
+			RequestTimer.record(Phase.CONNECT, start);
+		}
+
+		SslSupport sslSupport = getSslSupport(params);
+		if (!(socket instanceof SSLSocket)) {
+			socket = sslSupport.getSocketFactory().createSocket(socket, remoteAddress.getHostName(),
 					remoteAddress.getPort(), true);
 		}
+		// HttpClient sets the socket timeout after the socket is returned, apply it to the handshake as well
+		socket.setSoTimeout(HttpConnectionParams.getSoTimeout(params));
+		return startHandshake(sslSupport, socket);
 	}
 
 	public Socket createLayeredSocket(Socket socket, String target, int port, boolean autoClose) throws IOException,
 			UnknownHostException {
-		return NetUtil.configureSocket(getDefaultSocketFactory().createSocket(socket, target, port, autoClose));
+		Socket sslSocket = NetUtil.configureSocket(getDefaultSocketFactory().createSocket(socket, target, port,
+				autoClose));
+		// without a timeout a stalled handshake would block forever, defer it to the first use of the socket which
+		// happens after HttpClient has set the timeout
+		if (socket.getSoTimeout() > 0) {
+			return startHandshake(defaultSslSupport, sslSocket);
+		}
+		return sslSocket;
 	}
 
 	public Socket createSocket(HttpParams params) throws IOException {
 		Assert.isNotNull(params);
-		return NetUtil.configureSocket(getSslSupport(params).getSocketFactory().createSocket());
+		SslSupport sslSupport = getSslSupport(params);
+		return NetUtil.configureSocket(sslSupport.getSocketFactory().createSocket());
 	}
 
 	@Override
@@ -100,6 +136,10 @@ public class PollingSslProtocolSocketFactory implements LayeredSchemeSocketFacto
 		return true;
 	}
 
+	public SslSupport getDefaultSslSupport() {
+		return defaultSslSupport;
+	}
+
 	public SSLSocketFactory getDefaultSocketFactory() throws IOException {
 		return defaultSslSupport.getSocketFactory();
 	}
@@ -123,6 +163,19 @@ public class PollingSslProtocolSocketFactory implements LayeredSchemeSocketFacto
 		return true;
 	}
 
+	/**
+	 * Performs the handshake explicitly rather than on first use of the socket to record its duration separately from
+	 * the server response time.
+	 */
+	private Socket startHandshake(SslSupport sslSupport, Socket socket) throws IOException {
+		if (socket instanceof SSLSocket) {
+			long start = System.nanoTime();
+			sslSupport.startHandshake((SSLSocket) socket);
+			RequestTimer.record(Phase.TLS_HANDSHAKE, start);
+		}
+		return socket;
+	}
+
 	private SslSupport getSslSupport(HttpParams params) {
 		SslSupport sslSupport = (SslSupport) params.getParameter(SslSupport.class.getName());
 		return (sslSupport != null) ? sslSupport : defaultSslSupport;
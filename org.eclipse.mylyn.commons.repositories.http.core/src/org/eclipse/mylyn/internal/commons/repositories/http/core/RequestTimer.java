@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.repositories.http.core;
+
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpTimings;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpTimings.Phase;
+
+/**
+ * Records the phases of a request. The timer is bound to the executing thread while the request is sent so that the
+ * connection manager and socket factories can record the phases they handle through {@link #record(Phase, long)}.
+ * The time until the response headers are received that is not attributed to another phase is recorded as
+ * {@link Phase#SERVER}.
+ */
+public class RequestTimer {
+
+	private static final ThreadLocal<RequestTimer> currentTimer = new ThreadLocal<RequestTimer>();
+
+	/**
+	 * Adds the time elapsed since <code>startTime</code> to <code>phase</code> of the timer bound to the current
+	 * thread. Has no effect if no timer is bound.
+	 *
+	 * @param startTime
+	 *            the start of the phase as returned by {@link System#nanoTime()}
+	 */
+	public static void record(Phase phase, long startTime) {
+		RequestTimer timer = currentTimer.get();
+		if (timer != null) {
+			timer.add(phase, System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Creates a timer and binds it to the current thread until {@link #responseReceived()} is invoked.
+	 */
+	public static RequestTimer start(RepositoryLocation location) {
+		RequestTimer timer = new RequestTimer(location, System.nanoTime());
+		currentTimer.set(timer);
+		return timer;
+	}
+
+	private boolean completed;
+
+	private final long[] durations = new long[Phase.values().length];
+
+	private final RepositoryLocation location;
+
+	private long responseTime;
+
+	private final long startTime;
+
+	RequestTimer(RepositoryLocation location, long startTime) {
+		this.location = location;
+		this.startTime = startTime;
+	}
+
+	/**
+	 * Records the transfer of the response entity. Returns <code>true</code> the first time it is invoked after the
+	 * response was received.
+	 */
+	public synchronized boolean complete() {
+		if (completed || responseTime == 0) {
+			return false;
+		}
+		completed = true;
+		durations[Phase.TRANSFER.ordinal()] = System.nanoTime() - responseTime;
+		return true;
+	}
+
+	public RepositoryLocation getLocation() {
+		return location;
+	}
+
+	public synchronized HttpTimings getTimings() {
+		return new HttpTimings(durations);
+	}
+
+	/**
+	 * Unbinds the timer from the current thread and records the remaining time since the timer was started as
+	 * {@link Phase#SERVER}.
+	 */
+	public synchronized void responseReceived() {
+		if (currentTimer.get() == this) {
+			currentTimer.remove();
+		}
+		responseTime = System.nanoTime();
+		long server = responseTime - startTime;
+		for (Phase phase : Phase.values()) {
+			server -= durations[phase.ordinal()];
+		}
+		durations[Phase.SERVER.ordinal()] += Math.max(0, server);
+	}
+
+	synchronized void add(Phase phase, long duration) {
+		durations[phase.ordinal()] += duration;
+	}
+
+}
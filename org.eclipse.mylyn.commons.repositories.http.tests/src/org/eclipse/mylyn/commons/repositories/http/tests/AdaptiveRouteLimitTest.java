@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.mylyn.internal.commons.repositories.http.core.AdaptiveRouteLimit;
+import org.junit.Test;
+
+public class AdaptiveRouteLimitTest {
+
+	private final AdaptiveRouteLimit limit = new AdaptiveRouteLimit();
+
+	private long now = 1000;
+
+	@Test
+	public void testNoSamples() {
+		assertEquals(2, adapt(2, 0, 0));
+	}
+
+	@Test
+	public void testGrowWhileWaiting() {
+		limit.released(20);
+		limit.leased(200);
+		assertEquals(3, adapt(2, 1, 2));
+		assertEquals(4, adapt(3, 1, 3));
+		// upper bound
+		assertEquals(4, adapt(4, 1, 4));
+	}
+
+	@Test
+	public void testAdaptInterval() {
+		limit.released(20);
+		limit.leased(200);
+		assertEquals(3, limit.adapt(now, 2, 1, 2, 1, 4));
+		assertEquals(3, limit.adapt(now + 1, 3, 1, 3, 1, 4));
+	}
+
+	@Test
+	public void testShrinkUnderutilized() {
+		limit.released(20);
+		assertEquals(3, adapt(4, 0, 1));
+		assertEquals(2, adapt(3, 0, 0));
+		// lower bound
+		assertEquals(1, adapt(1, 0, 0));
+	}
+
+	@Test
+	public void testShrinkLatencyDegraded() {
+		limit.released(20);
+		limit.released(100);
+		limit.leased(200);
+		assertEquals(3, adapt(4, 1, 4));
+	}
+
+	@Test
+	public void testNoOscillationWhileLatencyDegraded() {
+		for (int i = 0; i < 5; i++) {
+			limit.released(20);
+		}
+		limit.released(100);
+		int max = adapt(4, 1, 4);
+		assertEquals(3, max);
+
+		// requests keep waiting while the server stays slow, the limit must not grow back
+		for (int i = 0; i < 5; i++) {
+			limit.leased(200);
+			limit.released(100);
+			int newMax = adapt(max, 1, max);
+			assertTrue("Limit grew from " + max + " to " + newMax, newMax <= max);
+			max = newMax;
+		}
+	}
+
+	@Test
+	public void testBaselineFollowsLastingChange() {
+		limit.released(20);
+		limit.leased(200);
+		for (int i = 0; i < 200; i++) {
+			limit.released(100);
+			adapt(2, 1, 2);
+		}
+		assertEquals(100, limit.getBaselineLeaseTime(), 10);
+		// the server is consistently slower, requests waiting for connections let the limit grow again
+		assertEquals(3, adapt(2, 1, 2));
+	}
+
+	private int adapt(int max, int pending, int leased) {
+		now += 1000;
+		return limit.adapt(now, max, pending, leased, 1, 4);
+	}
+
+}
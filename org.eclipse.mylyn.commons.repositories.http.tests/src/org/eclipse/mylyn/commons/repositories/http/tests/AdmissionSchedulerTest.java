@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpUtil;
+import org.eclipse.mylyn.commons.repositories.http.core.QueueStatistics;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.AdmissionScheduler;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.AdmissionScheduler.Priority;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.AdmissionScheduler.Ticket;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.InstrumentedConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdmissionSchedulerTest {
+
+	private InstrumentedConnectionManager connectionManager;
+
+	private HttpRoute route;
+
+	private AdmissionScheduler scheduler;
+
+	@Before
+	public void setUp() throws Exception {
+		connectionManager = new InstrumentedConnectionManager(HttpUtil.getSchemeRegistry());
+		scheduler = connectionManager.getAdmissionScheduler();
+		route = new HttpRoute(new HttpHost("localhost", 80));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connectionManager.shutdown();
+	}
+
+	@Test
+	public void testBackgroundLimit() throws Exception {
+		connectionManager.setMaxForRoute(route, 4);
+		assertEquals(3, scheduler.getMaxBackgroundForRoute(route));
+
+		for (int i = 0; i < 3; i++) {
+			scheduler.admit(route, Priority.BACKGROUND, 100, TimeUnit.MILLISECONDS);
+		}
+		try {
+			scheduler.admit(route, Priority.BACKGROUND, 100, TimeUnit.MILLISECONDS);
+			fail("Expected ConnectionPoolTimeoutException");
+		} catch (ConnectionPoolTimeoutException e) {
+			// expected
+		}
+		// the remaining connection is reserved for interactive requests
+		scheduler.admit(route, Priority.INTERACTIVE, 100, TimeUnit.MILLISECONDS);
+	}
+
+	@Test
+	public void testSetMaxBackgroundPerRoute() throws Exception {
+		connectionManager.setMaxForRoute(route, 4);
+		scheduler.setMaxBackgroundPerRoute(1);
+		assertEquals(1, scheduler.getMaxBackgroundForRoute(route));
+
+		Ticket ticket = scheduler.admit(route, Priority.BACKGROUND, 100, TimeUnit.MILLISECONDS);
+		try {
+			scheduler.admit(route, Priority.BACKGROUND, 100, TimeUnit.MILLISECONDS);
+			fail("Expected ConnectionPoolTimeoutException");
+		} catch (ConnectionPoolTimeoutException e) {
+			// expected
+		}
+		ticket.release();
+		scheduler.admit(route, Priority.BACKGROUND, 100, TimeUnit.MILLISECONDS);
+	}
+
+	@Test
+	public void testInteractiveAdmittedFirst() throws Exception {
+		connectionManager.setMaxForRoute(route, 1);
+		Ticket ticket = scheduler.admit(route, Priority.INTERACTIVE, 100, TimeUnit.MILLISECONDS);
+
+		List<Priority> admitted = new CopyOnWriteArrayList<Priority>();
+		Thread background = startAdmit(Priority.BACKGROUND, admitted);
+		waitForWaiting(Priority.BACKGROUND, 1);
+		Thread interactive = startAdmit(Priority.INTERACTIVE, admitted);
+		waitForWaiting(Priority.INTERACTIVE, 1);
+
+		ticket.release();
+		background.join(5000);
+		interactive.join(5000);
+		assertEquals(2, admitted.size());
+		assertEquals(Priority.INTERACTIVE, admitted.get(0));
+		assertEquals(Priority.BACKGROUND, admitted.get(1));
+
+		QueueStatistics statistics = scheduler.getStatistics(Priority.BACKGROUND);
+		assertTrue(statistics.isBackground());
+		assertEquals(1, statistics.getAdmittedCount());
+		assertEquals(0, statistics.getWaiting());
+		assertTrue(statistics.getMaxWaitTime() > 0);
+		assertEquals(2, scheduler.getStatistics(Priority.INTERACTIVE).getAdmittedCount());
+		assertFalse(scheduler.getStatistics(Priority.INTERACTIVE).isBackground());
+	}
+
+	@Test
+	public void testAbort() throws Exception {
+		connectionManager.setMaxForRoute(route, 1);
+		scheduler.admit(route, Priority.INTERACTIVE, 100, TimeUnit.MILLISECONDS);
+
+		final Ticket ticket = scheduler.createTicket(route, Priority.INTERACTIVE);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					scheduler.admit(ticket, 0, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				} catch (ConnectionPoolTimeoutException e) {
+					// ignore
+				}
+			}
+		};
+		thread.start();
+		waitForWaiting(Priority.INTERACTIVE, 1);
+		ticket.abort();
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		assertEquals(0, scheduler.getStatistics(Priority.INTERACTIVE).getWaiting());
+	}
+
+	@Test
+	public void testReleaseIgnoredIfNotAdmitted() throws Exception {
+		connectionManager.setMaxForRoute(route, 1);
+		Ticket ticket = scheduler.createTicket(route, Priority.INTERACTIVE);
+		ticket.release();
+		scheduler.admit(ticket, 100, TimeUnit.MILLISECONDS);
+		ticket.release();
+		ticket.release();
+		scheduler.admit(route, Priority.INTERACTIVE, 100, TimeUnit.MILLISECONDS);
+	}
+
+	private Thread startAdmit(final Priority priority, final List<Priority> admitted) {
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Ticket ticket = scheduler.admit(route, priority, 5000, TimeUnit.MILLISECONDS);
+					admitted.add(priority);
+					Thread.sleep(20);
+					ticket.release();
+				} catch (Exception e) {
+					// fail below
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+	private void waitForWaiting(Priority priority, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (scheduler.getStatistics(priority).getWaiting() != count) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("Expected " + count + " waiting requests");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker;
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker.State;
+import org.eclipse.mylyn.commons.core.net.CircuitOpenException;
+import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpClient;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpOperation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpResponse;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpUtil;
+import org.eclipse.mylyn.commons.sdk.util.MockServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+	private CommonHttpClient client;
+
+	private volatile IOException failure = new NoHttpResponseException("Simulated failure");
+
+	private final AtomicInteger failures = new AtomicInteger();
+
+	private RepositoryLocation location;
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	private MockServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new MockServer();
+		server.startAndWait();
+
+		location = new RepositoryLocation(server.getUrl()) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		client = new CommonHttpClient(location) {
+			@Override
+			public HttpResponse execute(HttpRequestBase request, IOperationMonitor monitor) throws IOException {
+				requests.incrementAndGet();
+				if (failures.getAndDecrement() > 0) {
+					throw failure;
+				}
+				return super.execute(request, monitor);
+			}
+		};
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testGetCircuitBreaker() throws Exception {
+		location.setProperty(RepositoryLocation.PROPERTY_CIRCUIT_BREAKER_THRESHOLD, "3");
+		CircuitBreaker breaker = HttpUtil.getCircuitBreaker(location);
+		assertSame(breaker, HttpUtil.getCircuitBreaker(location));
+		assertEquals(3, breaker.getFailureThreshold());
+		assertNotSame(breaker, HttpUtil.getCircuitBreaker(new RepositoryLocation(server.getUrl())));
+	}
+
+	@Test
+	public void testGetCircuitBreakerPropertyChanged() throws Exception {
+		location.setProperty(RepositoryLocation.PROPERTY_CIRCUIT_BREAKER_THRESHOLD, "1");
+		CircuitBreaker breaker = HttpUtil.getCircuitBreaker(location);
+		breaker.recordFailure(breaker.acquire());
+		assertEquals(State.OPEN, breaker.getState());
+
+		location.setProperty(RepositoryLocation.PROPERTY_CIRCUIT_BREAKER_THRESHOLD, "0");
+		location.setProperty(RepositoryLocation.PROPERTY_CIRCUIT_BREAKER_OPEN_TIME, "2000");
+		assertSame(breaker, HttpUtil.getCircuitBreaker(location));
+		assertEquals(0, breaker.getFailureThreshold());
+		assertEquals(2000, breaker.getOpenTime());
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	public void testOpenOnServiceUnavailable() throws Exception {
+		location.setProperty(RepositoryLocation.PROPERTY_CIRCUIT_BREAKER_THRESHOLD, "1");
+		server.addResponse(MockServer.SERVICE_UNVAILABLE);
+		CommonHttpResponse response = createOperation().execute(new HttpGet(server.getUrl()), null);
+		try {
+			assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, response.getStatusCode());
+		} finally {
+			response.release();
+		}
+		assertEquals(State.OPEN, HttpUtil.getCircuitBreaker(location).getState());
+
+		try {
+			createOperation().execute(new HttpGet(server.getUrl()), null);
+			fail("Expected CircuitOpenException");
+		} catch (CircuitOpenException expected) {
+		}
+		assertEquals(1, requests.get());
+	}
+
+	@Test
+	public void testOpenOnConnectFailure() throws Exception {
+		location.setProperty(RepositoryLocation.PROPERTY_CIRCUIT_BREAKER_THRESHOLD, "2");
+		failure = new ConnectException("Simulated failure");
+		failures.set(2);
+		for (int i = 0; i < 2; i++) {
+			try {
+				createOperation().execute(new HttpGet(server.getUrl()), null);
+				fail("Expected ConnectException");
+			} catch (ConnectException expected) {
+			}
+		}
+		assertEquals(State.OPEN, HttpUtil.getCircuitBreaker(location).getState());
+	}
+
+	@Test
+	public void testNoOpenOnReadTimeout() throws Exception {
+		location.setProperty(RepositoryLocation.PROPERTY_CIRCUIT_BREAKER_THRESHOLD, "2");
+		failure = new SocketTimeoutException("Simulated failure");
+		failures.set(2);
+		for (int i = 0; i < 2; i++) {
+			try {
+				createOperation().execute(new HttpGet(server.getUrl()), null);
+				fail("Expected SocketTimeoutException");
+			} catch (SocketTimeoutException expected) {
+			}
+		}
+		assertEquals(State.CLOSED, HttpUtil.getCircuitBreaker(location).getState());
+	}
+
+	@Test
+	public void testRetryIdempotentRequest() throws Exception {
+		location.setProperty(RepositoryLocation.PROPERTY_RETRY_COUNT, "2");
+		location.setProperty(RepositoryLocation.PROPERTY_RETRY_DELAY, "1");
+		failures.set(2);
+		server.addResponse(MockServer.OK);
+		CommonHttpResponse response = createOperation().execute(new HttpGet(server.getUrl()), null);
+		try {
+			assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+		} finally {
+			response.release();
+		}
+		assertEquals(3, requests.get());
+	}
+
+	@Test
+	public void testRetryExhausted() throws Exception {
+		location.setProperty(RepositoryLocation.PROPERTY_RETRY_COUNT, "1");
+		location.setProperty(RepositoryLocation.PROPERTY_RETRY_DELAY, "1");
+		failures.set(2);
+		try {
+			createOperation().execute(new HttpGet(server.getUrl()), null);
+			fail("Expected NoHttpResponseException");
+		} catch (NoHttpResponseException expected) {
+		}
+		assertEquals(2, requests.get());
+	}
+
+	@Test
+	public void testNoRetryOfPost() throws Exception {
+		location.setProperty(RepositoryLocation.PROPERTY_RETRY_COUNT, "2");
+		location.setProperty(RepositoryLocation.PROPERTY_RETRY_DELAY, "1");
+		failures.set(1);
+		try {
+			createOperation().execute(new HttpPost(server.getUrl()), null);
+			fail("Expected NoHttpResponseException");
+		} catch (NoHttpResponseException expected) {
+		}
+		assertEquals(1, requests.get());
+	}
+
+	private CommonHttpOperation<CommonHttpResponse> createOperation() {
+		return new CommonHttpOperation<CommonHttpResponse>(client) {
+		};
+	}
+
+}
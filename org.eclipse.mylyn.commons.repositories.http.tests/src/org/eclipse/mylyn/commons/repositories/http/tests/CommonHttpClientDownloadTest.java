@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpClient;
+import org.eclipse.mylyn.commons.sdk.util.MockServer;
+import org.eclipse.mylyn.internal.commons.core.operations.NullOperationMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CommonHttpClientDownloadTest {
+
+	private static class CountingMonitor extends NullOperationMonitor {
+
+		private int cancelAfter = -1;
+
+		private int totalWork;
+
+		private int worked;
+
+		@Override
+		public void beginTask(String name, int totalWork) {
+			this.totalWork = totalWork;
+		}
+
+		@Override
+		public void worked(int work) {
+			worked += work;
+			if (worked == cancelAfter) {
+				setCanceled(true);
+			}
+		}
+
+	}
+
+	private CommonHttpClient client;
+
+	private Path file;
+
+	private MockServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new MockServer();
+		server.startAndWait();
+
+		RepositoryLocation location = new RepositoryLocation(server.getUrl()) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		client = new CommonHttpClient(location);
+		file = Files.createTempFile("download", ".tmp");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testDownload() throws Exception {
+		byte[] content = createContent(200 * 1024);
+		server.addResponse(createResponse(content));
+		CountingMonitor monitor = new CountingMonitor();
+
+		assertEquals(content.length, client.download("/attachment", file, monitor));
+		assertArrayEquals(content, Files.readAllBytes(file));
+		assertEquals(4, monitor.totalWork);
+		assertEquals(3, monitor.worked);
+	}
+
+	@Test
+	public void testDownloadReplacesContent() throws Exception {
+		Files.write(file, createContent(1024));
+		byte[] content = createContent(10);
+		server.addResponse(createResponse(content));
+
+		assertEquals(content.length, client.download("/attachment", file, null));
+		assertArrayEquals(content, Files.readAllBytes(file));
+	}
+
+	@Test
+	public void testDownloadNotFound() throws Exception {
+		Files.delete(file);
+		server.addResponse(MockServer.NOT_FOUND);
+		try {
+			client.download("/attachment", file, null);
+			fail("Expected HttpResponseException");
+		} catch (HttpResponseException e) {
+			assertEquals(HttpStatus.SC_NOT_FOUND, e.getStatusCode());
+		}
+		assertFalse(Files.exists(file));
+	}
+
+	@Test
+	public void testDownloadCanceled() throws Exception {
+		server.addResponse(createResponse(createContent(512 * 1024)));
+		CountingMonitor monitor = new CountingMonitor();
+		monitor.cancelAfter = 1;
+		try {
+			client.download("/attachment", file, monitor);
+			fail("Expected OperationCanceledException");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		assertTrue(monitor.isCanceled());
+		assertFalse(Files.exists(file));
+	}
+
+	private byte[] createContent(int length) {
+		byte[] content = new byte[length];
+		Arrays.fill(content, (byte) 'x');
+		for (int i = 0; i < length; i += 100) {
+			content[i] = (byte) ('a' + (i / 100) % 26);
+		}
+		return content;
+	}
+
+	private String createResponse(byte[] content) {
+		return "HTTP/1.1 200 OK\nContent-Length: " + content.length + "\n\n" + new String(content);
+	}
+
+}
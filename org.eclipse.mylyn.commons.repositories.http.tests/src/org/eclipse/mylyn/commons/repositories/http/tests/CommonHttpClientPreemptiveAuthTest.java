@@ -14,7 +14,9 @@ package org.eclipse.mylyn.commons.repositories.http.tests;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.IOException;
 import java.net.Proxy;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.http.HttpStatus;
 import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
@@ -106,6 +108,41 @@ public class CommonHttpClientPreemptiveAuthTest {
 		assertEquals(HttpStatus.SC_OK, response.getStatusCode());
 	}
 
+	@Test
+	public void testExecuteGetAuthChallengeSharedAcrossThreads() throws Exception {
+		RepositoryLocation location = createLocation();
+		location.setCredentials(AuthenticationType.HTTP, new UserCredentials("user", "pass"));
+		final CommonHttpClient client = new CommonHttpClient(location);
+
+		server.addResponse(MockServer.UNAUTHORIZED);
+		server.addResponse(MockServer.OK);
+		CommonHttpResponse response = client.executeGet("/", null, HttpRequestProcessor.DEFAULT);
+		assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+		server.getRequest();
+		server.getRequest();
+		assertEquals(1, client.getChallengeCount());
+
+		// the learned scheme is used preemptively by other threads
+		server.addResponse(MockServer.OK);
+		final AtomicReference<IOException> exception = new AtomicReference<IOException>();
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					client.executeGet("/", null, HttpRequestProcessor.DEFAULT);
+				} catch (IOException e) {
+					exception.set(e);
+				}
+			}
+		};
+		thread.start();
+		thread.join();
+		assertEquals(null, exception.get());
+		assertEquals("Authorization: Basic dXNlcjpwYXNz", server.getRequest().getHeader("Authorization"));
+		assertEquals(1, client.getChallengeCount());
+		assertEquals(3, client.getResponseCount());
+	}
+
 	private RepositoryLocation createLocation() {
 		return new RepositoryLocation(server.getUrl()) {
 			@Override
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.mylyn.commons.core.net.NetUtil;
+import org.eclipse.mylyn.commons.core.operations.IExecutorMetrics;
+import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpClient;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpOperation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpResponse;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpRequestProcessor;
+import org.eclipse.mylyn.commons.sdk.util.MockServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CommonHttpOperationAsyncTest {
+
+	private CommonHttpClient client;
+
+	private MockServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new MockServer();
+		server.startAndWait();
+
+		RepositoryLocation location = new RepositoryLocation(server.getUrl()) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		client = new CommonHttpClient(location);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testExecuteAsync() throws Exception {
+		server.addResponse(MockServer.OK);
+		CompletableFuture<CommonHttpResponse> future = createOperation().executeAsync(new HttpGet(server.getUrl()),
+				null);
+		CommonHttpResponse response = future.get(30, TimeUnit.SECONDS);
+		try {
+			assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+		} finally {
+			response.release();
+		}
+	}
+
+	@Test
+	public void testExecuteGetAsync() throws Exception {
+		server.addResponse(MockServer.OK);
+		CompletableFuture<Integer> future = client.executeGetAsync("", null, new HttpRequestProcessor<Integer>() {
+			@Override
+			protected Integer doProcess(CommonHttpResponse response, IOperationMonitor monitor) throws IOException {
+				return response.getStatusCode();
+			}
+		});
+		assertEquals(Integer.valueOf(HttpStatus.SC_OK), future.get(30, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testExecuteAsyncMonitorCanceled() throws Exception {
+		IOperationMonitor monitor = OperationUtil.convert(null);
+		monitor.setCanceled(true);
+		CompletableFuture<CommonHttpResponse> future = createOperation().executeAsync(new HttpGet(server.getUrl()),
+				monitor);
+		try {
+			future.get(30, TimeUnit.SECONDS);
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof OperationCanceledException);
+		}
+	}
+
+	@Test
+	public void testExecuteAsyncCancel() throws Exception {
+		server.setWaitForResponse(true);
+		HttpGet request = new HttpGet(server.getUrl());
+		CompletableFuture<CommonHttpResponse> future = createOperation().executeAsync(request, null);
+		server.waitForRequest();
+
+		assertTrue(future.cancel(true));
+		assertTrue(future.isCancelled());
+		assertTrue(request.isAborted());
+	}
+
+	@Test
+	public void testExecuteAsyncError() throws Exception {
+		final AssertionError error = new AssertionError();
+		CommonHttpOperation<CommonHttpResponse> operation = new CommonHttpOperation<CommonHttpResponse>(client) {
+			@Override
+			public CommonHttpResponse execute(HttpRequestBase request, IOperationMonitor monitor) throws IOException {
+				throw error;
+			}
+		};
+		CompletableFuture<CommonHttpResponse> future = operation.executeAsync(new HttpGet(server.getUrl()), null);
+		try {
+			future.get(30, TimeUnit.SECONDS);
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertSame(error, e.getCause());
+		}
+	}
+
+	@Test
+	public void testExecuteAsyncRejected() throws Exception {
+		HttpGet request = new HttpGet(server.getUrl());
+		CompletableFuture<CommonHttpResponse> future = createOperation().executeAsync(request, null, new Executor() {
+			public void execute(Runnable command) {
+				throw new RejectedExecutionException();
+			}
+		});
+		try {
+			future.get(30, TimeUnit.SECONDS);
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+	}
+
+	@Test
+	public void testExecutorIsBounded() throws Exception {
+		OperationUtil.getExecutorService(OperationUtil.EXECUTOR_HTTP);
+		IExecutorMetrics metrics = OperationUtil.getExecutorMetrics(OperationUtil.EXECUTOR_HTTP);
+		assertEquals(NetUtil.getMaxHttpConnectionsPerHost(), metrics.getMaxThreads());
+	}
+
+	@Test
+	public void testExecutorQueuesBurst() throws Exception {
+		ExecutorService executor = OperationUtil.getExecutorService(OperationUtil.EXECUTOR_HTTP);
+		IExecutorMetrics metrics = OperationUtil.getExecutorMetrics(OperationUtil.EXECUTOR_HTTP);
+		long rejectedCount = metrics.getRejectedCount();
+		final CountDownLatch latch = new CountDownLatch(1);
+		final CountDownLatch completed = new CountDownLatch(metrics.getMaxThreads() + 1000);
+		try {
+			for (int i = 0; i < metrics.getMaxThreads() + 1000; i++) {
+				executor.execute(new Runnable() {
+					public void run() {
+						try {
+							latch.await();
+						} catch (InterruptedException e) {
+							// ignore
+						}
+						completed.countDown();
+					}
+				});
+			}
+			assertEquals(1000, metrics.getQueueSize());
+			assertEquals(rejectedCount, metrics.getRejectedCount());
+		} finally {
+			latch.countDown();
+		}
+		assertTrue(completed.await(30, TimeUnit.SECONDS));
+	}
+
+	private CommonHttpOperation<CommonHttpResponse> createOperation() {
+		return new CommonHttpOperation<CommonHttpResponse>(client) {
+		};
+	}
+
+}
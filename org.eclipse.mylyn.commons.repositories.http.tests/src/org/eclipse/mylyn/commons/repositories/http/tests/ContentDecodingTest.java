@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.net.Proxy;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpClient;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpRequestProcessor;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpUtil;
+import org.eclipse.mylyn.commons.sdk.util.MockServer;
+import org.eclipse.mylyn.commons.sdk.util.MockServer.Message;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.ContentDecodingInterceptor;
+import org.junit.Test;
+
+public class ContentDecodingTest {
+
+	private final ContentDecodingInterceptor interceptor = new ContentDecodingInterceptor();
+
+	@Test
+	public void testAcceptEncoding() throws Exception {
+		BasicHttpRequest request = new BasicHttpRequest("GET", "/");
+		interceptor.process(request, null);
+		assertEquals("gzip, deflate", request.getFirstHeader("Accept-Encoding").getValue());
+
+		request = new BasicHttpRequest("GET", "/");
+		request.addHeader("Accept-Encoding", "identity");
+		interceptor.process(request, null);
+		assertEquals(1, request.getHeaders("Accept-Encoding").length);
+		assertEquals("identity", request.getFirstHeader("Accept-Encoding").getValue());
+	}
+
+	@Test
+	public void testAcceptEncodingSent() throws Exception {
+		MockServer server = new MockServer();
+		server.startAndWait();
+		try {
+			CommonHttpClient client = new CommonHttpClient(new RepositoryLocation(server.getUrl()) {
+				@Override
+				public Proxy getProxyForHost(String host, String proxyType) {
+					return null;
+				}
+			});
+			server.addResponse(MockServer.OK);
+			client.executeGet("", null, HttpRequestProcessor.DEFAULT);
+			Message request = server.getRequest();
+			assertEquals("gzip, deflate", request.getHeaderValue("Accept-Encoding"));
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testDecodeGzip() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(out);
+		for (int i = 0; i < 100; i++) {
+			gzip.write("compressed content ".getBytes("US-ASCII"));
+		}
+		gzip.close();
+
+		BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		ByteArrayEntity entity = new ByteArrayEntity(out.toByteArray());
+		entity.setContentEncoding("gzip");
+		response.setEntity(entity);
+		response.addHeader("Content-Encoding", "gzip");
+		response.addHeader("Content-Length", Integer.toString(out.size()));
+
+		long compressedCount = HttpUtil.getCompressedByteCount();
+		long uncompressedCount = HttpUtil.getUncompressedByteCount();
+		interceptor.process(response, null);
+		HttpEntity decodedEntity = response.getEntity();
+		assertNull(decodedEntity.getContentEncoding());
+		assertEquals(-1, decodedEntity.getContentLength());
+		assertFalse(response.containsHeader("Content-Encoding"));
+		assertFalse(response.containsHeader("Content-Length"));
+		assertSame(decodedEntity.getContent(), decodedEntity.getContent());
+
+		String content = EntityUtils.toString(decodedEntity);
+		assertEquals(100 * "compressed content ".length(), content.length());
+		assertEquals(out.size(), HttpUtil.getCompressedByteCount() - compressedCount);
+		assertEquals(content.length(), HttpUtil.getUncompressedByteCount() - uncompressedCount);
+	}
+
+	@Test
+	public void testDecodeCountedWithoutClose() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(out);
+		gzip.write(new byte[10000]);
+		gzip.close();
+
+		BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		ByteArrayEntity entity = new ByteArrayEntity(out.toByteArray());
+		entity.setContentEncoding("gzip");
+		response.setEntity(entity);
+
+		long compressedCount = HttpUtil.getCompressedByteCount();
+		long uncompressedCount = HttpUtil.getUncompressedByteCount();
+		interceptor.process(response, null);
+		// an aborted request never closes the content stream
+		assertEquals(100, response.getEntity().getContent().read(new byte[100]));
+		assertEquals(out.size(), HttpUtil.getCompressedByteCount() - compressedCount);
+		assertEquals(100, HttpUtil.getUncompressedByteCount() - uncompressedCount);
+	}
+
+	@Test
+	public void testIdentity() throws Exception {
+		BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		StringEntity entity = new StringEntity("plain");
+		response.setEntity(entity);
+		interceptor.process(response, null);
+		assertSame(entity, response.getEntity());
+	}
+
+}
@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Proxy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.mylyn.commons.core.storage.CommonStore;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpClient;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpOperation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpResponse;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpCachePolicy;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpResponseCache;
+import org.eclipse.mylyn.commons.sdk.util.MockServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpResponseCacheTest {
+
+	private static final String RESPONSE_OK = "HTTP/1.1 200 OK\nETag: \"1\"\nContent-Length: 5\n"
+			+ MockServer.HEADER_CONNECTION_CLOSE + "\n\nhello";
+
+	private static final String RESPONSE_OK_CHUNKED = "HTTP/1.1 200 OK\nETag: \"1\"\nTransfer-Encoding: chunked\n"
+			+ MockServer.HEADER_CONNECTION_CLOSE + "\n\n5\nhello\n0\n";
+
+	private static final String RESPONSE_OK_VARY = "HTTP/1.1 200 OK\nETag: \"1\"\nVary: Accept-Language\n"
+			+ "Content-Length: 5\n" + MockServer.HEADER_CONNECTION_CLOSE + "\n\nhello";
+
+	private static final String RESPONSE_OK_NO_CACHE = "HTTP/1.1 200 OK\nETag: \"1\"\nCache-Control: no-cache\n"
+			+ "Content-Length: 5\n" + MockServer.HEADER_CONNECTION_CLOSE + "\n\nhello";
+
+	private static final String RESPONSE_OK_EXPIRED = "HTTP/1.1 200 OK\nETag: \"1\"\nCache-Control: max-age=0\n"
+			+ "Content-Length: 5\n" + MockServer.HEADER_CONNECTION_CLOSE + "\n\nhello";
+
+	private static final String RESPONSE_OK_PRIVATE = "HTTP/1.1 200 OK\nETag: \"1\"\nCache-Control: private\n"
+			+ "Content-Length: 5\n" + MockServer.HEADER_CONNECTION_CLOSE + "\n\nhello";
+
+	private static final String RESPONSE_NOT_MODIFIED = "HTTP/1.1 304 Not Modified\n"
+			+ MockServer.HEADER_CONNECTION_CLOSE;
+
+	private CommonHttpClient client;
+
+	private MockServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new MockServer();
+		server.startAndWait();
+
+		RepositoryLocation location = new RepositoryLocation(server.getUrl()) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		client = new CommonHttpClient(location);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testNoCache() throws Exception {
+		client.setResponseCache(new HttpResponseCache());
+
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", execute(HttpCachePolicy.NO_CACHE));
+		assertEquals(null, server.getRequest().getHeader("If-None-Match"));
+
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", execute(HttpCachePolicy.NO_CACHE));
+		assertEquals(null, server.getRequest().getHeader("If-None-Match"));
+		assertEquals(0, client.getResponseCache().getMissCount());
+	}
+
+	@Test
+	public void testRevalidate() throws Exception {
+		HttpResponseCache cache = new HttpResponseCache();
+		client.setResponseCache(cache);
+
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", execute(HttpCachePolicy.REVALIDATE));
+		assertEquals(null, server.getRequest().getHeader("If-None-Match"));
+		assertEquals(1, cache.getMissCount());
+
+		server.addResponse(RESPONSE_NOT_MODIFIED);
+		assertEquals("hello", execute(HttpCachePolicy.REVALIDATE));
+		assertEquals("If-None-Match: \"1\"", server.getRequest().getHeader("If-None-Match"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getRevalidationCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testRevalidateChunked() throws Exception {
+		HttpResponseCache cache = new HttpResponseCache();
+		client.setResponseCache(cache);
+
+		server.addResponse(RESPONSE_OK_CHUNKED);
+		assertEquals("hello", execute(HttpCachePolicy.REVALIDATE));
+		server.getRequest();
+
+		server.addResponse(RESPONSE_NOT_MODIFIED);
+		assertEquals("hello", execute(HttpCachePolicy.REVALIDATE));
+		assertEquals("If-None-Match: \"1\"", server.getRequest().getHeader("If-None-Match"));
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void testRevalidateTooLarge() throws Exception {
+		HttpResponseCache cache = new HttpResponseCache(null, HttpResponseCache.DEFAULT_MAX_ENTRIES, 3);
+		client.setResponseCache(cache);
+
+		server.addResponse(RESPONSE_OK_CHUNKED);
+		assertEquals("hello", execute(HttpCachePolicy.REVALIDATE));
+		server.getRequest();
+
+		server.addResponse(RESPONSE_OK_CHUNKED);
+		assertEquals("hello", execute(HttpCachePolicy.REVALIDATE));
+		assertEquals(null, server.getRequest().getHeader("If-None-Match"));
+		assertEquals(0, cache.getHitCount());
+	}
+
+	@Test
+	public void testRevalidateEvicted() throws Exception {
+		final HttpResponseCache cache = new HttpResponseCache();
+		client.setResponseCache(cache);
+
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", execute(HttpCachePolicy.REVALIDATE));
+		server.getRequest();
+
+		// evict the response while the conditional request is pending
+		server.setAutoClose(false);
+		server.setWaitForResponse(true);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> result = executor.submit(new Callable<String>() {
+				public String call() throws Exception {
+					return execute(HttpCachePolicy.REVALIDATE);
+				}
+			});
+			assertEquals("If-None-Match: \"1\"", server.waitForRequest().getHeader("If-None-Match"));
+			cache.remove(server.getUrl());
+			server.addResponse(RESPONSE_NOT_MODIFIED);
+			assertEquals(null, server.waitForRequest().getHeader("If-None-Match"));
+			server.addResponse(RESPONSE_OK);
+			assertEquals("hello", result.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testCallerConditionalHeaders() throws Exception {
+		HttpResponseCache cache = new HttpResponseCache();
+		client.setResponseCache(cache);
+
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", execute(HttpCachePolicy.REVALIDATE));
+		server.getRequest();
+
+		// the caller handles the 304 response itself
+		server.addResponse(RESPONSE_NOT_MODIFIED);
+		CommonHttpOperation<String> operation = new CommonHttpOperation<String>(client) {
+		};
+		operation.setCachePolicy(HttpCachePolicy.REVALIDATE);
+		HttpGet request = new HttpGet(server.getUrl());
+		request.setHeader("If-None-Match", "\"2\"");
+		CommonHttpResponse response = operation.execute(request, null);
+		try {
+			assertEquals(HttpStatus.SC_NOT_MODIFIED, response.getStatusCode());
+		} finally {
+			response.release();
+		}
+		assertEquals("If-None-Match: \"2\"", server.getRequest().getHeader("If-None-Match"));
+		assertEquals(0, cache.getHitCount());
+	}
+
+	@Test
+	public void testPreferCache() throws Exception {
+		HttpResponseCache cache = new HttpResponseCache();
+		client.setResponseCache(cache);
+
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE));
+		server.getRequest();
+
+		assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE));
+		assertFalse(server.hasRequest());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(0, cache.getRevalidationCount());
+	}
+
+	@Test
+	public void testPreferCacheNoCache() throws Exception {
+		HttpResponseCache cache = new HttpResponseCache();
+		client.setResponseCache(cache);
+
+		server.addResponse(RESPONSE_OK_NO_CACHE);
+		assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE));
+		server.getRequest();
+
+		server.addResponse(RESPONSE_NOT_MODIFIED);
+		assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE));
+		assertEquals("If-None-Match: \"1\"", server.getRequest().getHeader("If-None-Match"));
+		assertEquals(1, cache.getRevalidationCount());
+	}
+
+	@Test
+	public void testPreferCacheExpired() throws Exception {
+		HttpResponseCache cache = new HttpResponseCache();
+		client.setResponseCache(cache);
+
+		server.addResponse(RESPONSE_OK_EXPIRED);
+		assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE));
+		server.getRequest();
+
+		server.addResponse(RESPONSE_NOT_MODIFIED);
+		assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE));
+		assertEquals("If-None-Match: \"1\"", server.getRequest().getHeader("If-None-Match"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getRevalidationCount());
+	}
+
+	@Test
+	public void testVary() throws Exception {
+		HttpResponseCache cache = new HttpResponseCache();
+		client.setResponseCache(cache);
+
+		server.addResponse(RESPONSE_OK_VARY);
+		assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE, "Accept-Language", "en"));
+		server.getRequest();
+
+		assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE, "Accept-Language", "en"));
+		assertFalse(server.hasRequest());
+		assertEquals(1, cache.getHitCount());
+
+		// a different variant is requested without validators and replaces the cached one
+		server.addResponse(RESPONSE_OK_VARY);
+		assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE, "Accept-Language", "de"));
+		assertEquals(null, server.getRequest().getHeader("If-None-Match"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void testPersistentCache() throws Exception {
+		File location = File.createTempFile("mylyn", null);
+		location.delete();
+		location.mkdirs();
+		CommonStore store = new CommonStore(location);
+		try {
+			client.setResponseCache(new HttpResponseCache(store.get(new Path("http"))));
+			server.addResponse(RESPONSE_OK);
+			assertEquals("hello", execute(HttpCachePolicy.REVALIDATE));
+			server.getRequest();
+
+			// a new cache reads the response from disk
+			HttpResponseCache cache = new HttpResponseCache(store.get(new Path("http")));
+			client.setResponseCache(cache);
+			assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE));
+			assertEquals(1, cache.getHitCount());
+		} finally {
+			client.getResponseCache().clear();
+			location.delete();
+		}
+	}
+
+	@Test
+	public void testPersistentCachePrivate() throws Exception {
+		assertNotPersisted(RESPONSE_OK_PRIVATE);
+	}
+
+	@Test
+	public void testPersistentCacheAuthenticated() throws Exception {
+		assertNotPersisted(RESPONSE_OK, "Authorization", "Basic dXNlcjpwYXNz");
+	}
+
+	private void assertNotPersisted(String response, String... headers) throws Exception {
+		File location = File.createTempFile("mylyn", null);
+		location.delete();
+		location.mkdirs();
+		CommonStore store = new CommonStore(location);
+		try {
+			HttpResponseCache cache = new HttpResponseCache(store.get(new Path("http")));
+			client.setResponseCache(cache);
+			server.addResponse(response);
+			assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE, headers));
+			server.getRequest();
+
+			// kept in memory
+			assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE, headers));
+			assertFalse(server.hasRequest());
+			assertEquals(1, cache.getHitCount());
+
+			// but not written to disk
+			cache = new HttpResponseCache(store.get(new Path("http")));
+			client.setResponseCache(cache);
+			server.addResponse(RESPONSE_OK);
+			assertEquals("hello", execute(HttpCachePolicy.PREFER_CACHE, headers));
+			assertEquals(null, server.getRequest().getHeader("If-None-Match"));
+			assertEquals(0, cache.getHitCount());
+		} finally {
+			client.getResponseCache().clear();
+			location.delete();
+		}
+	}
+
+	private String execute(HttpCachePolicy policy, String... headers) throws IOException {
+		CommonHttpOperation<String> operation = new CommonHttpOperation<String>(client) {
+		};
+		operation.setCachePolicy(policy);
+		HttpGet request = new HttpGet(server.getUrl());
+		for (int i = 0; i < headers.length; i += 2) {
+			request.addHeader(headers[i], headers[i + 1]);
+		}
+		CommonHttpResponse response = operation.execute(request, null);
+		try {
+			assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+			return EntityUtils.toString(response.getResponse().getEntity());
+		} finally {
+			response.release();
+		}
+	}
+
+}
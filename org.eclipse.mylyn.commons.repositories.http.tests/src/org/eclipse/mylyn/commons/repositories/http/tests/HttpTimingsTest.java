@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.http.HttpRequest;
+import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpClient;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpResponse;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpRequestProcessor;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpTimingStatistics;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpTimings;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpTimings.Phase;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpUtil;
+import org.eclipse.mylyn.commons.repositories.http.core.IHttpTimingListener;
+import org.eclipse.mylyn.commons.repositories.http.core.TimingHistogram;
+import org.eclipse.mylyn.commons.sdk.util.MockServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpTimingsTest {
+
+	private CommonHttpClient client;
+
+	private final IHttpTimingListener listener = new IHttpTimingListener() {
+		public void requestCompleted(RepositoryLocation location, HttpRequest request, HttpTimings timings) {
+			assertSame(HttpTimingsTest.this.location, location);
+			completed.add(timings);
+		}
+	};
+
+	private final List<HttpTimings> completed = new CopyOnWriteArrayList<HttpTimings>();
+
+	private RepositoryLocation location;
+
+	private MockServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new MockServer();
+		server.startAndWait();
+
+		location = new RepositoryLocation(server.getUrl()) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		client = new CommonHttpClient(location);
+		HttpUtil.addTimingListener(listener);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		HttpUtil.removeTimingListener(listener);
+		server.stop();
+	}
+
+	@Test
+	public void testTimings() throws Exception {
+		server.addResponse(MockServer.OK);
+		CommonHttpResponse response = client.executeGet("", null, new HttpRequestProcessor<CommonHttpResponse>(false) {
+			@Override
+			protected CommonHttpResponse doProcess(CommonHttpResponse response, IOperationMonitor monitor) {
+				return response;
+			}
+		});
+		HttpTimings timings = response.getTimings();
+		assertNotNull(timings);
+		assertEquals(0, timings.getTime(Phase.TRANSFER), 0);
+		assertEquals(0, timings.getTime(Phase.TLS_HANDSHAKE), 0);
+		assertTrue(timings.getTime(Phase.SERVER) > 0);
+		assertEquals(0, completed.size());
+
+		response.release();
+		assertEquals(1, completed.size());
+		assertTrue(completed.get(0).getTotalTime() >= timings.getTotalTime());
+
+		// releasing again does not report the request twice
+		response.release();
+		assertEquals(1, completed.size());
+	}
+
+	@Test
+	public void testTimingStatistics() throws Exception {
+		HttpTimingStatistics statistics = HttpUtil.getTimingStatistics(location);
+		assertSame(statistics, HttpUtil.getTimingStatistics(location));
+		assertEquals(0, statistics.getTotalHistogram().getCount());
+
+		server.addResponse(MockServer.OK);
+		server.addResponse(MockServer.OK);
+		client.executeGet("", null, HttpRequestProcessor.DEFAULT);
+		client.executeGet("", null, HttpRequestProcessor.DEFAULT);
+
+		assertEquals(2, statistics.getTotalHistogram().getCount());
+		assertEquals(2, statistics.getHistogram(Phase.CONNECT).getCount());
+		assertEquals(2, completed.size());
+	}
+
+	@Test
+	public void testHistogram() throws Exception {
+		TimingHistogram histogram = new TimingHistogram();
+		assertEquals(0, histogram.getPercentile(0.5), 0);
+
+		histogram.add(0.5);
+		histogram.add(3);
+		histogram.add(4);
+		histogram.add(150);
+		assertEquals(4, histogram.getCount());
+		assertEquals(1, histogram.getCount(0));
+		assertEquals(2, histogram.getCount(2));
+		assertEquals(39.375, histogram.getAverage(), 0.001);
+		assertEquals(5, histogram.getPercentile(0.5), 0);
+		assertEquals(200, histogram.getPercentile(0.95), 0);
+
+		histogram.add(100000);
+		assertEquals(Double.POSITIVE_INFINITY, histogram.getPercentile(1), 0);
+	}
+
+}
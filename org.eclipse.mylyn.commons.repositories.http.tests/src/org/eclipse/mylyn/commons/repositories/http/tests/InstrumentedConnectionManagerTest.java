@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpClient;
+import org.eclipse.mylyn.commons.repositories.http.core.ConnectionPoolStatistics;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpResponse;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpRequestProcessor;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpUtil;
+import org.eclipse.mylyn.commons.sdk.util.MockServer;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.InstrumentedConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InstrumentedConnectionManagerTest {
+
+	private CommonHttpClient client;
+
+	private InstrumentedConnectionManager connectionManager;
+
+	private MockServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new MockServer();
+		server.startAndWait();
+
+		connectionManager = new InstrumentedConnectionManager(HttpUtil.getSchemeRegistry());
+		RepositoryLocation location = new RepositoryLocation(server.getUrl()) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		client = new CommonHttpClient(location) {
+			@Override
+			protected ClientConnectionManager createHttpClientConnectionManager() {
+				return connectionManager;
+			}
+		};
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+		connectionManager.shutdown();
+	}
+
+	@Test
+	public void testGetStatistics() throws Exception {
+		assertEquals(0, connectionManager.getStatistics().size());
+
+		server.addResponse(MockServer.OK);
+		server.addResponse(MockServer.OK);
+		CommonHttpResponse response = client.executeGet("", null, HttpRequestProcessor.DEFAULT);
+		response.release();
+		response = client.executeGet("", null, HttpRequestProcessor.DEFAULT);
+		response.release();
+
+		List<ConnectionPoolStatistics> statistics = connectionManager.getStatistics();
+		assertEquals(1, statistics.size());
+		ConnectionPoolStatistics routeStatistics = statistics.get(0);
+		assertEquals(2, routeStatistics.getLeaseCount());
+		// the server closes the connection after each response
+		assertEquals(2, routeStatistics.getCreatedCount());
+		assertEquals(0, routeStatistics.getLeased());
+		assertEquals(0, routeStatistics.getPending());
+		assertNotNull(connectionManager.getStatistics(routeStatistics.getRoute()));
+	}
+
+	@Test
+	public void testReconnectStaleConnection() throws Exception {
+		// the mock server closes the connection after a response that contains the header text while the client only
+		// honors the actual header and keeps the connection in the pool, the message is terminated by two line breaks
+		int length = MockServer.HEADER_CONNECTION_CLOSE.length() + 2 * MockServer.CRLF.length();
+		server.addResponse("HTTP/1.1 200 OK\nContent-Length: " + length + "\n\n" + MockServer.HEADER_CONNECTION_CLOSE);
+		server.addResponse(MockServer.OK);
+		client.executeGet("", null, HttpRequestProcessor.DEFAULT).release();
+		client.executeGet("", null, HttpRequestProcessor.DEFAULT).release();
+
+		ConnectionPoolStatistics statistics = connectionManager.getStatistics().get(0);
+		assertEquals(2, statistics.getCreatedCount());
+		assertEquals(1, statistics.getReconnectCount());
+	}
+
+	@Test
+	public void testGetStatisticsUnknownRoute() throws Exception {
+		assertNull(connectionManager.getStatistics(new HttpRoute(new HttpHost("unknown"))));
+	}
+
+	@Test
+	public void testAdaptiveGrow() throws Exception {
+		final HttpRoute route = new HttpRoute(new HttpHost("localhost", server.getPort()));
+		connectionManager.setMaxForRoute(route, 1);
+		ManagedClientConnection connection = connectionManager.requestConnection(route, null).getConnection(0,
+				TimeUnit.MILLISECONDS);
+
+		// the second request waits for the only connection of the route
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<ManagedClientConnection> future = executor.submit(new Callable<ManagedClientConnection>() {
+				public ManagedClientConnection call() throws Exception {
+					return connectionManager.requestConnection(route, null).getConnection(0, TimeUnit.MILLISECONDS);
+				}
+			});
+			Thread.sleep(500);
+			connectionManager.releaseConnection(connection, 0, TimeUnit.MILLISECONDS);
+			connection = future.get(30, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(1, connectionManager.getMaxForRoute(route));
+
+		connectionManager.setAdaptive(true, 1, 2);
+		connectionManager.releaseConnection(connection, 0, TimeUnit.MILLISECONDS);
+		assertEquals(2, connectionManager.getMaxForRoute(route));
+		assertEquals(2, connectionManager.getStatistics(route).getMaxConnections());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetAdaptiveInvalidBounds() {
+		connectionManager.setAdaptive(true, 4, 2);
+	}
+
+}
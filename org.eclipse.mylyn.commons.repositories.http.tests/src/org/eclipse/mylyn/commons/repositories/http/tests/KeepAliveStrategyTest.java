@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.KeepAliveStrategy;
+import org.junit.Test;
+
+public class KeepAliveStrategyTest {
+
+	private final KeepAliveStrategy strategy = new KeepAliveStrategy(60 * 1000);
+
+	private final HttpContext context = new BasicHttpContext();
+
+	@Test
+	public void testNoHint() {
+		assertEquals(60 * 1000, strategy.getKeepAliveDuration(createResponse(null), context));
+	}
+
+	@Test
+	public void testHint() {
+		assertEquals(4 * 1000, strategy.getKeepAliveDuration(createResponse("timeout=5, max=100"), context));
+		assertEquals(14 * 1000, strategy.getKeepAliveDuration(createResponse("max=100, timeout=15"), context));
+	}
+
+	@Test
+	public void testHintExceedsDefault() {
+		assertEquals(60 * 1000, strategy.getKeepAliveDuration(createResponse("timeout=300"), context));
+	}
+
+	@Test
+	public void testHintShorterThanSafetyMargin() {
+		assertEquals(1, strategy.getKeepAliveDuration(createResponse("timeout=1"), context));
+	}
+
+	@Test
+	public void testInvalidHint() {
+		assertEquals(60 * 1000, strategy.getKeepAliveDuration(createResponse("timeout=abc"), context));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDefault() {
+		new KeepAliveStrategy(0);
+	}
+
+	private HttpResponse createResponse(String keepAlive) {
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+		if (keepAlive != null) {
+			response.addHeader("Keep-Alive", keepAlive);
+		}
+		return response;
+	}
+
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.eclipse.mylyn.internal.commons.repositories.http.core.PollingSslProtocolSocketFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PollingSslProtocolSocketFactoryTest {
+
+	private final PollingSslProtocolSocketFactory factory = new PollingSslProtocolSocketFactory();
+
+	private ServerSocket serverSocket;
+
+	private InetSocketAddress address;
+
+	@Before
+	public void setUp() throws Exception {
+		// accepts connections but never completes a handshake
+		serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		address = new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		serverSocket.close();
+	}
+
+	@Test
+	public void testConnectSocketHandshakeTimeout() throws Exception {
+		HttpParams params = new BasicHttpParams();
+		HttpConnectionParams.setSoTimeout(params, 200);
+		long start = System.currentTimeMillis();
+		try {
+			factory.connectSocket(null, address, null, params);
+			fail("Expected SocketTimeoutException");
+		} catch (SocketTimeoutException e) {
+			// expected
+		}
+		assertTrue(System.currentTimeMillis() - start < 10 * 1000);
+	}
+
+	@Test
+	public void testCreateLayeredSocketDefersHandshakeWithoutTimeout() throws Exception {
+		Socket socket = new Socket(address.getAddress(), address.getPort());
+		try {
+			Socket sslSocket = factory.createLayeredSocket(socket, address.getHostName(), address.getPort(), true);
+			assertEquals(0, sslSocket.getSoTimeout());
+		} finally {
+			socket.close();
+		}
+	}
+
+	@Test
+	public void testCreateLayeredSocketHandshakeTimeout() throws Exception {
+		Socket socket = new Socket(address.getAddress(), address.getPort());
+		socket.setSoTimeout(200);
+		try {
+			factory.createLayeredSocket(socket, address.getHostName(), address.getPort(), true);
+			fail("Expected SocketTimeoutException");
+		} catch (SocketTimeoutException e) {
+			// expected
+		} finally {
+			socket.close();
+		}
+	}
+
+}
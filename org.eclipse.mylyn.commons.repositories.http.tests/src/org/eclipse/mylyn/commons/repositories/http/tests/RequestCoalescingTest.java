@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.util.EntityUtils;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationType;
+import org.eclipse.mylyn.commons.repositories.core.auth.UserCredentials;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpClient;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpResponse;
+import org.eclipse.mylyn.commons.repositories.http.core.HttpRequestProcessor;
+import org.eclipse.mylyn.commons.sdk.util.MockServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestCoalescingTest {
+
+	private static final String RESPONSE_OK = "HTTP/1.1 200 OK\nContent-Length: 5\n"
+			+ MockServer.HEADER_CONNECTION_CLOSE + "\n\nhello";
+
+	private CommonHttpClient client;
+
+	private ExecutorService executor;
+
+	private RepositoryLocation location;
+
+	private MockServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new MockServer();
+		server.startAndWait();
+		server.setWaitForResponse(true);
+		server.setAutoClose(false);
+
+		location = new RepositoryLocation(server.getUrl()) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		client = new CommonHttpClient(location);
+		client.setRequestCoalescingEnabled(true);
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdownNow();
+		server.stop();
+	}
+
+	@Test
+	public void testCoalesceConcurrentRequests() throws Exception {
+		Future<String> first = executeGet(null);
+		server.waitForRequest();
+		Future<String> second = executeGet(null);
+		// give the second request time to join the first one
+		Thread.sleep(500);
+
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", first.get(30, TimeUnit.SECONDS));
+		assertEquals("hello", second.get(30, TimeUnit.SECONDS));
+		assertFalse(server.hasRequest());
+		assertEquals(1, client.getCoalescedRequestCount());
+	}
+
+	@Test
+	public void testCoalesceEqualCredentials() throws Exception {
+		location.setCredentials(AuthenticationType.HTTP, new UserCredentials("user", "pass"));
+
+		Future<String> first = executeGet(null);
+		server.waitForRequest();
+		// the location creates new credentials objects when the cached credentials are invalidated
+		location.setCredentials(AuthenticationType.HTTP, new UserCredentials("user", "pass"));
+		Future<String> second = executeGet(null);
+		Thread.sleep(500);
+
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", first.get(30, TimeUnit.SECONDS));
+		assertEquals("hello", second.get(30, TimeUnit.SECONDS));
+		assertEquals(1, client.getCoalescedRequestCount());
+	}
+
+	@Test
+	public void testNotCoalescedDifferentCredentials() throws Exception {
+		// the passwords have the same hash code
+		location.setCredentials(AuthenticationType.HTTP, new UserCredentials("user", "Aa"));
+
+		Future<String> first = executeGet(null);
+		server.waitForRequest();
+		location.setCredentials(AuthenticationType.HTTP, new UserCredentials("user", "BB"));
+		Future<String> second = executeGet(null);
+		Thread.sleep(500);
+
+		server.addResponse(RESPONSE_OK);
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", first.get(30, TimeUnit.SECONDS));
+		assertEquals("hello", second.get(30, TimeUnit.SECONDS));
+		assertEquals(0, client.getCoalescedRequestCount());
+	}
+
+	@Test
+	public void testLargeChunkedResponseNotShared() throws Exception {
+		// the response does not declare a content length
+		String content = new String(createContent(1024 * 1024 + 1));
+		String response = "HTTP/1.1 200 OK\nTransfer-Encoding: chunked\n" + MockServer.HEADER_CONNECTION_CLOSE
+				+ "\n\n" + Integer.toHexString(content.length()) + "\n" + content + "\n0\n";
+
+		Future<String> first = executeGet(null);
+		server.waitForRequest();
+		Future<String> second = executeGet(null);
+		Thread.sleep(500);
+
+		server.addResponse(response);
+		server.addResponse(response);
+		assertEquals(content, first.get(30, TimeUnit.SECONDS));
+		assertEquals(content, second.get(30, TimeUnit.SECONDS));
+		assertEquals(0, client.getCoalescedRequestCount());
+	}
+
+	@Test
+	public void testCoalesceSequentialRequests() throws Exception {
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", executeGet(null).get(30, TimeUnit.SECONDS));
+		server.getRequest();
+
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", executeGet(null).get(30, TimeUnit.SECONDS));
+		server.getRequest();
+		assertEquals(0, client.getCoalescedRequestCount());
+	}
+
+	@Test
+	public void testCancelWaitingRequest() throws Exception {
+		Future<String> first = executeGet(null);
+		server.waitForRequest();
+		IOperationMonitor monitor = OperationUtil.convert(null);
+		Future<String> second = executeGet(monitor);
+		Thread.sleep(500);
+
+		monitor.setCanceled(true);
+		try {
+			second.get(30, TimeUnit.SECONDS);
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof OperationCanceledException);
+		}
+
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", first.get(30, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testCancelInitiatingRequest() throws Exception {
+		IOperationMonitor monitor = OperationUtil.convert(null);
+		Future<String> first = executeGet(monitor);
+		server.waitForRequest();
+		Future<String> second = executeGet(null);
+		Thread.sleep(500);
+
+		monitor.setCanceled(true);
+		try {
+			first.get(30, TimeUnit.SECONDS);
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof OperationCanceledException || e.getCause() instanceof IOException);
+		}
+
+		// the waiting request is sent on its own once the initiating request was aborted
+		server.addResponse(RESPONSE_OK);
+		server.addResponse(RESPONSE_OK);
+		assertEquals("hello", second.get(30, TimeUnit.SECONDS));
+	}
+
+	private byte[] createContent(int length) {
+		byte[] content = new byte[length];
+		Arrays.fill(content, (byte) 'x');
+		return content;
+	}
+
+	private Future<String> executeGet(final IOperationMonitor monitor) {
+		return executor.submit(new Callable<String>() {
+			public String call() throws Exception {
+				return client.executeGet("", monitor, new HttpRequestProcessor<String>() {
+					@Override
+					protected String doProcess(CommonHttpResponse response, IOperationMonitor monitor)
+							throws IOException {
+						return EntityUtils.toString(response.getResponse().getEntity());
+					}
+				});
+			}
+		});
+	}
+
+}
@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.http.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.commons.core.operations.IExecutorServiceFactory;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.http.core.CommonHttpClient;
+import org.eclipse.mylyn.commons.repositories.http.core.SegmentedDownload;
+import org.eclipse.mylyn.commons.sdk.util.MockServer;
+import org.eclipse.mylyn.commons.sdk.util.MockServer.Message;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SegmentedDownloadTest {
+
+	private CommonHttpClient client;
+
+	private Path file;
+
+	private MockServer server;
+
+	private Path stateFile;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new MockServer();
+		server.startAndWait();
+
+		RepositoryLocation location = new RepositoryLocation(server.getUrl()) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		client = new CommonHttpClient(location);
+		file = Files.createTempFile("download", ".tmp");
+		stateFile = file.resolveSibling(file.getFileName() + ".segments");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+		OperationUtil.setExecutorServiceFactory(null);
+		Files.deleteIfExists(file);
+		Files.deleteIfExists(stateFile);
+	}
+
+	@Test
+	public void testDownload() throws Exception {
+		byte[] content = createContent(300 * 1024);
+		server.setResource(content, "\"1\"");
+
+		SegmentedDownload download = createDownload();
+		assertEquals(content.length, download.run(null));
+		assertArrayEquals(content, Files.readAllBytes(file));
+		assertFalse(Files.exists(stateFile));
+		assertEquals(0, download.getResumedBytes());
+
+		List<Message> requests = getRequests();
+		assertEquals(5, requests.size());
+		assertEquals("HEAD", requests.get(0).getMethod());
+		List<String> ranges = new ArrayList<String>();
+		for (Message request : requests.subList(1, requests.size())) {
+			assertEquals("GET", request.getMethod());
+			assertEquals("\"1\"", request.getHeaderValue("If-Range"));
+			ranges.add(request.getHeaderValue("Range"));
+		}
+		assertTrue(ranges.contains("bytes=0-76799"));
+		assertTrue(ranges.contains("bytes=230400-307199"));
+	}
+
+	@Test
+	public void testDownloadFromCompressingServer() throws Exception {
+		byte[] content = createContent(300 * 1024);
+		server.setResource(content, "\"1\"");
+		server.setResourceCompression(true);
+
+		assertEquals(content.length, createDownload().run(null));
+		assertArrayEquals(content, Files.readAllBytes(file));
+
+		List<Message> requests = getRequests();
+		assertEquals(5, requests.size());
+		for (Message request : requests) {
+			assertEquals("identity", request.getHeaderValue("Accept-Encoding"));
+		}
+	}
+
+	@Test
+	public void testDownloadSharedExecutorBusy() throws Exception {
+		byte[] content = createContent(300 * 1024);
+		server.setResource(content, "\"1\"");
+
+		ExecutorService sharedExecutor = OperationUtil.getExecutorService(OperationUtil.EXECUTOR_HTTP);
+		int maxThreads = OperationUtil.getExecutorMetrics(OperationUtil.EXECUTOR_HTTP).getMaxThreads();
+		final CountDownLatch latch = new CountDownLatch(1);
+		for (int i = 0; i < maxThreads; i++) {
+			sharedExecutor.execute(new Runnable() {
+				public void run() {
+					try {
+						latch.await();
+					} catch (InterruptedException e) {
+						// ignore
+					}
+				}
+			});
+		}
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Long> future = executor.submit(new Callable<Long>() {
+				public Long call() throws Exception {
+					return createDownload().run(null);
+				}
+			});
+			assertEquals(Long.valueOf(content.length), future.get(30, TimeUnit.SECONDS));
+		} finally {
+			latch.countDown();
+			executor.shutdown();
+		}
+		assertArrayEquals(content, Files.readAllBytes(file));
+	}
+
+	@Test
+	public void testDownloadExecutorSaturated() throws Exception {
+		// a download pool with a single thread and no queue that rejects all further tasks
+		OperationUtil.setExecutorServiceFactory(new IExecutorServiceFactory() {
+			public ExecutorService createExecutorService(String name, int maxThreads, int queueCapacity) {
+				return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>());
+			}
+		});
+		final CountDownLatch latch = new CountDownLatch(1);
+		OperationUtil.getExecutorService(OperationUtil.EXECUTOR_DOWNLOAD).execute(new Runnable() {
+			public void run() {
+				try {
+					latch.await();
+				} catch (InterruptedException e) {
+					// ignore
+				}
+			}
+		});
+		byte[] content = createContent(300 * 1024);
+		server.setResource(content, "\"1\"");
+		try {
+			assertEquals(content.length, createDownload().run(null));
+		} finally {
+			latch.countDown();
+		}
+		assertArrayEquals(content, Files.readAllBytes(file));
+		assertEquals(5, getRequests().size());
+	}
+
+	@Test
+	public void testDownloadHeadNotAllowed() throws Exception {
+		server.addResponse("HTTP/1.1 405 Method Not Allowed\nContent-Length: 0\n" + MockServer.HEADER_CONNECTION_CLOSE);
+		server.addResponse("HTTP/1.1 200 OK\nContent-Length: 5\n" + MockServer.HEADER_CONNECTION_CLOSE
+				+ "\n\nabcde");
+
+		assertEquals(5, createDownload().run(null));
+		assertArrayEquals("abcde".getBytes("ISO-8859-1"), Files.readAllBytes(file));
+		List<Message> requests = getRequests();
+		assertEquals(2, requests.size());
+		assertEquals("GET", requests.get(1).getMethod());
+		assertNull(requests.get(1).getHeaderValue("Range"));
+	}
+
+	@Test
+	public void testDownloadSingleSegment() throws Exception {
+		byte[] content = createContent(1024);
+		server.setResource(content, "\"1\"");
+
+		assertEquals(content.length, createDownload().run(null));
+		assertArrayEquals(content, Files.readAllBytes(file));
+		assertEquals(2, getRequests().size());
+	}
+
+	@Test
+	public void testDownloadRangesNotSupported() throws Exception {
+		server.addResponse("HTTP/1.1 200 OK\nContent-Length: 5\n" + MockServer.HEADER_CONNECTION_CLOSE);
+		server.addResponse("HTTP/1.1 200 OK\nContent-Length: 5\n" + MockServer.HEADER_CONNECTION_CLOSE
+				+ "\n\nabcde");
+
+		assertEquals(5, createDownload().run(null));
+		assertArrayEquals("abcde".getBytes("ISO-8859-1"), Files.readAllBytes(file));
+		List<Message> requests = getRequests();
+		assertEquals(2, requests.size());
+		assertNull(requests.get(1).getHeaderValue("Range"));
+	}
+
+	@Test
+	public void testResume() throws Exception {
+		byte[] content = createContent(300 * 1024);
+		server.setResource(content, "\"1\"");
+		server.setResourceFailAfter(10000);
+
+		SegmentedDownload download = createDownload();
+		try {
+			download.run(null);
+			fail("Expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		assertTrue(Files.exists(file));
+		assertTrue(Files.exists(stateFile));
+		getRequests();
+
+		assertEquals(content.length, download.run(null));
+		assertArrayEquals(content, Files.readAllBytes(file));
+		assertFalse(Files.exists(stateFile));
+		assertEquals(content.length - 76800, download.getResumedBytes());
+
+		// only the failed segment is fetched again, bytes of a failed response are not retained
+		List<Message> requests = getRequests();
+		assertEquals(2, requests.size());
+		String range = requests.get(1).getHeaderValue("Range");
+		assertTrue(range, range.equals("bytes=0-76799") || range.equals("bytes=76800-153599")
+				|| range.equals("bytes=153600-230399") || range.equals("bytes=230400-307199"));
+	}
+
+	@Test
+	public void testResumeModified() throws Exception {
+		server.setResource(createContent(300 * 1024), "\"1\"");
+		server.setResourceFailAfter(10000);
+		SegmentedDownload download = createDownload();
+		try {
+			download.run(null);
+			fail("Expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		assertTrue(Files.exists(stateFile));
+
+		byte[] content = createContent(200 * 1024);
+		server.setResource(content, "\"2\"");
+		assertEquals(content.length, download.run(null));
+		assertArrayEquals(content, Files.readAllBytes(file));
+		assertEquals(0, download.getResumedBytes());
+		assertFalse(Files.exists(stateFile));
+	}
+
+	private SegmentedDownload createDownload() {
+		SegmentedDownload download = new SegmentedDownload(client, "resource", file);
+		download.setMinSegmentSize(64 * 1024);
+		return download;
+	}
+
+	private byte[] createContent(int length) {
+		byte[] content = new byte[length];
+		new Random(length).nextBytes(content);
+		return content;
+	}
+
+	private List<Message> getRequests() throws InterruptedException {
+		List<Message> requests = new ArrayList<Message>();
+		while (server.hasRequest()) {
+			requests.add(server.getRequest());
+		}
+		return requests;
+	}
+
+}
@@ -14,11 +14,14 @@ package org.eclipse.mylyn.commons.repositories.tests.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
 import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationType;
 import org.eclipse.mylyn.commons.repositories.core.auth.UserCredentials;
+import org.eclipse.mylyn.internal.commons.repositories.core.InMemoryCredentialsStore;
 import org.junit.Test;
 
 /**
@@ -58,4 +61,64 @@ public class RepositoryLocationTest {
 		assertNull(location.getCredentials(AuthenticationType.HTTP));
 	}
 
+	@Test
+	public void testGetCredentialsCached() {
+		RepositoryLocation location = new RepositoryLocation();
+		location.setCredentialsStore(new InMemoryCredentialsStore());
+		location.setCredentials(AuthenticationType.REPOSITORY, new UserCredentials("user", "password"));
+		UserCredentials credentials = location.getCredentials(AuthenticationType.REPOSITORY);
+		assertSame(credentials, location.getCredentials(AuthenticationType.REPOSITORY));
+		assertNotSame(credentials, location.getCredentials(AuthenticationType.REPOSITORY, false));
+	}
+
+	@Test
+	public void testGetCredentialsCacheInvalidated() {
+		RepositoryLocation location = new RepositoryLocation();
+		location.setCredentialsStore(new InMemoryCredentialsStore());
+		location.setCredentials(AuthenticationType.REPOSITORY, new UserCredentials("user", "password"));
+		assertEquals("user", location.getCredentials(AuthenticationType.REPOSITORY).getUserName());
+
+		location.setCredentials(AuthenticationType.REPOSITORY, new UserCredentials("newuser", "password"));
+		assertEquals("newuser", location.getCredentials(AuthenticationType.REPOSITORY).getUserName());
+
+		location.setProperty(AuthenticationType.REPOSITORY.getKey() + ".enabled", String.valueOf(false));
+		assertNull(location.getCredentials(AuthenticationType.REPOSITORY));
+	}
+
+	@Test
+	public void testGetCredentialsChangedWhileReading() {
+		final RepositoryLocation location = new RepositoryLocation();
+		location.setCredentialsStore(new InMemoryCredentialsStore() {
+			private boolean changed;
+
+			@Override
+			public synchronized boolean getBoolean(String key, boolean def) {
+				boolean value = super.getBoolean(key, def);
+				if (!changed) {
+					// simulate a concurrent change after the user name was read
+					changed = true;
+					location.setCredentials(AuthenticationType.REPOSITORY, new UserCredentials("newuser", "password"));
+				}
+				return value;
+			}
+		});
+		location.setCredentials(AuthenticationType.REPOSITORY, new UserCredentials("user", "password"));
+		assertEquals("user", location.getCredentials(AuthenticationType.REPOSITORY).getUserName());
+		// the stale credentials must not have been cached
+		assertEquals("newuser", location.getCredentials(AuthenticationType.REPOSITORY).getUserName());
+	}
+
+	@Test
+	public void testGetCredentialsCacheInvalidatedOnApply() {
+		RepositoryLocation location = new RepositoryLocation();
+		location.setCredentials(AuthenticationType.REPOSITORY, new UserCredentials("user", "password"));
+		assertEquals("user", location.getCredentials(AuthenticationType.REPOSITORY).getUserName());
+
+		RepositoryLocation workingCopy = new RepositoryLocation(location);
+		workingCopy.setCredentialsStore(new InMemoryCredentialsStore(location.getCredentialsStore()));
+		workingCopy.setCredentials(AuthenticationType.REPOSITORY, new UserCredentials("newuser", "password"));
+		location.apply(workingCopy);
+		assertEquals("newuser", location.getCredentials(AuthenticationType.REPOSITORY).getUserName());
+	}
+
 }
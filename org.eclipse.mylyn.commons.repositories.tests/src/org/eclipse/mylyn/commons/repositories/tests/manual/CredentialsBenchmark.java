@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.repositories.tests.manual;
+
+import org.eclipse.mylyn.commons.repositories.core.RepositoryLocation;
+import org.eclipse.mylyn.commons.repositories.core.auth.AuthenticationType;
+import org.eclipse.mylyn.commons.repositories.core.auth.UserCredentials;
+import org.eclipse.mylyn.internal.commons.repositories.core.InMemoryCredentialsStore;
+
+/**
+ * Measures how many times per second the credentials that are looked up for each HTTP request can be retrieved from a
+ * {@link RepositoryLocation}. Pass the duration of a measurement in seconds as the first argument, defaults to 5.
+ */
+public class CredentialsBenchmark {
+
+	public static void main(String[] args) {
+		int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+
+		RepositoryLocation location = new RepositoryLocation("http://localhost/");
+		location.setCredentialsStore(new InMemoryCredentialsStore());
+		location.setCredentials(AuthenticationType.REPOSITORY, new UserCredentials("user", "password"));
+		location.setCredentials(AuthenticationType.HTTP, new UserCredentials("httpuser", "httppassword"));
+
+		// warm up
+		run(location, 1);
+		long count = run(location, seconds);
+		System.out.println("Lookups per second: " + count / seconds);
+	}
+
+	private static long run(RepositoryLocation location, int seconds) {
+		long count = 0;
+		long end = System.nanoTime() + seconds * 1000000000L;
+		while (System.nanoTime() < end) {
+			for (int i = 0; i < 1000; i++) {
+				// the lookups performed by CommonHttpClient for each request
+				location.getCredentials(AuthenticationType.HTTP);
+				location.getCredentials(AuthenticationType.CERTIFICATE);
+				location.getCredentials(AuthenticationType.REPOSITORY, false);
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
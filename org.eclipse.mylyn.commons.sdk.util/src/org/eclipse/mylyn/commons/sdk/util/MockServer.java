@@ -13,6 +13,7 @@ package org.eclipse.mylyn.commons.sdk.util;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -25,6 +26,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import junit.framework.AssertionFailedError;
 
@@ -57,7 +59,8 @@ public class MockServer implements Runnable {
 		public String getHeader(String prefix) {
 			if (headers != null) {
 				for (String header : headers) {
-					if (header.startsWith(prefix)) {
+					// header names are case-insensitive
+					if (header.regionMatches(true, 0, prefix, 0, prefix.length())) {
 						return header;
 					}
 				}
@@ -153,6 +156,14 @@ public class MockServer implements Runnable {
 
 	private boolean debugEnabled;
 
+	private byte[] resourceContent;
+
+	private String resourceEtag;
+
+	private int resourceFailAfter = -1;
+
+	private boolean resourceCompression;
+
 	public MockServer() {
 		this(0);
 	}
@@ -203,7 +214,10 @@ public class MockServer implements Runnable {
 				}
 				addRequest(request);
 
-				if (hasMoreResponses() || waitForResponse) {
+				if (hasResource()) {
+					writeResource(request, socket.getOutputStream());
+					break;
+				} else if (hasMoreResponses() || waitForResponse) {
 					Message response = waitForResponse();
 					if (stopped || response == null) {
 						break;
@@ -231,6 +245,10 @@ public class MockServer implements Runnable {
 		}
 	}
 
+	private synchronized boolean hasResource() {
+		return resourceContent != null;
+	}
+
 	private synchronized boolean hasMoreResponses() {
 		return !responses.isEmpty();
 	}
@@ -306,6 +324,32 @@ public class MockServer implements Runnable {
 		notifyAll();
 	}
 
+	/**
+	 * Serves <code>content</code> in response to all HEAD and GET requests instead of the preconfigured responses. GET
+	 * requests for a single byte range are answered with partial content unless an <code>If-Range</code> header does
+	 * not match <code>etag</code>.
+	 */
+	public synchronized void setResource(byte[] content, String etag) {
+		this.resourceContent = content;
+		this.resourceEtag = etag;
+	}
+
+	/**
+	 * Serves the resource gzip compressed to requests that accept the encoding. Byte ranges refer to the compressed
+	 * content.
+	 */
+	public synchronized void setResourceCompression(boolean resourceCompression) {
+		this.resourceCompression = resourceCompression;
+	}
+
+	/**
+	 * Closes the connection after <code>bytes</code> bytes of the body of the next response to a GET request for the
+	 * resource have been written.
+	 */
+	public synchronized void setResourceFailAfter(int bytes) {
+		this.resourceFailAfter = bytes;
+	}
+
 	public void setWaitForResponse(boolean waitForResponse) {
 		this.waitForResponse = waitForResponse;
 	}
@@ -379,6 +423,73 @@ public class MockServer implements Runnable {
 		writer.flush();
 	}
 
+	private void writeResource(Message request, OutputStream out) throws IOException {
+		byte[] content;
+		String etag;
+		int failAfter = -1;
+		boolean compress;
+		synchronized (this) {
+			content = resourceContent;
+			etag = resourceEtag;
+			compress = resourceCompression;
+			if ("GET".equals(request.getMethod())) {
+				failAfter = resourceFailAfter;
+				resourceFailAfter = -1;
+			}
+		}
+		String acceptEncoding = request.getHeaderValue("Accept-Encoding");
+		compress &= acceptEncoding != null && acceptEncoding.contains("gzip");
+		if (compress) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			GZIPOutputStream gzipOut = new GZIPOutputStream(compressed);
+			gzipOut.write(content);
+			gzipOut.close();
+			content = compressed.toByteArray();
+		}
+
+		int start = 0;
+		int end = content.length - 1;
+		boolean partial = false;
+		String range = request.getHeaderValue("Range");
+		String ifRange = request.getHeaderValue("If-Range");
+		if (range != null && range.startsWith("bytes=") && (ifRange == null || ifRange.equals(etag))) {
+			String[] bounds = range.substring(6).split("-");
+			start = Integer.parseInt(bounds[0]);
+			if (bounds.length > 1 && bounds[1].length() > 0) {
+				end = Math.min(end, Integer.parseInt(bounds[1]));
+			}
+			partial = true;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append((partial) ? "HTTP/1.1 206 Partial Content" : "HTTP/1.1 200 OK").append(CRLF);
+		sb.append("Accept-Ranges: bytes").append(CRLF);
+		if (etag != null) {
+			sb.append("ETag: ").append(etag).append(CRLF);
+		}
+		if (compress) {
+			sb.append("Content-Encoding: gzip").append(CRLF);
+		}
+		if (partial) {
+			sb.append("Content-Range: bytes " + start + "-" + end + "/" + content.length).append(CRLF);
+		}
+		sb.append("Content-Length: " + (end - start + 1)).append(CRLF);
+		sb.append(HEADER_CONNECTION_CLOSE).append(CRLF);
+		sb.append(CRLF);
+		if (isDebugEnabled()) {
+			System.err.println("> " + sb.substring(0, sb.indexOf(CRLF)));
+		}
+		out.write(sb.toString().getBytes("ISO-8859-1"));
+		if (!"HEAD".equals(request.getMethod())) {
+			int length = end - start + 1;
+			if (failAfter >= 0) {
+				length = Math.min(length, failAfter);
+			}
+			out.write(content, start, length);
+		}
+		out.flush();
+	}
+
 	public boolean isDebugEnabled() {
 		return debugEnabled;
 	}
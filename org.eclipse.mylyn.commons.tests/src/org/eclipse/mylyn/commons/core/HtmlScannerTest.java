@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.core;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.text.html.HTML.Tag;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.commons.core.HtmlScanner.TokenType;
+import org.eclipse.mylyn.commons.core.HtmlStreamTokenizer.Token;
+
+public class HtmlScannerTest extends TestCase {
+
+	private static final String HTML = "<!DOCTYPE html>\n<html><head><title>A &amp; B</title></head>\n"
+			+ "<body class=main onload='init(\"x\")'>\n<!-- a -- comment -->  <p>Some  text<br/>\n"
+			+ "<a HREF=\"http://example.com/?a=1&amp;b=2\" Title='x &lt; y' checked>link</a>\n"
+			+ "<img src=test.png / ><div class=\"a\" class=\"b\">1 << 2</div><td colspan=\"2>x</td>\n"
+			+ "</body></html>trailing";
+
+	public void testAttributes() throws Exception {
+		HtmlScanner scanner = new HtmlScanner(new StringReader("<a HREF=\"x&amp;y\" Title='&lt;' id=1 checked / >"));
+		assertEquals(TokenType.TAG, scanner.next());
+		assertEquals(Tag.A, scanner.getTagType());
+		assertEquals("x&y", scanner.getAttribute("href"));
+		assertEquals("<", scanner.getAttribute("title"));
+		assertEquals("1", scanner.getAttribute("id"));
+		assertEquals("", scanner.getAttribute("checked"));
+		assertNull(scanner.getAttribute("HREF"));
+		assertEquals(4, scanner.getAttributeCount());
+		assertEquals("href", scanner.getAttributeName(0));
+		assertTrue(scanner.isSelfTerminating());
+		assertEquals(TokenType.EOF, scanner.next());
+	}
+
+	public void testAttributesNotUnescaped() throws Exception {
+		HtmlScanner scanner = new HtmlScanner(new StringReader("<a href=\"x&amp;y\">"));
+		scanner.setUnescapeAttributeValues(false);
+		scanner.next();
+		assertEquals("x&amp;y", scanner.getAttribute("href"));
+	}
+
+	public void testEndTag() throws Exception {
+		HtmlScanner scanner = new HtmlScanner(new StringReader("<Title>x</TITLE><foo>"));
+		assertEquals(TokenType.TAG, scanner.next());
+		assertEquals(Tag.TITLE, scanner.getTagType());
+		assertFalse(scanner.isEndTag());
+		assertEquals(TokenType.TEXT, scanner.next());
+		assertEquals("x", scanner.getText().toString());
+		assertEquals(TokenType.TAG, scanner.next());
+		assertEquals(Tag.TITLE, scanner.getTagType());
+		assertEquals("TITLE", scanner.getTagName());
+		assertTrue(scanner.isEndTag());
+		assertEquals(TokenType.TAG, scanner.next());
+		assertEquals(HtmlTag.Type.UNKNOWN, scanner.getTagType());
+		assertEquals(TokenType.EOF, scanner.next());
+	}
+
+	public void testEmptyTag() throws Exception {
+		HtmlScanner scanner = new HtmlScanner(new StringReader("< >"));
+		try {
+			scanner.next();
+			fail("Expected ParseException");
+		} catch (ParseException expected) {
+		}
+	}
+
+	public void testPushback() throws Exception {
+		HtmlScanner scanner = new HtmlScanner(new StringReader("a b"));
+		assertEquals(TokenType.TEXT, scanner.next());
+		scanner.pushback();
+		assertEquals(TokenType.TEXT, scanner.next());
+		assertEquals("a", scanner.getText().toString());
+		assertEquals(TokenType.TEXT, scanner.next());
+		assertEquals("b", scanner.getText().toString());
+		assertEquals(" ", scanner.getWhitespace().toString());
+	}
+
+	public void testSameTokensAsHtmlStreamTokenizer() throws Exception {
+		List<String> expected = tokenize(HTML);
+		assertEquals(expected, scan(HTML, 8 * 1024));
+		// tokens span buffer boundaries
+		assertEquals(expected, scan(HTML, 1));
+		assertEquals(expected, scan(HTML, 7));
+	}
+
+	private List<String> scan(String html, int bufferSize) throws IOException, ParseException {
+		List<String> tokens = new ArrayList<String>();
+		HtmlScanner scanner = new HtmlScanner(new StringReader(html), bufferSize);
+		while (scanner.next() != TokenType.EOF) {
+			if (scanner.getType() == TokenType.TAG) {
+				HtmlTag tag = scanner.createTag(null);
+				tokens.add("TAG[" + scanner.getWhitespace() + "]" + tag + " " + scanner.getTagType() + " "
+						+ scanner.isEndTag() + " " + scanner.isSelfTerminating());
+			} else {
+				tokens.add(scanner.getType() + "[" + scanner.getWhitespace() + "]" + scanner.getText());
+			}
+		}
+		return tokens;
+	}
+
+	private List<String> tokenize(String html) throws IOException, ParseException {
+		List<String> tokens = new ArrayList<String>();
+		HtmlStreamTokenizer tokenizer = new HtmlStreamTokenizer(new StringReader(html), null);
+		for (Token token = tokenizer.nextToken(); token.getType() != Token.EOF; token = tokenizer.nextToken()) {
+			if (token.getType() == Token.TAG) {
+				HtmlTag tag = (HtmlTag) token.getValue();
+				tokens.add("TAG[" + token.getWhitespace() + "]" + tag + " " + tag.getTagType() + " " + tag.isEndTag()
+						+ " " + tag.isSelfTerminating());
+			} else {
+				String type = (token.getType() == Token.TEXT) ? "TEXT" : "COMMENT";
+				tokens.add(type + "[" + token.getWhitespace() + "]" + token.getValue());
+			}
+		}
+		return tokens;
+	}
+
+}
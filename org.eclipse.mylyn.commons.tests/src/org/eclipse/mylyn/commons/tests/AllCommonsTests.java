@@ -15,25 +15,36 @@ package org.eclipse.mylyn.commons.tests;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.eclipse.mylyn.commons.core.HtmlScannerTest;
 import org.eclipse.mylyn.commons.core.HtmlStreamTokenizerTest;
 import org.eclipse.mylyn.commons.sdk.util.ManagedTestSuite;
 import org.eclipse.mylyn.commons.sdk.util.TestConfiguration;
 import org.eclipse.mylyn.commons.tests.core.AuthenticatedProxyTest;
+import org.eclipse.mylyn.commons.tests.core.ChannelTimeoutInputStreamTest;
+import org.eclipse.mylyn.commons.tests.core.CircuitBreakerTest;
 import org.eclipse.mylyn.commons.tests.core.CommonListenerListTest;
 import org.eclipse.mylyn.commons.tests.core.CoreUtilTest;
+import org.eclipse.mylyn.commons.tests.core.DecompressingInputStreamTest;
+import org.eclipse.mylyn.commons.tests.core.DnsCacheTest;
 import org.eclipse.mylyn.commons.tests.core.ExtensionPointReaderTest;
+import org.eclipse.mylyn.commons.tests.core.Html2TextConverterTest;
 import org.eclipse.mylyn.commons.tests.core.Html2TextReaderTest;
+import org.eclipse.mylyn.commons.tests.core.ProxyCacheTest;
+import org.eclipse.mylyn.commons.tests.core.SslSupportTest;
 import org.eclipse.mylyn.commons.tests.core.StatusHandlerTest;
 import org.eclipse.mylyn.commons.tests.core.storage.CommonStoreTest;
+import org.eclipse.mylyn.commons.tests.net.ChannelSocketTest;
 import org.eclipse.mylyn.commons.tests.net.CommonHttpMethod3Test;
 import org.eclipse.mylyn.commons.tests.net.NetUtilTest;
 import org.eclipse.mylyn.commons.tests.net.SslProtocolSocketFactoryTest;
 import org.eclipse.mylyn.commons.tests.net.TimeoutInputStreamTest;
 import org.eclipse.mylyn.commons.tests.net.WebUtilTest;
 import org.eclipse.mylyn.commons.tests.operations.CancellableOperationMonitorThreadTest;
+import org.eclipse.mylyn.commons.tests.operations.ExecutorServiceTest;
 import org.eclipse.mylyn.commons.tests.operations.OperationUtilTest;
 import org.eclipse.mylyn.commons.tests.workbench.browser.BrowserUtilTest;
 import org.eclipse.mylyn.commons.tests.workbench.browser.WebBrowserDialogTest;
+import org.eclipse.mylyn.commons.tests.xmlrpc.XmlRpcResponseReaderTest;
 
 /**
  * @author Mik Kersten
@@ -57,8 +68,10 @@ public class AllCommonsTests {
 		suite.addTestSuite(CoreUtilTest.class);
 		suite.addTestSuite(AuthenticatedProxyTest.class);
 		suite.addTestSuite(OperationUtilTest.class);
+		suite.addTestSuite(ExecutorServiceTest.class);
 		suite.addTestSuite(NetUtilTest.class);
 		suite.addTestSuite(SslProtocolSocketFactoryTest.class);
+		suite.addTestSuite(ChannelSocketTest.class);
 		suite.addTestSuite(WebUtilTest.class);
 		suite.addTestSuite(BrowserUtilTest.class);
 		suite.addTestSuite(WebBrowserDialogTest.class);
@@ -66,10 +79,19 @@ public class AllCommonsTests {
 		suite.addTestSuite(CommonListenerListTest.class);
 		suite.addTestSuite(CommonStoreTest.class);
 		suite.addTestSuite(Html2TextReaderTest.class);
+		suite.addTestSuite(Html2TextConverterTest.class);
 		suite.addTestSuite(CommonHttpMethod3Test.class);
 		suite.addTestSuite(HtmlStreamTokenizerTest.class);
+		suite.addTestSuite(HtmlScannerTest.class);
 		suite.addTestSuite(CancellableOperationMonitorThreadTest.class);
 		suite.addTestSuite(StatusHandlerTest.class);
+		suite.addTestSuite(SslSupportTest.class);
+		suite.addTestSuite(ChannelTimeoutInputStreamTest.class);
+		suite.addTestSuite(ProxyCacheTest.class);
+		suite.addTestSuite(DnsCacheTest.class);
+		suite.addTestSuite(DecompressingInputStreamTest.class);
+		suite.addTestSuite(CircuitBreakerTest.class);
+		suite.addTestSuite(XmlRpcResponseReaderTest.class);
 	}
 
 }
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.commons.core.io.ChannelTimeoutInputStream;
+import org.eclipse.mylyn.commons.core.io.ChannelTimeoutOutputStream;
+import org.eclipse.mylyn.commons.core.io.TimeoutSelector;
+
+public class ChannelTimeoutInputStreamTest extends TestCase {
+
+	private SocketChannel client;
+
+	private SocketChannel peer;
+
+	private ServerSocketChannel server;
+
+	@Override
+	protected void setUp() throws Exception {
+		server = ServerSocketChannel.open();
+		server.socket().bind(new InetSocketAddress("localhost", 0));
+		client = SocketChannel.open(server.socket().getLocalSocketAddress());
+		peer = server.accept();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		client.close();
+		peer.close();
+		server.close();
+	}
+
+	public void testRead() throws Exception {
+		ChannelTimeoutInputStream in = new ChannelTimeoutInputStream(client, 5000);
+		peer.write(ByteBuffer.wrap(new byte[] { 1, 2 }));
+		assertEquals(1, in.read());
+		assertEquals(2, in.read());
+		peer.close();
+		assertEquals(-1, in.read());
+	}
+
+	public void testReadTimeout() throws Exception {
+		ChannelTimeoutInputStream in = new ChannelTimeoutInputStream(client, 200);
+		long start = System.currentTimeMillis();
+		try {
+			in.read();
+			fail("expected SocketTimeoutException");
+		} catch (SocketTimeoutException e) {
+			// expected
+		}
+		assertTrue(System.currentTimeMillis() - start >= 200);
+
+		// the stream remains usable after a timeout
+		peer.write(ByteBuffer.wrap(new byte[] { 3 }));
+		assertEquals(3, in.read());
+	}
+
+	public void testCloseUnblocksRead() throws Exception {
+		final ChannelTimeoutInputStream in = new ChannelTimeoutInputStream(client, 0);
+		Thread closer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200);
+					in.close();
+				} catch (Exception e) {
+					// ignore
+				}
+			}
+		};
+		closer.start();
+		try {
+			in.read();
+			fail("expected AsynchronousCloseException");
+		} catch (AsynchronousCloseException e) {
+			// expected
+		}
+		closer.join();
+		assertFalse(client.isOpen());
+	}
+
+	public void testReadInterrupted() throws Exception {
+		ChannelTimeoutInputStream in = new ChannelTimeoutInputStream(client, 0);
+		final Thread reader = Thread.currentThread();
+		Thread interrupter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200);
+				} catch (InterruptedException e) {
+					// ignore
+				}
+				reader.interrupt();
+			}
+		};
+		interrupter.start();
+		try {
+			in.read();
+			fail("expected InterruptedIOException");
+		} catch (InterruptedIOException e) {
+			// expected
+		}
+		assertTrue(Thread.interrupted());
+		interrupter.join();
+
+		// an abandoned wait does not affect subsequent reads
+		peer.write(ByteBuffer.wrap(new byte[] { 6 }));
+		assertEquals(6, in.read());
+	}
+
+	public void testAwaitBlockingChannel() throws Exception {
+		client.configureBlocking(true);
+		try {
+			TimeoutSelector.getDefault().await(client, SelectionKey.OP_READ, 5000);
+			fail("expected IOException");
+		} catch (SocketTimeoutException e) {
+			throw e;
+		} catch (IOException e) {
+			assertTrue(e.getCause() instanceof IllegalBlockingModeException);
+		}
+
+		// the selector thread survives the failed registration
+		ChannelTimeoutInputStream in = new ChannelTimeoutInputStream(client, 5000);
+		peer.write(ByteBuffer.wrap(new byte[] { 8 }));
+		assertEquals(8, in.read());
+	}
+
+	public void testWrite() throws Exception {
+		ChannelTimeoutOutputStream out = new ChannelTimeoutOutputStream(client, 5000);
+		out.write(new byte[] { 4, 5 });
+		ByteBuffer buffer = ByteBuffer.allocate(2);
+		while (buffer.hasRemaining()) {
+			peer.read(buffer);
+		}
+		assertEquals(4, buffer.get(0));
+		assertEquals(5, buffer.get(1));
+	}
+
+	public void testConcurrentReadAndWrite() throws Exception {
+		final ChannelTimeoutInputStream in = new ChannelTimeoutInputStream(client, 5000);
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread reader = new Thread() {
+			@Override
+			public void run() {
+				try {
+					result.set(in.read());
+				} catch (Exception e) {
+					result.set(e);
+				}
+			}
+		};
+		reader.start();
+		Thread.sleep(100);
+
+		// exceeds the socket buffers, the writer has to wait for the channel while the reader is registered as well
+		Thread drainer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200);
+					ByteBuffer buffer = ByteBuffer.allocate(8192);
+					int count = 0;
+					while (count < 4 * 1024 * 1024) {
+						buffer.clear();
+						count += peer.read(buffer);
+					}
+				} catch (Exception e) {
+					// ignore
+				}
+			}
+		};
+		drainer.start();
+		ChannelTimeoutOutputStream out = new ChannelTimeoutOutputStream(client, 5000);
+		out.write(new byte[4 * 1024 * 1024]);
+		drainer.join();
+
+		// the completed write must not have discarded the pending read
+		peer.write(ByteBuffer.wrap(new byte[] { 7 }));
+		reader.join(5000);
+		assertEquals(7, result.get());
+	}
+
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker;
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker.State;
+import org.eclipse.mylyn.commons.core.net.CircuitOpenException;
+import org.eclipse.mylyn.commons.core.net.ExponentialBackoff;
+import org.eclipse.mylyn.commons.core.net.ICircuitBreakerListener;
+
+public class CircuitBreakerTest extends TestCase {
+
+	private final List<String> events = new ArrayList<String>();
+
+	private final ICircuitBreakerListener listener = new ICircuitBreakerListener() {
+		public void stateChanged(CircuitBreaker breaker, State oldState, State newState) {
+			events.add(oldState + "->" + newState);
+		}
+	};
+
+	public void testOpenAfterThreshold() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(2, 60 * 1000, 60 * 1000);
+		breaker.addListener(listener);
+		breaker.recordFailure(breaker.acquire());
+		assertEquals(State.CLOSED, breaker.getState());
+		breaker.recordFailure(breaker.acquire());
+		assertEquals(State.OPEN, breaker.getState());
+		assertTrue(breaker.getRetryTime() > 0);
+		try {
+			breaker.acquire();
+			fail("Expected CircuitOpenException");
+		} catch (CircuitOpenException e) {
+			assertTrue(e.getRetryTime() > 0);
+		}
+		assertEquals("[CLOSED->OPEN]", events.toString());
+	}
+
+	public void testSuccessResetsFailureCount() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(2, 60 * 1000, 60 * 1000);
+		breaker.recordFailure(breaker.acquire());
+		breaker.recordSuccess(breaker.acquire());
+		breaker.recordFailure(breaker.acquire());
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	public void testHalfOpenProbeSucceeds() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 1, 1);
+		breaker.addListener(listener);
+		breaker.recordFailure(breaker.acquire());
+		Thread.sleep(10);
+		long probe = breaker.acquire();
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		try {
+			breaker.acquire();
+			fail("Expected CircuitOpenException while probe is in progress");
+		} catch (CircuitOpenException expected) {
+		}
+		breaker.recordSuccess(probe);
+		assertEquals(State.CLOSED, breaker.getState());
+		breaker.acquire();
+		assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]", events.toString());
+	}
+
+	public void testHalfOpenProbeFails() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 1, 1);
+		breaker.addListener(listener);
+		breaker.recordFailure(breaker.acquire());
+		Thread.sleep(10);
+		breaker.recordFailure(breaker.acquire());
+		assertEquals(State.OPEN, breaker.getState());
+		assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->OPEN]", events.toString());
+	}
+
+	public void testLateSuccessWhileHalfOpen() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 1, 1);
+		long slowRequest = breaker.acquire();
+		breaker.recordFailure(breaker.acquire());
+		Thread.sleep(10);
+		long probe = breaker.acquire();
+		// a request that was admitted before the breaker opened does not decide the probe
+		breaker.recordSuccess(slowRequest);
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		breaker.recordFailure(slowRequest);
+		breaker.release(slowRequest);
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		try {
+			breaker.acquire();
+			fail("Expected CircuitOpenException while probe is in progress");
+		} catch (CircuitOpenException expected) {
+		}
+		breaker.recordFailure(probe);
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	public void testReleaseAdmitsNextProbe() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 1, 1);
+		breaker.recordFailure(breaker.acquire());
+		Thread.sleep(10);
+		breaker.release(breaker.acquire());
+		breaker.acquire();
+		assertEquals(State.HALF_OPEN, breaker.getState());
+	}
+
+	public void testFailureWhileOpenDoesNotExtendOpenTime() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 60 * 1000, 60 * 1000);
+		breaker.addListener(listener);
+		long permit = breaker.acquire();
+		long otherPermit = breaker.acquire();
+		breaker.recordFailure(permit);
+		breaker.recordFailure(otherPermit);
+		assertEquals("[CLOSED->OPEN]", events.toString());
+	}
+
+	public void testDisabled() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(0, 1, 1);
+		assertFalse(breaker.isEnabled());
+		for (int i = 0; i < 10; i++) {
+			breaker.recordFailure(breaker.acquire());
+		}
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	public void testConfigure() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 60 * 1000, 60 * 1000);
+		breaker.recordFailure(breaker.acquire());
+		assertEquals(State.OPEN, breaker.getState());
+
+		breaker.configure(2, 1, 2);
+		assertEquals(State.OPEN, breaker.getState());
+		assertEquals(2, breaker.getFailureThreshold());
+		assertEquals(1, breaker.getOpenTime());
+		assertEquals(2, breaker.getMaxOpenTime());
+
+		breaker.configure(0, 1, 2);
+		assertFalse(breaker.isEnabled());
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	public void testReset() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 60 * 1000, 60 * 1000);
+		breaker.recordFailure(breaker.acquire());
+		breaker.reset();
+		assertEquals(State.CLOSED, breaker.getState());
+		assertEquals(0, breaker.getRetryTime());
+		breaker.acquire();
+	}
+
+	public void testListenerException() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 60 * 1000, 60 * 1000);
+		breaker.addListener(new ICircuitBreakerListener() {
+			public void stateChanged(CircuitBreaker breaker, State oldState, State newState) {
+				throw new RuntimeException();
+			}
+		});
+		breaker.addListener(listener);
+		breaker.recordFailure(breaker.acquire());
+		assertEquals("[CLOSED->OPEN]", events.toString());
+	}
+
+	public void testBackoff() throws Exception {
+		ExponentialBackoff backoff = new ExponentialBackoff(100, 1000);
+		assertEquals(100, backoff.getMaxDelay(0));
+		assertEquals(200, backoff.getMaxDelay(1));
+		assertEquals(1000, backoff.getMaxDelay(4));
+		assertEquals(1000, backoff.getMaxDelay(100));
+		for (int i = 0; i < 100; i++) {
+			long delay = backoff.getDelay(i % 8);
+			assertTrue(delay >= 0);
+			assertTrue(delay <= backoff.getMaxDelay(i % 8));
+		}
+	}
+
+}
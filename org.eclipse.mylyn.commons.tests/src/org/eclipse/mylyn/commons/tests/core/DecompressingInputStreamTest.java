@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.commons.core.io.DecompressingInputStream;
+import org.eclipse.mylyn.commons.core.io.DecompressingInputStream.ByteCounter;
+import org.eclipse.mylyn.commons.core.io.DecompressingInputStream.Encoding;
+
+public class DecompressingInputStreamTest extends TestCase {
+
+	private static byte[] createContent(int length) {
+		byte[] content = new byte[length];
+		Random random = new Random(42);
+		for (int i = 0; i < content.length; i++) {
+			// compressible but not trivial
+			content[i] = (byte) ('a' + random.nextInt(8));
+		}
+		return content;
+	}
+
+	private static byte[] deflate(byte[] content, boolean nowrap) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DeflaterOutputStream deflater = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION,
+				nowrap));
+		deflater.write(content);
+		deflater.close();
+		return out.toByteArray();
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(out);
+		gzip.write(content);
+		gzip.close();
+		return out.toByteArray();
+	}
+
+	private static byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			out.write(buffer, 0, n);
+		}
+		in.close();
+		return out.toByteArray();
+	}
+
+	public void testCreate() throws Exception {
+		InputStream in = new ByteArrayInputStream(new byte[0]);
+		assertSame(in, DecompressingInputStream.create(in, null));
+		assertSame(in, DecompressingInputStream.create(in, "identity"));
+		assertSame(in, DecompressingInputStream.create(in, "br"));
+		InputStream decodingIn = DecompressingInputStream.create(in, "GZIP");
+		assertEquals(Encoding.GZIP, ((DecompressingInputStream) decodingIn).getEncoding());
+		assertEquals(Encoding.GZIP, DecompressingInputStream.getEncoding("x-gzip"));
+		assertEquals(Encoding.DEFLATE, DecompressingInputStream.getEncoding(" deflate "));
+	}
+
+	public void testGzip() throws Exception {
+		byte[] content = createContent(100000);
+		byte[] compressed = gzip(content);
+		DecompressingInputStream in = new DecompressingInputStream(new ByteArrayInputStream(compressed), Encoding.GZIP);
+		assertTrue(Arrays.equals(content, read(in)));
+		assertEquals(compressed.length, in.getCompressedCount());
+		assertEquals(content.length, in.getUncompressedCount());
+	}
+
+	public void testByteCounter() throws Exception {
+		byte[] content = createContent(100000);
+		byte[] compressed = gzip(content);
+		ByteCounter counter = new ByteCounter();
+		InputStream in = DecompressingInputStream.create(new ByteArrayInputStream(compressed), "gzip", counter);
+		// the counter is updated while the stream is read, before it is closed
+		assertEquals(1000, in.read(new byte[1000]));
+		assertTrue(counter.getCompressedCount() > 0);
+		assertEquals(1000, counter.getUncompressedCount());
+
+		read(in);
+		in = new DecompressingInputStream(new ByteArrayInputStream(compressed), Encoding.GZIP, counter);
+		read(in);
+		assertEquals(2 * compressed.length, counter.getCompressedCount());
+		assertEquals(2 * content.length, counter.getUncompressedCount());
+	}
+
+	public void testGzipSingleBytes() throws Exception {
+		byte[] content = createContent(1000);
+		DecompressingInputStream in = new DecompressingInputStream(new ByteArrayInputStream(gzip(content)),
+				Encoding.GZIP);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int c;
+		while ((c = in.read()) != -1) {
+			out.write(c);
+		}
+		in.close();
+		assertTrue(Arrays.equals(content, out.toByteArray()));
+	}
+
+	public void testGzipConcatenatedMembers() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(gzip("abc".getBytes("US-ASCII")));
+		out.write(gzip("def".getBytes("US-ASCII")));
+		InputStream in = new DecompressingInputStream(new ByteArrayInputStream(out.toByteArray()), Encoding.GZIP);
+		assertEquals("abcdef", new String(read(in), "US-ASCII"));
+	}
+
+	public void testGzipCorruptTrailer() throws Exception {
+		byte[] compressed = gzip(createContent(1000));
+		compressed[compressed.length - 5]++;
+		InputStream in = new DecompressingInputStream(new ByteArrayInputStream(compressed), Encoding.GZIP);
+		try {
+			read(in);
+			fail("Expected ZipException");
+		} catch (ZipException e) {
+			// expected
+		}
+	}
+
+	public void testGzipTruncated() throws Exception {
+		byte[] compressed = gzip(createContent(1000));
+		InputStream in = new DecompressingInputStream(new ByteArrayInputStream(Arrays.copyOf(compressed,
+				compressed.length / 2)), Encoding.GZIP);
+		try {
+			read(in);
+			fail("Expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testEmpty() throws Exception {
+		for (Encoding encoding : Encoding.values()) {
+			InputStream in = new DecompressingInputStream(new ByteArrayInputStream(new byte[0]), encoding);
+			assertEquals(-1, in.read());
+			in.close();
+		}
+	}
+
+	public void testNotGzip() throws Exception {
+		InputStream in = new DecompressingInputStream(new ByteArrayInputStream("plain".getBytes("US-ASCII")),
+				Encoding.GZIP);
+		try {
+			in.read();
+			fail("Expected ZipException");
+		} catch (ZipException e) {
+			// expected
+		}
+	}
+
+	public void testDeflateZlib() throws Exception {
+		byte[] content = createContent(50000);
+		InputStream in = new DecompressingInputStream(new ByteArrayInputStream(deflate(content, false)),
+				Encoding.DEFLATE);
+		assertTrue(Arrays.equals(content, read(in)));
+	}
+
+	public void testDeflateRaw() throws Exception {
+		byte[] content = createContent(50000);
+		InputStream in = new DecompressingInputStream(new ByteArrayInputStream(deflate(content, true)),
+				Encoding.DEFLATE);
+		assertTrue(Arrays.equals(content, read(in)));
+	}
+
+	public void testReuseAfterClose() throws Exception {
+		byte[] content = createContent(10000);
+		byte[] compressed = gzip(content);
+		for (int i = 0; i < 50; i++) {
+			InputStream in = new DecompressingInputStream(new ByteArrayInputStream(compressed), Encoding.GZIP);
+			if (i % 2 == 0) {
+				// close before the end of the stream to return a partially used inflater to the pool
+				in.read(new byte[100]);
+				in.close();
+			} else {
+				assertTrue(Arrays.equals(content, read(in)));
+			}
+		}
+	}
+
+	public void testReadAfterClose() throws Exception {
+		InputStream in = new DecompressingInputStream(new ByteArrayInputStream(gzip(new byte[10])), Encoding.GZIP);
+		in.close();
+		in.close();
+		try {
+			in.read();
+			fail("Expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+}
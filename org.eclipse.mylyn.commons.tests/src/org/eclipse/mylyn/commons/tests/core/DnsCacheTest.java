@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.core;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.commons.core.net.DnsCache;
+
+public class DnsCacheTest extends TestCase {
+
+	private class StubDnsCache extends DnsCache {
+
+		private final List<String> resolved = new ArrayList<String>();
+
+		public StubDnsCache(long timeToLive, long negativeTimeToLive) {
+			super(timeToLive, negativeTimeToLive);
+		}
+
+		@Override
+		protected InetAddress[] lookup(String host) throws UnknownHostException {
+			resolved.add(host);
+			if ("unknown".equals(host)) {
+				throw new UnknownHostException(host);
+			}
+			return new InetAddress[] { InetAddress.getByAddress(host, new byte[] { 127, 0, 0, 1 }) };
+		}
+
+	}
+
+	public void testResolve() throws Exception {
+		StubDnsCache cache = new StubDnsCache(60 * 1000, 0);
+		InetAddress[] addresses = cache.resolve("host");
+		assertEquals(1, addresses.length);
+		assertEquals("host", addresses[0].getHostName());
+		assertEquals(1, cache.resolved.size());
+		assertEquals(1, cache.getMissCount());
+
+		addresses = cache.resolve("HOST");
+		assertEquals(1, addresses.length);
+		assertEquals(1, cache.resolved.size());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	public void testResolveReturnsCopy() throws Exception {
+		StubDnsCache cache = new StubDnsCache(60 * 1000, 0);
+		cache.resolve("host")[0] = null;
+		assertNotNull(cache.resolve("host")[0]);
+	}
+
+	public void testResolveDisabled() throws Exception {
+		StubDnsCache cache = new StubDnsCache(0, 0);
+		cache.resolve("host");
+		cache.resolve("host");
+		assertEquals(2, cache.resolved.size());
+		assertEquals(0, cache.getHitCount());
+	}
+
+	public void testResolveExpired() throws Exception {
+		StubDnsCache cache = new StubDnsCache(1, 0);
+		cache.resolve("host");
+		Thread.sleep(10);
+		cache.resolve("host");
+		assertEquals(2, cache.resolved.size());
+	}
+
+	public void testResolveUnknownHost() throws Exception {
+		StubDnsCache cache = new StubDnsCache(60 * 1000, 60 * 1000);
+		for (int i = 0; i < 2; i++) {
+			try {
+				cache.resolve("unknown");
+				fail("Expected UnknownHostException");
+			} catch (UnknownHostException e) {
+				assertEquals("unknown", e.getMessage());
+			}
+		}
+		assertEquals(1, cache.resolved.size());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	public void testResolveUnknownHostNotCached() throws Exception {
+		StubDnsCache cache = new StubDnsCache(60 * 1000, 0);
+		for (int i = 0; i < 2; i++) {
+			try {
+				cache.resolve("unknown");
+				fail("Expected UnknownHostException");
+			} catch (UnknownHostException e) {
+				// expected
+			}
+		}
+		assertEquals(2, cache.resolved.size());
+	}
+
+	public void testExpiredEntriesEvicted() throws Exception {
+		StubDnsCache cache = new StubDnsCache(1, 0);
+		cache.resolve("host1");
+		cache.resolve("host2");
+		Thread.sleep(10);
+		cache.resolve("host3");
+		assertEquals(1, cache.getSize());
+	}
+
+	public void testMaxSize() throws Exception {
+		StubDnsCache cache = new StubDnsCache(60 * 1000, 0);
+		for (int i = 0; i < DnsCache.MAX_SIZE + 1; i++) {
+			cache.resolve("host" + i);
+		}
+		assertEquals(DnsCache.MAX_SIZE, cache.getSize());
+		cache.resolve("host" + DnsCache.MAX_SIZE);
+		assertEquals(DnsCache.MAX_SIZE + 2, cache.resolved.size());
+	}
+
+	public void testClear() throws Exception {
+		StubDnsCache cache = new StubDnsCache(60 * 1000, 0);
+		cache.resolve("host");
+		cache.clear();
+		cache.resolve("host");
+		assertEquals(2, cache.resolved.size());
+	}
+
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.commons.core.HtmlUtil;
+import org.eclipse.mylyn.internal.commons.core.Html2TextConverter;
+import org.eclipse.mylyn.internal.commons.core.Html2TextReader;
+
+public class Html2TextConverterTest extends TestCase {
+
+	private static final String[] FRAGMENTS = { "<p>", "</p>", "<br>", "<br/>", "<BR >", "<li>", "<ul>", "<dl>",
+			"<dt>", "</dt>", "<dd>", "</dd>", "<h1>", "</h1>", "<h6>", "<b>", "</b>", "<pre>", "</pre>",
+			"<div class=\"x\">", "<a href= \"<p>not a tag</p>\">", "<!-- comment -->", "<head>title</head>", "&lt;",
+			"&amp;", "&nbsp;", "&#60;", "&#x3c;", "&#;", "&#xzz;", "&auml;", "&bogus", "&", "<", ">", " ", "\n",
+			" \t\r\n ", "text", "3<5", "<UL>", "<unknown attr='1'>" };
+
+	private static final String LD = System.getProperty("line.separator", "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	public void testConvert() throws Exception {
+		assertEquals("3<5", convert("<code>3<5<code>"));
+		assertEquals(LD + "@author" + LD + "\tFoo Bar" + LD, convert("<dl><dt>@author</dt><dd>Foo Bar</dd></dl>"));
+		assertEquals("text", convert("<a href= \"<p>this is only a string - not a tag<p>\">text</a>"));
+		assertEquals(LD + "Something." + LD + "Something more.", convert("<p>Something.<p>Something more."));
+		assertEquals("no comment", convert("<!-- begin-user-doc -->no comment<!-- end-user-doc -->"));
+		assertEquals("< > & \" a b", convert("&lt; &gt; &amp; &quot; a&nbsp;b"));
+		assertEquals("&AElig; &auml; <", convert("&AElig; &auml; &#60;"));
+	}
+
+	public void testConvertUnterminatedHead() throws Exception {
+		// Html2TextReader does not terminate for this input
+		assertEquals("", convert("<head>title"));
+	}
+
+	public void testSameTextAsHtml2TextReader() throws Exception {
+		Random random = new Random(1);
+		for (int i = 0; i < 500; i++) {
+			StringBuilder sb = new StringBuilder();
+			int count = random.nextInt(40);
+			for (int j = 0; j < count; j++) {
+				sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+			}
+			// ensure that Html2TextReader terminates
+			sb.append("</head>");
+			String html = sb.toString();
+			assertEquals(html, readText(html), convert(html));
+		}
+	}
+
+	public void testConvertLargeInput() throws Exception {
+		final int size = 4 * 1024 * 1024;
+		Reader reader = new Reader() {
+
+			private final char[] chunk = "<p>Some <b>bold</b> text &amp; more</p>\n".toCharArray();
+
+			private int position;
+
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				if (position >= size) {
+					return -1;
+				}
+				for (int i = 0; i < len; i++) {
+					cbuf[off + i] = chunk[(position + i) % chunk.length];
+				}
+				position += len;
+				return len;
+			}
+
+			@Override
+			public void close() throws IOException {
+			}
+		};
+		final int[] length = new int[1];
+		HtmlUtil.toText(reader, new Appendable() {
+			public Appendable append(char c) throws IOException {
+				length[0]++;
+				return this;
+			}
+
+			public Appendable append(CharSequence csq) throws IOException {
+				length[0] += csq.length();
+				return this;
+			}
+
+			public Appendable append(CharSequence csq, int start, int end) throws IOException {
+				length[0] += end - start;
+				return this;
+			}
+		});
+		assertTrue(length[0] > size / 2);
+	}
+
+	private String convert(String html) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		new Html2TextConverter(new StringReader(html)).convert(sb);
+		return sb.toString();
+	}
+
+	private String readText(String html) throws IOException {
+		Html2TextReader reader = new Html2TextReader(new StringReader(html));
+		try {
+			return reader.getString();
+		} finally {
+			reader.close();
+		}
+	}
+
+}
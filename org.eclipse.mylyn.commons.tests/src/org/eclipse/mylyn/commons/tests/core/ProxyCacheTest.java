@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.core;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.net.proxy.IProxyChangeListener;
+import org.eclipse.core.net.proxy.IProxyData;
+import org.eclipse.core.net.proxy.IProxyService;
+import org.eclipse.mylyn.commons.core.net.NetUtil;
+import org.eclipse.mylyn.commons.core.net.ProxyCache;
+
+public class ProxyCacheTest extends TestCase {
+
+	private class StubProxyCache extends ProxyCache {
+
+		private final List<String> resolved = new ArrayList<String>();
+
+		private IProxyService service;
+
+		public StubProxyCache(long timeToLive) {
+			super(timeToLive);
+		}
+
+		@Override
+		protected IProxyService getProxyService() {
+			return service;
+		}
+
+		@Override
+		protected Proxy resolveProxy(String host, String proxyType) {
+			resolved.add(proxyType + "://" + host);
+			return ("proxied".equals(host)) ? proxy : null;
+		}
+
+	}
+
+	private final List<IProxyChangeListener> listeners = new ArrayList<IProxyChangeListener>();
+
+	private final Proxy proxy = NetUtil.createProxy("proxy", 8080);
+
+	public void testGetProxy() throws Exception {
+		StubProxyCache cache = new StubProxyCache(0);
+		assertSame(proxy, cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE));
+		assertSame(proxy, cache.getProxy("PROXIED", IProxyData.HTTP_PROXY_TYPE));
+		assertNull(cache.getProxy("direct", IProxyData.HTTP_PROXY_TYPE));
+		assertNull(cache.getProxy("direct", IProxyData.HTTP_PROXY_TYPE));
+		assertSame(proxy, cache.getProxy("proxied", IProxyData.HTTPS_PROXY_TYPE));
+		assertEquals(3, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(3, cache.resolved.size());
+	}
+
+	public void testClear() throws Exception {
+		StubProxyCache cache = new StubProxyCache(0);
+		cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE);
+		cache.clear();
+		cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE);
+		assertEquals(2, cache.resolved.size());
+	}
+
+	public void testTimeToLive() throws Exception {
+		StubProxyCache cache = new StubProxyCache(1);
+		cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE);
+		Thread.sleep(10);
+		cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE);
+		assertEquals(2, cache.resolved.size());
+	}
+
+	public void testProxyChange() throws Exception {
+		StubProxyCache cache = new StubProxyCache(0);
+		cache.service = createProxyService();
+		cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE);
+		assertEquals(1, listeners.size());
+
+		cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE);
+		assertEquals(1, cache.resolved.size());
+
+		listeners.get(0).proxyInfoChanged(null);
+		cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE);
+		assertEquals(2, cache.resolved.size());
+
+		cache.dispose();
+		assertEquals(0, listeners.size());
+	}
+
+	public void testProxyServiceChange() throws Exception {
+		StubProxyCache cache = new StubProxyCache(0);
+		cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE);
+		cache.service = createProxyService();
+		cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE);
+		assertEquals(2, cache.resolved.size());
+		assertEquals(1, listeners.size());
+
+		cache.service = null;
+		cache.getProxy("proxied", IProxyData.HTTP_PROXY_TYPE);
+		assertEquals(3, cache.resolved.size());
+		assertEquals(0, listeners.size());
+	}
+
+	public void testGetLocalHostName() throws Exception {
+		long timeout = System.currentTimeMillis() + 10 * 1000;
+		String hostName;
+		while ((hostName = NetUtil.getLocalHostName()) == null && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		assertNotNull(hostName);
+		assertSame(hostName, NetUtil.getLocalHostName());
+	}
+
+	private IProxyService createProxyService() {
+		return (IProxyService) java.lang.reflect.Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { IProxyService.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (method.getName().equals("addProxyChangeListener")) {
+							listeners.add((IProxyChangeListener) args[0]);
+						} else if (method.getName().equals("removeProxyChangeListener")) {
+							listeners.remove(args[0]);
+						} else if (method.getName().equals("hashCode")) {
+							return System.identityHashCode(proxy);
+						} else if (method.getName().equals("equals")) {
+							return proxy == args[0];
+						}
+						return null;
+					}
+				});
+	}
+
+}
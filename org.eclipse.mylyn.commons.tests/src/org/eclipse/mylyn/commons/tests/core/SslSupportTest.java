@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.core;
+
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.commons.core.net.SslSupport;
+import org.eclipse.mylyn.commons.core.net.TrustAllTrustManager;
+
+public class SslSupportTest extends TestCase {
+
+	private static class StubTrustManager implements X509TrustManager {
+
+		public void checkClientTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		public void checkServerTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		public X509Certificate[] getAcceptedIssuers() {
+			return new X509Certificate[0];
+		}
+
+	}
+
+	private final TrustManager[] trustManagers = new TrustManager[] { new TrustAllTrustManager() };
+
+	@Override
+	protected void tearDown() throws Exception {
+		SslSupport.invalidateCache();
+	}
+
+	public void testGetCached() throws Exception {
+		SslSupport support = SslSupport.getCached(trustManagers, "keystore", "password", "pkcs12");
+		assertSame(support, SslSupport.getCached(new TrustManager[] { new TrustAllTrustManager() }, "keystore",
+				"password", "pkcs12"));
+		assertNotSame(support, SslSupport.getCached(trustManagers, "keystore", "other", "pkcs12"));
+		assertNotSame(support, SslSupport.getCached(trustManagers, "other", "password", "pkcs12"));
+		assertNotSame(support, SslSupport.getCached(new TrustManager[0], "keystore", "password", "pkcs12"));
+	}
+
+	public void testGetCachedDistinguishesTrustManagers() throws Exception {
+		TrustManager[] first = new TrustManager[] { new StubTrustManager() };
+		TrustManager[] second = new TrustManager[] { new StubTrustManager() };
+		SslSupport support = SslSupport.getCached(first, "keystore", "password", "pkcs12");
+		assertSame(support, SslSupport.getCached(first.clone(), "keystore", "password", "pkcs12"));
+		assertNotSame(support, SslSupport.getCached(second, "keystore", "password", "pkcs12"));
+		assertNotSame(support, SslSupport.getCached(null, "keystore", "password", "pkcs12"));
+	}
+
+	public void testGetCachedNoKeyStore() throws Exception {
+		SslSupport support = SslSupport.getCached(trustManagers, null, null, null);
+		assertSame(support, SslSupport.getCached(trustManagers, null, null, null));
+		assertSame(support.getSocketFactory(), SslSupport.getCached(trustManagers, null, null, null)
+				.getSocketFactory());
+	}
+
+	public void testInvalidateCache() throws Exception {
+		SslSupport support = SslSupport.getCached(trustManagers, "keystore", "password", "pkcs12");
+		SslSupport other = SslSupport.getCached(trustManagers, "other", "password", "pkcs12");
+		SslSupport.invalidateCache("keystore");
+		assertNotSame(support, SslSupport.getCached(trustManagers, "keystore", "password", "pkcs12"));
+		assertSame(other, SslSupport.getCached(trustManagers, "other", "password", "pkcs12"));
+
+		SslSupport.invalidateCache();
+		assertNotSame(other, SslSupport.getCached(trustManagers, "other", "password", "pkcs12"));
+	}
+
+}
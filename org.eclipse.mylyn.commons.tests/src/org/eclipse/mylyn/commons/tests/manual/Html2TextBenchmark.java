@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.manual;
+
+import java.io.StringReader;
+
+import org.eclipse.mylyn.commons.core.HtmlUtil;
+import org.eclipse.mylyn.internal.commons.core.Html2TextConverter;
+import org.eclipse.mylyn.internal.commons.core.Html2TextReader;
+
+/**
+ * Compares the throughput of {@link Html2TextReader} and {@link Html2TextConverter}, which backs
+ * {@link HtmlUtil#toText(String)}, for a generated task description. Pass the size of the document in KB as the first
+ * argument, defaults to 1024.
+ */
+public class Html2TextBenchmark {
+
+	private static final int ITERATIONS = 10;
+
+	private static final int WARMUP_ITERATIONS = 5;
+
+	public static void main(String[] args) throws Exception {
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : 1024;
+		String html = createDocument(size * 1024);
+		System.out.println("Document: " + html.length() + " chars");
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			readText(html);
+			convert(html);
+		}
+
+		long start = System.nanoTime();
+		int length = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			length = readText(html).length();
+		}
+		report("Html2TextReader", html, start, length);
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			length = convert(html).length();
+		}
+		report("Html2TextConverter", html, start, length);
+	}
+
+	private static String convert(String html) throws Exception {
+		StringBuilder sb = new StringBuilder(html.length());
+		new Html2TextConverter(new StringReader(html)).convert(sb);
+		return sb.toString();
+	}
+
+	private static String createDocument(int size) {
+		StringBuilder sb = new StringBuilder(size + 256);
+		sb.append("<html><head><title>Task description</title></head><body>\n");
+		for (int i = 0; sb.length() < size; i++) {
+			sb.append("<p>Comment ").append(i).append(" on <a href=\"https://bugs.example.com/show_bug.cgi?id=");
+			sb.append(i).append("\">bug ").append(i).append("</a> mentions <b>foo</b> &amp; &lt;bar&gt;.<br/>\n");
+			sb.append("<!-- generated --><ul><li>Status: NEW</li><li>Priority: &#80;1</li></ul></p>\n");
+		}
+		sb.append("</body></html>");
+		return sb.toString();
+	}
+
+	private static String readText(String html) throws Exception {
+		Html2TextReader reader = new Html2TextReader(new StringReader(html));
+		try {
+			return reader.getString();
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static void report(String label, String html, long start, int length) {
+		long elapsed = Math.max(1, (System.nanoTime() - start) / 1000000 / ITERATIONS);
+		System.out.println(label + ": " + elapsed + " ms per document, " + (html.length() / 1024 * 1000 / elapsed)
+				+ " KB/s, " + length + " chars of text");
+	}
+
+}
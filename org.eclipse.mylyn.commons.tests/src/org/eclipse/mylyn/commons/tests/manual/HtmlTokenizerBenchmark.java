@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.manual;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import org.eclipse.mylyn.commons.core.HtmlScanner;
+import org.eclipse.mylyn.commons.core.HtmlScanner.TokenType;
+import org.eclipse.mylyn.commons.core.HtmlStreamTokenizer;
+import org.eclipse.mylyn.commons.core.HtmlStreamTokenizer.Token;
+
+/**
+ * Compares the throughput and the allocation rate of {@link HtmlScanner}, {@link HtmlStreamTokenizer} and the
+ * deprecated tokenizer in <code>org.eclipse.mylyn.commons.net</code> for a generated task description. Pass the size
+ * of the document in KB as the first argument, defaults to 256.
+ */
+public class HtmlTokenizerBenchmark {
+
+	private interface Tokenizer {
+
+		int tokenize(String html) throws Exception;
+
+	}
+
+	private static final int ITERATIONS = 20;
+
+	private static final int WARMUP_ITERATIONS = 10;
+
+	public static void main(String[] args) throws Exception {
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : 256;
+		String html = createDocument(size * 1024);
+		System.out.println("Document: " + html.length() + " chars");
+
+		run("HtmlScanner", html, new Tokenizer() {
+			public int tokenize(String html) throws Exception {
+				HtmlScanner scanner = new HtmlScanner(new StringReader(html));
+				int count = 0;
+				for (TokenType type = scanner.next(); type != TokenType.EOF; type = scanner.next()) {
+					if (type == TokenType.TAG && scanner.getAttribute("href") != null) {
+						count++;
+					}
+					count++;
+				}
+				return count;
+			}
+		});
+		run("HtmlStreamTokenizer (core)", html, new Tokenizer() {
+			public int tokenize(String html) throws Exception {
+				HtmlStreamTokenizer tokenizer = new HtmlStreamTokenizer(new StringReader(html), null);
+				int count = 0;
+				for (Token token = tokenizer.nextToken(); token.getType() != Token.EOF; token = tokenizer.nextToken()) {
+					if (token.getType() == Token.TAG
+							&& ((org.eclipse.mylyn.commons.core.HtmlTag) token.getValue()).getAttribute("href") != null) {
+						count++;
+					}
+					count++;
+				}
+				return count;
+			}
+		});
+		run("HtmlStreamTokenizer (net)", html, new Tokenizer() {
+			@SuppressWarnings("deprecation")
+			public int tokenize(String html) throws Exception {
+				org.eclipse.mylyn.commons.net.HtmlStreamTokenizer tokenizer = new org.eclipse.mylyn.commons.net.HtmlStreamTokenizer(
+						new StringReader(html), null);
+				Object eof = org.eclipse.mylyn.commons.net.HtmlStreamTokenizer.Token.EOF;
+				Object tag = org.eclipse.mylyn.commons.net.HtmlStreamTokenizer.Token.TAG;
+				int count = 0;
+				for (org.eclipse.mylyn.commons.net.HtmlStreamTokenizer.Token token = tokenizer.nextToken(); token
+						.getType() != eof; token = tokenizer.nextToken()) {
+					if (token.getType() == tag
+							&& ((org.eclipse.mylyn.commons.net.HtmlTag) token.getValue()).getAttribute("href") != null) {
+						count++;
+					}
+					count++;
+				}
+				return count;
+			}
+		});
+	}
+
+	private static String createDocument(int size) {
+		StringBuilder sb = new StringBuilder(size + 256);
+		sb.append("<html><head><title>Task description</title></head><body>\n");
+		for (int i = 0; sb.length() < size; i++) {
+			sb.append("<p class=\"comment\" id=\"c").append(i).append("\">Comment ").append(i);
+			sb.append(" on <a href=\"https://bugs.example.com/show_bug.cgi?id=").append(i);
+			sb.append("&amp;format=multiple\" title='Bug &lt;").append(i).append("&gt;'>bug ").append(i);
+			sb.append("</a> mentions <b>foo</b>, <i>bar</i> &amp; baz.<br/>\n");
+			sb.append("<!-- generated --><div><span style=\"color: red\">Status: NEW</span></div></p>\n");
+		}
+		sb.append("</body></html>");
+		return sb.toString();
+	}
+
+	private static long getAllocatedBytes() {
+		// com.sun.management.ThreadMXBean is not available on all VMs and therefore accessed reflectively
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		try {
+			Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+			if (type.isInstance(bean)) {
+				Method method = type.getMethod("getThreadAllocatedBytes", long.class);
+				return (Long) method.invoke(bean, Thread.currentThread().getId());
+			}
+		} catch (Exception e) {
+			// not supported
+		}
+		return -1;
+	}
+
+	private static void run(String label, String html, Tokenizer tokenizer) throws Exception {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			tokenizer.tokenize(html);
+		}
+		long allocated = getAllocatedBytes();
+		long start = System.nanoTime();
+		int tokens = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			tokens += tokenizer.tokenize(html);
+		}
+		long elapsed = (System.nanoTime() - start) / 1000 / ITERATIONS;
+		allocated = (allocated >= 0) ? (getAllocatedBytes() - allocated) / ITERATIONS : -1;
+
+		System.out.println(label + ": " + elapsed + " us per document, " + (tokens / ITERATIONS) + " tokens, "
+				+ ((allocated >= 0) ? (allocated / 1024) + " KB allocated per document" : "allocation unknown"));
+	}
+
+}
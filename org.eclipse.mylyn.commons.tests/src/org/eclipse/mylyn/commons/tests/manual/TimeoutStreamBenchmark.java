@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.manual;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.mylyn.commons.core.io.ChannelTimeoutInputStream;
+import org.eclipse.mylyn.commons.core.io.TimeoutInputStream;
+
+/**
+ * Compares the number of threads and the throughput of {@link TimeoutInputStream} and
+ * {@link ChannelTimeoutInputStream} for a large number of concurrent streams. The streams are read by a small fixed pool
+ * of reader threads so that the reported thread count only reflects the threads allocated by the streams. Pass the
+ * number of streams as the first argument, defaults to 1000.
+ */
+public class TimeoutStreamBenchmark {
+
+	private static final int BYTES_PER_STREAM = 256 * 1024;
+
+	private static final int CHUNK_SIZE = 8 * 1024;
+
+	private static final int READER_THREADS = 4;
+
+	private static final long TIMEOUT = 30 * 1000;
+
+	public static void main(String[] args) throws Exception {
+		int streams = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		System.out.println("Streams: " + streams + ", reader threads: " + READER_THREADS);
+		run("TimeoutInputStream", streams, false);
+		run("ChannelTimeoutInputStream", streams, true);
+	}
+
+	private static void run(String label, int count, final boolean channelBased) throws Exception {
+		ServerSocketChannel server = ServerSocketChannel.open();
+		server.socket().bind(new InetSocketAddress("localhost", 0), count);
+		List<SocketChannel> peers = new ArrayList<SocketChannel>();
+		List<List<SocketChannel>> partitions = new ArrayList<List<SocketChannel>>();
+		for (int i = 0; i < READER_THREADS; i++) {
+			partitions.add(new ArrayList<SocketChannel>());
+		}
+		for (int i = 0; i < count; i++) {
+			partitions.get(i % READER_THREADS).add(SocketChannel.open(server.socket().getLocalSocketAddress()));
+			peers.add(server.accept());
+		}
+
+		final AtomicLong bytes = new AtomicLong();
+		final AtomicInteger failures = new AtomicInteger();
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		int baseThreads = threadBean.getThreadCount();
+		threadBean.resetPeakThreadCount();
+
+		long start = System.nanoTime();
+		ExecutorService readers = Executors.newFixedThreadPool(READER_THREADS);
+		for (final List<SocketChannel> clients : partitions) {
+			readers.execute(new Runnable() {
+				public void run() {
+					// reads one chunk from each stream in turn until all streams have ended
+					List<InputStream> streams = new ArrayList<InputStream>();
+					try {
+						for (SocketChannel client : clients) {
+							streams.add((channelBased)
+									? new ChannelTimeoutInputStream(client, TIMEOUT)
+									: new TimeoutInputStream(client.socket().getInputStream(), CHUNK_SIZE, TIMEOUT, -1));
+						}
+						byte[] buffer = new byte[CHUNK_SIZE];
+						while (!streams.isEmpty()) {
+							for (Iterator<InputStream> it = streams.iterator(); it.hasNext();) {
+								InputStream in = it.next();
+								int n = in.read(buffer);
+								if (n == -1) {
+									in.close();
+									it.remove();
+								} else {
+									bytes.addAndGet(n);
+								}
+							}
+						}
+					} catch (Exception e) {
+						failures.incrementAndGet();
+					}
+				}
+			});
+		}
+
+		ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+		for (int written = 0; written < BYTES_PER_STREAM; written += CHUNK_SIZE) {
+			for (SocketChannel peer : peers) {
+				chunk.clear();
+				while (chunk.hasRemaining()) {
+					peer.write(chunk);
+				}
+			}
+		}
+		for (SocketChannel peer : peers) {
+			peer.close();
+		}
+		readers.shutdown();
+		readers.awaitTermination(1, TimeUnit.HOURS);
+		long elapsed = (System.nanoTime() - start) / 1000000;
+		server.close();
+
+		System.out.println(label + ": " + elapsed + " ms, " + (bytes.get() / 1024 / Math.max(1, elapsed))
+				+ " MB/s, additional threads: " + (threadBean.getPeakThreadCount() - baseThreads - READER_THREADS)
+				+ ", failed readers: " + failures.get());
+	}
+
+}
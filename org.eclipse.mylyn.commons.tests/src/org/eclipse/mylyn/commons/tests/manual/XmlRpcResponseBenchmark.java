@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.manual;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.mylyn.commons.net.WebLocation;
+import org.eclipse.mylyn.commons.tests.xmlrpc.XmlRpcTestServer;
+import org.eclipse.mylyn.internal.commons.xmlrpc.CommonXmlRpcClient;
+import org.eclipse.mylyn.internal.commons.xmlrpc.XmlRpcResponseVisitor;
+
+/**
+ * Compares parsing a query result served by {@link XmlRpcTestServer} into objects with streaming it to an
+ * {@link XmlRpcResponseVisitor}. Reports the time per call, the bytes allocated by the calling thread and the peak
+ * heap usage during a call. The peak is the sum of the peaks of the heap memory pools above their usage before the
+ * call and therefore an upper bound. Run with a small young generation, e.g. <code>-Xmn8m</code>, so that short-lived
+ * objects do not dominate the peak. Pass the number of returned structs as the first argument, defaults to 20000.
+ */
+public class XmlRpcResponseBenchmark {
+
+	private interface Call {
+
+		Object call() throws Exception;
+
+	}
+
+	private static final int ITERATIONS = 10;
+
+	private static final int WARMUP_ITERATIONS = 5;
+
+	public static void main(String[] args) throws Exception {
+		final int count = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+		int port = XmlRpcTestServer.start();
+		final CommonXmlRpcClient client = new CommonXmlRpcClient(new WebLocation("http://localhost:" + port
+				+ "/xmlrpc"));
+
+		run("Objects", new Call() {
+			public Object call() throws Exception {
+				return client.call(new NullProgressMonitor(), "Test.query", count);
+			}
+		});
+		run("Visitor", new Call() {
+			public Object call() throws Exception {
+				return client.call(new NullProgressMonitor(), new XmlRpcResponseVisitor<Integer>() {
+					private String member;
+
+					private int sum;
+
+					@Override
+					public Integer getResult() {
+						return sum;
+					}
+
+					@Override
+					public void member(String name) {
+						member = name;
+					}
+
+					@Override
+					public void value(Object value) {
+						if ("id".equals(member)) {
+							sum += (Integer) value;
+						}
+					}
+				}, "Test.query", count);
+			}
+		});
+	}
+
+	private static long getAllocatedBytes() {
+		// com.sun.management.ThreadMXBean is not available on all VMs and therefore accessed reflectively
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		try {
+			Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+			if (type.isInstance(bean)) {
+				Method method = type.getMethod("getThreadAllocatedBytes", long.class);
+				return (Long) method.invoke(bean, Thread.currentThread().getId());
+			}
+		} catch (Exception e) {
+			// not supported
+		}
+		return -1;
+	}
+
+	private static long getPeakHeap(Call call) throws Exception {
+		System.gc();
+		long used = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				used += pool.getUsage().getUsed();
+				pool.resetPeakUsage();
+			}
+		}
+		call.call();
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak - used;
+	}
+
+	private static void run(String label, Call call) throws Exception {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			call.call();
+		}
+		long allocated = getAllocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			call.call();
+		}
+		long elapsed = (System.nanoTime() - start) / 1000000 / ITERATIONS;
+		allocated = (allocated >= 0) ? (getAllocatedBytes() - allocated) / ITERATIONS : -1;
+
+		long peak = getPeakHeap(call);
+
+		System.out.println(label + ": " + elapsed + " ms per call, "
+				+ ((allocated >= 0) ? (allocated / 1024) + " KB allocated, " : "") + Math.max(0, peak / 1024)
+				+ " KB peak heap");
+	}
+
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.internal.commons.net.ChannelSocket;
+
+public class ChannelSocketTest extends TestCase {
+
+	private Socket peer;
+
+	private ServerSocket server;
+
+	private ChannelSocket socket;
+
+	@Override
+	protected void setUp() throws Exception {
+		server = new ServerSocket(0);
+		socket = new ChannelSocket();
+		socket.connect(new InetSocketAddress("localhost", server.getLocalPort()), 5000);
+		peer = server.accept();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		socket.close();
+		peer.close();
+		server.close();
+	}
+
+	public void testReadWrite() throws Exception {
+		socket.getOutputStream().write(1);
+		assertEquals(1, peer.getInputStream().read());
+		peer.getOutputStream().write(2);
+		assertEquals(2, socket.getInputStream().read());
+	}
+
+	public void testSoTimeout() throws Exception {
+		socket.setSoTimeout(200);
+		assertEquals(200, socket.getSoTimeout());
+		try {
+			socket.getInputStream().read();
+			fail("expected SocketTimeoutException");
+		} catch (SocketTimeoutException e) {
+			// expected
+		}
+
+		// the timeout applies to subsequent reads
+		socket.setSoTimeout(5000);
+		peer.getOutputStream().write(3);
+		assertEquals(3, socket.getInputStream().read());
+	}
+
+	public void testCloseUnblocksRead() throws Exception {
+		Thread closer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200);
+					socket.close();
+				} catch (Exception e) {
+					// ignore
+				}
+			}
+		};
+		closer.start();
+		try {
+			socket.getInputStream().read();
+			fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		closer.join();
+		assertTrue(socket.isClosed());
+	}
+
+}
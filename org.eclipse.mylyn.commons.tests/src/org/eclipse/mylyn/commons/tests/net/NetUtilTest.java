@@ -14,7 +14,17 @@ package org.eclipse.mylyn.commons.tests.net;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import junit.framework.TestCase;
 
@@ -25,6 +35,34 @@ import org.eclipse.mylyn.commons.core.net.NetUtil;
  */
 public class NetUtilTest extends TestCase {
 
+	/**
+	 * A socket that never connects, the connect blocks until the socket is closed.
+	 */
+	private static class HangingSocket extends Socket {
+
+		private final CountDownLatch closed = new CountDownLatch(1);
+
+		private final CountDownLatch connecting = new CountDownLatch(1);
+
+		@Override
+		public synchronized void close() throws IOException {
+			super.close();
+			closed.countDown();
+		}
+
+		@Override
+		public void connect(SocketAddress endpoint, int timeout) throws IOException {
+			connecting.countDown();
+			try {
+				closed.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			throw new SocketException("Socket closed");
+		}
+
+	}
+
 	static final int /*NetUtil.*/MAX_HTTP_HOST_CONNECTIONS_DEFAULT = 100;
 
 	static final int /*NetUtil.*/MAX_HTTP_TOTAL_CONNECTIONS_DEFAULT = 1000;
@@ -242,6 +280,140 @@ public class NetUtilTest extends TestCase {
 		}
 	}
 
+	public void testConnectRacing() throws Exception {
+		ServerSocket server = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+		try {
+			InetAddress[] addresses = new InetAddress[] { InetAddress.getByName("127.0.0.2"),
+					InetAddress.getByName("127.0.0.1") };
+			long start = System.currentTimeMillis();
+			// the refused attempt starts the next attempt before the delay expires
+			Socket socket = NetUtil.connect(new Callable<Socket>() {
+				public Socket call() throws Exception {
+					return new Socket();
+				}
+			}, addresses, server.getLocalPort(), 5000, 10 * 1000);
+			try {
+				assertTrue(socket.isConnected());
+				assertEquals(addresses[1], socket.getInetAddress());
+				assertTrue(System.currentTimeMillis() - start < 5000);
+			} finally {
+				socket.close();
+			}
+		} finally {
+			server.close();
+		}
+	}
+
+	public void testConnectRacingAllFail() throws Exception {
+		ServerSocket server = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+		int port = server.getLocalPort();
+		server.close();
+		try {
+			NetUtil.connect(new Callable<Socket>() {
+				public Socket call() throws Exception {
+					return new Socket();
+				}
+			}, new InetAddress[] { InetAddress.getByName("127.0.0.1"), InetAddress.getByName("127.0.0.1") }, port,
+					1000, 10);
+			fail("Expected ConnectException");
+		} catch (ConnectException e) {
+			// expected
+		}
+	}
+
+	public void testConnectRacingFirstAddressHangs() throws Exception {
+		ServerSocket server = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+		try {
+			InetAddress[] addresses = new InetAddress[] { InetAddress.getByName("127.0.0.2"),
+					InetAddress.getByName("127.0.0.1") };
+			final HangingSocket hangingSocket = new HangingSocket();
+			long start = System.currentTimeMillis();
+			Socket socket = NetUtil.connect(new Callable<Socket>() {
+				private boolean first = true;
+
+				public Socket call() throws Exception {
+					if (first) {
+						first = false;
+						return hangingSocket;
+					}
+					return new Socket();
+				}
+			}, addresses, server.getLocalPort(), 5000, 500);
+			try {
+				assertTrue(socket.isConnected());
+				assertEquals(addresses[1], socket.getInetAddress());
+				assertTrue(System.currentTimeMillis() - start >= 500);
+				assertTrue(hangingSocket.isClosed());
+			} finally {
+				socket.close();
+			}
+		} finally {
+			server.close();
+		}
+	}
+
+	public void testConnectRacingAbort() throws Exception {
+		final HangingSocket firstSocket = new HangingSocket();
+		final HangingSocket secondSocket = new HangingSocket();
+		Thread abortThread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					if (secondSocket.connecting.await(5, TimeUnit.SECONDS)) {
+						firstSocket.close();
+					}
+				} catch (Exception e) {
+					// ignore
+				}
+			}
+		};
+		abortThread.start();
+		try {
+			NetUtil.connect(new Callable<Socket>() {
+				private boolean first = true;
+
+				public Socket call() throws Exception {
+					if (first) {
+						first = false;
+						return firstSocket;
+					}
+					return secondSocket;
+				}
+			}, new InetAddress[] { InetAddress.getByName("127.0.0.2"), InetAddress.getByName("127.0.0.3") }, 80,
+					5000, 10);
+			fail("Expected SocketException");
+		} catch (SocketException e) {
+			// expected
+		} finally {
+			abortThread.join();
+		}
+		assertTrue(secondSocket.isClosed());
+	}
+
+	public void testConnectRacingInterrupted() throws Exception {
+		final HangingSocket firstSocket = new HangingSocket();
+		final HangingSocket secondSocket = new HangingSocket();
+		Thread.currentThread().interrupt();
+		try {
+			NetUtil.connect(new Callable<Socket>() {
+				private boolean first = true;
+
+				public Socket call() throws Exception {
+					if (first) {
+						first = false;
+						return firstSocket;
+					}
+					return secondSocket;
+				}
+			}, new InetAddress[] { InetAddress.getByName("127.0.0.2"), InetAddress.getByName("127.0.0.3") }, 80,
+					5000, 10);
+			fail("Expected InterruptedIOException");
+		} catch (InterruptedIOException e) {
+			assertTrue(Thread.interrupted());
+		}
+		assertTrue(firstSocket.isClosed());
+	}
+
 	private static void resetSystemProperty(String key, String oldValue) {
 		if (oldValue == null) {
 			System.clearProperty(key);
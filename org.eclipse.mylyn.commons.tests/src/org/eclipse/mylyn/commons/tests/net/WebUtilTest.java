@@ -22,6 +22,8 @@ import java.net.Proxy;
 import java.net.Proxy.Type;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import javax.net.ssl.SSLHandshakeException;
@@ -39,6 +41,8 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.mylyn.commons.core.CoreUtil;
+import org.eclipse.mylyn.commons.core.operations.IExecutorMetrics;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
 import org.eclipse.mylyn.commons.net.AbstractWebLocation;
 import org.eclipse.mylyn.commons.net.AuthenticationType;
 import org.eclipse.mylyn.commons.net.IProxyProvider;
@@ -48,6 +52,7 @@ import org.eclipse.mylyn.commons.sdk.util.CommonTestUtil;
 import org.eclipse.mylyn.commons.sdk.util.MockServer;
 import org.eclipse.mylyn.commons.sdk.util.MockServer.Message;
 import org.eclipse.mylyn.commons.sdk.util.TestUrl;
+import org.eclipse.mylyn.internal.commons.core.CommonsCorePlugin;
 import org.eclipse.mylyn.internal.commons.net.AuthenticatedProxy;
 import org.eclipse.mylyn.internal.commons.net.CommonsNetPlugin;
 import org.eclipse.mylyn.internal.commons.net.PollingInputStream;
@@ -111,6 +116,7 @@ public class WebUtilTest extends TestCase {
 		proxyAddress = new InetSocketAddress("localhost", proxyPort);
 
 		client = new HttpClient();
+		WebUtil.clearTitleCache();
 	}
 
 	@Override
@@ -156,6 +162,24 @@ public class WebUtilTest extends TestCase {
 		assertEquals(CoreUtil.TEST_MODE ? 20 : MAX_HTTP_TOTAL_CONNECTIONS_DEFAULT, params.getMaxTotalConnections());
 	}
 
+	public void testCreateHostConfigurationCached() throws Exception {
+		WebLocation location = new WebLocation("https://mylyn.org/");
+		HostConfiguration hostConfiguration = WebUtil.createHostConfiguration(client, location, null);
+		HostConfiguration cachedHostConfiguration = WebUtil.createHostConfiguration(client, location, null);
+		assertNotSame(hostConfiguration, cachedHostConfiguration);
+		assertEquals(hostConfiguration, cachedHostConfiguration);
+		assertSame(hostConfiguration.getProtocol().getSocketFactory(), cachedHostConfiguration.getProtocol()
+				.getSocketFactory());
+
+		// changing the credentials of the location invalidates the cached configuration
+		location.setCredentials(AuthenticationType.CERTIFICATE, "keystore", "password");
+		HostConfiguration certHostConfiguration = WebUtil.createHostConfiguration(client, location, null);
+		assertNotSame(hostConfiguration.getProtocol().getSocketFactory(), certHostConfiguration.getProtocol()
+				.getSocketFactory());
+		assertSame(certHostConfiguration.getProtocol().getSocketFactory(),
+				WebUtil.createHostConfiguration(client, location, null).getProtocol().getSocketFactory());
+	}
+
 	public void testExecute() throws Exception {
 		StubProgressMonitor monitor = new StubProgressMonitor();
 		HttpClient client = new HttpClient();
@@ -633,6 +657,123 @@ public class WebUtilTest extends TestCase {
 		assertNull(WebUtil.getTitleFromUrl(new WebLocation(url), null));
 	}
 
+	public void testGetTitleFromUrlCompressed() throws Exception {
+		StringBuilder sb = new StringBuilder("<html><head><title>Compressed</title></head><body>");
+		for (int i = 0; i < 1000; i++) {
+			sb.append("<p>paragraph</p>");
+		}
+		sb.append("</body></html>");
+		server.setResource(sb.toString().getBytes("US-ASCII"), null);
+		server.setResourceCompression(true);
+		long compressedCount = WebUtil.getCompressedByteCount();
+		long uncompressedCount = WebUtil.getUncompressedByteCount();
+		String url = "http://" + proxyAddress.getHostName() + ":" + proxyAddress.getPort() + "/";
+		assertEquals("Compressed", WebUtil.getTitleFromUrl(new WebLocation(url) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		}, null));
+		// the request is aborted once the title has been read
+		assertTrue(WebUtil.getCompressedByteCount() > compressedCount);
+		assertTrue(WebUtil.getUncompressedByteCount() - uncompressedCount >= "<html><head><title>Compressed".length());
+	}
+
+	public void testGetTitlesFromUrls() throws Exception {
+		String message = "HTTP/1.1 200 OK\n" + "Connection: close\n" + "Content-Type: text/html\n"
+				+ "Content-Length: 55\n" + "\n" + "<html><head><title> Mylyn\n Title </title></head></html>";
+		server.addResponse(message);
+		server.addResponse(message);
+		String url = "http://" + proxyAddress.getHostName() + ":" + proxyAddress.getPort() + "/";
+		WebLocation location = new WebLocation(url + "a") {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		WebLocation otherLocation = new WebLocation(url + "b") {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		assertEquals(Arrays.asList("Mylyn Title", "Mylyn Title"),
+				WebUtil.getTitlesFromUrls(Arrays.asList(location, otherLocation), null));
+		// cached titles do not require a request
+		assertEquals("Mylyn Title", WebUtil.getTitleFromUrl(location, null));
+
+		WebUtil.clearTitleCache();
+		server.addResponse(MockServer.SERVICE_UNVAILABLE);
+		assertEquals(Collections.singletonList(null), WebUtil.getTitlesFromUrls(Collections.singletonList(location),
+				null));
+
+		IExecutorMetrics metrics = OperationUtil.getExecutorMetrics(OperationUtil.EXECUTOR_TITLES);
+		assertEquals(CommonsCorePlugin.MAX_TITLE_CONNECTIONS, metrics.getMaxThreads());
+	}
+
+	public void testGetTitleFromUrlNotCachedWithCredentials() throws Exception {
+		String message = "HTTP/1.1 200 OK\n" + "Connection: close\n" + "Content-Type: text/html\n"
+				+ "Content-Length: 46\n" + "\n" + "<html><head><title>Title</title></head></html>";
+		server.addResponse(message);
+		server.addResponse(message.replace("Title", "Other"));
+		String url = "http://" + proxyAddress.getHostName() + ":" + proxyAddress.getPort() + "/";
+		WebLocation location = new WebLocation(url, "user", "password") {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		};
+		assertEquals("Title", WebUtil.getTitleFromUrl(location, null));
+		// the title may depend on the user
+		assertEquals("Other", WebUtil.getTitleFromUrl(location, null));
+	}
+
+	public void testGetTitleFromUrlMaxBytes() throws Exception {
+		StringBuilder sb = new StringBuilder("<html><head>");
+		for (int i = 0; i < 70 * 1024; i++) {
+			sb.append(' ');
+		}
+		sb.append("<title>Late</title></head></html>");
+		server.setResource(sb.toString().getBytes("US-ASCII"), null);
+		String url = "http://" + proxyAddress.getHostName() + ":" + proxyAddress.getPort() + "/";
+		assertNull(WebUtil.getTitleFromUrl(new WebLocation(url) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		}, null));
+	}
+
+	public void testGetTitleFromUrlStopsAtBody() throws Exception {
+		// the server keeps the connection open, reading beyond the body tag would block
+		server.addResponse("HTTP/1.1 200 OK\n" + "Content-Type: text/html\n" + "Content-Length: 1000000\n" + "\n"
+				+ "<html><head></head><body><title>Body</title>");
+		String url = "http://" + proxyAddress.getHostName() + ":" + proxyAddress.getPort() + "/";
+		long start = System.currentTimeMillis();
+		assertNull(WebUtil.getTitleFromUrl(new WebLocation(url) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		}, null));
+		assertTrue(System.currentTimeMillis() - start < 10 * 1000);
+	}
+
+	public void testGetTitleFromUrlAbortsRemainder() throws Exception {
+		// the server keeps the connection open, releasing the connection without abort would block on the remainder
+		server.addResponse("HTTP/1.1 200 OK\n" + "Content-Type: text/html\n" + "Content-Length: 1000000\n" + "\n"
+				+ "<html><head><title>Partial</title>");
+		String url = "http://" + proxyAddress.getHostName() + ":" + proxyAddress.getPort() + "/";
+		long start = System.currentTimeMillis();
+		assertEquals("Partial", WebUtil.getTitleFromUrl(new WebLocation(url) {
+			@Override
+			public Proxy getProxyForHost(String host, String proxyType) {
+				return null;
+			}
+		}, null));
+		assertTrue(System.currentTimeMillis() - start < 10 * 1000);
+	}
+
 	/**
 	 * Default encoding needs to be set to non-UTF8 encoding for this test to be meaningful, e.g.
 	 * <code>-Dfile.encoding=ISO-8859-1</code>.
@@ -14,8 +14,11 @@ package org.eclipse.mylyn.commons.tests.operations;
 
 import junit.framework.TestCase;
 
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.mylyn.commons.core.operations.CancellableOperationMonitorThread;
 import org.eclipse.mylyn.commons.core.operations.ICancellableOperation;
+import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
 import org.junit.Test;
 
 /**
@@ -150,4 +153,44 @@ public class CancellableOperationMonitorThreadTest extends TestCase {
 		assertFalse(operation.aborted);
 	}
 
+	public void testCancelOperationSignaled() throws Exception {
+		IOperationMonitor monitor = OperationUtil.convert(null);
+		MockOperation operation = new MockOperation();
+		thread.addOperation(operation, monitor);
+		assertFalse(operation.aborted);
+		monitor.setCanceled(true);
+		assertTrue(operation.aborted);
+	}
+
+	public void testCancelOperationSignaledBeforeAdd() throws Exception {
+		IOperationMonitor monitor = OperationUtil.convert(null);
+		monitor.setCanceled(true);
+		MockOperation operation = new MockOperation();
+		operation.canceled = true;
+		thread.addOperation(operation, monitor);
+		assertTrue(operation.aborted);
+	}
+
+	public void testCancelOperationSignaledRemoved() throws Exception {
+		IOperationMonitor monitor = OperationUtil.convert(null);
+		MockOperation operation = new MockOperation();
+		thread.addOperation(operation, monitor);
+		thread.removeOperation(operation);
+		monitor.setCanceled(true);
+		assertFalse(operation.aborted);
+	}
+
+	public void testCancelOperationPolledMonitor() throws Exception {
+		NullProgressMonitor progressMonitor = new NullProgressMonitor();
+		IOperationMonitor monitor = OperationUtil.convert(progressMonitor);
+		MockOperation operation = new MockOperation();
+		thread.addOperation(operation, monitor);
+		// cancellation of the wrapped monitor is not signaled and requires polling
+		progressMonitor.setCanceled(true);
+		operation.canceled = true;
+		assertFalse(operation.aborted);
+		thread.processOperations();
+		assertTrue(operation.aborted);
+	}
+
 }
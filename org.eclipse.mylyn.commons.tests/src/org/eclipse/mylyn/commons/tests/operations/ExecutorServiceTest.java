@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.operations;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.commons.core.operations.IExecutorMetrics;
+import org.eclipse.mylyn.commons.core.operations.IExecutorServiceFactory;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
+import org.eclipse.mylyn.internal.commons.core.operations.BoundedVirtualThreadExecutor;
+import org.eclipse.mylyn.internal.commons.core.operations.DefaultExecutorServiceFactory;
+import org.eclipse.mylyn.internal.commons.core.operations.MonitoredThreadPoolExecutor;
+
+public class ExecutorServiceTest extends TestCase {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final Runnable blockingTask = new Runnable() {
+		public void run() {
+			try {
+				release.await(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				// exit
+			}
+		}
+	};
+
+	@Override
+	protected void tearDown() throws Exception {
+		release.countDown();
+		OperationUtil.setExecutorServiceFactory(null);
+	}
+
+	public void testQueueAndReject() throws Exception {
+		MonitoredThreadPoolExecutor executor = (MonitoredThreadPoolExecutor) new DefaultExecutorServiceFactory(false,
+				10).createExecutorService("test", 2, 1);
+		try {
+			executor.execute(blockingTask);
+			executor.execute(blockingTask);
+			executor.execute(blockingTask);
+			for (int i = 0; i < 100 && executor.getActiveCount() < 2; i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(2, executor.getActiveCount());
+			assertEquals(1, executor.getQueueSize());
+			assertEquals(2, executor.getMaxThreads());
+			try {
+				executor.execute(blockingTask);
+				fail("Expected RejectedExecutionException");
+			} catch (RejectedExecutionException expected) {
+			}
+			assertEquals(1, executor.getRejectedCount());
+
+			release.countDown();
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+			assertEquals(3, executor.getCompletedTaskCount());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testBackpressure() throws Exception {
+		MonitoredThreadPoolExecutor executor = (MonitoredThreadPoolExecutor) new DefaultExecutorServiceFactory(false,
+				10 * 1000).createExecutorService("test", 1, 0);
+		try {
+			executor.execute(blockingTask);
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(100);
+					} catch (InterruptedException e) {
+						// ignore
+					}
+					release.countDown();
+				}
+			}.start();
+			// blocks until the first task completes instead of being rejected
+			Future<?> future = executor.submit(blockingTask);
+			future.get(10, TimeUnit.SECONDS);
+			assertEquals(0, executor.getRejectedCount());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testRejectWithoutBlocking() throws Exception {
+		MonitoredThreadPoolExecutor executor = (MonitoredThreadPoolExecutor) new DefaultExecutorServiceFactory(false, 0)
+				.createExecutorService("test", 1, 1);
+		try {
+			executor.execute(blockingTask);
+			executor.execute(blockingTask);
+			long start = System.currentTimeMillis();
+			try {
+				executor.execute(blockingTask);
+				fail("Expected RejectedExecutionException");
+			} catch (RejectedExecutionException expected) {
+			}
+			assertTrue(System.currentTimeMillis() - start < 1000);
+			assertEquals(1, executor.getRejectedCount());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testDefaultOfferTimeoutSlowsSubmitter() throws Exception {
+		MonitoredThreadPoolExecutor executor = (MonitoredThreadPoolExecutor) new DefaultExecutorServiceFactory(false)
+				.createExecutorService("test", 1, 1);
+		try {
+			// occupy the thread and fill the queue
+			executor.execute(blockingTask);
+			executor.execute(blockingTask);
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(200);
+					} catch (InterruptedException e) {
+						// ignore
+					}
+					release.countDown();
+				}
+			}.start();
+			long start = System.currentTimeMillis();
+			Future<?> future = executor.submit(blockingTask);
+			assertTrue(System.currentTimeMillis() - start >= 150);
+			future.get(10, TimeUnit.SECONDS);
+			assertEquals(0, executor.getRejectedCount());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testBoundedVirtualThreadExecutor() throws Exception {
+		// a thread per task executor on platform threads stands in for virtual threads on older JVMs
+		BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test", 2, 1, 0,
+				Executors.newCachedThreadPool());
+		try {
+			executor.execute(blockingTask);
+			executor.execute(blockingTask);
+			executor.execute(blockingTask);
+			for (int i = 0; i < 100 && executor.getActiveCount() < 2; i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(2, executor.getActiveCount());
+			assertEquals(1, executor.getQueueSize());
+			assertEquals(2, executor.getMaxThreads());
+			try {
+				executor.execute(blockingTask);
+				fail("Expected RejectedExecutionException");
+			} catch (RejectedExecutionException expected) {
+			}
+			assertEquals(1, executor.getRejectedCount());
+
+			release.countDown();
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+			assertEquals(3, executor.getCompletedTaskCount());
+			assertEquals(0, executor.getQueueSize());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testVirtualThreads() throws Exception {
+		ExecutorService executor = new DefaultExecutorServiceFactory(true).createExecutorService("test", 2, 1);
+		try {
+			final Thread[] thread = new Thread[1];
+			executor.submit(new Runnable() {
+				public void run() {
+					thread[0] = Thread.currentThread();
+				}
+			}).get(10, TimeUnit.SECONDS);
+			boolean virtual;
+			try {
+				virtual = (Boolean) Thread.class.getMethod("isVirtual").invoke(thread[0]);
+			} catch (NoSuchMethodException e) {
+				virtual = false;
+			}
+			// virtual threads are not pooled
+			assertEquals(virtual, executor instanceof BoundedVirtualThreadExecutor);
+			assertEquals(!virtual, executor instanceof MonitoredThreadPoolExecutor);
+			assertEquals(2, ((IExecutorMetrics) executor).getMaxThreads());
+			assertTrue(thread[0].getName().startsWith("Mylyn test Executor "));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testHandOffPoolIsThreadPoolExecutor() throws Exception {
+		ExecutorService executor = new DefaultExecutorServiceFactory(true).createExecutorService("test", 2, 0);
+		try {
+			assertTrue(executor instanceof ThreadPoolExecutor);
+			final Thread[] thread = new Thread[1];
+			executor.submit(new Runnable() {
+				public void run() {
+					thread[0] = Thread.currentThread();
+				}
+			}).get(10, TimeUnit.SECONDS);
+			assertTrue(thread[0].getName().startsWith("Mylyn test Executor "));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testIoExecutorMetrics() throws Exception {
+		ExecutorService executor = OperationUtil.getExecutorService(OperationUtil.EXECUTOR_IO);
+		IExecutorMetrics metrics = OperationUtil.getExecutorMetrics(OperationUtil.EXECUTOR_IO);
+		assertSame(executor, metrics);
+		assertEquals(OperationUtil.EXECUTOR_IO, metrics.getName());
+		assertEquals(100, metrics.getMaxThreads());
+
+		long completedTaskCount = metrics.getCompletedTaskCount();
+		Future<?> first = executor.submit(blockingTask);
+		Future<?> second = executor.submit(blockingTask);
+		for (int i = 0; i < 100 && metrics.getActiveCount() < 2; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, metrics.getActiveCount());
+		// tasks are handed to a thread directly and never queue up
+		assertEquals(0, metrics.getQueueSize());
+
+		release.countDown();
+		first.get(10, TimeUnit.SECONDS);
+		second.get(10, TimeUnit.SECONDS);
+		for (int i = 0; i < 100 && metrics.getActiveCount() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, metrics.getActiveCount());
+		assertEquals(completedTaskCount + 2, metrics.getCompletedTaskCount());
+		assertEquals(0, metrics.getRejectedCount());
+	}
+
+	public void testThreadNames() throws Exception {
+		ExecutorService executor = new DefaultExecutorServiceFactory(false).createExecutorService("test", 1, 0);
+		try {
+			final String[] name = new String[1];
+			final boolean[] daemon = new boolean[1];
+			executor.submit(new Runnable() {
+				public void run() {
+					name[0] = Thread.currentThread().getName();
+					daemon[0] = Thread.currentThread().isDaemon();
+				}
+			}).get(10, TimeUnit.SECONDS);
+			assertEquals("Mylyn test Executor 1", name[0]);
+			assertTrue(daemon[0]);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testGetExecutorService() throws Exception {
+		ExecutorService executor = OperationUtil.getExecutorService(OperationUtil.EXECUTOR_DISCOVERY);
+		assertSame(executor, OperationUtil.getExecutorService(OperationUtil.EXECUTOR_DISCOVERY));
+		assertNotSame(executor, OperationUtil.getExecutorService(OperationUtil.EXECUTOR_IO));
+		assertSame(OperationUtil.getExecutorService(), OperationUtil.getExecutorService(OperationUtil.EXECUTOR_IO));
+
+		IExecutorMetrics metrics = OperationUtil.getExecutorMetrics(OperationUtil.EXECUTOR_DISCOVERY);
+		assertEquals(OperationUtil.EXECUTOR_DISCOVERY, metrics.getName());
+		assertEquals(0, metrics.getRejectedCount());
+	}
+
+	public void testSetExecutorServiceFactory() throws Exception {
+		ExecutorService executor = OperationUtil.getExecutorService(OperationUtil.EXECUTOR_DISCOVERY);
+		final ExecutorService custom = Executors.newSingleThreadExecutor();
+		try {
+			OperationUtil.setExecutorServiceFactory(new IExecutorServiceFactory() {
+				public ExecutorService createExecutorService(String name, int maxThreads, int queueCapacity) {
+					return custom;
+				}
+			});
+			assertTrue(executor.isShutdown());
+			assertSame(custom, OperationUtil.getExecutorService(OperationUtil.EXECUTOR_DISCOVERY));
+			assertNull(OperationUtil.getExecutorMetrics(OperationUtil.EXECUTOR_DISCOVERY));
+		} finally {
+			OperationUtil.setExecutorServiceFactory(null);
+		}
+		assertTrue(custom.isShutdown());
+	}
+
+}
@@ -12,11 +12,16 @@
 
 package org.eclipse.mylyn.commons.tests.operations;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import junit.framework.TestCase;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.mylyn.commons.core.operations.IOperationMonitor;
 import org.eclipse.mylyn.commons.core.operations.IOperationMonitor.OperationFlag;
+import org.eclipse.mylyn.commons.core.operations.Operation;
 import org.eclipse.mylyn.commons.core.operations.OperationUtil;
 import org.eclipse.mylyn.commons.net.Policy;
 
@@ -72,4 +77,47 @@ public class OperationUtilTest extends TestCase {
 		assertNotNull(OperationUtil.convert(null));
 	}
 
+	@SuppressWarnings("deprecation")
+	public void testExecuteCanceledWaitsForOperation() throws Throwable {
+		final CountDownLatch aborted = new CountDownLatch(1);
+		final boolean[] finished = new boolean[1];
+		Operation<Object> operation = new Operation<Object>() {
+			@Override
+			public void abort() {
+				aborted.countDown();
+			}
+
+			public Object call() throws Exception {
+				aborted.await(5, TimeUnit.SECONDS);
+				// simulate cleanup that takes a while after the abort
+				Thread.sleep(300);
+				synchronized (finished) {
+					finished[0] = true;
+				}
+				return null;
+			}
+		};
+		final NullProgressMonitor monitor = new NullProgressMonitor();
+		new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					// ignore
+				}
+				monitor.setCanceled(true);
+			}
+		}.start();
+		try {
+			OperationUtil.execute(monitor, operation);
+			fail("expected OperationCanceledException");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		synchronized (finished) {
+			assertTrue(finished[0]);
+		}
+	}
+
 }
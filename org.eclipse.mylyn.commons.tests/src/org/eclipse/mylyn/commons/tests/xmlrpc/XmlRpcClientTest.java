@@ -12,12 +12,21 @@
 
 package org.eclipse.mylyn.commons.tests.xmlrpc;
 
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import junit.framework.TestCase;
 
+import org.apache.xmlrpc.XmlRpcException;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker;
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker.State;
 import org.eclipse.mylyn.commons.net.WebLocation;
 import org.eclipse.mylyn.internal.commons.xmlrpc.CommonXmlRpcClient;
 import org.eclipse.mylyn.internal.commons.xmlrpc.XmlRpcNoSuchMethodException;
+import org.eclipse.mylyn.internal.commons.xmlrpc.XmlRpcResponseVisitor;
 
 /**
  * @author Steffen Pingel
@@ -44,6 +53,39 @@ public class XmlRpcClientTest extends TestCase {
 		assertEquals(5, i);
 	}
 
+	public void testCallWithVisitor() throws Exception {
+		final List<Object> ids = new ArrayList<Object>();
+		int count = client.call(new NullProgressMonitor(), new XmlRpcResponseVisitor<Integer>() {
+			private int count;
+
+			private String member;
+
+			@Override
+			public void endStruct() {
+				count++;
+			}
+
+			@Override
+			public Integer getResult() {
+				return count;
+			}
+
+			@Override
+			public void member(String name) {
+				member = name;
+			}
+
+			@Override
+			public void value(Object value) {
+				if ("id".equals(member)) {
+					ids.add(value);
+				}
+			}
+		}, "Test.query", 3);
+		assertEquals(3, count);
+		assertEquals(Arrays.asList(0, 1, 2), ids);
+	}
+
 	public void testNoSuchMethod() throws Exception {
 		try {
 			Object response = client.call(new NullProgressMonitor(), "Test.noSuchMethod", 5);
@@ -53,4 +95,32 @@ public class XmlRpcClientTest extends TestCase {
 		}
 	}
 
+	public void testCircuitBreakerIgnoresFault() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 60 * 1000, 60 * 1000);
+		client.setCircuitBreaker(breaker);
+		try {
+			client.call(new NullProgressMonitor(), "Test.noSuchMethod", 5);
+			fail("Expected XmlRpcNoSuchMethodExecption");
+		} catch (XmlRpcNoSuchMethodException e) {
+			// expected
+		}
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	public void testCircuitBreakerOpensOnConnectFailure() throws Exception {
+		ServerSocket socket = new ServerSocket(0);
+		int closedPort = socket.getLocalPort();
+		socket.close();
+		client = new CommonXmlRpcClient(new WebLocation("http://localhost:" + closedPort + "/xmlrpc"));
+		CircuitBreaker breaker = new CircuitBreaker(1, 60 * 1000, 60 * 1000);
+		client.setCircuitBreaker(breaker);
+		try {
+			client.call(new NullProgressMonitor(), "Test.identity", 5);
+			fail("Expected XmlRpcException");
+		} catch (XmlRpcException e) {
+			// expected
+		}
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
 }
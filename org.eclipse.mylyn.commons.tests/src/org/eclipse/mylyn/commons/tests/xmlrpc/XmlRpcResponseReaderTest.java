@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.commons.tests.xmlrpc;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+import org.apache.xmlrpc.XmlRpcException;
+import org.eclipse.mylyn.internal.commons.xmlrpc.XmlRpcResponseReader;
+import org.eclipse.mylyn.internal.commons.xmlrpc.XmlRpcResponseVisitor;
+
+public class XmlRpcResponseReaderTest extends TestCase {
+
+	/**
+	 * Records the callbacks in a compact notation.
+	 */
+	private static class RecordingVisitor extends XmlRpcResponseVisitor<String> {
+
+		private final StringBuilder sb = new StringBuilder();
+
+		private Object lastValue;
+
+		@Override
+		public void endArray() {
+			sb.append("]");
+		}
+
+		@Override
+		public void endStruct() {
+			sb.append("}");
+		}
+
+		@Override
+		public String getResult() {
+			return sb.toString();
+		}
+
+		@Override
+		public void member(String name) {
+			sb.append(name).append("=");
+		}
+
+		@Override
+		public void startArray() {
+			sb.append("[");
+		}
+
+		@Override
+		public void startStruct() {
+			sb.append("{");
+		}
+
+		@Override
+		public void value(Object value) {
+			lastValue = value;
+			sb.append((value != null) ? value.getClass().getSimpleName() + ":" + value : "null").append(";");
+		}
+
+	}
+
+	private static final String EXTENSIONS = "xmlns:ex=\"http://ws.apache.org/xmlrpc/namespaces/extensions\"";
+
+	private static String response(String value) {
+		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<methodResponse>\n<params><param><value>" + value
+				+ "</value></param></params>\n</methodResponse>";
+	}
+
+	private XmlRpcResponseReader reader;
+
+	private RecordingVisitor visitor;
+
+	private String read(String response) throws XmlRpcException {
+		return reader.read(new ByteArrayInputStream(response.getBytes()), visitor);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		reader = new XmlRpcResponseReader(TimeZone.getTimeZone("UTC"));
+		visitor = new RecordingVisitor();
+	}
+
+	public void testReadScalars() throws Exception {
+		assertEquals("Integer:5;", read(response("<i4>5</i4>")));
+		visitor = new RecordingVisitor();
+		assertEquals("Integer:-7;", read(response("<int> -7 </int>")));
+		visitor = new RecordingVisitor();
+		assertEquals("Long:9876543210;", read(response("<ex:i8 " + EXTENSIONS + ">9876543210</ex:i8>")));
+		visitor = new RecordingVisitor();
+		assertEquals("Boolean:true;", read(response("<boolean>1</boolean>")));
+		visitor = new RecordingVisitor();
+		assertEquals("Double:1.5;", read(response("<double>1.5</double>")));
+		visitor = new RecordingVisitor();
+		assertEquals("String: a &lt;b&gt; ;", read(response("<string> a &amp;lt;b&amp;gt; </string>")));
+		visitor = new RecordingVisitor();
+		assertEquals("null;", read(response("<nil/>")));
+	}
+
+	public void testReadUntypedValue() throws Exception {
+		assertEquals("String:a & b;", read(response("a &amp; b")));
+		visitor = new RecordingVisitor();
+		assertEquals("String:;", read(response("")));
+		visitor = new RecordingVisitor();
+		assertEquals("Integer:1;", read(response("\n  <i4>1</i4>\n")));
+	}
+
+	public void testReadBase64() throws Exception {
+		read(response("<base64>aGVs\nbG8=</base64>"));
+		assertTrue(Arrays.equals("hello".getBytes(), (byte[]) visitor.lastValue));
+	}
+
+	public void testReadDateTime() throws Exception {
+		Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		calendar.clear();
+		calendar.set(2016, Calendar.MARCH, 4, 5, 6, 7);
+		read(response("<dateTime.iso8601>20160304T05:06:07</dateTime.iso8601>"));
+		assertEquals(calendar.getTime(), visitor.lastValue);
+
+		visitor = new RecordingVisitor();
+		read(response("<dateTime.iso8601>2016-03-04T05:06:07</dateTime.iso8601>"));
+		assertEquals(calendar.getTime(), visitor.lastValue);
+
+		visitor = new RecordingVisitor();
+		try {
+			read(response("<dateTime.iso8601>invalid</dateTime.iso8601>"));
+			fail("Expected XmlRpcException");
+		} catch (XmlRpcException e) {
+			// expected
+		}
+	}
+
+	public void testReadNested() throws Exception {
+		String value = "<array><data>" //
+				+ "<value><struct>" //
+				+ "<member><name>id</name><value><i4>1</i4></value></member>" //
+				+ "<member><name>tags</name><value><array><data>" //
+				+ "<value>a</value><value><string>b</string></value>" //
+				+ "</data></array></value></member>" //
+				+ "</struct></value>" //
+				+ "<value><struct></struct></value>" //
+				+ "<value><array><data></data></array></value>" //
+				+ "</data></array>";
+		assertEquals("[{id=Integer:1;tags=[String:a;String:b;]}{}[]]", read(response(value)));
+	}
+
+	public void testReadWhitespace() throws Exception {
+		String value = "\n<struct>\n <member>\n  <name>id</name>\n  <value><i4>1</i4></value>\n </member>\n</struct>\n";
+		assertEquals("{id=Integer:1;}", read(response(value)));
+	}
+
+	public void testReadFault() throws Exception {
+		String response = "<?xml version=\"1.0\"?><methodResponse><fault><value><struct>"
+				+ "<member><name>faultString</name><value>No such handler: Test.noSuchMethod</value></member>"
+				+ "<member><name>faultCode</name><value><int>4</int></value></member>"
+				+ "</struct></value></fault></methodResponse>";
+		try {
+			read(response);
+			fail("Expected XmlRpcException");
+		} catch (XmlRpcException e) {
+			assertEquals(4, e.code);
+			assertEquals("No such handler: Test.noSuchMethod", e.getMessage());
+		}
+		assertEquals("", visitor.getResult());
+	}
+
+	public void testReadMalformed() throws Exception {
+		try {
+			read("<methodResponse><params><param><value><i4>1</i4>");
+			fail("Expected XmlRpcException");
+		} catch (XmlRpcException e) {
+			// expected
+		}
+		try {
+			read("<html><body>Error</body></html>");
+			fail("Expected XmlRpcException");
+		} catch (XmlRpcException e) {
+			// expected
+		}
+		try {
+			read(response("<i4>abc</i4>"));
+			fail("Expected XmlRpcException");
+		} catch (XmlRpcException e) {
+			// expected
+		}
+		try {
+			read(response("<unknown>1</unknown>"));
+			fail("Expected XmlRpcException");
+		} catch (XmlRpcException e) {
+			// expected
+		}
+	}
+
+	public void testReadDoesNotResolveExternalEntities() throws Exception {
+		String response = "<?xml version=\"1.0\"?><!DOCTYPE methodResponse [<!ENTITY e SYSTEM \"file:///etc/passwd\">]>"
+				+ "<methodResponse><params><param><value>&e;</value></param></params></methodResponse>";
+		try {
+			read(response);
+			fail("Expected XmlRpcException");
+		} catch (XmlRpcException e) {
+			// expected
+		}
+	}
+
+	public void testVisitorAbortsParsing() throws Exception {
+		visitor = new RecordingVisitor() {
+			@Override
+			public void value(Object value) {
+				throw new IllegalStateException();
+			}
+		};
+		try {
+			read(response("<array><data><value>a</value><value>b</value></data></array>"));
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	public void testReadLargeResponse() throws Exception {
+		StringBuilder sb = new StringBuilder("<array><data>");
+		for (int i = 0; i < 10000; i++) {
+			sb.append("<value><struct><member><name>id</name><value><i4>");
+			sb.append(i);
+			sb.append("</i4></value></member></struct></value>");
+		}
+		sb.append("</data></array>");
+		final int[] sum = new int[1];
+		int count = reader.read(new ByteArrayInputStream(response(sb.toString()).getBytes()),
+				new XmlRpcResponseVisitor<Integer>() {
+					private int count;
+
+					@Override
+					public Integer getResult() {
+						return count;
+					}
+
+					@Override
+					public void value(Object value) {
+						count++;
+						sum[0] += (Integer) value;
+					}
+				});
+		assertEquals(10000, count);
+		assertEquals(10000 * 9999 / 2, sum[0]);
+	}
+
+	public void testReadExtensionDateTime() throws Exception {
+		read(response("<ex:dateTime " + EXTENSIONS + ">2016-03-04T05:06:07Z</ex:dateTime>"));
+		assertTrue(visitor.lastValue instanceof Date);
+	}
+
+}
@@ -12,6 +12,9 @@
 
 package org.eclipse.mylyn.commons.tests.xmlrpc;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.xmlrpc.server.PropertyHandlerMapping;
 import org.apache.xmlrpc.server.XmlRpcServer;
 import org.apache.xmlrpc.webserver.WebServer;
@@ -26,6 +29,22 @@ public class XmlRpcTestServer {
 			return i;
 		}
 
+		/**
+		 * Returns <code>count</code> structs that resemble the results of a repository query.
+		 */
+		public Object[] query(int count) {
+			Object[] result = new Object[count];
+			for (int i = 0; i < count; i++) {
+				Map<String, Object> item = new HashMap<String, Object>();
+				item.put("id", i);
+				item.put("summary", "Summary of task " + i);
+				item.put("status", (i % 2 == 0) ? "NEW" : "RESOLVED");
+				item.put("keywords", new Object[] { "performance", "xmlrpc" });
+				result[i] = item;
+			}
+			return result;
+		}
+
 	}
 
 	private static WebServer webServer;
@@ -28,8 +28,11 @@ import org.apache.xmlrpc.XmlRpcException;
 import org.apache.xmlrpc.client.XmlRpcClient;
 import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
 import org.apache.xmlrpc.serializer.CharSetXmlWriterFactory;
+import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker;
+import org.eclipse.mylyn.commons.core.net.ExponentialBackoff;
 import org.eclipse.mylyn.commons.net.AbstractWebLocation;
 import org.eclipse.mylyn.commons.net.AuthenticationCredentials;
 import org.eclipse.mylyn.commons.net.AuthenticationType;
@@ -53,6 +56,10 @@ public class CommonXmlRpcClient {
 
 	private static final String DEFAULT_USER_AGENT = "Apache XML-RPC/3.0"; //$NON-NLS-1$
 
+	private static final int RETRY_DELAY_DEFAULT = 500;
+
+	private static final int RETRY_MAX_DELAY = 30 * 1000;
+
 	private static final String DEFAULT_CONTENT_TYPE = "text/xml"; //$NON-NLS-1$
 
 	private static HttpClient createHttpClient(String userAgent) {
@@ -65,6 +72,8 @@ public class CommonXmlRpcClient {
 
 	private final AuthScope authScope;
 
+	private volatile CircuitBreaker circuitBreaker = new CircuitBreaker();
+
 	private XmlRpcClientConfigImpl config;
 
 	volatile DigestScheme digestScheme;
@@ -81,6 +90,10 @@ public class CommonXmlRpcClient {
 
 	private volatile boolean contentTypeCheckingEnabled;
 
+	private volatile ExponentialBackoff retryBackoff = new ExponentialBackoff(RETRY_DELAY_DEFAULT, RETRY_MAX_DELAY);
+
+	private volatile int retryCount;
+
 	public CommonXmlRpcClient(AbstractWebLocation location) {
 		this(location, createHttpClient(DEFAULT_USER_AGENT));
 	}
@@ -103,6 +116,24 @@ public class CommonXmlRpcClient {
 		}.execute();
 	}
 
+	/**
+	 * Invokes <code>method</code> and reports the response to <code>visitor</code> while it is parsed. Unlike
+	 * {@link #call(IProgressMonitor, String, Object...)} the response is not converted into objects which lets callers
+	 * process large results incrementally.
+	 *
+	 * @return the result of the visitor
+	 * @see XmlRpcResponseReader
+	 */
+	public <T> T call(final IProgressMonitor monitor, final XmlRpcResponseVisitor<T> visitor, final String method,
+			final Object... parameters) throws XmlRpcException {
+		return new XmlRpcOperation<T>(this) {
+			@Override
+			public T execute() throws XmlRpcException {
+				return call(monitor, visitor, method, parameters);
+			}
+		}.execute();
+	}
+
 	public MulticallResult call(final IProgressMonitor monitor, final Multicall call) throws XmlRpcException {
 		return new XmlRpcOperation<MulticallResult>(this) {
 			@Override
@@ -181,6 +212,13 @@ public class CommonXmlRpcClient {
 		return xmlrpc;
 	}
 
+	/**
+	 * Returns the breaker that suspends calls after the server repeatedly failed to respond.
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
 	public HttpClient getHttpClient() {
 		return httpClient;
 	}
@@ -189,6 +227,20 @@ public class CommonXmlRpcClient {
 		return location;
 	}
 
+	/**
+	 * Returns the backoff between retries of calls that failed to connect.
+	 */
+	public ExponentialBackoff getRetryBackoff() {
+		return retryBackoff;
+	}
+
+	/**
+	 * Returns the number of retries of calls that failed to connect.
+	 */
+	public int getRetryCount() {
+		return retryCount;
+	}
+
 //	public boolean isProbed() {
 //		return probed;
 //	}
@@ -218,8 +270,34 @@ public class CommonXmlRpcClient {
 		return contentTypeCheckingEnabled;
 	}
 
+	/**
+	 * Sets the breaker that guards calls, e.g. to share the breaker of a repository location that is returned by
+	 * <code>HttpUtil.getCircuitBreaker(RepositoryLocation)</code> with other clients of the same server.
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		Assert.isNotNull(circuitBreaker);
+		this.circuitBreaker = circuitBreaker;
+	}
+
 	public void setContentTypeCheckingEnabled(boolean contentTypeCheckingEnabled) {
 		this.contentTypeCheckingEnabled = contentTypeCheckingEnabled;
 	}
 
+	/**
+	 * Sets the backoff between retries of calls that failed to connect, e.g. to the backoff of a repository location
+	 * that is returned by <code>HttpUtil.getRetryBackoff(RepositoryLocation)</code>.
+	 */
+	public void setRetryBackoff(ExponentialBackoff retryBackoff) {
+		Assert.isNotNull(retryBackoff);
+		this.retryBackoff = retryBackoff;
+	}
+
+	/**
+	 * Sets the number of retries of calls that failed to connect, e.g. to the count of a repository location that is
+	 * returned by <code>HttpUtil.getRetryCount(RepositoryLocation)</code>. Calls are not retried by default.
+	 */
+	public void setRetryCount(int retryCount) {
+		this.retryCount = Math.max(0, retryCount);
+	}
+
 }
\ No newline at end of file
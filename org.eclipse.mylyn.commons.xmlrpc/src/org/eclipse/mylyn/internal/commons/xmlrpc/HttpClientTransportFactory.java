@@ -72,6 +72,8 @@ class HttpClientTransportFactory implements XmlRpcTransportFactory {
 
 		private final HttpMethodInterceptor interceptor;
 
+		private XmlRpcResponseVisitor<?> visitor;
+
 		public HttpClientTransport(XmlRpcClient client, HttpClient httpClient, AbstractWebLocation location,
 				HttpMethodInterceptor interceptor) {
 			super(client, ""); //$NON-NLS-1$
@@ -121,8 +123,10 @@ class HttpClientTransportFactory implements XmlRpcTransportFactory {
 			if (request instanceof XmlRpcClientRequest) {
 				XmlRpcClientRequest clientRequest = (XmlRpcClientRequest) request;
 				monitor = clientRequest.getProgressMonitor();
+				visitor = clientRequest.getVisitor();
 			} else {
 				monitor = null;
+				visitor = null;
 			}
 
 			String url = config.getServerURL().toString();
@@ -152,6 +156,15 @@ class HttpClientTransportFactory implements XmlRpcTransportFactory {
 			return header != null && HttpUtil.isUsingGzipEncoding(header.getValue());
 		}
 
+		@Override
+		protected Object readResponse(XmlRpcStreamRequestConfig config, InputStream in) throws XmlRpcException {
+			if (visitor != null) {
+				// stream the response to the visitor instead of building an object tree
+				return new XmlRpcResponseReader(config.getTimeZone()).read(in, visitor);
+			}
+			return super.readResponse(config, in);
+		}
+
 		@Override
 		protected void setContentLength(int contentLength) {
 			this.contentLength = contentLength;
@@ -27,11 +27,19 @@ class XmlRpcClientRequest extends XmlRpcClientRequestImpl {
 
 	private final URL url;
 
+	private final XmlRpcResponseVisitor<?> visitor;
+
 	public XmlRpcClientRequest(XmlRpcRequestConfig config, URL url, String methodName, Object[] params,
 			IProgressMonitor monitor) {
+		this(config, url, methodName, params, monitor, null);
+	}
+
+	public XmlRpcClientRequest(XmlRpcRequestConfig config, URL url, String methodName, Object[] params,
+			IProgressMonitor monitor, XmlRpcResponseVisitor<?> visitor) {
 		super(config, methodName, params);
 		this.url = url;
 		this.progressMonitor = monitor;
+		this.visitor = visitor;
 	}
 
 	public IProgressMonitor getProgressMonitor() {
@@ -42,4 +50,11 @@ class XmlRpcClientRequest extends XmlRpcClientRequestImpl {
 		return url;
 	}
 
+	/**
+	 * Returns the visitor that receives the response, or <code>null</code> if the response is returned as objects.
+	 */
+	public XmlRpcResponseVisitor<?> getVisitor() {
+		return visitor;
+	}
+
 }
@@ -12,18 +12,26 @@
 
 package org.eclipse.mylyn.internal.commons.xmlrpc;
 
+import java.io.IOException;
+import java.net.ConnectException;
 import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
 import java.net.URL;
+import java.net.UnknownHostException;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import org.apache.commons.httpclient.ConnectTimeoutException;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.auth.AuthScheme;
 import org.apache.commons.httpclient.auth.NTLMScheme;
 import org.apache.xmlrpc.XmlRpcException;
+import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.mylyn.commons.core.CoreUtil;
+import org.eclipse.mylyn.commons.core.net.CircuitBreaker;
+import org.eclipse.mylyn.commons.core.net.CircuitOpenException;
 import org.eclipse.mylyn.commons.net.AuthenticationCredentials;
 import org.eclipse.mylyn.commons.net.AuthenticationType;
 import org.eclipse.mylyn.commons.net.Policy;
@@ -34,6 +42,8 @@ import org.eclipse.mylyn.commons.net.UnsupportedRequestException;
  */
 public abstract class XmlRpcOperation<T> {
 
+	private static final long RETRY_POLL_INTERVAL = 100;
+
 	private static final Pattern RPC_METHOD_NOT_FOUND_PATTERN = Pattern.compile("No such handler: "); //$NON-NLS-1$
 
 	protected static final int XML_FAULT_GENERAL_ERROR = 1;
@@ -47,6 +57,23 @@ public abstract class XmlRpcOperation<T> {
 	}
 
 	protected Object call(IProgressMonitor monitor, String method, Object... parameters) throws XmlRpcException {
+		return callWithRetry(monitor, null, method, parameters);
+	}
+
+	/**
+	 * Invokes <code>method</code> and streams the response to <code>visitor</code> instead of returning it as objects.
+	 *
+	 * @return the result of the visitor
+	 */
+	@SuppressWarnings("unchecked")
+	protected <R> R call(IProgressMonitor monitor, XmlRpcResponseVisitor<R> visitor, String method,
+			Object... parameters) throws XmlRpcException {
+		Assert.isNotNull(visitor);
+		return (R) callWithRetry(monitor, visitor, method, parameters);
+	}
+
+	private Object callWithRetry(IProgressMonitor monitor, XmlRpcResponseVisitor<?> visitor, String method,
+			Object... parameters) throws XmlRpcException {
 		monitor = Policy.monitorFor(monitor);
 		XmlRpcException lastException = null;
 		for (int attempt = 0; attempt < 3; attempt++) {
@@ -59,7 +86,7 @@ public abstract class XmlRpcOperation<T> {
 //			}
 
 			try {
-				return executeCall(monitor, method, parameters);
+				return executeGuardedCall(monitor, visitor, method, parameters);
 			} catch (XmlRpcLoginException e) {
 				try {
 					client.getLocation().requestCredentials(AuthenticationType.REPOSITORY, null, monitor);
@@ -122,6 +149,15 @@ public abstract class XmlRpcOperation<T> {
 	public abstract T execute() throws XmlRpcException;
 
 	protected Object executeCall(IProgressMonitor monitor, String method, Object... parameters) throws XmlRpcException {
+		return executeCall(monitor, null, method, parameters);
+	}
+
+	/**
+	 * @param visitor
+	 *            the visitor that receives the response, or <code>null</code> to return the response as objects
+	 */
+	protected Object executeCall(IProgressMonitor monitor, XmlRpcResponseVisitor<?> visitor, String method,
+			Object... parameters) throws XmlRpcException {
 		try {
 			if (CommonXmlRpcClient.DEBUG_XMLRPC) {
 				System.err.println("Calling " + client.getLocation().getUrl() + ": " + method + " " + CoreUtil.toString(parameters)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -129,7 +165,7 @@ public abstract class XmlRpcOperation<T> {
 
 			AuthenticationCredentials credentials = client.updateCredentials();
 			XmlRpcClientRequest request = new XmlRpcClientRequest(client.getClient().getClientConfig(),
-					getXmlRpcUrl(credentials), method, parameters, monitor);
+					getXmlRpcUrl(credentials), method, parameters, monitor, visitor);
 			return client.getClient().execute(request);
 		} catch (XmlRpcHttpException e) {
 			handleAuthenticationException(e.code, e.getAuthScheme());
@@ -156,6 +192,54 @@ public abstract class XmlRpcOperation<T> {
 		}
 	}
 
+	/**
+	 * Invokes {@link #executeCall(IProgressMonitor, String, Object...)} unless the circuit breaker of the client is
+	 * open and reports the outcome to the breaker. Calls that fail to connect are retried as configured by
+	 * {@link CommonXmlRpcClient#setRetryCount(int)}; other failures are not retried since calls may not be idempotent.
+	 * Canceled calls are not counted as failures.
+	 */
+	private Object executeGuardedCall(IProgressMonitor monitor, XmlRpcResponseVisitor<?> visitor, String method,
+			Object... parameters) throws XmlRpcException {
+		int retries = client.getRetryCount();
+		for (int attempt = 0;; attempt++) {
+			CircuitBreaker breaker = client.getCircuitBreaker();
+			long permit;
+			try {
+				permit = breaker.acquire();
+			} catch (CircuitOpenException e) {
+				throw new XmlRpcException(e.getMessage(), e);
+			}
+			try {
+				// only pass the visitor if present to retain overrides of the original method
+				Object result = (visitor != null)
+						? executeCall(monitor, visitor, method, parameters)
+						: executeCall(monitor, method, parameters);
+				breaker.recordSuccess(permit);
+				return result;
+			} catch (XmlRpcException e) {
+				if (monitor.isCanceled()) {
+					breaker.release(permit);
+					throw e;
+				} else if (isServerUnavailable(e)) {
+					breaker.recordFailure(permit);
+				} else if (e instanceof XmlRpcHttpException || !isIOException(e)) {
+					// the server responded
+					breaker.recordSuccess(permit);
+				} else {
+					// a read timeout may be caused by a slow call rather than an unavailable server
+					breaker.release(permit);
+				}
+				if (attempt >= retries || !isConnectFailure(e)) {
+					throw e;
+				}
+			} catch (RuntimeException e) {
+				breaker.release(permit);
+				throw e;
+			}
+			sleep(client.getRetryBackoff().getDelay(attempt), monitor);
+		}
+	}
+
 	protected final CommonXmlRpcClient getClient() {
 		return client;
 	}
@@ -196,6 +280,38 @@ public abstract class XmlRpcOperation<T> {
 		return false;
 	}
 
+	/**
+	 * Returns true, if <code>e</code> was caused by a failure to connect which guarantees that the call did not reach
+	 * the server.
+	 */
+	private boolean isConnectFailure(XmlRpcException e) {
+		for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+					|| cause instanceof ConnectTimeoutException || cause instanceof UnknownHostException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isServerUnavailable(XmlRpcException e) {
+		if (e instanceof XmlRpcHttpException) {
+			int code = ((XmlRpcHttpException) e).code;
+			return code == HttpStatus.SC_BAD_GATEWAY || code == HttpStatus.SC_SERVICE_UNAVAILABLE
+					|| code == HttpStatus.SC_GATEWAY_TIMEOUT;
+		}
+		return isConnectFailure(e);
+	}
+
+	private boolean isIOException(XmlRpcException e) {
+		for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+			if (cause instanceof IOException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	protected boolean isNoSuchMethodException(XmlRpcException e) {
 		if (RPC_METHOD_NOT_FOUND_PATTERN.matcher(e.getMessage()).find()) {
 			return true;
@@ -203,6 +319,21 @@ public abstract class XmlRpcOperation<T> {
 		return false;
 	}
 
+	private void sleep(long delay, IProgressMonitor monitor) throws XmlRpcException {
+		long end = System.currentTimeMillis() + delay;
+		try {
+			for (long remaining = delay; remaining > 0; remaining = end - System.currentTimeMillis()) {
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				Thread.sleep(Math.min(remaining, RETRY_POLL_INTERVAL));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new XmlRpcException("Interrupted while waiting to retry", e); //$NON-NLS-1$
+		}
+	}
+
 //	protected Object[] multicall(IProgressMonitor monitor, Map<String, Object>... calls) throws XmlRpcException {
 //		Object[] result = (Object[]) call(monitor, "system.multicall", new Object[] { calls }); //$NON-NLS-1$
 //		for (Object item : result) {
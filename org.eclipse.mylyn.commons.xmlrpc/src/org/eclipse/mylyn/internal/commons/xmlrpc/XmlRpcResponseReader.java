@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.xmlrpc;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Base64;
+import java.util.Date;
+import java.util.TimeZone;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xmlrpc.XmlRpcException;
+
+/**
+ * Parses an XML-RPC <code>methodResponse</code> with a StAX pull parser and reports the returned value to an
+ * {@link XmlRpcResponseVisitor}. Memory use is bounded by the nesting depth and the largest scalar value of the
+ * response rather than by its total size.
+ * <p>
+ * The types of the XML-RPC specification are supported as well as the <code>nil</code>, <code>i1</code>,
+ * <code>i2</code>, <code>i8</code>, <code>float</code>, <code>bigdecimal</code>, <code>biginteger</code> and
+ * <code>dateTime</code> extensions of Apache XML-RPC. A fault response is reported as an {@link XmlRpcException} that
+ * carries the fault code and fault string. Instances are not thread-safe.
+ */
+public class XmlRpcResponseReader {
+
+	/**
+	 * Collects the fault code and fault string of a fault response.
+	 */
+	private static class FaultVisitor extends XmlRpcResponseVisitor<XmlRpcException> {
+
+		private int depth;
+
+		private String faultCode;
+
+		private String faultString;
+
+		private String member;
+
+		@Override
+		public void endArray() {
+			depth--;
+		}
+
+		@Override
+		public void endStruct() {
+			depth--;
+		}
+
+		@Override
+		public XmlRpcException getResult() {
+			int code = 0;
+			if (faultCode != null) {
+				try {
+					code = Integer.parseInt(faultCode);
+				} catch (NumberFormatException e) {
+					// ignore
+				}
+			}
+			return new XmlRpcException(code, faultString);
+		}
+
+		@Override
+		public void member(String name) {
+			if (depth == 1) {
+				member = name;
+			}
+		}
+
+		@Override
+		public void startArray() {
+			depth++;
+		}
+
+		@Override
+		public void startStruct() {
+			depth++;
+		}
+
+		@Override
+		public void value(Object value) {
+			if (depth == 1) {
+				if ("faultCode".equals(member)) { //$NON-NLS-1$
+					faultCode = String.valueOf(value);
+				} else if ("faultString".equals(member)) { //$NON-NLS-1$
+					faultString = String.valueOf(value);
+				}
+			}
+		}
+
+	}
+
+	private static final String DATE_TIME_FORMAT = "yyyyMMdd'T'HH:mm:ss"; //$NON-NLS-1$
+
+	private static final XMLInputFactory inputFactory;
+
+	static {
+		inputFactory = XMLInputFactory.newInstance();
+		// responses are untrusted, do not resolve DTDs or external entities
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+	}
+
+	private SimpleDateFormat dateFormat;
+
+	private DatatypeFactory datatypeFactory;
+
+	private final StringBuilder text = new StringBuilder();
+
+	private final TimeZone timeZone;
+
+	/**
+	 * @param timeZone
+	 *            the time zone of <code>dateTime.iso8601</code> values; if <code>null</code>, the default time zone
+	 *            is used
+	 */
+	public XmlRpcResponseReader(TimeZone timeZone) {
+		this.timeZone = (timeZone != null) ? timeZone : TimeZone.getDefault();
+	}
+
+	/**
+	 * Parses the response read from <code>in</code> and reports its value to <code>visitor</code>. The stream is not
+	 * closed.
+	 *
+	 * @return the result of the visitor
+	 * @throws XmlRpcException
+	 *             if the response is a fault, is malformed or the visitor failed
+	 */
+	public <T> T read(InputStream in, XmlRpcResponseVisitor<T> visitor) throws XmlRpcException {
+		XMLStreamReader reader = null;
+		try {
+			reader = inputFactory.createXMLStreamReader(in);
+			reader.nextTag();
+			expectStart(reader, "methodResponse"); //$NON-NLS-1$
+			reader.nextTag();
+			if (isStart(reader, "params")) { //$NON-NLS-1$
+				reader.nextTag();
+				expectStart(reader, "param"); //$NON-NLS-1$
+				reader.nextTag();
+				expectStart(reader, "value"); //$NON-NLS-1$
+				readValue(reader, visitor);
+				return visitor.getResult();
+			} else if (isStart(reader, "fault")) { //$NON-NLS-1$
+				reader.nextTag();
+				expectStart(reader, "value"); //$NON-NLS-1$
+				FaultVisitor faultVisitor = new FaultVisitor();
+				readValue(reader, faultVisitor);
+				throw faultVisitor.getResult();
+			}
+			throw new XmlRpcException("Failed to parse server's response: Expected params or fault, got " //$NON-NLS-1$
+					+ reader.getLocalName());
+		} catch (XMLStreamException e) {
+			throw new XmlRpcException("Failed to parse server's response: " + e.getMessage(), e); //$NON-NLS-1$
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private void expectStart(XMLStreamReader reader, String name) throws XmlRpcException {
+		if (!isStart(reader, name)) {
+			throw new XmlRpcException("Failed to parse server's response: Expected " + name + ", got " //$NON-NLS-1$ //$NON-NLS-2$
+					+ ((reader.isStartElement() || reader.isEndElement()) ? reader.getLocalName() : "text")); //$NON-NLS-1$
+		}
+	}
+
+	private boolean isStart(XMLStreamReader reader, String name) {
+		return reader.isStartElement() && name.equals(reader.getLocalName());
+	}
+
+	private Date parseDate(String value) throws XmlRpcException {
+		if (dateFormat == null) {
+			dateFormat = new SimpleDateFormat(DATE_TIME_FORMAT);
+			dateFormat.setLenient(false);
+			dateFormat.setTimeZone(timeZone);
+		}
+		// some servers include separators in the date part
+		String date = (value.indexOf('-') != -1) ? value.replace("-", "") : value; //$NON-NLS-1$ //$NON-NLS-2$
+		ParsePosition position = new ParsePosition(0);
+		Date result = dateFormat.parse(date, position);
+		if (result == null || position.getIndex() != date.length()) {
+			throw new XmlRpcException("Failed to parse dateTime value: " + value); //$NON-NLS-1$
+		}
+		return result;
+	}
+
+	private Object parseScalar(String type, String value) throws XmlRpcException {
+		try {
+			if ("string".equals(type)) { //$NON-NLS-1$
+				return value;
+			} else if ("int".equals(type) || "i4".equals(type)) { //$NON-NLS-1$ //$NON-NLS-2$
+				return Integer.valueOf(value.trim());
+			} else if ("boolean".equals(type)) { //$NON-NLS-1$
+				String trimmed = value.trim();
+				if ("1".equals(trimmed)) { //$NON-NLS-1$
+					return Boolean.TRUE;
+				} else if ("0".equals(trimmed)) { //$NON-NLS-1$
+					return Boolean.FALSE;
+				}
+				throw new XmlRpcException("Failed to parse boolean value: " + value); //$NON-NLS-1$
+			} else if ("double".equals(type)) { //$NON-NLS-1$
+				return Double.valueOf(value.trim());
+			} else if ("dateTime.iso8601".equals(type)) { //$NON-NLS-1$
+				return parseDate(value.trim());
+			} else if ("base64".equals(type)) { //$NON-NLS-1$
+				return Base64.getMimeDecoder().decode(value);
+			} else if ("i8".equals(type)) { //$NON-NLS-1$
+				return Long.valueOf(value.trim());
+			} else if ("i1".equals(type)) { //$NON-NLS-1$
+				return Byte.valueOf(value.trim());
+			} else if ("i2".equals(type)) { //$NON-NLS-1$
+				return Short.valueOf(value.trim());
+			} else if ("float".equals(type)) { //$NON-NLS-1$
+				return Float.valueOf(value.trim());
+			} else if ("bigdecimal".equals(type)) { //$NON-NLS-1$
+				return new BigDecimal(value.trim());
+			} else if ("biginteger".equals(type)) { //$NON-NLS-1$
+				return new BigInteger(value.trim());
+			} else if ("dateTime".equals(type)) { //$NON-NLS-1$
+				if (datatypeFactory == null) {
+					datatypeFactory = DatatypeFactory.newInstance();
+				}
+				return datatypeFactory.newXMLGregorianCalendar(value.trim()).toGregorianCalendar().getTime();
+			}
+		} catch (IllegalArgumentException e) {
+			// includes NumberFormatException
+			throw new XmlRpcException("Failed to parse " + type + " value: " + value, e); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (DatatypeConfigurationException e) {
+			throw new XmlRpcException("Failed to parse " + type + " value: " + value, e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		throw new XmlRpcException("Unsupported type: " + type); //$NON-NLS-1$
+	}
+
+	private void readArray(XMLStreamReader reader, XmlRpcResponseVisitor<?> visitor) throws XMLStreamException,
+			XmlRpcException {
+		visitor.startArray();
+		reader.nextTag();
+		expectStart(reader, "data"); //$NON-NLS-1$
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			expectStart(reader, "value"); //$NON-NLS-1$
+			readValue(reader, visitor);
+		}
+		// end of data
+		reader.nextTag();
+		visitor.endArray();
+	}
+
+	private void readStruct(XMLStreamReader reader, XmlRpcResponseVisitor<?> visitor) throws XMLStreamException,
+			XmlRpcException {
+		visitor.startStruct();
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			expectStart(reader, "member"); //$NON-NLS-1$
+			reader.nextTag();
+			expectStart(reader, "name"); //$NON-NLS-1$
+			visitor.member(reader.getElementText());
+			reader.nextTag();
+			expectStart(reader, "value"); //$NON-NLS-1$
+			readValue(reader, visitor);
+			// end of member
+			reader.nextTag();
+		}
+		visitor.endStruct();
+	}
+
+	/**
+	 * Reads the content of a <code>value</code> element. On return the reader is positioned at the end of the element.
+	 */
+	private void readValue(XMLStreamReader reader, XmlRpcResponseVisitor<?> visitor) throws XMLStreamException,
+			XmlRpcException {
+		text.setLength(0);
+		while (true) {
+			int event = reader.next();
+			switch (event) {
+			case XMLStreamConstants.START_ELEMENT:
+				String type = reader.getLocalName();
+				if ("struct".equals(type)) { //$NON-NLS-1$
+					readStruct(reader, visitor);
+				} else if ("array".equals(type)) { //$NON-NLS-1$
+					readArray(reader, visitor);
+				} else if ("nil".equals(type)) { //$NON-NLS-1$
+					reader.getElementText();
+					visitor.value(null);
+				} else {
+					visitor.value(parseScalar(type, reader.getElementText()));
+				}
+				// end of value
+				reader.nextTag();
+				return;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				// a value without type is a string
+				visitor.value(text.toString());
+				return;
+			case XMLStreamConstants.END_DOCUMENT:
+				throw new XmlRpcException("Failed to parse server's response: Unexpected end of document"); //$NON-NLS-1$
+			default:
+				// ignore comments and processing instructions
+			}
+		}
+	}
+
+}
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ *     Tasktop Technologies - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.commons.xmlrpc;
+
+import org.apache.xmlrpc.XmlRpcException;
+
+/**
+ * Receives the value of an XML-RPC response while it is parsed by {@link XmlRpcResponseReader}. Unlike the default
+ * response handling no object graph is built for the response, which lets callers process large results incrementally
+ * and retain only what they need.
+ * <p>
+ * Arrays and structs are reported through matching start and end callbacks. Each struct member is announced through
+ * {@link #member(String)} before its value is reported. Scalar values are passed to {@link #value(Object)} as the
+ * same types that {@link org.apache.xmlrpc.client.XmlRpcClient} returns, e.g. {@link Integer}, {@link String},
+ * {@link java.util.Date} or <code>byte[]</code>, and <code>null</code> for <code>nil</code>. Callbacks may throw
+ * {@link XmlRpcException} to abort parsing.
+ *
+ * @see CommonXmlRpcClient#call(org.eclipse.core.runtime.IProgressMonitor, XmlRpcResponseVisitor, String, Object...)
+ */
+public abstract class XmlRpcResponseVisitor<T> {
+
+	public void endArray() throws XmlRpcException {
+	}
+
+	public void endStruct() throws XmlRpcException {
+	}
+
+	/**
+	 * Returns the result of the call after the response has been parsed.
+	 */
+	public abstract T getResult() throws XmlRpcException;
+
+	/**
+	 * Invoked for each member of a struct before the value of the member is reported.
+	 */
+	public void member(String name) throws XmlRpcException {
+	}
+
+	public void startArray() throws XmlRpcException {
+	}
+
+	public void startStruct() throws XmlRpcException {
+	}
+
+	public void value(Object value) throws XmlRpcException {
+	}
+
+}
@@ -25,8 +25,9 @@ import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -44,6 +45,7 @@ import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.mylyn.commons.core.StatusHandler;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
 import org.eclipse.mylyn.internal.discovery.core.DiscoveryCore;
 import org.eclipse.mylyn.internal.discovery.core.util.WebUtil;
 import org.eclipse.osgi.service.resolver.VersionRange;
@@ -352,12 +354,20 @@ public class ConnectorDiscovery {
 		monitor.beginTask(Messages.ConnectorDiscovery_task_verifyingAvailability, totalTicks);
 		try {
 			if (!urlToDescriptors.isEmpty()) {
-				ExecutorService executorService = Executors.newFixedThreadPool(Math.min(urlToDescriptors.size(), 4));
+				ExecutorService executorService = OperationUtil.getExecutorService(OperationUtil.EXECUTOR_DISCOVERY);
+				List<Future<VerifyUpdateSiteJob>> futures = new ArrayList<Future<VerifyUpdateSiteJob>>(
+						urlToDescriptors.size());
 				try {
-					List<Future<VerifyUpdateSiteJob>> futures = new ArrayList<Future<VerifyUpdateSiteJob>>(
-							urlToDescriptors.size());
 					for (String url : urlToDescriptors.keySet()) {
-						futures.add(executorService.submit(new VerifyUpdateSiteJob(url)));
+						FutureTask<VerifyUpdateSiteJob> job = new FutureTask<VerifyUpdateSiteJob>(
+								new VerifyUpdateSiteJob(url));
+						try {
+							executorService.execute(job);
+						} catch (RejectedExecutionException e) {
+							// the shared executor is saturated, verify in the current thread instead
+							job.run();
+						}
+						futures.add(job);
 					}
 					for (Future<VerifyUpdateSiteJob> jobFuture : futures) {
 						try {
@@ -391,7 +401,10 @@ public class ConnectorDiscovery {
 						monitor.worked(1);
 					}
 				} finally {
-					executorService.shutdownNow();
+					// the executor is shared, cancel jobs that are still pending or running
+					for (Future<VerifyUpdateSiteJob> jobFuture : futures) {
+						jobFuture.cancel(true);
+					}
 				}
 			}
 		} finally {
@@ -24,8 +24,9 @@ import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -42,6 +43,7 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.mylyn.commons.core.StatusHandler;
+import org.eclipse.mylyn.commons.core.operations.OperationUtil;
 import org.eclipse.mylyn.internal.discovery.core.DiscoveryCore;
 import org.eclipse.mylyn.internal.discovery.core.model.Directory.Entry;
 import org.eclipse.mylyn.internal.discovery.core.util.WebUtil;
@@ -136,12 +138,20 @@ public class RemoteBundleDiscoveryStrategy extends BundleDiscoveryStrategy {
 
 			Map<File, Directory.Entry> bundleFileToDirectoryEntry = new HashMap<File, Directory.Entry>();
 
-			ExecutorService executorService = createExecutorService(directory.getEntries().size());
+			ExecutorService executorService = OperationUtil.getExecutorService(OperationUtil.EXECUTOR_DISCOVERY);
+			List<Future<DownloadBundleJob>> futures = new ArrayList<Future<DownloadBundleJob>>();
 			try {
-				List<Future<DownloadBundleJob>> futures = new ArrayList<Future<DownloadBundleJob>>();
 				// submit jobs
 				for (Directory.Entry entry : directory.getEntries()) {
-					futures.add(executorService.submit(new DownloadBundleJob(entry, monitor)));
+					FutureTask<DownloadBundleJob> job = new FutureTask<DownloadBundleJob>(new DownloadBundleJob(entry,
+							monitor));
+					try {
+						executorService.execute(job);
+					} catch (RejectedExecutionException e) {
+						// the shared executor is saturated, download in the current thread instead
+						job.run();
+					}
+					futures.add(job);
 				}
 				int futureSize = ticksTenPercent * 4 / directory.getEntries().size();
 				// collect job results
@@ -183,7 +193,10 @@ public class RemoteBundleDiscoveryStrategy extends BundleDiscoveryStrategy {
 					}
 				}
 			} finally {
-				executorService.shutdownNow();
+				// the executor is shared, cancel jobs that are still pending or running
+				for (Future<DownloadBundleJob> job : futures) {
+					job.cancel(true);
+				}
 			}
 
 			try {
@@ -261,11 +274,6 @@ public class RemoteBundleDiscoveryStrategy extends BundleDiscoveryStrategy {
 		}
 	}
 
-	private ExecutorService createExecutorService(int size) {
-		final int maxThreads = 4;
-		return Executors.newFixedThreadPool(Math.min(size, maxThreads));
-	}
-
 	/**
 	 * walk the exception chain to determine if the given exception or any of its underlying causes are an
 	 * {@link UnknownHostException}.